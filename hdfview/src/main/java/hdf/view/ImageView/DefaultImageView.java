@@ -50,9 +50,14 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Vector;
 
+import hdf.object.Dataset;
+import hdf.object.Datatype;
+import hdf.object.DirectDataBuffer;
+import hdf.object.FramePrefetcher;
 import hdf.object.Group;
 import hdf.object.HObject;
 import hdf.object.ScalarDS;
+import hdf.object.Utils;
 import hdf.view.Chart;
 import hdf.view.DataView.DataViewFactory;
 import hdf.view.DataView.DataViewFactoryProducer;
@@ -253,6 +258,9 @@ public class DefaultImageView implements ImageView {
     private long curFrame = 0;
     private long maxFrame = 1;
 
+    /** Reads the frames around the current frame in the background. */
+    private FramePrefetcher framePrefetcher = null;
+
     private BufferedImage bufferedImage;
 
     private ContrastSlider contrastSlider;
@@ -323,6 +331,9 @@ public class DefaultImageView implements ImageView {
                     dataset.clearData();
                 }
 
+                if (framePrefetcher != null)
+                    framePrefetcher.close();
+
                 if (curFont != null)
                     curFont.dispose();
 
@@ -820,7 +831,7 @@ public class DefaultImageView implements ImageView {
                 // Call only once
                 if (dataDist == null) {
                     dataDist = new int[256];
-                    Tools.findDataDist(data, dataDist, originalRange);
+                    Tools.findDataDist(data, dataDist, originalRange, dataset.getDatatype().isUnsigned());
                 }
 
                 DataRangeDialog drd =
@@ -1043,8 +1054,9 @@ public class DefaultImageView implements ImageView {
                     if (theData == null)
                         theData = data;
 
-                    Tools.findMinMax(theData, minmax, dataset.getFillValue());
-                    if (Tools.computeStatistics(theData, stat, dataset.getFillValue()) > 0) {
+                    boolean isUnsigned = dataset.getDatatype().isUnsigned();
+                    Tools.findMinMax(theData, minmax, dataset.getFillValue(), isUnsigned);
+                    if (Tools.computeStatistics(theData, stat, dataset.getFillValue(), isUnsigned) > 0) {
                         String statistics = "Min                      = " + minmax[0] +
                                             "\nMax                      = " + minmax[1] +
                                             "\nMean                     = " + stat[0] +
@@ -1466,7 +1478,15 @@ public class DefaultImageView implements ImageView {
             doAutoGainContrast = false;
 
         if (dataset.getDatatype().isInteger() || dataset.getDatatype().isChar()) {
-            data                = dataset.convertFromUnsignedC();
+            data = dataset.convertFromUnsignedC();
+
+            // the auto-contrast code works on unsigned data converted to a wider type; when the dataset
+            // keeps unsigned data in its C type, convert a copy for the image only
+            Datatype dtype = dataset.getDatatype();
+            if (dataset.isUnsignedView() && dtype.isUnsigned() &&
+                (DirectDataBuffer.getElementSize(Utils.getJavaObjectRuntimeClass(data)) ==
+                 dtype.getDatatypeSize()))
+                data = Dataset.convertFromUnsignedC(data);
             isUnsignedConverted = true;
             doAutoGainContrast =
                 doAutoGainContrast || (ViewProperties.isAutoContrast() && noPalette && isLocalFile);
@@ -2131,9 +2151,19 @@ public class DefaultImageView implements ImageView {
         dataset.clearData();
         image    = null;
         gainBias = null;
+
+        // use the frame read in the background, if any
+        if ((framePrefetcher == null) && !isTrueColor && FramePrefetcher.isSupported(dataset))
+            framePrefetcher = new FramePrefetcher(dataset);
+        if (framePrefetcher != null)
+            framePrefetcher.loadFrame(idx);
+
         imageComponent.setImage(getImage());
         frameField.setText(String.valueOf(curFrame));
 
+        if (framePrefetcher != null)
+            framePrefetcher.prefetchAround(idx);
+
         isHorizontalFlipped = false;
         isVerticalFlipped   = false;
         rotateCount         = 0;
@@ -3669,6 +3699,9 @@ public class DefaultImageView implements ImageView {
             numberOfImages = (int)dims[selectedIndex[2]];
             frames         = new org.eclipse.swt.graphics.Image[numberOfImages];
 
+            // average the pixels behind each frame pixel, unless they are palette indices
+            boolean isMean = (dataset.getPalette() == null);
+
             BufferedImage frameImage;
             try {
                 for (int i = 0; i < numberOfImages; i++) {
@@ -3676,7 +3709,11 @@ public class DefaultImageView implements ImageView {
 
                     dataset.clearData();
                     try {
-                        data3d = dataset.read();
+                        if (isMean)
+                            data3d = dataset.readDownsampled(ScalarDS.DownsampleMode.MEAN,
+                                                             ViewProperties.MAX_DOWNSAMPLE_POINTS);
+                        else
+                            data3d = dataset.read();
                     }
                     catch (Exception err) {
                         continue;
@@ -3685,7 +3722,8 @@ public class DefaultImageView implements ImageView {
                     byteData = new byte[size];
 
                     byteData = Tools.getBytes(data3d, dataRange, w, h, false,
-                                              dataset.getFilteredImageValues(), true, byteData);
+                                              dataset.getFilteredImageValues(), true, byteData, null,
+                                              dataset.getDatatype().isUnsigned());
 
                     frameImage = (BufferedImage)createIndexedImage(byteData, imagePalette, w, h);
                     frames[i]  = convertBufferedImageToSWTImage(frameImage);
@@ -3828,7 +3866,8 @@ public class DefaultImageView implements ImageView {
             }
             else {
                 if (minmaxOriginal[0] == minmaxOriginal[1])
-                    Tools.findMinMax(data, minmaxOriginal, dataset.getFillValue());
+                    Tools.findMinMax(data, minmaxOriginal, dataset.getFillValue(),
+                                     dataset.getDatatype().isUnsigned());
 
                 minmaxCurrent[0] = minmaxOriginal[0];
                 minmaxCurrent[1] = minmaxOriginal[1];
@@ -875,8 +875,10 @@ public abstract class DefaultBaseMetaDataView implements MetaDataView {
         numAttributes++;
         attrNumberLabel.setText("Number of attributes = " + numAttributes);
 
-        if (viewManager.getTreeView() instanceof DefaultTreeView)
+        if (viewManager.getTreeView() instanceof DefaultTreeView) {
             ((DefaultTreeView)viewManager.getTreeView()).updateItemIcon(obj);
+            ((DefaultTreeView)viewManager.getTreeView()).updateSearchIndex(obj);
+        }
 
         return attr;
     }
@@ -924,8 +926,10 @@ public abstract class DefaultBaseMetaDataView implements MetaDataView {
 
         attrNumberLabel.setText("Number of attributes = " + numAttributes);
 
-        if (viewManager.getTreeView() instanceof DefaultTreeView)
+        if (viewManager.getTreeView() instanceof DefaultTreeView) {
             ((DefaultTreeView)viewManager.getTreeView()).updateItemIcon(obj);
+            ((DefaultTreeView)viewManager.getTreeView()).updateSearchIndex(obj);
+        }
 
         return attr;
     }
@@ -973,6 +977,9 @@ public abstract class DefaultBaseMetaDataView implements MetaDataView {
                 Tools.showError(display.getShells()[0], "Delete", ex.getMessage());
             }
         }
+
+        if (viewManager.getTreeView() instanceof DefaultTreeView)
+            ((DefaultTreeView)viewManager.getTreeView()).updateSearchIndex(dataObject);
     }
 
     /**
@@ -1162,6 +1169,9 @@ public abstract class DefaultBaseMetaDataView implements MetaDataView {
             return;
         }
 
+        if (viewManager.getTreeView() instanceof DefaultTreeView)
+            ((DefaultTreeView)viewManager.getTreeView()).updateSearchIndex(dataObject);
+
         /* Update the attribute table */
         int selectionIndex = attrTable.getSelectionIndex();
         if (selectionIndex < 0) {
@@ -21,6 +21,10 @@ import hdf.object.Dataset;
 import hdf.object.Datatype;
 import hdf.object.HObject;
 import hdf.object.ScalarDS;
+import hdf.object.h5.H5ChunkCache;
+import hdf.object.h5.H5ChunkMap;
+import hdf.object.h5.H5CompoundDS;
+import hdf.object.h5.H5ScalarDS;
 import hdf.view.DataView.DataViewManager;
 import hdf.view.Tools;
 
@@ -258,6 +262,76 @@ public class DefaultDatasetMetaDataView extends DefaultLinkMetaDataView implemen
             labelInfo = "UNKNOWN";
         label.setText(labelInfo);
 
+        /* Dataset chunk cache section */
+        H5ChunkCache chunkCache = null;
+        if (d instanceof H5ScalarDS)
+            chunkCache = ((H5ScalarDS)d).getChunkCache();
+        else if (d instanceof H5CompoundDS)
+            chunkCache = ((H5CompoundDS)d).getChunkCache();
+        if ((chunkCache != null) && (d.getChunkSize() != null)) {
+            label = new Label(datasetLayoutGroup, SWT.LEFT);
+            label.setFont(curFont);
+            label.setText("Chunk Cache: ");
+
+            label = new Label(datasetLayoutGroup, SWT.RIGHT);
+            label.setFont(curFont);
+            label.setText(chunkCache.getBytes() + " bytes, " + chunkCache.getSlots() + " slots, w0 = " +
+                          chunkCache.getPreemption());
+
+            label = new Label(datasetLayoutGroup, SWT.LEFT);
+            label.setFont(curFont);
+            label.setText("Chunk Cache Hits: ");
+
+            long hits   = chunkCache.getHits();
+            long misses = chunkCache.getMisses();
+            labelInfo   = hits + " hits, " + misses + " misses (estimated)";
+            if (hits + misses > 0)
+                labelInfo += String.format(", %.1f%% hit rate", 100 * chunkCache.getHitRate());
+
+            label = new Label(datasetLayoutGroup, SWT.RIGHT);
+            label.setFont(curFont);
+            label.setText(labelInfo);
+        }
+
+        /*
+         * Dataset chunk allocation and compression section, from the chunk index only. Scanning the
+         * chunk index of a large dataset takes a while, so it is only done on request.
+         */
+        if (((d instanceof H5ScalarDS) || (d instanceof H5CompoundDS)) && (d.getChunkSize() != null)) {
+            label = new Label(datasetLayoutGroup, SWT.LEFT);
+            label.setFont(curFont);
+            label.setText("Allocated Chunks: ");
+
+            Composite chunkMapPane = new Composite(datasetLayoutGroup, SWT.NONE);
+            chunkMapPane.setLayout(new GridLayout(2, false));
+            chunkMapPane.setLayoutData(new GridData(SWT.END, SWT.CENTER, true, false));
+
+            final Label allocatedLabel = new Label(chunkMapPane, SWT.RIGHT);
+            allocatedLabel.setFont(curFont);
+            allocatedLabel.setText("not scanned");
+
+            label = new Label(datasetLayoutGroup, SWT.LEFT);
+            label.setFont(curFont);
+            label.setText("Chunk Compression Ratios: ");
+
+            final Label ratioLabel = new Label(datasetLayoutGroup, SWT.RIGHT);
+            ratioLabel.setFont(curFont);
+            ratioLabel.setText("");
+
+            final Button scanButton = new Button(chunkMapPane, SWT.PUSH);
+            scanButton.setFont(curFont);
+            scanButton.setText("Scan Chunk Index");
+            scanButton.addSelectionListener(new SelectionAdapter() {
+                @Override
+                public void widgetSelected(SelectionEvent e)
+                {
+                    showChunkMap(d, allocatedLabel, ratioLabel);
+                    scanButton.dispose();
+                    datasetLayoutGroup.layout(true, true);
+                }
+            });
+        }
+
         /* Dataset fill value info section */
         label = new Label(datasetLayoutGroup, SWT.LEFT);
         label.setFont(curFont);
@@ -395,4 +469,61 @@ public class DefaultDatasetMetaDataView extends DefaultLinkMetaDataView implemen
             datasetLayoutGroup.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, false, 2, 1));
         }
     }
+
+    /*
+     * Scans the chunk index of a dataset and shows the number of allocated chunks and their
+     * compression ratios in the given labels.
+     */
+    private void showChunkMap(Dataset d, Label allocatedLabel, Label ratioLabel)
+    {
+        H5ChunkMap chunkMap = null;
+        display.getShells()[0].setCursor(display.getSystemCursor(SWT.CURSOR_WAIT));
+        try {
+            chunkMap = H5ChunkMap.getChunkMap(d);
+        }
+        catch (Exception ex) {
+            log.debug("showChunkMap(): failed to read the chunk index: ", ex);
+        }
+        finally {
+            display.getShells()[0].setCursor(null);
+        }
+
+        if (chunkMap == null) {
+            allocatedLabel.setText("UNKNOWN");
+            return;
+        }
+
+        allocatedLabel.setText(String.format("%d of %d (%.1f%%)", chunkMap.getAllocatedChunks(),
+                                             chunkMap.getTotalChunks(),
+                                             100 * chunkMap.getAllocatedFraction()));
+        if (chunkMap.getAllocatedChunks() > 0)
+            ratioLabel.setText(getRatioInfo(chunkMap));
+    }
+
+    /*
+     * Formats the range of the chunk compression ratios and the number of chunks per ratio class.
+     */
+    private static String getRatioInfo(H5ChunkMap chunkMap)
+    {
+        StringBuilder info = new StringBuilder();
+        info.append(String.format("%.2f to %.2f, overall %.2f;", chunkMap.getMinRatio(),
+                                  chunkMap.getMaxRatio(), chunkMap.getRatio()));
+
+        double[] bounds = H5ChunkMap.RATIO_BOUNDS;
+        long[] counts   = chunkMap.getRatioHistogram();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0)
+                continue;
+
+            if (i == 0)
+                info.append(String.format(" <%.0f: ", bounds[0]));
+            else if (i == bounds.length)
+                info.append(String.format(" >=%.0f: ", bounds[i - 1]));
+            else
+                info.append(String.format(" %.0f-%.0f: ", bounds[i - 1], bounds[i]));
+            info.append(counts[i]);
+        }
+
+        return info.toString();
+    }
 }
@@ -24,9 +24,15 @@ import java.util.StringTokenizer;
 import hdf.object.CompoundDataFormat;
 import hdf.object.DataFormat;
 import hdf.object.Datatype;
+import hdf.object.DirectDataBuffer;
+import hdf.object.FileFormat;
 import hdf.object.HObject;
+import hdf.object.QuadFloatBuffer;
 import hdf.object.Utils;
+import hdf.object.VarLenArena;
 import hdf.object.h5.H5Datatype;
+import hdf.object.h5.H5File;
+import hdf.object.h5.H5ReferenceCache;
 import hdf.object.h5.H5ReferenceType;
 import hdf.view.Tools;
 
@@ -163,6 +169,11 @@ public class DataProviderFactory {
         /** the row. */
         protected long rowCount;
 
+        /** the size of unsigned integers which are read as unsigned from a buffer of the same size, or 0. */
+        protected long unsignedViewSize = 0;
+        /** if unsigned integers are kept in a buffer of the same size and read as unsigned. */
+        protected boolean isUnsignedView = false;
+
         /**
          * Create the HDF extended Data Display Provider for the supplied data object.
          *
@@ -252,6 +263,10 @@ public class DataProviderFactory {
                 int bufIndex = physicalLocationToBufIndex(rowIndex, columnIndex);
                 if (dataBuf instanceof ArrayList)
                     theValue = ((ArrayList)dataBuf).get(bufIndex);
+                else if (dataBuf instanceof QuadFloatBuffer)
+                    theValue = ((QuadFloatBuffer)dataBuf).get(bufIndex);
+                else if (dataBuf instanceof VarLenArena)
+                    theValue = ((VarLenArena)dataBuf).get(bufIndex);
                 else
                     theValue = Array.get(dataBuf, bufIndex);
             }
@@ -319,6 +334,10 @@ public class DataProviderFactory {
             try {
                 if (obj instanceof ArrayList)
                     theValue = ((ArrayList)obj).get(index);
+                else if (obj instanceof QuadFloatBuffer)
+                    theValue = ((QuadFloatBuffer)obj).get(index);
+                else if (obj instanceof VarLenArena)
+                    theValue = ((VarLenArena)obj).get(index);
                 else
                     theValue = Array.get(obj, index);
             }
@@ -427,6 +446,16 @@ public class DataProviderFactory {
                 return;
             }
 
+            // values wider than a double are edited with double precision
+            if (bufObject instanceof QuadFloatBuffer) {
+                QuadFloatBuffer quadBuf = (QuadFloatBuffer)bufObject;
+                if (!newValue.equals(String.valueOf(quadBuf.get(bufIndex)))) {
+                    quadBuf.setDouble(bufIndex, Double.parseDouble((String)newValue));
+                    isValueChanged = true;
+                }
+                return;
+            }
+
             // No need to update if values are the same
             int bufsize = Array.getLength(bufObject);
             log.trace("updateAtomicValue(): bufObject size is {}", bufsize);
@@ -447,17 +476,26 @@ public class DataProviderFactory {
             switch (runtimeTypeClass) {
             case 'B':
                 byte bvalue = 0;
-                bvalue      = Byte.parseByte((String)newValue);
+                if (isUnsignedView)
+                    bvalue = (byte)parseUnsigned((String)newValue, 0xFFL);
+                else
+                    bvalue = Byte.parseByte((String)newValue);
                 Array.setByte(bufObject, bufIndex, bvalue);
                 break;
             case 'S':
                 short svalue = 0;
-                svalue       = Short.parseShort((String)newValue);
+                if (isUnsignedView)
+                    svalue = (short)parseUnsigned((String)newValue, 0xFFFFL);
+                else
+                    svalue = Short.parseShort((String)newValue);
                 Array.setShort(bufObject, bufIndex, svalue);
                 break;
             case 'I':
                 int ivalue = 0;
-                ivalue     = Integer.parseInt((String)newValue);
+                if (isUnsignedView)
+                    ivalue = (int)parseUnsigned((String)newValue, 0xFFFFFFFFL);
+                else
+                    ivalue = Integer.parseInt((String)newValue);
                 Array.setInt(bufObject, bufIndex, ivalue);
                 break;
             case 'J':
@@ -530,6 +568,17 @@ public class DataProviderFactory {
             isValueChanged = true;
         }
 
+        /*
+         * Parses an unsigned integer value which is stored in a signed Java type of the same size.
+         */
+        private static long parseUnsigned(String value, long max)
+        {
+            long lvalue = Long.parseLong(value);
+            if ((lvalue < 0) || (lvalue > max))
+                throw new NumberFormatException("Value out of range. Value:\"" + value + "\"");
+            return lvalue;
+        }
+
         @Override
         public int getColumnCount()
         {
@@ -568,6 +617,11 @@ public class DataProviderFactory {
         {
             this.dataBuf = newBuf;
 
+            // the new buffer may or may not have been converted to a wider type
+            isUnsignedView = (unsignedViewSize > 0) &&
+                             (DirectDataBuffer.getElementSize(Utils.getJavaObjectRuntimeClass(newBuf)) ==
+                              unsignedViewSize);
+
             if (rank > 1) {
                 rowCount = dataFormatReference.getHeight();
                 colCount = dataFormatReference.getWidth();
@@ -1431,7 +1485,7 @@ public class DataProviderFactory {
             buffer.setLength(0);
 
             try {
-                long vlSize = Array.getLength(obj);
+                long vlSize = getVlCount(obj);
                 log.trace("getDataValue(): vlSize={} obj={}", vlSize, obj);
 
                 if (baseTypeDataProvider instanceof CompoundDataProvider) {
@@ -1539,7 +1593,7 @@ public class DataProviderFactory {
 
         private Object[] retrieveArrayOfAtomicElements(Object objBuf, int rowStartIdx)
         {
-            ArrayList vlElements = ((ArrayList[])objBuf)[rowStartIdx];
+            ArrayList vlElements = getVlElements(objBuf, rowStartIdx);
             long vlSize          = vlElements.size();
             log.trace("retrieveArrayOfAtomicElements(): vlSize={}", vlSize);
             Object[] tempArray = new Object[(int)vlSize];
@@ -1563,7 +1617,7 @@ public class DataProviderFactory {
             try {
                 int bufIndex = physicalLocationToBufIndex(rowIndex, columnIndex);
 
-                long vlSize = Array.getLength(dataBuf);
+                long vlSize = getVlCount(dataBuf);
                 log.trace("setDataValue(): vlSize={}", vlSize);
 
                 updateArrayElements(dataBuf, newValue, columnIndex, rowIndex);
@@ -1580,7 +1634,7 @@ public class DataProviderFactory {
         public void setDataValue(int columnIndex, int rowIndex, Object bufObject, Object newValue)
         {
             try {
-                long vlSize = Array.getLength(bufObject);
+                long vlSize = getVlCount(bufObject);
                 log.trace("setDataValue(): vlSize={} for [c{}, r{}]", vlSize, columnIndex, rowIndex);
 
                 updateArrayElements(bufObject, newValue, columnIndex, rowIndex);
@@ -1603,7 +1657,7 @@ public class DataProviderFactory {
 
         private void updateArrayElements(Object curBuf, Object newValue, int columnIndex, int rowStartIndex)
         {
-            long vlSize = Array.getLength(curBuf);
+            long vlSize = getVlCount(curBuf);
             log.trace("updateArrayElements(): vlSize={}", vlSize);
 
             if (baseTypeDataProvider instanceof CompoundDataProvider)
@@ -1680,7 +1734,7 @@ public class DataProviderFactory {
 
         private void updateArrayOfAtomicElements(Object newValue, Object curBuf, int rowStartIdx)
         {
-            ArrayList vlElements = ((ArrayList[])curBuf)[rowStartIdx];
+            ArrayList vlElements = getVlElements(curBuf, rowStartIdx);
             long vlSize          = vlElements.size();
             log.trace("updateArrayOfAtomicElements(): vlSize={}", vlSize);
 
@@ -1722,7 +1776,32 @@ public class DataProviderFactory {
             log.trace("updateArrayOfAtomicElements(): abuffer cname={} of data cname={}", bname, cname);
             vlElements = new ArrayList<>(Arrays.asList(abuffer));
             log.trace("updateArrayOfAtomicElements(): new vlSize={}", vlElements.size());
-            ((ArrayList[])curBuf)[rowStartIdx] = vlElements;
+            if (curBuf instanceof VarLenArena)
+                ((VarLenArena)curBuf).set(rowStartIdx, vlElements);
+            else
+                ((ArrayList[])curBuf)[rowStartIdx] = vlElements;
+        }
+
+        /*
+         * Returns the sequence of a row from an array of ArrayList or a VarLenArena.
+         */
+        private ArrayList getVlElements(Object buf, int rowIndex)
+        {
+            if (buf instanceof VarLenArena)
+                return ((VarLenArena)buf).getList(rowIndex);
+
+            return ((ArrayList[])buf)[rowIndex];
+        }
+
+        /*
+         * Returns the number of rows of an array of ArrayList or a VarLenArena.
+         */
+        private long getVlCount(Object buf)
+        {
+            if (buf instanceof VarLenArena)
+                return ((VarLenArena)buf).getSize();
+
+            return Array.getLength(buf);
         }
     }
 
@@ -1795,6 +1874,9 @@ public class DataProviderFactory {
             if (curBuf instanceof String[]) {
                 Array.set(curBuf, bufStartIndex, newValue);
             }
+            else if (curBuf instanceof VarLenArena) {
+                ((VarLenArena)curBuf).set(bufStartIndex, newValue);
+            }
             else if (curBuf instanceof byte[]) {
                 // Update String using data represented as a byte[]
                 int strLen           = (int)typeSize;
@@ -1858,6 +1940,28 @@ public class DataProviderFactory {
             typeSize = dtype.getDatatypeSize();
             isUINT64 = dtype.isUnsigned() && (typeSize == 8);
             isFLT16  = dtype.isFloat() && (typeSize == 2);
+
+            // unsigned data which was not converted to a wider type is read as unsigned on access
+            if (dtype.isUnsigned() && dtype.isInteger() && (typeSize < 8))
+                unsignedViewSize = typeSize;
+            isUnsignedView = (unsignedViewSize > 0) &&
+                             (DirectDataBuffer.getElementSize(Utils.getJavaObjectRuntimeClass(dataBuf)) ==
+                              unsignedViewSize);
+        }
+
+        /*
+         * Widens a value of an unsigned view to the next wider type.
+         */
+        private Object toUnsignedValue(Object value)
+        {
+            if (value instanceof Byte)
+                return Short.valueOf((short)Byte.toUnsignedInt((Byte)value));
+            else if (value instanceof Short)
+                return Integer.valueOf(Short.toUnsignedInt((Short)value));
+            else if (value instanceof Integer)
+                return Long.valueOf(Integer.toUnsignedLong((Integer)value));
+
+            return value;
         }
 
         @Override
@@ -1876,6 +1980,8 @@ public class DataProviderFactory {
                 }
                 else if (isUINT64)
                     theValue = Tools.convertUINT64toBigInt(Long.valueOf((long)theValue));
+                else if (isUnsignedView)
+                    theValue = toUnsignedValue(theValue);
             }
             catch (Exception ex) {
                 log.debug("getDataValue({}, {}): failure: ", rowIndex, columnIndex, ex);
@@ -1903,6 +2009,8 @@ public class DataProviderFactory {
                 }
                 else if (isUINT64)
                     theValue = Tools.convertUINT64toBigInt(Long.valueOf((long)theValue));
+                else if (isUnsignedView)
+                    theValue = toUnsignedValue(theValue);
             }
             catch (Exception ex) {
                 log.debug("getDataValue({}): failure: ", index, ex);
@@ -2052,9 +2160,15 @@ public class DataProviderFactory {
     private static class RefDataProvider extends HDFDataProvider {
         private static final Logger log = LoggerFactory.getLogger(RefDataProvider.class);
 
+        /** The number of rows resolved at once when a reference is not in the cache yet. */
+        private static final int RESOLVE_BLOCK_SIZE = 256;
+
         private final long typeSize;
         private final H5Datatype h5dtype;
 
+        /** The reference cache of the file, or null if the file is not an HDF5 file. */
+        private final H5ReferenceCache refCache;
+
         RefDataProvider(final Datatype dtype, final Object dataBuf, final boolean dataTransposed)
             throws Exception
         {
@@ -2063,6 +2177,9 @@ public class DataProviderFactory {
             h5dtype  = (H5Datatype)dtype;
             typeSize = h5dtype.getDatatypeSize();
             log.trace("typeSize={}=", typeSize);
+
+            FileFormat file = ((HObject)dataFormatReference).getFileFormat();
+            refCache        = (file instanceof H5File) ? ((H5File)file).getReferenceCache() : null;
         }
 
         @Override
@@ -2080,6 +2197,9 @@ public class DataProviderFactory {
                 else
                     rElements = (byte[])dataBuf;
 
+                if (!h5dtype.isStdRef() && (h5dtype.isRegRef() || h5dtype.isRefObj()))
+                    resolveBlock(bufIndex);
+
                 if (h5dtype.isStdRef())
                     theValue = populateReference(rElements, 0);
                 else if (h5dtype.isRegRef())
@@ -2130,6 +2250,31 @@ public class DataProviderFactory {
             return theValue;
         }
 
+        /*
+         * Resolves the references of the block of rows around a reference which is not cached yet, so
+         * that the cells drawn next are found in the cache.
+         */
+        private void resolveBlock(int bufIndex)
+        {
+            if ((refCache == null) || !(dataBuf instanceof List))
+                return;
+
+            List<?> refs = (List<?>)dataBuf;
+            byte[] ref   = (byte[])refs.get(bufIndex);
+            if (H5Datatype.zeroArrayCheck(ref) ||
+                (h5dtype.isRegRef() ? refCache.containsRegion(ref) : refCache.containsObject(ref)))
+                return;
+
+            int start          = bufIndex - bufIndex % RESOLVE_BLOCK_SIZE;
+            int end            = Math.min(start + RESOLVE_BLOCK_SIZE, refs.size());
+            List<byte[]> block = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++)
+                block.add((byte[])refs.get(i));
+
+            int n = h5dtype.isRegRef() ? refCache.resolveRegions(block) : refCache.resolveObjects(block);
+            log.trace("resolveBlock({}): resolved {} references of rows {} to {}", bufIndex, n, start, end);
+        }
+
         private String populateReference(Object byteBuf, int startIndex)
         {
             byte[] rElements = new byte[(int)typeSize];
@@ -2162,6 +2307,8 @@ public class DataProviderFactory {
             String regionStr = null;
             if (H5Datatype.zeroArrayCheck(rElements))
                 regionStr = "NULL";
+            else if (refCache != null)
+                regionStr = refCache.getRegionDescription(rElements);
             else
                 regionStr = H5Datatype.descRegionDataset(fid, rElements);
             log.trace("populateReferenceRegion regionStr={}", regionStr);
@@ -2183,6 +2330,8 @@ public class DataProviderFactory {
             String objectStr = null;
             if (H5Datatype.zeroArrayCheck(rElements))
                 objectStr = "NULL";
+            else if (refCache != null)
+                objectStr = refCache.getObjectDescription(rElements);
             else
                 objectStr = H5Datatype.descReferenceObject(fid, rElements);
             log.trace("populateReferenceObject objectStr={}", objectStr);
@@ -45,6 +45,7 @@ import hdf.object.DataFormat;
 import hdf.object.Dataset;
 import hdf.object.Datatype;
 import hdf.object.FileFormat;
+import hdf.object.FramePrefetcher;
 import hdf.object.Group;
 import hdf.object.HObject;
 import hdf.object.ScalarDS;
@@ -210,6 +211,9 @@ public abstract class DefaultBaseTableView implements TableView {
     private long curDataFrame = 0;
     private long maxDataFrame = 1;
 
+    /** Reads the frames around the current frame in the background. */
+    private FramePrefetcher framePrefetcher = null;
+
     /** The index base used for display row and column numbers of data. */
     protected int indexBase = 0;
 
@@ -325,6 +329,9 @@ public abstract class DefaultBaseTableView implements TableView {
                     }
                 }
 
+                if (framePrefetcher != null)
+                    framePrefetcher.close();
+
                 dataValue = null;
                 dataTable = null;
 
@@ -957,8 +964,8 @@ public abstract class DefaultBaseTableView implements TableView {
                     double[] minmax = new double[2];
                     double[] stat   = new double[2];
 
-                    Tools.findMinMax(theData, minmax, fillValue);
-                    if (Tools.computeStatistics(theData, stat, fillValue) > 0) {
+                    Tools.findMinMax(theData, minmax, fillValue, isUnsignedView());
+                    if (Tools.computeStatistics(theData, stat, fillValue, isUnsignedView()) > 0) {
                         String stats = "Min                      = " + minmax[0] +
                                        "\nMax                      = " + minmax[1] +
                                        "\nMean                     = " + stat[0] +
@@ -1419,9 +1426,16 @@ public abstract class DefaultBaseTableView implements TableView {
 
         dataObject.clearData();
 
+        if ((framePrefetcher == null) && FramePrefetcher.isSupported(dataObject))
+            framePrefetcher = new FramePrefetcher((Dataset)dataObject);
+
         shell.setCursor(display.getSystemCursor(SWT.CURSOR_WAIT));
 
         try {
+            // use the frame read in the background, if any
+            if (framePrefetcher != null)
+                framePrefetcher.loadFrame(idx);
+
             dataValue = dataObject.getData();
 
             /*
@@ -1449,6 +1463,9 @@ public abstract class DefaultBaseTableView implements TableView {
         dataProvider.updateDataBuffer(dataValue);
 
         dataTable.doCommand(new VisualRefreshCommand());
+
+        if ((framePrefetcher != null) && (dataValue != null))
+            framePrefetcher.prefetchAround(idx);
     }
 
     /**
@@ -2059,10 +2076,18 @@ public abstract class DefaultBaseTableView implements TableView {
             return;
         }
 
+        // convert unsigned values to a wider type for the math and back to the original type afterwards
+        boolean isUnsigned = isUnsignedView();
+        if (isUnsigned)
+            theData = Dataset.convertFromUnsignedC(theData);
+
         MathConversionDialog dialog = new MathConversionDialog(shell, theData);
         dialog.open();
 
         if (dialog.isConverted()) {
+            if (isUnsigned)
+                theData = Dataset.convertToUnsignedC(theData);
+
             if (dataObject instanceof CompoundDS) {
                 Object colData = null;
                 try {
@@ -2110,6 +2135,15 @@ public abstract class DefaultBaseTableView implements TableView {
         }
     }
 
+    /*
+     * Returns true if the data of the table is unsigned integer data kept in its original C-type buffer.
+     */
+    private boolean isUnsignedView()
+    {
+        return (dataObject instanceof ScalarDS) && ((ScalarDS)dataObject).isUnsignedView() &&
+               dataObject.getDatatype().isUnsigned();
+    }
+
     private void showLineplot()
     {
         // Since NatTable returns the selected row positions as a Set<Range>, convert
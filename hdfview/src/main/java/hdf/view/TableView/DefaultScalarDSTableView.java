@@ -18,6 +18,7 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -31,13 +32,17 @@ import hdf.object.Dataset;
 import hdf.object.Datatype;
 import hdf.object.FileFormat;
 import hdf.object.HObject;
+import hdf.object.QuadFloatBuffer;
 import hdf.object.ScalarDS;
 import hdf.object.Utils;
+import hdf.object.VarLenArena;
+import hdf.object.h5.H5AllocationMap;
 import hdf.object.h5.H5Datatype;
 import hdf.object.h5.H5File;
 import hdf.object.h5.H5ReferenceType;
 import hdf.object.h5.H5ReferenceType.H5ReferenceData;
 import hdf.object.h5.H5ScalarAttr;
+import hdf.object.h5.H5ScalarDS;
 import hdf.view.DataView.DataViewManager;
 import hdf.view.HDFView;
 import hdf.view.Tools;
@@ -51,8 +56,11 @@ import org.slf4j.LoggerFactory;
 
 import org.eclipse.nebula.widgets.nattable.NatTable;
 import org.eclipse.nebula.widgets.nattable.command.VisualRefreshCommand;
+import org.eclipse.nebula.widgets.nattable.config.AbstractRegistryConfiguration;
+import org.eclipse.nebula.widgets.nattable.config.CellConfigAttributes;
 import org.eclipse.nebula.widgets.nattable.config.DefaultNatTableStyleConfiguration;
 import org.eclipse.nebula.widgets.nattable.config.EditableRule;
+import org.eclipse.nebula.widgets.nattable.config.IConfigRegistry;
 import org.eclipse.nebula.widgets.nattable.config.IEditableRule;
 import org.eclipse.nebula.widgets.nattable.coordinate.PositionCoordinate;
 import org.eclipse.nebula.widgets.nattable.coordinate.Range;
@@ -69,6 +77,9 @@ import org.eclipse.nebula.widgets.nattable.layer.event.ILayerEvent;
 import org.eclipse.nebula.widgets.nattable.selection.SelectionLayer;
 import org.eclipse.nebula.widgets.nattable.selection.command.SelectCellCommand;
 import org.eclipse.nebula.widgets.nattable.selection.event.CellSelectionEvent;
+import org.eclipse.nebula.widgets.nattable.style.CellStyleAttributes;
+import org.eclipse.nebula.widgets.nattable.style.DisplayMode;
+import org.eclipse.nebula.widgets.nattable.style.Style;
 import org.eclipse.nebula.widgets.nattable.viewport.ViewportLayer;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.ScrolledComposite;
@@ -77,6 +88,7 @@ import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.MenuItem;
 import org.eclipse.swt.widgets.Shell;
@@ -87,6 +99,9 @@ import org.eclipse.swt.widgets.Shell;
 public class DefaultScalarDSTableView extends DefaultBaseTableView implements TableView {
     private static final Logger log = LoggerFactory.getLogger(DefaultScalarDSTableView.class);
 
+    /** The config label of cells in unallocated chunks, which only hold the fill value. */
+    private static final String UNALLOCATED_CELL_LABEL = "UNALLOCATED_CELL";
+
     /**
      * Constructs a ScalarDS TableView with no additional data properties.
      *
@@ -163,6 +178,9 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
                 indexBaseGroup.setText(title);
             }
 
+            // keep unsigned integers in their original buffer; the data provider reads them as unsigned
+            if (dataObject instanceof ScalarDS)
+                ((ScalarDS)dataObject).setUnsignedView(true);
             dataObject.convertFromUnsignedC();
 
             dataValue = dataObject.getData();
@@ -677,6 +695,19 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
             return null;
         }
 
+        // mark the cells in unallocated chunks, which only hold the fill value
+        if (dataObject instanceof H5ScalarDS) {
+            final H5ScalarDS h5dset = (H5ScalarDS)dataObject;
+            dataLayer.setConfigLabelAccumulator((configLabels, columnPosition, rowPosition) -> {
+                H5AllocationMap allocationMap = h5dset.getAllocationMap();
+                if ((allocationMap == null) || allocationMap.isFullyAllocated())
+                    return;
+                int index = dataProvider.physicalLocationToBufIndex(rowPosition, columnPosition);
+                if (!allocationMap.isAllocated(index))
+                    configLabels.addLabel(UNALLOCATED_CELL_LABEL);
+            });
+        }
+
         selectionLayer                    = new SelectionLayer(dataLayer);
         final ViewportLayer viewportLayer = new ViewportLayer(selectionLayer);
 
@@ -713,6 +744,19 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
         if (isStdRef || isRegRef || isObjRef)
             natTable.addConfiguration(new RefContextMenu(natTable));
 
+        natTable.addConfiguration(new AbstractRegistryConfiguration() {
+            @Override
+            public void configureRegistry(IConfigRegistry configRegistry)
+            {
+                Style cellStyle = new Style();
+                cellStyle.setAttributeValue(
+                    CellStyleAttributes.BACKGROUND_COLOR,
+                    Display.getCurrent().getSystemColor(SWT.COLOR_WIDGET_LIGHT_SHADOW));
+                configRegistry.registerConfigAttribute(CellConfigAttributes.CELL_STYLE, cellStyle,
+                                                       DisplayMode.NORMAL, UNALLOCATED_CELL_LABEL);
+            }
+        });
+
         natTable.configure();
 
         return natTable;
@@ -875,8 +919,12 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
             return;
         }
 
-        String objref =
-            H5Datatype.descReferenceObject(((HObject)dataObject).getFileFormat().getFID(), refarr);
+        FileFormat file = ((HObject)dataObject).getFileFormat();
+        String objref   = null;
+        if (file instanceof H5File)
+            objref = ((H5File)file).getReferenceCache().getObjectDescription(refarr);
+        else
+            objref = H5Datatype.descReferenceObject(file.getFID(), refarr);
         log.trace("showObjRefData(): start: objref={}", objref);
 
         // find the object location
@@ -994,8 +1042,11 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
         }
 
         String reg = null;
-        if (refarr.length == HDF5Constants.H5R_DSET_REG_REF_BUF_SIZE)
-            reg = H5Datatype.descRegionDataset(((HObject)dataObject).getFileFormat().getFID(), refarr);
+        FileFormat file = ((HObject)dataObject).getFileFormat();
+        if ((refarr.length == HDF5Constants.H5R_DSET_REG_REF_BUF_SIZE) && (file instanceof H5File))
+            reg = ((H5File)file).getReferenceCache().getRegionDescription(refarr);
+        else if (refarr.length == HDF5Constants.H5R_DSET_REG_REF_BUF_SIZE)
+            reg = H5Datatype.descRegionDataset(file.getFID(), refarr);
         else
             reg = ((H5ReferenceType)dataObject.getDatatype()).getReferenceRegion(refarr, false);
 
@@ -1038,6 +1089,10 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
         ScalarDS dset     = (ScalarDS)obj;
         ScalarDS dsetCopy = null;
 
+        // read the values at all points of a point selection at once
+        Object pointValues = isPointSelection ? readRegionPoints(dset, regStr) : null;
+        int pointIndex     = 0;
+
         // create an instance of the dataset constructor
         Constructor<? extends ScalarDS> constructor = null;
         Object[] paramObj                           = null;
@@ -1085,6 +1140,8 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
             int idx        = 0;
             String sizeStr = null;
             String token   = st.nextToken();
+            String region  = token;
+            int point      = pointIndex++;
 
             token = token.replace('(', ' ');
             token = token.replace(')', ' ');
@@ -1118,6 +1175,11 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
                 }
             }
 
+            Object regionValue = isPointSelection ? getPointValue(pointValues, point)
+                                                  : readRegionBlock(dset, region);
+            if (regionValue != null)
+                dsetCopy.loadSelectionData(regionValue);
+
             try {
                 dsetCopy.getData();
             }
@@ -1190,6 +1252,76 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
         } // (st.hasMoreTokens())
     }     // end of showRegRefData()
 
+    /*
+     * Reads the values at the points of a point selection with one read. Returns null if the values
+     * have to be read point by point.
+     */
+    @SuppressWarnings("rawtypes")
+    private Object readRegionPoints(ScalarDS dset, String regStr)
+    {
+        int nPoints   = new StringTokenizer(regStr).countTokens();
+        Object values = null;
+        try {
+            values = dset.readRegion(regStr);
+        }
+        catch (Exception ex) {
+            log.debug("readRegionPoints(): failed to read {} points: ", nPoints, ex);
+            return null;
+        }
+
+        // keep only buffers with one value per point
+        int n = -1;
+        if (values instanceof List)
+            n = ((List)values).size();
+        else if (values instanceof QuadFloatBuffer)
+            n = (int)((QuadFloatBuffer)values).getSize();
+        else if ((values != null) && values.getClass().isArray())
+            n = Array.getLength(values);
+
+        return (n == nPoints) ? values : null;
+    }
+
+    /*
+     * Reads the values of one block of a region selection with readRegion(). Returns null if the block
+     * has to be read through the selection of the dataset copy.
+     */
+    private Object readRegionBlock(ScalarDS dset, String region)
+    {
+        try {
+            return dset.readRegion(region);
+        }
+        catch (Exception ex) {
+            log.debug("readRegionBlock(): failed to read block {}: ", region, ex);
+            return null;
+        }
+    }
+
+    /*
+     * Returns a buffer holding the value at one point of the values read by readRegionPoints().
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static Object getPointValue(Object values, int index)
+    {
+        if (values instanceof List)
+            return (index < ((List)values).size()) ? new ArrayList(((List)values).subList(index, index + 1))
+                                                   : null;
+        if (values instanceof QuadFloatBuffer) {
+            QuadFloatBuffer quad = (QuadFloatBuffer)values;
+            int size             = quad.getFormat().getSize();
+            return (index < quad.getSize())
+                ? new QuadFloatBuffer(Arrays.copyOfRange(quad.getBytes(), index * size, (index + 1) * size),
+                                      quad.getFormat())
+                : null;
+        }
+        if ((values == null) || (index >= Array.getLength(values)))
+            return null;
+
+        Object value = Array.newInstance(values.getClass().getComponentType(), 1);
+        System.arraycopy(values, index, value, 0, 1);
+
+        return value;
+    }
+
     /**
      * Display data pointed to by references. Data of each reference is shown in
      * a separate spreadsheet. The std. ref. information is stored in bytes
@@ -1533,8 +1665,7 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
                     boolean displayValues = ViewProperties.showRegRefValues();
 
                     if (displayValues && val != null && ((String)val).compareTo("NULL") != 0) {
-                        String reg               = (String)val;
-                        boolean isPointSelection = (reg.indexOf('-') <= 0);
+                        String reg = (String)val;
 
                         // find the object location
                         String oidStr = reg.substring(reg.indexOf('/'), reg.indexOf(' '));
@@ -1576,217 +1707,18 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
                                             "ScalarDSCellSelectionListener:RegRef CellSelected: reference dset did not init()",
                                             ex);
                                     }
-                                    StringBuilder strvalSB = new StringBuilder();
-
-                                    int idx = 0;
-                                    while (st.hasMoreTokens()) {
-                                        int spaceType = dset.getSpaceType();
-                                        int rank      = dset.getRank();
-                                        long[] start  = dset.getStartDims();
-                                        long[] count  = dset.getSelectedDims();
-                                        // long count[] = new long[rank];
-
-                                        // set the selected dimension sizes
-                                        // based on the region selection
-                                        // info.
-                                        String sizeStr = null;
-                                        String token   = st.nextToken();
-
-                                        token = token.replace('(', ' ');
-                                        token = token.replace(')', ' ');
-                                        if (isPointSelection) {
-                                            // point selection
-                                            String[] tmp = token.split(",");
-                                            for (int x = 0; x < tmp.length; x++) {
-                                                count[x] = 1;
-                                                sizeStr  = tmp[x].trim();
-                                                start[x] = Long.valueOf(sizeStr);
-                                                log.trace(
-                                                    "ScalarDSCellSelectionListener:RegRef CellSelected: point sel={}",
-                                                    tmp[x]);
-                                            }
-                                        }
-                                        else {
-                                            // rectangle selection
-                                            String startStr = token.substring(0, token.indexOf('-'));
-                                            String endStr   = token.substring(token.indexOf('-') + 1);
-                                            log.trace(
-                                                "ScalarDSCellSelectionListener:RegRef CellSelected: rect sel with startStr={} endStr={}",
-                                                startStr, endStr);
-                                            String[] tmp = startStr.split(",");
-                                            log.trace(
-                                                "ScalarDSCellSelectionListener:RegRef CellSelected: tmp with length={} rank={}",
-                                                tmp.length, rank);
-                                            for (int x = 0; x < tmp.length; x++) {
-                                                sizeStr  = tmp[x].trim();
-                                                start[x] = Long.valueOf(sizeStr);
-                                                log.trace(
-                                                    "ScalarDSCellSelectionListener:RegRef CellSelected: rect start={}",
-                                                    tmp[x]);
-                                            }
-                                            tmp = endStr.split(",");
-                                            for (int x = 0; x < tmp.length; x++) {
-                                                sizeStr  = tmp[x].trim();
-                                                count[x] = Long.valueOf(sizeStr) - start[x] + 1;
-                                                log.trace(
-                                                    "ScalarDSCellSelectionListener:RegRef CellSelected: rect end={} count={}",
-                                                    tmp[x], count[x]);
-                                            }
-                                        }
-
-                                        Object dbuf = null;
-                                        try {
-                                            dbuf = dset.getData();
-                                        }
-                                        catch (Exception ex) {
-                                            Tools.showError(shell, "Select",
-                                                            "Region Reference:" + ex.getMessage());
-                                        }
-
-                                        /* Convert dbuf to a displayable string */
-                                        char runtimeTypeClass = Utils.getJavaObjectRuntimeClass(dbuf);
-                                        log.trace(
-                                            "ScalarDSCellSelectionListener:RegRef CellSelected: cName={} runtimeTypeClass={}",
-                                            dbuf.getClass().getName(), runtimeTypeClass);
-
-                                        if (idx > 0)
-                                            strvalSB.append(',');
-
-                                        // convert numerical data into char
-                                        // only possible cases are byte[]
-                                        // and short[] (converted from
-                                        // unsigned byte)
-                                        Datatype dtype    = dset.getDatatype();
-                                        Datatype baseType = dtype.getDatatypeBase();
-                                        log.trace(
-                                            "ScalarDSCellSelectionListener:RegRef CellSelected: dtype={} baseType={}",
-                                            dtype.getDescription(), baseType);
-                                        if (baseType == null)
-                                            baseType = dtype;
-                                        if ((dtype.isArray() && baseType.isChar()) &&
-                                            ((runtimeTypeClass == 'B') || (runtimeTypeClass == 'S'))) {
-                                            int n = Array.getLength(dbuf);
-                                            log.trace(
-                                                "ScalarDSCellSelectionListener:RegRef CellSelected charData length = {}",
-                                                n);
-                                            char[] charData = new char[n];
-                                            for (int i = 0; i < n; i++) {
-                                                if (runtimeTypeClass == 'B') {
-                                                    charData[i] = (char)Array.getByte(dbuf, i);
-                                                }
-                                                else if (runtimeTypeClass == 'S') {
-                                                    charData[i] = (char)Array.getShort(dbuf, i);
-                                                }
-                                            }
-
-                                            strvalSB.append(charData);
-                                        }
-                                        else {
-                                            // numerical values
-                                            boolean isUnsigned = dtype.isUnsigned();
-                                            if (dtype.isArray())
-                                                isUnsigned = baseType.isUnsigned();
-                                            int n = Array.getLength(dbuf);
-                                            if (isUnsigned) {
-                                                switch (runtimeTypeClass) {
-                                                case 'B':
-                                                    byte[] barray = (byte[])dbuf;
-                                                    short sValue  = barray[0];
-                                                    if (sValue < 0) {
-                                                        sValue += 256;
-                                                    }
-                                                    strvalSB.append(sValue);
-                                                    for (int i = 1; i < n; i++) {
-                                                        strvalSB.append(',');
-                                                        sValue = barray[i];
-                                                        if (sValue < 0) {
-                                                            sValue += 256;
-                                                        }
-                                                        strvalSB.append(sValue);
-                                                    }
-                                                    break;
-                                                case 'S':
-                                                    short[] sarray = (short[])dbuf;
-                                                    int iValue     = sarray[0];
-                                                    if (iValue < 0) {
-                                                        iValue += 65536;
-                                                    }
-                                                    strvalSB.append(iValue);
-                                                    for (int i = 1; i < n; i++) {
-                                                        strvalSB.append(',');
-                                                        iValue = sarray[i];
-                                                        if (iValue < 0) {
-                                                            iValue += 65536;
-                                                        }
-                                                        strvalSB.append(iValue);
-                                                    }
-                                                    break;
-                                                case 'I':
-                                                    int[] iarray = (int[])dbuf;
-                                                    long lValue  = iarray[0];
-                                                    if (lValue < 0) {
-                                                        lValue += 4294967296L;
-                                                    }
-                                                    strvalSB.append(lValue);
-                                                    for (int i = 1; i < n; i++) {
-                                                        strvalSB.append(',');
-                                                        lValue = iarray[i];
-                                                        if (lValue < 0) {
-                                                            lValue += 4294967296L;
-                                                        }
-                                                        strvalSB.append(lValue);
-                                                    }
-                                                    break;
-                                                case 'J':
-                                                    long[] larray   = (long[])dbuf;
-                                                    Long l          = larray[0];
-                                                    String theValue = Long.toString(l);
-                                                    if (l < 0) {
-                                                        l = (l << 1) >>> 1;
-                                                        BigInteger big1 =
-                                                            new BigInteger("9223372036854775808"); // 2^65
-                                                        BigInteger big2 = new BigInteger(l.toString());
-                                                        BigInteger big  = big1.add(big2);
-                                                        theValue        = big.toString();
-                                                    }
-                                                    strvalSB.append(theValue);
-                                                    for (int i = 1; i < n; i++) {
-                                                        strvalSB.append(',');
-                                                        l        = larray[i];
-                                                        theValue = Long.toString(l);
-                                                        if (l < 0) {
-                                                            l = (l << 1) >>> 1;
-                                                            BigInteger big1 =
-                                                                new BigInteger("9223372036854775808"); // 2^65
-                                                            BigInteger big2 = new BigInteger(l.toString());
-                                                            BigInteger big  = big1.add(big2);
-                                                            theValue        = big.toString();
-                                                        }
-                                                        strvalSB.append(theValue);
-                                                    }
-                                                    break;
-                                                default:
-                                                    strvalSB.append(Array.get(dbuf, 0));
-                                                    for (int i = 1; i < n; i++) {
-                                                        strvalSB.append(',');
-                                                        strvalSB.append(Array.get(dbuf, i));
-                                                    }
-                                                    break;
-                                                }
-                                            }
-                                            else {
-                                                for (int x = 0; x < n; x++) {
-                                                    Object theValue = Array.get(dbuf, x);
-                                                    if (x > 0)
-                                                        strvalSB.append(',');
-                                                    strvalSB.append(theValue);
-                                                }
-                                            }
-                                        }
-                                        idx++;
-                                        dset.clearData();
-                                    } // (st.hasMoreTokens())
-                                    strVal = strvalSB.toString();
+
+                                    // read all selections of the region with one read
+                                    Object dbuf = null;
+                                    try {
+                                        dbuf = dset.readRegion(regStr);
+                                    }
+                                    catch (Exception ex) {
+                                        log.debug("ScalarDSCellSelectionListener:RegRef readRegion: ", ex);
+                                        Tools.showError(shell, "Select",
+                                                        "Region Reference:" + ex.getMessage());
+                                    }
+                                    strVal = (dbuf == null) ? null : regionValuesToString(dset, dbuf);
                                 }
                             }
                         }
@@ -1812,6 +1744,159 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
                     .setMinSize(cellValueField.computeSize(SWT.DEFAULT, SWT.DEFAULT));
             }
         }
+
+        /*
+         * Converts the values of a region reference, read by readRegion(), to a displayable string.
+         */
+        private String regionValuesToString(ScalarDS dset, Object dbuf)
+        {
+            StringBuilder strvalSB = new StringBuilder();
+
+            // variable-length strings and sequences may be read into a VarLenArena
+            if (dbuf instanceof VarLenArena)
+                dbuf = ((VarLenArena)dbuf).toArray();
+
+            // 128-bit floats are read into a QuadFloatBuffer
+            if (dbuf instanceof QuadFloatBuffer) {
+                QuadFloatBuffer quad = (QuadFloatBuffer)dbuf;
+                Object[] values      = new Object[(int)quad.getSize()];
+                for (int i = 0; i < values.length; i++)
+                    values[i] = quad.get(i);
+                dbuf = values;
+            }
+
+            char runtimeTypeClass = Utils.getJavaObjectRuntimeClass(dbuf);
+            log.trace("regionValuesToString(): cName={} runtimeTypeClass={}", dbuf.getClass().getName(),
+                      runtimeTypeClass);
+
+            // convert numerical data into char
+            // only possible cases are byte[]
+            // and short[] (converted from
+            // unsigned byte)
+            Datatype dtype    = dset.getDatatype();
+            Datatype baseType = dtype.getDatatypeBase();
+            log.trace("regionValuesToString(): dtype={} baseType={}", dtype.getDescription(), baseType);
+            if (baseType == null)
+                baseType = dtype;
+            if ((dtype.isArray() && baseType.isChar()) &&
+                ((runtimeTypeClass == 'B') || (runtimeTypeClass == 'S'))) {
+                int n = Array.getLength(dbuf);
+                log.trace("regionValuesToString(): charData length = {}", n);
+                char[] charData = new char[n];
+                for (int i = 0; i < n; i++) {
+                    if (runtimeTypeClass == 'B') {
+                        charData[i] = (char)Array.getByte(dbuf, i);
+                    }
+                    else if (runtimeTypeClass == 'S') {
+                        charData[i] = (char)Array.getShort(dbuf, i);
+                    }
+                }
+
+                strvalSB.append(charData);
+            }
+            else {
+                // numerical values
+                boolean isUnsigned = dtype.isUnsigned();
+                if (dtype.isArray())
+                    isUnsigned = baseType.isUnsigned();
+                int n = Array.getLength(dbuf);
+                if (isUnsigned) {
+                    switch (runtimeTypeClass) {
+                    case 'B':
+                        byte[] barray = (byte[])dbuf;
+                        short sValue  = barray[0];
+                        if (sValue < 0) {
+                            sValue += 256;
+                        }
+                        strvalSB.append(sValue);
+                        for (int i = 1; i < n; i++) {
+                            strvalSB.append(',');
+                            sValue = barray[i];
+                            if (sValue < 0) {
+                                sValue += 256;
+                            }
+                            strvalSB.append(sValue);
+                        }
+                        break;
+                    case 'S':
+                        short[] sarray = (short[])dbuf;
+                        int iValue     = sarray[0];
+                        if (iValue < 0) {
+                            iValue += 65536;
+                        }
+                        strvalSB.append(iValue);
+                        for (int i = 1; i < n; i++) {
+                            strvalSB.append(',');
+                            iValue = sarray[i];
+                            if (iValue < 0) {
+                                iValue += 65536;
+                            }
+                            strvalSB.append(iValue);
+                        }
+                        break;
+                    case 'I':
+                        int[] iarray = (int[])dbuf;
+                        long lValue  = iarray[0];
+                        if (lValue < 0) {
+                            lValue += 4294967296L;
+                        }
+                        strvalSB.append(lValue);
+                        for (int i = 1; i < n; i++) {
+                            strvalSB.append(',');
+                            lValue = iarray[i];
+                            if (lValue < 0) {
+                                lValue += 4294967296L;
+                            }
+                            strvalSB.append(lValue);
+                        }
+                        break;
+                    case 'J':
+                        long[] larray   = (long[])dbuf;
+                        Long l          = larray[0];
+                        String theValue = Long.toString(l);
+                        if (l < 0) {
+                            l               = (l << 1) >>> 1;
+                            BigInteger big1 = new BigInteger("9223372036854775808"); // 2^65
+                            BigInteger big2 = new BigInteger(l.toString());
+                            BigInteger big  = big1.add(big2);
+                            theValue        = big.toString();
+                        }
+                        strvalSB.append(theValue);
+                        for (int i = 1; i < n; i++) {
+                            strvalSB.append(',');
+                            l        = larray[i];
+                            theValue = Long.toString(l);
+                            if (l < 0) {
+                                l               = (l << 1) >>> 1;
+                                BigInteger big1 = new BigInteger("9223372036854775808"); // 2^65
+                                BigInteger big2 = new BigInteger(l.toString());
+                                BigInteger big  = big1.add(big2);
+                                theValue        = big.toString();
+                            }
+                            strvalSB.append(theValue);
+                        }
+                        break;
+                    default:
+                        strvalSB.append(Array.get(dbuf, 0));
+                        for (int i = 1; i < n; i++) {
+                            strvalSB.append(',');
+                            strvalSB.append(Array.get(dbuf, i));
+                        }
+                        break;
+                    }
+                }
+                else {
+                    for (int x = 0; x < n; x++) {
+                        Object theValue = Array.get(dbuf, x);
+                        if (x > 0)
+                            strvalSB.append(',');
+                        strvalSB.append(theValue);
+                    }
+                }
+            }
+
+            return strvalSB.toString();
+        }
     }
 
     /**
@@ -45,15 +45,19 @@ import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.nio.LongBuffer;
 import java.nio.ShortBuffer;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.StringTokenizer;
+import java.util.function.LongToDoubleFunction;
 import javax.imageio.ImageIO;
 
 import hdf.object.Datatype;
 import hdf.object.FileFormat;
+import hdf.object.FileSignature;
 import hdf.object.Group;
+import hdf.object.QuadFloatBuffer;
 import hdf.object.ScalarDS;
 import hdf.view.ViewProperties.BITMASK_OP;
 
@@ -932,6 +936,12 @@ public final class Tools {
         if (rawData == null || w <= 0 || h <= 0)
             return null;
 
+        if (rawData instanceof QuadFloatBuffer) {
+            QuadFloatBuffer buf = (QuadFloatBuffer)rawData;
+            return getBytes(buf::getDouble, buf.getSize(), true, minmax, w, h, isTransposed, invalidValues,
+                            byteData, list);
+        }
+
         // input data is not an array
         if (!rawData.getClass().isArray())
             return null;
@@ -1048,6 +1058,100 @@ public final class Tools {
         return byteData;
     }
 
+    /**
+     * Convert an array of raw data into array of a byte data, optionally interpreting the values of an
+     * integer array as unsigned. An unsigned array is read in place, so unsigned data does not have to
+     * be converted to the next wider type before it is displayed. Byte data is always treated as
+     * unsigned.
+     *
+     * @param rawData
+     *            The input raw data.
+     * @param minmax
+     *            the range of the raw data.
+     * @param w
+     *            the width of the raw data.
+     * @param h
+     *            the height of the raw data.
+     * @param isTransposed
+     *            if the data is transposed.
+     * @param invalidValues
+     *            the list of invalid values.
+     * @param convertByteData
+     *            the converted data out.
+     * @param byteData
+     *            the data in.
+     * @param list
+     *            the list of integers.
+     * @param isUnsigned
+     *            if the values of an integer array are unsigned.
+     *
+     * @return the byte array of pixel data.
+     */
+    public static byte[] getBytes(Object rawData, double[] minmax, long w, long h, boolean isTransposed,
+                                  List<Number> invalidValues, boolean convertByteData, byte[] byteData,
+                                  List<Integer> list, boolean isUnsigned)
+    {
+        LongToDoubleFunction values = (isUnsigned && !(rawData instanceof byte[])) ? unsignedValues(rawData)
+                                                                                    : null;
+        if ((values == null) || (w <= 0) || (h <= 0))
+            return getBytes(rawData, minmax, w, h, isTransposed, invalidValues, convertByteData, byteData,
+                            list);
+
+        return getBytes(values, Array.getLength(rawData), false, minmax, w, h, isTransposed, invalidValues,
+                        byteData, list);
+    }
+
+    /*
+     * Converts the values returned by an accessor into byte data without copying them into a Java
+     * array first. Byte data is scaled to the data range like the other types.
+     */
+    private static byte[] getBytes(LongToDoubleFunction values, long size, boolean isFloat, double[] minmax,
+                                   long w, long h, boolean isTransposed, List<Number> invalidValues,
+                                   byte[] byteData, List<Integer> list)
+    {
+        if ((size < w * h) || (w * h > Integer.MAX_VALUE))
+            return null;
+
+        if (minmax == null) {
+            minmax    = new double[2];
+            minmax[0] = 0;
+            minmax[1] = 0;
+        }
+
+        if ((byteData == null) || (w * h != byteData.length))
+            byteData = new byte[(int)(w * h)];
+
+        if (minmax[0] == minmax[1])
+            findMinMax(values, size, isFloat, minmax, false, 0);
+
+        double min = minmax[0];
+        double max = minmax[1];
+
+        double[] fillValue = null;
+        if (invalidValues != null && !invalidValues.isEmpty()) {
+            int n     = invalidValues.size();
+            fillValue = new double[n];
+            for (int i = 0; i < n; i++) {
+                fillValue[i] = invalidValues.get(i).doubleValue();
+            }
+        }
+        double ratio = (min == max) ? 1.00d : (double)(255.00 / (max - min));
+        long idxSrc  = 0;
+        long idxDst  = 0;
+        for (long i = 0; i < h; i++) {
+            for (long j = 0; j < w; j++) {
+                idxSrc = j * h + i;
+                idxDst = j * h + i;
+                if (isTransposed)
+                    idxDst = i * w + j;
+                byteData[(int)idxDst] =
+                    toByte(values.applyAsDouble(idxSrc), ratio, min, max, fillValue, (int)idxSrc, list);
+            }
+        }
+
+        return byteData;
+    }
+
     private static byte toByte(double in, double ratio, double min, double max, double[] fill, int idx,
                                List<Integer> list)
     {
@@ -1552,6 +1656,18 @@ public final class Tools {
     {
         int retval = 1;
 
+        if (data instanceof QuadFloatBuffer) {
+            // the fill value of a 128-bit float dataset is read as the raw bytes of one value
+            QuadFloatBuffer buf = (QuadFloatBuffer)data;
+            int size            = buf.getFormat().getSize();
+            boolean hasFill     = (fillValue instanceof byte[]) && (((byte[])fillValue).length >= size);
+            double fill         = 0;
+            if (hasFill)
+                fill = new QuadFloatBuffer(Arrays.copyOf((byte[])fillValue, size), buf.getFormat())
+                           .getDouble(0);
+            return findMinMax(buf::getDouble, buf.getSize(), true, minmax, hasFill, fill);
+        }
+
         if ((data == null) || (minmax == null) || (Array.getLength(data) <= 0) ||
             (Array.getLength(minmax) < 2))
             return -1;
@@ -1674,6 +1790,88 @@ public final class Tools {
         return retval;
     }
 
+    /**
+     * Finds the min and max values of the data array, optionally interpreting the values of an integer
+     * array as unsigned. An unsigned array is read in place without converting it to a wider type.
+     *
+     * @param data       the raw data array
+     * @param minmax     the mmin and max values of the array.
+     * @param fillValue  the missing value or fill value. Exclude this value when check for min/max
+     * @param isUnsigned if the values of an integer array are unsigned
+     *
+     * @return non-negative if successful; otherwise, returns negative
+     */
+    public static int findMinMax(Object data, double[] minmax, Object fillValue, boolean isUnsigned)
+    {
+        LongToDoubleFunction values = isUnsigned ? unsignedValues(data) : null;
+        if (values == null)
+            return findMinMax(data, minmax, fillValue);
+
+        LongToDoubleFunction fill = unsignedValues(fillValue);
+        return findMinMax(values, Array.getLength(data), false, minmax, fill != null,
+                          (fill == null) ? 0 : fill.applyAsDouble(0));
+    }
+
+    /*
+     * Finds the min and max of the values returned by an accessor.
+     */
+    private static int findMinMax(LongToDoubleFunction values, long n, boolean isFloat, double[] minmax,
+                                  boolean hasFillValue, double fill)
+    {
+        if ((n <= 0) || (minmax == null) || (Array.getLength(minmax) < 2))
+            return -1;
+
+        minmax[0] = values.applyAsDouble(0);
+        minmax[1] = minmax[0];
+        for (long i = 0; i < n; i++) {
+            double v = values.applyAsDouble(i);
+            if ((hasFillValue && v == fill) || (isFloat && isNaNINF(v)))
+                continue;
+            if (minmax[0] > v)
+                minmax[0] = v;
+            if (minmax[1] < v)
+                minmax[1] = v;
+        }
+
+        return 1;
+    }
+
+    /*
+     * Returns an accessor which reads the values of an integer array as unsigned numbers, or null if
+     * the object is not an integer array.
+     */
+    private static LongToDoubleFunction unsignedValues(Object data)
+    {
+        if ((data instanceof byte[]) && (((byte[])data).length > 0)) {
+            byte[] b = (byte[])data;
+            return i -> b[(int)i] & 0xFF;
+        }
+        else if ((data instanceof short[]) && (((short[])data).length > 0)) {
+            short[] s = (short[])data;
+            return i -> s[(int)i] & 0xFFFF;
+        }
+        else if ((data instanceof int[]) && (((int[])data).length > 0)) {
+            int[] ia = (int[])data;
+            return i -> ia[(int)i] & 0xFFFFFFFFL;
+        }
+        else if ((data instanceof long[]) && (((long[])data).length > 0)) {
+            long[] l = (long[])data;
+            return i -> unsignedToDouble(l[(int)i]);
+        }
+
+        return null;
+    }
+
+    /*
+     * Converts an unsigned 64-bit value into a double.
+     */
+    private static double unsignedToDouble(long v)
+    {
+        if (v >= 0)
+            return v;
+        return (double)(v >>> 1) * 2.0 + (v & 1);
+    }
+
     /**
      * Finds the distribution of data values.
      *
@@ -1712,6 +1910,42 @@ public final class Tools {
         return retval;
     }
 
+    /**
+     * Finds the distribution of data values, optionally interpreting the values of an integer array as
+     * unsigned.
+     *
+     * @param data       the raw data array
+     * @param dataDist   the data distirbution.
+     * @param minmax     the data range
+     * @param isUnsigned if the values of an integer array are unsigned
+     *
+     * @return non-negative if successful; otherwise, returns negative
+     */
+    public static int findDataDist(Object data, int[] dataDist, double[] minmax, boolean isUnsigned)
+    {
+        LongToDoubleFunction values = isUnsigned ? unsignedValues(data) : null;
+        if (values == null)
+            return findDataDist(data, dataDist, minmax);
+        if ((minmax == null) || (dataDist == null))
+            return -1;
+
+        double delt = 1;
+        if (minmax[1] != minmax[0])
+            delt = (dataDist.length - 1) / (minmax[1] - minmax[0]);
+
+        for (int i = 0; i < dataDist.length; i++)
+            dataDist[i] = 0;
+
+        int n = Array.getLength(data);
+        for (int i = 0; i < n; i++) {
+            double val = values.applyAsDouble(i);
+            if (val >= minmax[0] && val <= minmax[1])
+                dataDist[(int)((val - minmax[0]) * delt)]++;
+        }
+
+        return 0;
+    }
+
     /**
      * Computes mean and standard deviation of a data array.
      *
@@ -1882,6 +2116,66 @@ public final class Tools {
         return retval;
     }
 
+    /**
+     * Computes mean and standard deviation of a data array, optionally interpreting the values of an
+     * integer array as unsigned. An unsigned array is read in place without converting it to a wider
+     * type.
+     *
+     * @param data       the raw data array
+     * @param avgstd     the statistics: avgstd[0]=mean and avgstd[1]=stdev.
+     * @param fillValue  the missing value or fill value. Exclude this value when compute statistics
+     * @param isUnsigned if the values of an integer array are unsigned
+     *
+     * @return non-negative if successful; otherwise, returns negative
+     */
+    public static int computeStatistics(Object data, double[] avgstd, Object fillValue, boolean isUnsigned)
+    {
+        LongToDoubleFunction values = isUnsigned ? unsignedValues(data) : null;
+        if (values == null)
+            return computeStatistics(data, avgstd, fillValue);
+        if ((avgstd == null) || (Array.getLength(avgstd) < 2))
+            return -1;
+
+        LongToDoubleFunction fillValues = unsignedValues(fillValue);
+        boolean hasFillValue            = (fillValues != null);
+        double fill                     = hasFillValue ? fillValues.applyAsDouble(0) : 0.0;
+
+        int n       = Array.getLength(data);
+        int npoints = 0;
+        double sum  = 0;
+        double avg  = 0.0;
+        double var  = 0.0;
+        for (int i = 0; i < n; i++) {
+            double v = values.applyAsDouble(i);
+            if (hasFillValue && v == fill)
+                continue;
+            sum += v;
+            npoints++;
+        }
+        if (npoints > 0) {
+            avg = sum / npoints;
+            for (int i = 0; i < n; i++) {
+                double v = values.applyAsDouble(i);
+                if (hasFillValue && v == fill)
+                    continue;
+                double diff = v - avg;
+                var += diff * diff;
+            }
+        }
+
+        if (npoints <= 1) {
+            if (npoints < 1)
+                avgstd[0] = fill;
+            avgstd[1] = 0;
+        }
+        else {
+            avgstd[0] = avg;
+            avgstd[1] = Math.sqrt(var / (npoints - 1));
+        }
+
+        return 1;
+    }
+
     /**
      * Save the data as binary.
      *
@@ -2752,8 +3046,7 @@ public final class Tools {
 
     /**
      * look at the first 4 bytes of the file to see if it is an HDF4 file.
-     * byte[0]=14, byte[1]=3, byte[2]=19, byte[3]=1 or if it is a netCDF file
-     * byte[0]=67, byte[1]=68, byte[2]=70, byte[3]=1
+     * byte[0]=14, byte[1]=3, byte[2]=19, byte[3]=1
      *
      * @param filename the file to test if HDF4
      *
@@ -2761,26 +3054,12 @@ public final class Tools {
      */
     public static boolean isHDF4(String filename)
     {
-        boolean ish4 = false;
-
-        try (RandomAccessFile raf = new RandomAccessFile(filename, "r")) {
-            byte[] header = new byte[4];
-            raf.read(header);
-
-            if ((header[0] == 14) && (header[1] == 3) && (header[2] == 19) && (header[3] == 1))
-                ish4 = true;
-            else
-                ish4 = false;
-        }
-        catch (Exception ex) {
-            return false;
-        }
-
-        return ish4;
+        return FileSignature.isFileType(filename, FileFormat.FILE_TYPE_HDF4);
     }
 
     /**
-     * look at the first 8 bytes of the file to see if it is an HDF5 file.
+     * look at the first 8 bytes of the file, and after a user block of 512, 1024, 2048, ... bytes, to see
+     * if it is an HDF5 file.
      * byte[0]=-199 which is 137 in unsigned byte, byte[1]=72, byte[2]=68,
      * byte[3]=70, byte[4]=13, byte[5]=10, byte[6]=26, byte[7]=10
      *
@@ -2790,45 +3069,13 @@ public final class Tools {
      */
     public static boolean isHDF5(String filename)
     {
-        boolean ish5 = false;
-
-        try (RandomAccessFile raf = new RandomAccessFile(filename, "r")) {
-            byte[] header = new byte[8];
-            long fileSize = raf.length();
-
-            // The super block is located by searching for the HDF5 file signature
-            // at byte offset 0, byte offset 512 and at successive locations in the
-            // file, each a multiple of two of the previous location, i.e. 0, 512,
-            // 1024, 2048, etc
-            long offset = 0;
-            while (!ish5 && (offset < fileSize)) {
-                raf.seek(offset);
-                raf.read(header);
-
-                if ((header[0] == -119) && (header[1] == 72) && (header[2] == 68) && (header[3] == 70) &&
-                    (header[4] == 13) && (header[5] == 10) && (header[6] == 26) && (header[7] == 10)) {
-                    ish5 = true;
-                }
-                else {
-                    ish5 = false;
-                    if (offset == 0)
-                        offset = 512;
-                    else
-                        offset *= 2;
-                }
-            }
-        }
-        catch (Exception ex) {
-            return false;
-        }
-
-        return ish5;
+        return FileSignature.isFileType(filename, FileFormat.FILE_TYPE_HDF5);
     }
 
     /**
      * look at the first 4 bytes of the file to see if it is a netCDF file.
      *
-     * byte[0]=67, byte[1]=68, byte[2]=70, byte[3]=1
+     * byte[0]=67, byte[1]=68, byte[2]=70, byte[3]=1 or 2
      *
      * @param filename the file to test if netcdf
      *
@@ -2836,23 +3083,7 @@ public final class Tools {
      */
     public static boolean isNetcdf(String filename)
     {
-        boolean isnc = false;
-
-        try (RandomAccessFile raf = new RandomAccessFile(filename, "r")) {
-
-            byte[] header = new byte[4];
-            raf.read(header);
-            // netCDF
-            if ((header[0] == 67) && (header[1] == 68) && (header[2] == 70) && (header[3] == 1))
-                isnc = true;
-            else
-                isnc = false;
-        }
-        catch (Exception ex) {
-            return false;
-        }
-
-        return isnc;
+        return FileSignature.isFileType(filename, FileFormat.FILE_TYPE_NC3);
     }
 
     /**
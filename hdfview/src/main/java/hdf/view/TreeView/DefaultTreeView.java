@@ -25,22 +25,29 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 
 import hdf.object.CompoundDS;
 import hdf.object.DataFormat;
 import hdf.object.Dataset;
 import hdf.object.Datatype;
 import hdf.object.FileFormat;
+import hdf.object.FileSignature;
 import hdf.object.Group;
 import hdf.object.HObject;
 import hdf.object.MetaDataContainer;
+import hdf.object.ObjectSearchIndex;
 import hdf.object.ScalarDS;
+import hdf.object.h5.H5File;
 import hdf.view.DataView.DataView;
 import hdf.view.DataView.DataViewFactory;
 import hdf.view.DataView.DataViewFactoryProducer;
@@ -52,6 +59,7 @@ import hdf.view.ViewProperties;
 import hdf.view.ViewProperties.DATA_VIEW_KEY;
 import hdf.view.ViewProperties.DataViewType;
 import hdf.view.dialog.DataOptionDialog;
+import hdf.view.dialog.FindDialog;
 import hdf.view.dialog.InputDialog;
 import hdf.view.dialog.NewCompoundDatasetDialog;
 import hdf.view.dialog.NewDatasetDialog;
@@ -117,6 +125,15 @@ public class DefaultTreeView implements TreeView {
 
     private static final Logger log = LoggerFactory.getLogger(DefaultTreeView.class);
 
+    /**
+     * Groups loaded on demand with more members than this are shown a window of members at a time
+     * instead of loading all their members when they are expanded.
+     */
+    private static final int LARGE_GROUP_SIZE = 10000;
+
+    /** The number of members of a large group retrieved from the file at once. */
+    private static final int MEMBER_WINDOW_SIZE = 256;
+
     private Shell shell;
 
     private Font curFont;
@@ -153,6 +170,21 @@ public class DefaultTreeView implements TreeView {
     /** A list of currently open files. */
     private final List<FileFormat> fileList = new ArrayList<>();
 
+    /** The search indexes of the open files, used by Find. */
+    private final Map<FileFormat, ObjectSearchIndex> searchIndexes = new HashMap<>();
+
+    /** The large group whose window of members was retrieved last, see getWindowMember(). */
+    private Group windowGroup = null;
+
+    /** The index of the first member in the window. */
+    private int windowStart = 0;
+
+    /** The members of the large group in the window. */
+    private List<HObject> windowMembers = null;
+
+    /** The large groups whose items are retrieved by getWindowMember() and are not in their member list. */
+    private final Set<Group> windowedGroups = Collections.newSetFromMap(new IdentityHashMap<>());
+
     /** A list of editing GUI components. */
     private List<MenuItem> editGUIs = new ArrayList<>();
 
@@ -524,6 +556,22 @@ public class DefaultTreeView implements TreeView {
                 // tree from redrawing until all the items are created
                 tree.setRedraw(false);
 
+                refreshWindowedGroup(item);
+
+                // Groups loaded on demand only have a placeholder child until
+                // they are expanded; now retrieve the real number of members.
+                // The members of large groups are retrieved by SetData a window
+                // at a time as they are shown
+                int count;
+                if (isLargeGroup(theGroup)) {
+                    windowedGroups.add(theGroup);
+                    count = theGroup.getNumberOfMembersInFile();
+                }
+                else
+                    count = theGroup.getMemberList().size();
+                if (item.getItemCount() != count)
+                    item.setItemCount(count);
+
                 if (item.getItemCount() > 0)
                     item.setImage(theGroup.hasAttribute() ? folderOpenIconA : folderOpenIcon);
 
@@ -564,7 +612,11 @@ public class DefaultTreeView implements TreeView {
                 TreeItem parentItem = item.getParentItem();
 
                 int position = parentItem.indexOf(item);
-                HObject obj  = ((Group)parentItem.getData()).getMember(position);
+                Group pgroup = (Group)parentItem.getData();
+                HObject obj  = isLargeGroup(pgroup) ? getWindowMember(pgroup, position)
+                                                    : pgroup.getMember(position);
+                if (obj == null)
+                    return;
 
                 item.setData(obj);
                 item.setFont(curFont);
@@ -572,7 +624,7 @@ public class DefaultTreeView implements TreeView {
                 item.setImage(getObjectTypeImage(obj));
 
                 if (obj instanceof Group)
-                    item.setItemCount(((Group)obj).getMemberList().size());
+                    setGroupItemCount(item, (Group)obj);
             }
         });
 
@@ -887,18 +939,18 @@ public class DefaultTreeView implements TreeView {
             @Override
             public void widgetSelected(SelectionEvent e)
             {
-                String findStr = currentSearchPhrase;
-                if (findStr == null)
-                    findStr = "";
+                List<ObjectSearchIndex> indexes = new ArrayList<>();
+                for (FileFormat theFile : fileList) {
+                    ObjectSearchIndex searchIndex = searchIndexes.get(theFile);
+                    if (searchIndex != null)
+                        indexes.add(searchIndex);
+                }
 
-                findStr = (new InputDialog(shell, "Find Object by Name",
-                                           "Find (e.g. O3Quality, O3*, or *Quality):", findStr))
-                              .open();
+                String findStr =
+                    (new FindDialog(shell, indexes, currentSearchPhrase, obj -> selectObject(obj))).open();
 
                 if (findStr != null && findStr.length() > 0)
                     currentSearchPhrase = findStr;
-
-                find(currentSearchPhrase, selectedItem);
             }
         });
 
@@ -1404,6 +1456,13 @@ public class DefaultTreeView implements TreeView {
 
         TreeItem item;
 
+        // adding the object loaded the member list of a large group, which now has an item for it
+        if ((pobj != null) && refreshWindowedGroup(pobj)) {
+            int idx = ((Group)pobj.getData()).getMemberList().indexOf(obj);
+            if (idx >= 0)
+                return pobj.getItem(idx);
+        }
+
         if (pobj != null) {
             item = new TreeItem(pobj, SWT.NONE, pobj.getItemCount());
             item.setFont(curFont);
@@ -1743,6 +1802,10 @@ public class DefaultTreeView implements TreeView {
             // groups/datasets
             ((Group)currentItem.getParentItem().getData()).removeFromMemberList(theObj);
 
+            // the members after the deleted one moved up in the window of a large group
+            if (currentItem.getParentItem().getData() == windowGroup)
+                windowMembers = null;
+
             if (currentItem.equals(selectedItem)) {
                 selectedItem   = null;
                 selectedObject = null;
@@ -1805,9 +1868,8 @@ public class DefaultTreeView implements TreeView {
                     // Tell SWT how many members this group has so they can
                     // be populated when the group is expanded
                     if (obj instanceof Group) {
-                        newItem.setItemCount(((Group)obj).getMemberList().size());
-                        log.debug("populateTree(): group members size {}:",
-                                  ((Group)obj).getMemberList().size());
+                        setGroupItemCount(newItem, (Group)obj);
+                        log.debug("populateTree(): group members size {}:", newItem.getItemCount());
                     }
                 }
             }
@@ -1826,6 +1888,90 @@ public class DefaultTreeView implements TreeView {
         return rootItem;
     }
 
+    /**
+     * Tells SWT how many members a group has so that they can be populated when the
+     * group is expanded. If the members of the group have not been loaded from the file
+     * yet, a single placeholder item is used until the group is expanded.
+     *
+     * @param item
+     *            the TreeItem of the group
+     * @param group
+     *            the group
+     */
+    private void setGroupItemCount(TreeItem item, Group group)
+    {
+        if (group.isMemberListLoaded())
+            item.setItemCount(group.getMemberList().size());
+        else
+            item.setItemCount((group.getNumberOfMembersInFile() > 0) ? 1 : 0);
+    }
+
+    /**
+     * Checks if a group is too large to load all its members when it is expanded. The members of a
+     * group loaded on demand which has more than LARGE_GROUP_SIZE members are retrieved a window at a
+     * time by getWindowMember() instead, until something else loads its member list.
+     *
+     * @param group
+     *            the group
+     *
+     * @return true if the members of the group are retrieved a window at a time
+     */
+    private boolean isLargeGroup(Group group)
+    {
+        return !group.isMemberListLoaded() && (group.getNumberOfMembersInFile() > LARGE_GROUP_SIZE);
+    }
+
+    /**
+     * Returns a member of a large group, retrieving the window of MEMBER_WINDOW_SIZE members around it
+     * from the file if it is not in the window retrieved last. Since SetData is sent for the items as
+     * they are shown, only the windows which are scrolled to are retrieved.
+     *
+     * @param group
+     *            the large group
+     * @param position
+     *            the index of the member
+     *
+     * @return the member, or null if the group has no member at the index
+     */
+    private HObject getWindowMember(Group group, int position)
+    {
+        if ((group != windowGroup) || (windowMembers == null) || (position < windowStart) ||
+            (position >= windowStart + windowMembers.size())) {
+            windowGroup   = group;
+            windowStart   = position - (position % MEMBER_WINDOW_SIZE);
+            windowMembers = group.getMembers(windowStart, MEMBER_WINDOW_SIZE);
+        }
+
+        int idx = position - windowStart;
+        return (idx < windowMembers.size()) ? windowMembers.get(idx) : null;
+    }
+
+    /*
+     * Replaces the items of a large group retrieved by getWindowMember() with the members of its member
+     * list once something else loaded it, e.g. adding an object to the group. The items of the window
+     * are detached objects, which are not in the member list and can not be found or changed through
+     * it. Returns true if the items were replaced.
+     */
+    private boolean refreshWindowedGroup(TreeItem item)
+    {
+        Object obj = item.getData();
+        if (!windowedGroups.contains(obj) || isLargeGroup((Group)obj))
+            return false;
+
+        Group group = (Group)obj;
+        windowedGroups.remove(group);
+        if (group == windowGroup) {
+            windowGroup   = null;
+            windowMembers = null;
+        }
+
+        // SetData is sent again for the cleared items, which are now taken from the member list
+        item.setItemCount(group.getMemberList().size());
+        item.clearAll(true);
+
+        return true;
+    }
+
     /**
      * Recursively expand/collapse a given selected TreeItem.
      *
@@ -1844,8 +1990,6 @@ public class DefaultTreeView implements TreeView {
         if (item == null || !(item.getData() instanceof Group))
             return;
 
-        TreeItem[] toExpand = item.getItems();
-
         item.setExpanded(expand);
 
         // Make sure the TreeItem's icon gets set appropriately by
@@ -1860,6 +2004,10 @@ public class DefaultTreeView implements TreeView {
         while (tree.getDisplay().readAndDispatch())
             ;
 
+        // The Expand listener may have replaced a placeholder item with the
+        // members of a group that is loaded on demand
+        TreeItem[] toExpand = item.getItems();
+
         for (int i = 0; i < toExpand.length; i++)
             recursiveExpand(toExpand[i], expand);
     }
@@ -2077,76 +2225,27 @@ public class DefaultTreeView implements TreeView {
     }
 
     /**
-     * Find first object that is matched by name under the specified TreeItem.
-     *
-     * @param objName    - the object name.
-     * @param parentItem - the current TreeItem
+     * Selects the item of an object in the tree and shows the metadata of the object.
      *
-     * @return the object if found, otherwise, returns null.
+     * @param obj - the object to select
      */
-    private HObject find(String objName, TreeItem parentItem)
+    private void selectObject(HObject obj)
     {
-        if (objName == null || objName.length() <= 0 || parentItem == null)
-            return null;
-
-        HObject retObj    = null;
-        boolean isFound   = false;
-        boolean isPrefix  = false;
-        boolean isSuffix  = false;
-        boolean isContain = false;
-
-        if (objName.equals("*"))
-            return null;
-
-        if (objName.startsWith("*")) {
-            isSuffix = true;
-            objName  = objName.substring(1, objName.length());
-        }
-
-        if (objName.endsWith("*")) {
-            isPrefix = true;
-            objName  = objName.substring(0, objName.length() - 1);
-        }
-
-        if (isPrefix && isSuffix) {
-            isContain = true;
-            isPrefix = isSuffix = false;
+        TreeItem theItem = findTreeItem(obj);
+        if (theItem == null) {
+            log.debug("selectObject(): could not find TreeItem for {}", obj.getFullName());
+            return;
         }
 
-        if (objName == null || objName.length() <= 0)
-            return null;
-
-        HObject obj           = null;
-        String theName        = null;
-        TreeItem theItem      = null;
-        Iterator<TreeItem> it = getItemsBreadthFirst(parentItem).iterator();
-        while (it.hasNext()) {
-            theItem = it.next();
-            obj     = (HObject)theItem.getData();
-            if (obj != null && (theName = obj.getName()) != null) {
-                if (isPrefix)
-                    isFound = theName.startsWith(objName);
-                else if (isSuffix)
-                    isFound = theName.endsWith(objName);
-                else if (isContain)
-                    isFound = theName.contains(objName);
-                else
-                    isFound = theName.equals(objName);
-
-                if (isFound) {
-                    retObj = obj;
-                    break;
-                }
-            }
-        }
+        tree.deselectAll();
+        tree.setSelection(theItem);
+        tree.showItem(theItem);
 
-        if (retObj != null) {
-            tree.deselectAll();
-            tree.setSelection(theItem);
-            tree.showItem(theItem);
-        }
+        selectedItem   = theItem;
+        selectedObject = obj;
+        selectedFile   = obj.getFileFormat();
 
-        return retObj;
+        ((HDFView)viewer).showMetaData(selectedObject);
     }
 
     /**
@@ -2531,16 +2630,25 @@ public class DefaultTreeView implements TreeView {
         if (!tmpFile.canWrite() && !isSWMRFile)
             accessID = FileFormat.READ;
 
-        Enumeration<?> keys = FileFormat.getFileFormatKeys();
+        // the signature of the file, read once, gives the formats which can open it; only formats
+        // without a known signature have to probe the file when it has none
+        List<String> formatKeys = new ArrayList<>(Arrays.asList(FileSignature.getFileFormatKeys(filename)));
+        boolean bySignature     = !formatKeys.isEmpty();
+        if (!bySignature) {
+            Enumeration<?> keys = FileFormat.getFileFormatKeys();
+            while (keys.hasMoreElements()) {
+                String key = (String)keys.nextElement();
+                if (!FileSignature.isKnownFormat(key))
+                    formatKeys.add(key);
+            }
+        }
 
-        String theKey = null;
-        while (keys.hasMoreElements()) {
-            theKey = (String)keys.nextElement();
+        for (String theKey : formatKeys) {
             if (theKey.equals(FileFormat.FILE_TYPE_HDF4)) {
                 log.trace("openFile: {} FILE_TYPE_HDF4", filename);
                 try {
                     FileFormat h4format = FileFormat.getFileFormat(FileFormat.FILE_TYPE_HDF4);
-                    if ((h4format != null) && h4format.isThisType(filename)) {
+                    if ((h4format != null) && (bySignature || h4format.isThisType(filename))) {
                         fileFormat = h4format.createInstance(filename, accessID);
                         break;
                     }
@@ -2558,7 +2666,7 @@ public class DefaultTreeView implements TreeView {
                 log.trace("openFile: {} FILE_TYPE_HDF5", filename);
                 try {
                     FileFormat h5format = FileFormat.getFileFormat(FileFormat.FILE_TYPE_HDF5);
-                    if ((h5format != null) && h5format.isThisType(filename)) {
+                    if ((h5format != null) && (bySignature || h5format.isThisType(filename))) {
                         fileFormat = h5format.createInstance(filename, accessID);
                         break;
                     }
@@ -2576,7 +2684,7 @@ public class DefaultTreeView implements TreeView {
                 log.trace("openFile: {} FILE_TYPE_NC3", filename);
                 try {
                     FileFormat nc3format = FileFormat.getFileFormat(FileFormat.FILE_TYPE_NC3);
-                    if ((nc3format != null) && nc3format.isThisType(filename)) {
+                    if ((nc3format != null) && (bySignature || nc3format.isThisType(filename))) {
                         fileFormat = nc3format.createInstance(filename, accessID);
                         break;
                     }
@@ -2594,7 +2702,7 @@ public class DefaultTreeView implements TreeView {
                 log.trace("openFile: {} Other", filename);
                 try {
                     FileFormat theformat = FileFormat.getFileFormat(theKey);
-                    if (theformat.isThisType(filename)) {
+                    if ((theformat != null) && (bySignature || theformat.isThisType(filename))) {
                         fileFormat = theformat.createInstance(filename, accessID);
                         break;
                     }
@@ -2653,6 +2761,24 @@ public class DefaultTreeView implements TreeView {
         try {
             fileFormat.setMaxMembers(ViewProperties.getMaxMembers());
             fileFormat.setStartMembers(ViewProperties.getStartMembers());
+            fileFormat.setLoadOnDemand(ViewProperties.isLoadOnDemand());
+
+            // keep recently used datasets open so paging through frames does not reopen them,
+            // decompress chunks on all cores, skip unallocated chunks, pack variable-length data, reuse
+            // native types and property lists, size the chunk cache of a dataset from its selection and,
+            // if the user enabled it, restore the tree of a file opened before from the structure cache
+            if (fileFormat instanceof H5File) {
+                ((H5File)fileFormat).setMaxPooledIds(H5File.DEFAULT_MAX_POOLED_IDS);
+                ((H5File)fileFormat).setParallelChunkRead(true);
+                ((H5File)fileFormat).setSparseRead(true);
+                ((H5File)fileFormat).setVarLenArena(true);
+                ((H5File)fileFormat).setHandlePooling(true);
+                ((H5File)fileFormat).setChunkCacheTuning(true);
+                ((H5File)fileFormat).setChunkCacheSlots(ViewProperties.getChunkCacheSlots());
+                ((H5File)fileFormat).setChunkCacheBytes(ViewProperties.getChunkCacheBytes());
+                ((H5File)fileFormat).setChunkCachePreemption(ViewProperties.getChunkCachePreemption());
+                ((H5File)fileFormat).setStructureCacheDirectory(ViewProperties.getStructureCacheDir());
+            }
 
             fileFormat.open();
 
@@ -2665,6 +2791,11 @@ public class DefaultTreeView implements TreeView {
                     tree.getItem(currentRowCount - 1).setExpanded(true);
 
                 fileList.add(fileFormat);
+
+                // index the names, datatypes and attributes of the objects in the background for Find
+                ObjectSearchIndex searchIndex = new ObjectSearchIndex(fileFormat);
+                searchIndex.update();
+                searchIndexes.put(fileFormat, searchIndex);
             }
 
             tree.setItemCount(fileList.size());
@@ -2731,6 +2862,16 @@ public class DefaultTreeView implements TreeView {
                 openFiles[i].dispose();
                 log.trace("dispose({}):", theFile.getFilePath());
 
+                ObjectSearchIndex searchIndex = searchIndexes.remove(theFile);
+                if (searchIndex != null)
+                    searchIndex.close();
+
+                if ((windowGroup != null) && theFile.equals(windowGroup.getFileFormat())) {
+                    windowGroup   = null;
+                    windowMembers = null;
+                }
+                windowedGroups.removeIf(group -> file.equals(group.getFileFormat()));
+
                 try {
                     theFile.close();
                 }
@@ -2820,12 +2961,16 @@ public class DefaultTreeView implements TreeView {
             }
         }
 
-        TreeItem theItem                 = null;
+        // walk down the groups along the path of the object before searching all items
+        TreeItem theItem = findTreeItemAlongPath(rootItem, obj);
+        if (theItem != null)
+            return theItem;
+
         HObject theObj                   = null;
         List<TreeItem> breadthFirstItems = getItemsBreadthFirst(rootItem);
 
         if (breadthFirstItems != null) {
-            Iterator<TreeItem> it = getItemsBreadthFirst(rootItem).iterator();
+            Iterator<TreeItem> it = breadthFirstItems.iterator();
 
             while (it.hasNext()) {
                 theItem = it.next();
@@ -2842,6 +2987,43 @@ public class DefaultTreeView implements TreeView {
         return null;
     }
 
+    /*
+     * Finds the item of an object by following the names in its full name from the item of the file
+     * root. The object of each group along the path is looked up by its path in the object index of the
+     * file, and its item is the child at its position in the member list of its parent group, so the
+     * children of the groups along the path are neither scanned nor created.
+     */
+    private TreeItem findTreeItemAlongPath(TreeItem rootItem, HObject obj)
+    {
+        if ((rootItem == null) || (obj.getFullName() == null))
+            return null;
+
+        FileFormat theFile = obj.getFileFormat();
+        StringBuilder path = new StringBuilder();
+        TreeItem theItem   = rootItem;
+        for (String name : obj.getFullName().split(HObject.SEPARATOR)) {
+            if (name.isEmpty())
+                continue;
+
+            if (!(theItem.getData() instanceof Group))
+                return null;
+
+            Group group = (Group)theItem.getData();
+            refreshWindowedGroup(theItem);
+            if (!group.isMemberListLoaded())
+                return null;
+
+            path.append(HObject.SEPARATOR).append(name);
+            HObject member = FileFormat.findObject(theFile, path.toString());
+            int idx        = (member == null) ? -1 : group.getMemberList().indexOf(member);
+            if ((idx < 0) || (idx >= theItem.getItemCount()))
+                return null;
+            theItem = theItem.getItem(idx);
+        }
+
+        return obj.equals((HObject)theItem.getData()) ? theItem : null;
+    }
+
     /**
      * change the display option.
      */
@@ -3087,6 +3269,23 @@ public class DefaultTreeView implements TreeView {
         tree.requestLayout();
     }
 
+    /**
+     * Reads the datatype and attributes of an object again for Find. Used after an attribute of the
+     * object is added, renamed, changed or deleted.
+     *
+     * @param obj
+     *           the changed object
+     */
+    public void updateSearchIndex(HObject obj)
+    {
+        if (obj == null)
+            return;
+
+        ObjectSearchIndex searchIndex = searchIndexes.get(obj.getFileFormat());
+        if (searchIndex != null)
+            searchIndex.invalidate(obj);
+    }
+
     /**
      * Updates the icon for the TreeItem representing the given HObject. Used
      * to change the icon after a status update, such as adding an attribute to
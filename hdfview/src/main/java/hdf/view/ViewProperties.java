@@ -57,6 +57,12 @@ public class ViewProperties extends PreferenceStore {
     /** the maximum number of most recent files. */
     public static final int MAX_RECENT_FILES = 15;
 
+    /**
+     * the largest number of dataset values averaged into a preview image; larger previews are read by
+     * plain stride so that they do not read the whole image.
+     */
+    public static final long MAX_DOWNSAMPLE_POINTS = 1L << 24;
+
     /** name of the tab delimiter. */
     public static final String DELIMITER_TAB = "Tab";
 
@@ -266,6 +272,30 @@ public class ViewProperties extends PreferenceStore {
      */
     private static int startMembers = 0;
 
+    /**
+     * flag to indicate if the members of a group are loaded only when the group is
+     * expanded, instead of loading the whole file structure when a file is opened.
+     */
+    private static boolean isLoadOnDemand = false;
+
+    /**
+     * the chunk cache settings used for HDF5 datasets instead of the ones chosen from the selection;
+     * negative values select the automatic settings.
+     */
+    private static long chunkCacheSlots        = -1;
+    private static long chunkCacheBytes        = -1;
+    private static double chunkCachePreemption = -1;
+
+    /**
+     * the directory the structure of HDF5 files is cached in, so that the tree of a file opened again
+     * appears without loading it from the file; an empty value disables the structure cache.
+     */
+    private static String structureCacheDir =
+        System.getProperty("user.home") + File.separator + ".hdfview-cache";
+
+    /** flag to indicate if the structure of HDF5 files is cached; off by default. */
+    private static boolean isStructureCache = false;
+
     private static Image hdfviewIcon, h4Icon, h4IconR, h5Icon, h5IconR, ncIcon, ncIconR, blankIcon, helpIcon,
         fileopenIcon, filesaveIcon, filenewIcon, filecloseIcon, foldercloseIcon, folderopenIcon,
         foldercloseIconA, folderopenIconA, datasetIcon, imageIcon, tableIcon, textIcon, datasetIconA,
@@ -341,6 +371,11 @@ public class ViewProperties extends PreferenceStore {
         setDefault("font.size", 12);
         setDefault("font.type", "Serif");
         setDefault("max.members", Integer.MAX_VALUE);
+        setDefault("file.loadondemand", false);
+        setDefault("h5file.structurecache.enabled", false);
+        setDefault("h5file.chunkcache.slots", -1L);
+        setDefault("h5file.chunkcache.bytes", -1L);
+        setDefault("h5file.chunkcache.w0", -1.0);
         setDefault("recent.file", "");
         setDefault("palette.file", "");
         setDefault("data.delimiter", DELIMITER_TAB);
@@ -1578,6 +1613,17 @@ public class ViewProperties extends PreferenceStore {
 
         setMaxMembers(getInt("max.members"));
 
+        setLoadOnDemand(getBoolean("file.loadondemand"));
+
+        setChunkCacheSlots(getLong("h5file.chunkcache.slots"));
+        setChunkCacheBytes(getLong("h5file.chunkcache.bytes"));
+        setChunkCachePreemption(getDouble("h5file.chunkcache.w0"));
+
+        setStructureCache(getBoolean("h5file.structurecache.enabled"));
+        propVal = getString("h5file.structurecache");
+        if (!isDefault("h5file.structurecache"))
+            setStructureCacheDir(propVal);
+
         // load the most recent file list from the property file
         log.trace("load user properties: most recent file list with {}", getWorkDir());
         String theFile = null;
@@ -1687,6 +1733,14 @@ public class ViewProperties extends PreferenceStore {
 
         setValue("max.members", maxMembers);
 
+        setValue("file.loadondemand", isLoadOnDemand);
+
+        setValue("h5file.chunkcache.slots", chunkCacheSlots);
+        setValue("h5file.chunkcache.bytes", chunkCacheBytes);
+        setValue("h5file.chunkcache.w0", chunkCachePreemption);
+        setValue("h5file.structurecache.enabled", isStructureCache);
+        setValue("h5file.structurecache", structureCacheDir);
+
         if (isAutoContrast)
             setValue("image.contrast", "auto");
         else
@@ -2215,6 +2269,107 @@ public class ViewProperties extends PreferenceStore {
      */
     public static int getStartMembers() { return startMembers; }
 
+    /**
+     * Returns true if the members of a group are loaded only when the group is
+     * expanded.
+     *
+     * @return true if group members are loaded on demand; otherwise, returns
+     *         false.
+     */
+    public static boolean isLoadOnDemand() { return isLoadOnDemand; }
+
+    /**
+     * Set the flag to indicate if the members of a group are loaded only when
+     * the group is expanded.
+     *
+     * @param b
+     *            the flag to indicate if group members are loaded on demand.
+     */
+    public static void setLoadOnDemand(boolean b) { isLoadOnDemand = b; }
+
+    /**
+     * Returns the number of chunk cache hash slots used for HDF5 datasets.
+     *
+     * @return the number of hash slots, or a negative value if it is chosen from the selection.
+     */
+    public static long getChunkCacheSlots() { return chunkCacheSlots; }
+
+    /**
+     * Sets the number of chunk cache hash slots used for HDF5 datasets.
+     *
+     * @param n
+     *            the number of hash slots, or a negative value to choose it from the selection.
+     */
+    public static void setChunkCacheSlots(long n) { chunkCacheSlots = n; }
+
+    /**
+     * Returns the size in bytes of the chunk cache of HDF5 datasets.
+     *
+     * @return the size in bytes, or a negative value if it is chosen from the selection.
+     */
+    public static long getChunkCacheBytes() { return chunkCacheBytes; }
+
+    /**
+     * Sets the size in bytes of the chunk cache of HDF5 datasets.
+     *
+     * @param n
+     *            the size in bytes, or a negative value to choose it from the selection.
+     */
+    public static void setChunkCacheBytes(long n) { chunkCacheBytes = n; }
+
+    /**
+     * Returns the chunk cache preemption policy used for HDF5 datasets.
+     *
+     * @return the preemption policy between 0 and 1, or a negative value for the default policy.
+     */
+    public static double getChunkCachePreemption() { return chunkCachePreemption; }
+
+    /**
+     * Sets the chunk cache preemption policy used for HDF5 datasets.
+     *
+     * @param w0
+     *            the preemption policy between 0 and 1, or a negative value for the default policy.
+     */
+    public static void setChunkCachePreemption(double w0) { chunkCachePreemption = w0; }
+
+    /**
+     * Returns true if the structure of HDF5 files is cached.
+     *
+     * @return true if the structure cache is enabled; otherwise, returns false.
+     */
+    public static boolean isStructureCache() { return isStructureCache; }
+
+    /**
+     * Set the flag to indicate if the structure of HDF5 files is cached.
+     *
+     * @param b
+     *            the flag to indicate if the structure cache is enabled.
+     */
+    public static void setStructureCache(boolean b) { isStructureCache = b; }
+
+    /**
+     * Returns the directory the structure of HDF5 files is cached in.
+     *
+     * @return the structure cache directory, or null if the structure cache is disabled.
+     */
+    public static File getStructureCacheDir()
+    {
+        if (!isStructureCache || (structureCacheDir == null) || structureCacheDir.isBlank())
+            return null;
+        return new File(structureCacheDir);
+    }
+
+    /**
+     * Sets the directory the structure of HDF5 files is cached in.
+     *
+     * @param dir
+     *            the structure cache directory, or an empty string to disable the structure cache.
+     */
+    public static void setStructureCacheDir(String dir)
+    {
+        structureCacheDir = (dir == null) ? "" : dir.trim();
+    }
+
     /**
      * Returns true if auto contrast is used in image processing.
      *
@@ -1792,7 +1792,11 @@ public class DataOptionDialog extends Dialog {
                          (double)dims[selectedIndex[1]] / (double)selected[selectedIndex[1]]);
 
             try {
-                Object data = sd.read();
+                // average the pixels behind each preview pixel, unless they are palette indices
+                Object data = (sd.getPalette() == null)
+                                  ? sd.readDownsampled(ScalarDS.DownsampleMode.MEAN,
+                                                       ViewProperties.MAX_DOWNSAMPLE_POINTS)
+                                  : sd.read();
                 int h       = (int)sd.getHeight();
                 int w       = (int)sd.getWidth();
 
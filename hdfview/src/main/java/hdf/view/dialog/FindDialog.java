@@ -0,0 +1,301 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.view.dialog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import hdf.object.HObject;
+import hdf.object.ObjectSearchIndex;
+import hdf.view.Tools;
+import hdf.view.ViewProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Dialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+
+/**
+ * Dialog to find objects by name, path, datatype or attribute in the open files.
+ *
+ * The query is searched in the search index of every open file, and the objects found are added to the
+ * results list as they arrive from the background threads. Selecting a result selects the object in the
+ * tree.
+ */
+public class FindDialog extends Dialog {
+    private static final Logger log = LoggerFactory.getLogger(FindDialog.class);
+
+    /** The interval in milliseconds at which the status of running searches is checked. */
+    private static final int STATUS_INTERVAL = 200;
+
+    private final List<ObjectSearchIndex> indexes;
+
+    private final Consumer<HObject> selectAction;
+
+    /** The objects found, in the order of the results list. */
+    private final List<HObject> found = new ArrayList<>();
+
+    /** The searches still running. */
+    private final List<Future<?>> searches = new ArrayList<>();
+
+    /** The number of the current search, to drop the late results of earlier ones. */
+    private int searchCount = 0;
+
+    private Shell shell;
+    private Text queryField;
+    private org.eclipse.swt.widgets.List resultList;
+    private Label statusLabel;
+    private String query;
+    private Font curFont;
+
+    /**
+     * Dialog to find objects in the open files.
+     *
+     * @param parent       the dialog parent shell
+     * @param indexes      the search indexes of the open files
+     * @param query        the initial query
+     * @param selectAction selects an object found in the tree
+     */
+    public FindDialog(Shell parent, List<ObjectSearchIndex> indexes, String query,
+                      Consumer<HObject> selectAction)
+    {
+        super(parent, SWT.APPLICATION_MODAL);
+        this.indexes      = indexes;
+        this.query        = (query == null) ? "" : query;
+        this.selectAction = selectAction;
+
+        try {
+            curFont = new Font(Display.getCurrent(), ViewProperties.getFontType(),
+                               ViewProperties.getFontSize(), SWT.NORMAL);
+        }
+        catch (Exception ex) {
+            curFont = null;
+        }
+    }
+
+    /**
+     * Opens the FindDialog and returns the last query searched when the dialog closes.
+     *
+     * @return the last query
+     */
+    public String open()
+    {
+        Shell parent = getParent();
+        shell        = new Shell(parent, SWT.DIALOG_TRIM | SWT.APPLICATION_MODAL | SWT.RESIZE);
+        shell.setFont(curFont);
+        shell.setText("Find Objects");
+        shell.setLayout(new GridLayout(2, false));
+
+        Label label = new Label(shell, SWT.NULL);
+        label.setFont(curFont);
+        label.setText("Find (e.g. O3Quality, O3*, *Quality, units=K or /O3.*Q/):");
+        label.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, false, 2, 1));
+
+        queryField = new Text(shell, SWT.SINGLE | SWT.BORDER);
+        queryField.setFont(curFont);
+        queryField.setText(query);
+        GridData fieldData     = new GridData(SWT.FILL, SWT.FILL, true, false);
+        fieldData.minimumWidth = 300;
+        queryField.setLayoutData(fieldData);
+        queryField.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetDefaultSelected(SelectionEvent e)
+            {
+                search();
+            }
+        });
+
+        Button findButton = new Button(shell, SWT.PUSH);
+        findButton.setFont(curFont);
+        findButton.setText("  &Find  ");
+        findButton.setLayoutData(new GridData(SWT.FILL, SWT.FILL, false, false));
+        findButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e)
+            {
+                search();
+            }
+        });
+
+        resultList = new org.eclipse.swt.widgets.List(shell, SWT.SINGLE | SWT.BORDER | SWT.V_SCROLL |
+                                                                 SWT.H_SCROLL);
+        resultList.setFont(curFont);
+        GridData listData      = new GridData(SWT.FILL, SWT.FILL, true, true, 2, 1);
+        listData.minimumHeight = 200;
+        listData.heightHint    = 300;
+        resultList.setLayoutData(listData);
+        resultList.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e)
+            {
+                int idx = resultList.getSelectionIndex();
+                if ((idx >= 0) && (idx < found.size()))
+                    selectAction.accept(found.get(idx));
+            }
+        });
+
+        statusLabel = new Label(shell, SWT.NULL);
+        statusLabel.setFont(curFont);
+        statusLabel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+
+        Button closeButton = new Button(shell, SWT.PUSH);
+        closeButton.setFont(curFont);
+        closeButton.setText(" &Close ");
+        closeButton.setLayoutData(new GridData(SWT.FILL, SWT.FILL, false, false));
+        closeButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e)
+            {
+                shell.dispose();
+            }
+        });
+
+        shell.pack();
+
+        shell.addDisposeListener(new DisposeListener() {
+            @Override
+            public void widgetDisposed(DisposeEvent e)
+            {
+                cancelSearches();
+                if (curFont != null)
+                    curFont.dispose();
+            }
+        });
+
+        shell.setMinimumSize(shell.computeSize(SWT.DEFAULT, SWT.DEFAULT));
+
+        Rectangle parentBounds = parent.getBounds();
+        Point shellSize        = shell.getSize();
+        shell.setLocation((parentBounds.x + (parentBounds.width / 2)) - (shellSize.x / 2),
+                          (parentBounds.y + (parentBounds.height / 2)) - (shellSize.y / 2));
+
+        shell.open();
+
+        if (query.length() > 0)
+            search();
+
+        Display display = parent.getDisplay();
+        while (!shell.isDisposed()) {
+            if (!display.readAndDispatch()) {
+                display.sleep();
+            }
+        }
+
+        return query;
+    }
+
+    /*
+     * Cancels the running searches and starts a search of the query in every open file.
+     */
+    private void search()
+    {
+        cancelSearches();
+        found.clear();
+        resultList.removeAll();
+        statusLabel.setText("");
+        int current = ++searchCount;
+
+        String text = queryField.getText().trim();
+        if (text.length() == 0)
+            return;
+        query = text;
+
+        Display display = shell.getDisplay();
+        for (ObjectSearchIndex index : indexes) {
+            try {
+                searches.add(index.search(query, obj -> {
+                    if (!display.isDisposed())
+                        display.asyncExec(() -> addResult(obj, current));
+                }));
+            }
+            catch (IllegalArgumentException ex) {
+                log.debug("search(): invalid query {}:", query, ex);
+                cancelSearches();
+                Tools.showError(shell, "Find", "Invalid query " + query + ":\n" + ex.getMessage());
+                return;
+            }
+            catch (IllegalStateException ex) {
+                log.debug("search(): {} is closed:", index.getFileFormat().getName(), ex);
+            }
+        }
+
+        statusLabel.setText("Searching...");
+        display.timerExec(STATUS_INTERVAL, () -> updateStatus(current));
+    }
+
+    /*
+     * Adds an object found to the results list.
+     */
+    private void addResult(HObject obj, int current)
+    {
+        if (resultList.isDisposed() || (current != searchCount))
+            return;
+
+        found.add(obj);
+        String name = obj.getFullName();
+        if (indexes.size() > 1)
+            name += "  (" + obj.getFileFormat().getName() + ")";
+        resultList.add(name);
+    }
+
+    /*
+     * Shows the number of objects found, and checks again later while searches are still running.
+     */
+    private void updateStatus(int current)
+    {
+        if (statusLabel.isDisposed() || (current != searchCount))
+            return;
+
+        searches.removeIf(Future::isDone);
+        if (searches.isEmpty()) {
+            // let the results still queued on the display be added before counting them
+            shell.getDisplay().asyncExec(() -> {
+                if (!statusLabel.isDisposed() && (current == searchCount))
+                    statusLabel.setText(found.size() + " object(s) found");
+            });
+        }
+        else {
+            statusLabel.setText("Searching... " + found.size() + " object(s) found");
+            shell.getDisplay().timerExec(STATUS_INTERVAL, () -> updateStatus(current));
+        }
+    }
+
+    /*
+     * Cancels the running searches.
+     */
+    private void cancelSearches()
+    {
+        for (Future<?> search : searches)
+            search.cancel(true);
+        searches.clear();
+    }
+}
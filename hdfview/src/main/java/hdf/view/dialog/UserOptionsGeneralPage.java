@@ -67,6 +67,8 @@ public class UserOptionsGeneralPage extends UserOptionsDefaultPage {
     private Button helpButton;
     private Button checkReadOnly;
     private Button checkReadAll;
+    private Button checkLoadOnDemand;
+    private Button checkStructureCache;
 
     private boolean isFontChanged;
     private boolean isUserGuideChanged;
@@ -198,6 +200,11 @@ public class UserOptionsGeneralPage extends UserOptionsDefaultPage {
             }
         }
 
+        if (checkLoadOnDemand != null)
+            ViewProperties.setLoadOnDemand(checkLoadOnDemand.getSelection());
+        if (checkStructureCache != null)
+            ViewProperties.setStructureCache(checkStructureCache.getSelection());
+
         if (checkAutoContrast != null)
             ViewProperties.setAutoContrast(checkAutoContrast.getSelection());
         if (checkShowValues != null)
@@ -351,6 +358,9 @@ public class UserOptionsGeneralPage extends UserOptionsDefaultPage {
         startMemberField.setText(String.valueOf(ViewProperties.getStartMembers()));
 
         maxMemberField.setText(String.valueOf(ViewProperties.getMaxMembers()));
+
+        checkLoadOnDemand.setSelection(ViewProperties.isLoadOnDemand());
+        checkStructureCache.setSelection(ViewProperties.isStructureCache());
     }
 
     /**
@@ -660,6 +670,16 @@ public class UserOptionsGeneralPage extends UserOptionsDefaultPage {
         startMemberField.setEnabled(!checkReadAll.getSelection());
         maxMemberField.setEnabled(!checkReadAll.getSelection());
 
+        checkLoadOnDemand = new Button(objectsGroup, SWT.CHECK);
+        checkLoadOnDemand.setFont(curFont);
+        checkLoadOnDemand.setText("Load Group Members on Expand");
+        checkLoadOnDemand.setLayoutData(new GridData(SWT.FILL, SWT.FILL, false, false, 5, 1));
+
+        checkStructureCache = new Button(objectsGroup, SWT.CHECK);
+        checkStructureCache.setFont(curFont);
+        checkStructureCache.setText("Cache File Structure for Faster Reopening");
+        checkStructureCache.setLayoutData(new GridData(SWT.FILL, SWT.FILL, false, false, 5, 1));
+
         load();
         // return scroller;
         return composite;
@@ -47,6 +47,9 @@ public abstract class Dataset extends HObject implements DataFormat {
 
     private static final Logger log = LoggerFactory.getLogger(Dataset.class);
 
+    /** The number of points read at a time by readDirect(). */
+    private static final long DIRECT_BLOCK_POINTS = 1 << 22;
+
     /**
      * The memory buffer that holds the raw data array of the dataset.
      */
@@ -714,6 +717,208 @@ public abstract class Dataset extends HObject implements DataFormat {
         isDataLoaded = false;
     }
 
+    /**
+     * Replaces the data buffer with the data of the current selection read by other means, e.g. ahead
+     * of time by a FramePrefetcher or together with other selections by readPoints(), so that the next
+     * getData() returns it without reading the file.
+     *
+     * @param buf
+     *            the buffer of the current selection, of the type returned by read(); owned by this
+     *            dataset from now on
+     */
+    public void loadSelectionData(Object buf)
+    {
+        clearData();
+        data         = buf;
+        originalBuf  = buf;
+        convertedBuf = null;
+        isDataLoaded = true;
+        nPoints      = 1;
+        for (int j = 0; j < selectedDims.length; j++)
+            nPoints *= selectedDims[j];
+    }
+
+    /**
+     * Reads the values at a list of points of the dataset in one operation.
+     *
+     * The values are returned in a one-dimensional buffer of the type returned by read(), in the order
+     * of the points. The current selection and the data buffer of the dataset are not changed.
+     *
+     * @param coords
+     *            the coordinates of the points; coords[i] holds one index per dimension of point i
+     *
+     * @return the values at the points
+     *
+     * @throws Exception
+     *             if the values can not be read
+     * @throws UnsupportedOperationException
+     *             if the format of the dataset does not support point selections
+     */
+    public Object readPoints(long[][] coords) throws Exception
+    {
+        // If the implementing subclass doesn't have this method then that
+        // format doesn't support point selections and we throw an exception.
+        throw new UnsupportedOperationException("Dataset.readPoints(...) is not implemented.");
+    }
+
+    /**
+     * Reads the values of the union of several hyperslabs of the dataset in one operation.
+     *
+     * The values are returned in a one-dimensional buffer of the type returned by read(), in the
+     * row-major order of the dataset. Points in more than one hyperslab are returned once. The current
+     * selection and the data buffer of the dataset are not changed.
+     *
+     * @param starts
+     *            the start of each hyperslab, one index per dimension
+     * @param strides
+     *            the stride of each hyperslab, or null for contiguous hyperslabs
+     * @param counts
+     *            the size of each hyperslab, one count per dimension
+     *
+     * @return the values of the hyperslabs
+     *
+     * @throws Exception
+     *             if the values can not be read
+     * @throws UnsupportedOperationException
+     *             if the format of the dataset does not support multiple hyperslabs
+     */
+    public Object readHyperslabs(long[][] starts, long[][] strides, long[][] counts) throws Exception
+    {
+        // If the implementing subclass doesn't have this method then that
+        // format doesn't support multiple hyperslabs and we throw an exception.
+        throw new UnsupportedOperationException("Dataset.readHyperslabs(...) is not implemented.");
+    }
+
+    /**
+     * Reads the values of a region selection in one operation.
+     *
+     * The region is given in the notation used for region references, as a list of points separated by
+     * white space, e.g. "(0,1) (2,3)", or as a list of blocks from one corner to the opposite corner,
+     * e.g. "(0,0)-(1,1) (2,2)-(3,3)". The points are read with readPoints() and the blocks with
+     * readHyperslabs(). The current selection and the data buffer of the dataset are not changed.
+     *
+     * @param region
+     *            the points or the blocks of the region
+     *
+     * @return the values of the region, in the order of the points or in the row-major order of the
+     *         dataset for blocks
+     *
+     * @throws Exception
+     *             if the values can not be read
+     * @throws IllegalArgumentException
+     *             if the region is empty, invalid or mixes points and blocks
+     */
+    public Object readRegion(String region) throws Exception
+    {
+        String[] tokens = (region == null) ? new String[0] : region.trim().split("\\s+");
+        if ((tokens.length == 0) || tokens[0].isEmpty())
+            throw new IllegalArgumentException("The region is empty");
+
+        boolean isBlock = (tokens[0].indexOf('-') > 0);
+        long[][] starts = new long[tokens.length][];
+        long[][] counts = isBlock ? new long[tokens.length][] : null;
+        for (int i = 0; i < tokens.length; i++) {
+            int sep = tokens[i].indexOf('-');
+            if ((sep > 0) != isBlock)
+                throw new IllegalArgumentException("The region mixes points and blocks: " + region);
+
+            if (isBlock) {
+                starts[i]  = parseRegionPoint(tokens[i].substring(0, sep));
+                long[] end = parseRegionPoint(tokens[i].substring(sep + 1));
+                if (end.length != starts[i].length)
+                    throw new IllegalArgumentException("The corners of a block do not match: " + tokens[i]);
+                counts[i] = new long[end.length];
+                for (int j = 0; j < end.length; j++)
+                    counts[i][j] = end[j] - starts[i][j] + 1;
+            }
+            else
+                starts[i] = parseRegionPoint(tokens[i]);
+        }
+
+        return isBlock ? readHyperslabs(starts, null, counts) : readPoints(starts);
+    }
+
+    /*
+     * Parses a point of a region selection, e.g. "(2,3)".
+     */
+    private static long[] parseRegionPoint(String point)
+    {
+        String[] values = point.replace('(', ' ').replace(')', ' ').split(",");
+        long[] coords   = new long[values.length];
+        for (int i = 0; i < values.length; i++)
+            coords[i] = Long.parseLong(values[i].trim());
+
+        return coords;
+    }
+
+    /**
+     * Returns an iterator which reads the current selection of the dataset in blocks of at most the
+     * given number of points.
+     *
+     * Unlike getData(), the selection is not read into a single memory buffer, so selections with more
+     * than Integer.MAX_VALUE points, or selections which do not fit in memory, can be processed block by
+     * block. Block boundaries are aligned to the storage chunks of the dataset where possible.
+     *
+     * @param maxBlockPoints
+     *            the maximum number of points of a block
+     *
+     * @return the iterator over the blocks of the selection
+     *
+     * @throws Exception
+     *             if the dataset can not be initialized
+     *
+     * @see hdf.object.DatasetBlockIterator
+     */
+    public DatasetBlockIterator blockIterator(long maxBlockPoints) throws Exception
+    {
+        return new DatasetBlockIterator(this, maxBlockPoints);
+    }
+
+    /**
+     * Reads the current selection of the dataset into a buffer outside of the Java heap.
+     *
+     * The selection is read block by block (see {@link #blockIterator(long)}) and each block is copied
+     * into a DirectDataBuffer, so the Java heap only needs to hold one block at a time and the selection
+     * may contain more than Integer.MAX_VALUE points. The values are laid out in the same order as in
+     * the array returned by getData(). Only datasets of numeric values which are read into arrays of
+     * byte, short, int, long, float or double are supported.
+     *
+     * @return the buffer holding the values of the selection
+     *
+     * @throws Exception
+     *             if the data can not be read or the datatype is not supported
+     */
+    public DirectDataBuffer readDirect() throws Exception
+    {
+        if (!inited)
+            init();
+
+        long total = 1;
+        for (int i = 0; i < rank; i++)
+            total *= selectedDims[i];
+
+        DirectDataBuffer buffer = null;
+        long index              = 0;
+
+        try (DatasetBlockIterator it = blockIterator(DIRECT_BLOCK_POINTS)) {
+            while (it.hasNext()) {
+                Object block = it.next();
+                if (buffer == null) {
+                    char typeClass = Utils.getJavaObjectRuntimeClass(block);
+                    if (DirectDataBuffer.getElementSize(typeClass) <= 0)
+                        throw new Exception("unsupported data type for direct buffer: " + typeClass);
+                    buffer = new DirectDataBuffer(typeClass, total);
+                }
+
+                buffer.put(index, block);
+                index += Array.getLength(block);
+            }
+        }
+
+        log.trace("readDirect(): read {} of {} points", index, total);
+        return buffer;
+    }
+
     /**
      * Refreshes the current object in the file.
      *
@@ -1461,6 +1666,16 @@ public abstract class Dataset extends HObject implements DataFormat {
             return null;
         }
 
+        if (theData instanceof QuadFloatBuffer) {
+            log.trace("toString: value is QuadFloatBuffer");
+            return ((QuadFloatBuffer)theData).toString(delimiter, maxItems);
+        }
+
+        if (theData instanceof VarLenArena) {
+            log.trace("toString: value is VarLenArena");
+            return ((VarLenArena)theData).toString(delimiter, maxItems);
+        }
+
         Class<? extends Object> valClass = theData.getClass();
 
         if (!valClass.isArray()) {
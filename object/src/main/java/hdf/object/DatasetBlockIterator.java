@@ -0,0 +1,307 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Iterates over the current selection of a dataset in blocks of bounded size.
+ *
+ * Dataset.getData() reads the whole selection into a single Java array, which limits a selection to
+ * less than 2^31 points and requires the whole selection to fit in memory. A DatasetBlockIterator
+ * instead splits the selection into blocks of at most a given number of points and reads one block
+ * per call to next(), so that a selection of any size can be processed in bounded memory.
+ *
+ * Blocks are laid out in row-major order. The fastest varying dimensions are covered completely as
+ * long as they fit into a block. In the dimension where a block has to be cut, the block boundaries
+ * are aligned to the storage chunks of the dataset (see {@link Dataset#getChunkSize()}) when the
+ * selection in that dimension is contiguous, so that no chunk is read and decompressed for more than
+ * one block in that dimension.
+ *
+ * The iterator temporarily changes the selection of the dataset while it reads a block and restores
+ * the original selection when the iteration is finished or {@link #close()} is called. When blocks
+ * have the same size, the data buffer of the previous block may be reused for the next block, so the
+ * object returned by next() is only valid until the following call to next().
+ *
+ * <pre>
+ * DatasetBlockIterator it = dataset.blockIterator(1024 * 1024);
+ * try {
+ *     while (it.hasNext()) {
+ *         Object block = it.next();
+ *         long[] start = it.getBlockStart(); // offset of the block in the dataset
+ *         long[] count = it.getBlockDims(); // number of selected points of the block in each dimension
+ *         ...
+ *     }
+ * }
+ * finally {
+ *     it.close();
+ * }
+ * </pre>
+ */
+public class DatasetBlockIterator implements Iterator<Object>, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(DatasetBlockIterator.class);
+
+    /** The dataset being read. */
+    private final Dataset dataset;
+
+    /** The rank of the dataset. */
+    private final int rank;
+
+    /** The original selection of the dataset: start, stride and count. */
+    private final long[] origStart;
+    private final long[] origStride;
+    private final long[] origCount;
+
+    /** The maximum number of selected points of a block in each dimension. */
+    private final long[] blockDims;
+
+    /** The chunk size in each dimension in units of selected points, or zero if blocks are not aligned. */
+    private final long[] alignDims;
+
+    /** The offset of the next block in each dimension in units of selected points. */
+    private final long[] offset;
+
+    /** The start and count of the last block read, in file coordinates and selected points. */
+    private final long[] lastStart;
+    private final long[] lastCount;
+
+    /** The total number of blocks read so far. */
+    private long nBlocks = 0;
+
+    /** true if all blocks have been read. */
+    private boolean finished = false;
+
+    /** true if the original selection has been restored. */
+    private boolean closed = false;
+
+    /**
+     * Creates an iterator over the current selection of a dataset.
+     *
+     * @param dataset
+     *            the dataset to read
+     * @param maxBlockPoints
+     *            the maximum number of points of a block. The value is limited to Integer.MAX_VALUE.
+     *
+     * @throws Exception
+     *             if the dataset can not be initialized
+     */
+    public DatasetBlockIterator(Dataset dataset, long maxBlockPoints) throws Exception
+    {
+        if (dataset == null)
+            throw new IllegalArgumentException("dataset is null");
+        if (maxBlockPoints <= 0)
+            throw new IllegalArgumentException("block size must be positive");
+
+        this.dataset = dataset;
+        if (!dataset.isInited())
+            dataset.init();
+
+        rank = dataset.getRank();
+
+        long[] start  = dataset.getStartDims();
+        long[] stride = dataset.getStride();
+        long[] count  = dataset.getSelectedDims();
+        long[] chunks = dataset.getChunkSize();
+
+        origStart  = (start == null) ? null : start.clone();
+        origStride = (stride == null) ? null : stride.clone();
+        origCount  = (count == null) ? null : count.clone();
+        blockDims  = new long[rank];
+        alignDims  = new long[rank];
+        offset     = new long[rank];
+        lastStart  = new long[rank];
+        lastCount  = new long[rank];
+
+        long remaining = Math.min(maxBlockPoints, Integer.MAX_VALUE);
+        for (int i = rank - 1; i >= 0; i--) {
+            long n = origCount[i];
+            if (n <= 0) {
+                finished     = true;
+                blockDims[i] = 1;
+            }
+            else if (n <= remaining) {
+                blockDims[i] = n;
+                remaining /= n;
+            }
+            else {
+                long b             = Math.max(1, remaining);
+                boolean contiguous = (origStride == null) || (origStride[i] == 1);
+                if (contiguous && (chunks != null) && (chunks.length == rank) && (chunks[i] > 0) &&
+                    (b >= chunks[i])) {
+                    alignDims[i] = chunks[i];
+                    b            = (b / chunks[i]) * chunks[i];
+                }
+                blockDims[i] = b;
+                remaining    = 1;
+            }
+        }
+
+        log.trace("DatasetBlockIterator(): {} maxBlockPoints={} rank={}", dataset.getFullName(), maxBlockPoints,
+                  rank);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Iterator#hasNext()
+     */
+    @Override
+    public boolean hasNext()
+    {
+        if (finished)
+            close();
+        return !finished;
+    }
+
+    /**
+     * Reads the next block of the selection.
+     *
+     * @return the data of the block, in the same form as returned by Dataset.getData() for a selection
+     *         of the size of the block.
+     *
+     * @throws NoSuchElementException
+     *             if all blocks have been read
+     * @throws IllegalStateException
+     *             if the block can not be read
+     */
+    @Override
+    public Object next()
+    {
+        if (finished)
+            throw new NoSuchElementException();
+
+        Object theData = null;
+
+        if (rank <= 0) {
+            // a scalar dataset is read as a single block
+            theData  = readBlock();
+            finished = true;
+            return theData;
+        }
+
+        long[] start  = dataset.getStartDims();
+        long[] count  = dataset.getSelectedDims();
+        long[] stride = dataset.getStride();
+        for (int i = 0; i < rank; i++) {
+            long s = (origStride == null) ? 1 : origStride[i];
+            long n = Math.min(blockDims[i], origCount[i] - offset[i]);
+
+            // end the block at a chunk boundary
+            if (alignDims[i] > 0)
+                n = Math.min(n, blockDims[i] - ((origStart[i] + offset[i]) % alignDims[i]));
+
+            lastStart[i] = origStart[i] + offset[i] * s;
+            lastCount[i] = n;
+            start[i]     = lastStart[i];
+            count[i]     = n;
+            if (stride != null)
+                stride[i] = s;
+        }
+
+        theData = readBlock();
+
+        // advance the block offsets, fastest varying dimension first
+        int i = rank - 1;
+        while (i >= 0) {
+            offset[i] += lastCount[i];
+            if (offset[i] < origCount[i])
+                break;
+            offset[i] = 0;
+            i--;
+        }
+        if (i < 0)
+            finished = true;
+
+        return theData;
+    }
+
+    private Object readBlock()
+    {
+        Object theData = null;
+        try {
+            theData = dataset.read();
+        }
+        catch (Exception ex) {
+            log.debug("readBlock(): block {} read failure: ", nBlocks, ex);
+            close();
+            throw new IllegalStateException("failed to read block " + nBlocks + ": " + ex.getMessage(), ex);
+        }
+        catch (OutOfMemoryError err) {
+            log.debug("readBlock(): block {} out of memory", nBlocks);
+            close();
+            throw err;
+        }
+
+        // let the next block of the same size reuse this buffer
+        if (theData != null) {
+            long nPoints = 1;
+            for (int j = 0; j < rank; j++)
+                nPoints *= lastCount[j];
+            dataset.originalBuf = theData;
+            dataset.nPoints     = nPoints;
+        }
+
+        nBlocks++;
+        return theData;
+    }
+
+    /**
+     * Returns the start of the last block read in each dimension of the dataset.
+     *
+     * @return the start of the last block.
+     */
+    public long[] getBlockStart() { return lastStart.clone(); }
+
+    /**
+     * Returns the number of selected points of the last block read in each dimension of the dataset.
+     *
+     * @return the size of the last block.
+     */
+    public long[] getBlockDims() { return lastCount.clone(); }
+
+    /**
+     * Returns the number of blocks read so far.
+     *
+     * @return the number of blocks read.
+     */
+    public long getBlockCount() { return nBlocks; }
+
+    /**
+     * Stops the iteration and restores the original selection of the dataset. The data buffer of the
+     * dataset is cleared, so the next call to Dataset.getData() reads the original selection again.
+     */
+    @Override
+    public void close()
+    {
+        finished = true;
+        if (closed)
+            return;
+        closed = true;
+
+        if ((rank > 0) && (origCount != null)) {
+            System.arraycopy(origStart, 0, dataset.getStartDims(), 0, rank);
+            System.arraycopy(origCount, 0, dataset.getSelectedDims(), 0, rank);
+            if ((origStride != null) && (dataset.getStride() != null))
+                System.arraycopy(origStride, 0, dataset.getStride(), 0, rank);
+        }
+
+        dataset.originalBuf = null;
+        dataset.clearData();
+    }
+}
@@ -0,0 +1,405 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A buffer of numeric data values stored outside of the Java heap and indexed by long.
+ *
+ * Java arrays are limited to Integer.MAX_VALUE elements and live on the garbage collected heap. A
+ * DirectDataBuffer holds the values in direct ByteBuffers of at most 1 GB each, so it can hold more
+ * than Integer.MAX_VALUE values and large selections do not put pressure on the garbage collector.
+ * The values are stored in native byte order, in the same layout as the one-dimensional array
+ * returned by Dataset.getData() for the same selection.
+ *
+ * The type of the values is given by the runtime class character of the equivalent Java array, as
+ * returned by {@link Utils#getJavaObjectRuntimeClass(Object)}: 'B' (byte), 'S' (short), 'I' (int),
+ * 'J' (long), 'F' (float) or 'D' (double).
+ *
+ * @see hdf.object.Dataset#readDirect()
+ */
+public class DirectDataBuffer {
+    private static final Logger log = LoggerFactory.getLogger(DirectDataBuffer.class);
+
+    /** The maximum size of one segment in bytes. */
+    private static final int SEGMENT_BYTES = 1 << 30;
+
+    /** The runtime class character of the values. */
+    private final char typeClass;
+
+    /** The size of one value in bytes. */
+    private final int elementSize;
+
+    /** The number of values in the buffer. */
+    private final long size;
+
+    /** The number of values held by each segment. */
+    private final int segmentPoints;
+
+    /** The segments holding the values. */
+    private final ByteBuffer[] segments;
+
+    /**
+     * Allocates a buffer for the given number of values.
+     *
+     * @param typeClass
+     *            the runtime class character of the values: 'B', 'S', 'I', 'J', 'F' or 'D'
+     * @param size
+     *            the number of values
+     *
+     * @throws IllegalArgumentException
+     *             if the type is not numeric or the size is negative
+     * @throws OutOfMemoryError
+     *             if the direct memory can not be allocated
+     */
+    public DirectDataBuffer(char typeClass, long size)
+    {
+        this.elementSize = getElementSize(typeClass);
+        if (elementSize <= 0)
+            throw new IllegalArgumentException("unsupported data type: " + typeClass);
+        if (size < 0)
+            throw new IllegalArgumentException("invalid buffer size: " + size);
+
+        this.typeClass     = typeClass;
+        this.size          = size;
+        this.segmentPoints = SEGMENT_BYTES / elementSize;
+
+        int nSegments = (int)((size + segmentPoints - 1) / segmentPoints);
+        segments     = new ByteBuffer[nSegments];
+        for (int i = 0; i < nSegments; i++) {
+            long points = Math.min(segmentPoints, size - (long)i * segmentPoints);
+            segments[i] = ByteBuffer.allocateDirect((int)(points * elementSize)).order(ByteOrder.nativeOrder());
+        }
+
+        log.trace("DirectDataBuffer(): type={} size={} segments={}", typeClass, size, nSegments);
+    }
+
+    /**
+     * Returns the size in bytes of a value of the given runtime class, or -1 if the class is not a
+     * supported numeric type.
+     *
+     * @param typeClass
+     *            the runtime class character of the values
+     *
+     * @return the size of one value in bytes
+     */
+    public static int getElementSize(char typeClass)
+    {
+        switch (typeClass) {
+        case 'B':
+            return 1;
+        case 'S':
+            return 2;
+        case 'I':
+        case 'F':
+            return 4;
+        case 'J':
+        case 'D':
+            return 8;
+        default:
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the runtime class character of the values.
+     *
+     * @return the runtime class character: 'B', 'S', 'I', 'J', 'F' or 'D'
+     */
+    public char getTypeClass() { return typeClass; }
+
+    /**
+     * Returns the number of values in the buffer.
+     *
+     * @return the number of values.
+     */
+    public long getSize() { return size; }
+
+    /**
+     * Returns the size of one value in bytes.
+     *
+     * @return the size of one value in bytes.
+     */
+    public int getElementSize() { return elementSize; }
+
+    private ByteBuffer segment(long index)
+    {
+        if ((index < 0) || (index >= size))
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+        return segments[(int)(index / segmentPoints)];
+    }
+
+    private int position(long index) { return (int)(index % segmentPoints) * elementSize; }
+
+    /**
+     * Returns the value at the given index as an object of the wrapper class of the values, in the same
+     * way as java.lang.reflect.Array.get() does for a Java array.
+     *
+     * @param index
+     *            the index of the value
+     *
+     * @return the value
+     */
+    public Object get(long index)
+    {
+        switch (typeClass) {
+        case 'B':
+            return getByte(index);
+        case 'S':
+            return getShort(index);
+        case 'I':
+            return getInt(index);
+        case 'J':
+            return getLong(index);
+        case 'F':
+            return getFloat(index);
+        default:
+            return getDouble(index);
+        }
+    }
+
+    /**
+     * Returns the value at the given index converted to a double.
+     *
+     * @param index
+     *            the index of the value
+     *
+     * @return the value as a double
+     */
+    public double getAsDouble(long index)
+    {
+        switch (typeClass) {
+        case 'B':
+            return getByte(index);
+        case 'S':
+            return getShort(index);
+        case 'I':
+            return getInt(index);
+        case 'J':
+            return getLong(index);
+        case 'F':
+            return getFloat(index);
+        default:
+            return getDouble(index);
+        }
+    }
+
+    /**
+     * Returns the byte value at the given index.
+     *
+     * @param index
+     *            the index of the value
+     *
+     * @return the value
+     */
+    public byte getByte(long index) { return segment(index).get(position(index)); }
+
+    /**
+     * Returns the short value at the given index.
+     *
+     * @param index
+     *            the index of the value
+     *
+     * @return the value
+     */
+    public short getShort(long index) { return segment(index).getShort(position(index)); }
+
+    /**
+     * Returns the int value at the given index.
+     *
+     * @param index
+     *            the index of the value
+     *
+     * @return the value
+     */
+    public int getInt(long index) { return segment(index).getInt(position(index)); }
+
+    /**
+     * Returns the long value at the given index.
+     *
+     * @param index
+     *            the index of the value
+     *
+     * @return the value
+     */
+    public long getLong(long index) { return segment(index).getLong(position(index)); }
+
+    /**
+     * Returns the float value at the given index.
+     *
+     * @param index
+     *            the index of the value
+     *
+     * @return the value
+     */
+    public float getFloat(long index) { return segment(index).getFloat(position(index)); }
+
+    /**
+     * Returns the double value at the given index.
+     *
+     * @param index
+     *            the index of the value
+     *
+     * @return the value
+     */
+    public double getDouble(long index) { return segment(index).getDouble(position(index)); }
+
+    /**
+     * Copies the values of a Java array into the buffer.
+     *
+     * @param index
+     *            the index of the first value to write
+     * @param array
+     *            a Java array of the type of the buffer
+     *
+     * @throws IllegalArgumentException
+     *             if the array does not match the type of the buffer
+     */
+    public void put(long index, Object array)
+    {
+        if (Utils.getJavaObjectRuntimeClass(array) != typeClass)
+            throw new IllegalArgumentException("array does not match the buffer type " + typeClass);
+
+        int n = Array.getLength(array);
+        if ((index < 0) || (index + n > size))
+            throw new IndexOutOfBoundsException("cannot put " + n + " values at index " + index);
+
+        int done = 0;
+        while (done < n) {
+            long pos       = index + done;
+            ByteBuffer seg = segments[(int)(pos / segmentPoints)].duplicate().order(ByteOrder.nativeOrder());
+            int segPos     = (int)(pos % segmentPoints);
+            int count      = Math.min(n - done, segmentPoints - segPos);
+            seg.position(segPos * elementSize);
+
+            switch (typeClass) {
+            case 'B':
+                seg.put((byte[])array, done, count);
+                break;
+            case 'S':
+                seg.asShortBuffer().put((short[])array, done, count);
+                break;
+            case 'I':
+                seg.asIntBuffer().put((int[])array, done, count);
+                break;
+            case 'J':
+                seg.asLongBuffer().put((long[])array, done, count);
+                break;
+            case 'F':
+                seg.asFloatBuffer().put((float[])array, done, count);
+                break;
+            default:
+                seg.asDoubleBuffer().put((double[])array, done, count);
+                break;
+            }
+
+            done += count;
+        }
+    }
+
+    /**
+     * Copies a range of values into a new Java array of the type of the buffer.
+     *
+     * @param index
+     *            the index of the first value to copy
+     * @param count
+     *            the number of values to copy
+     *
+     * @return a Java array holding the values
+     */
+    public Object getArray(long index, int count)
+    {
+        if ((index < 0) || (count < 0) || (index + count > size))
+            throw new IndexOutOfBoundsException("cannot get " + count + " values at index " + index);
+
+        Object array = null;
+        switch (typeClass) {
+        case 'B':
+            array = new byte[count];
+            break;
+        case 'S':
+            array = new short[count];
+            break;
+        case 'I':
+            array = new int[count];
+            break;
+        case 'J':
+            array = new long[count];
+            break;
+        case 'F':
+            array = new float[count];
+            break;
+        default:
+            array = new double[count];
+            break;
+        }
+
+        int done = 0;
+        while (done < count) {
+            long pos       = index + done;
+            ByteBuffer seg = segments[(int)(pos / segmentPoints)].duplicate().order(ByteOrder.nativeOrder());
+            int segPos     = (int)(pos % segmentPoints);
+            int n          = Math.min(count - done, segmentPoints - segPos);
+            seg.position(segPos * elementSize);
+
+            switch (typeClass) {
+            case 'B':
+                seg.get((byte[])array, done, n);
+                break;
+            case 'S':
+                seg.asShortBuffer().get((short[])array, done, n);
+                break;
+            case 'I':
+                seg.asIntBuffer().get((int[])array, done, n);
+                break;
+            case 'J':
+                seg.asLongBuffer().get((long[])array, done, n);
+                break;
+            case 'F':
+                seg.asFloatBuffer().get((float[])array, done, n);
+                break;
+            default:
+                seg.asDoubleBuffer().get((double[])array, done, n);
+                break;
+            }
+
+            done += n;
+        }
+
+        return array;
+    }
+
+    /**
+     * Returns a read-only view of the segment holding the given index. The view covers the whole
+     * segment, in native byte order; the value at the index starts at the position of the view.
+     *
+     * @param index
+     *            the index of a value
+     *
+     * @return a read-only view of the segment, positioned at the value
+     */
+    public ByteBuffer getSegment(long index)
+    {
+        ByteBuffer seg = segment(index).asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+        seg.position(position(index));
+        return seg;
+    }
+}
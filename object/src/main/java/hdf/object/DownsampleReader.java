@@ -0,0 +1,436 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object;
+
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the current selection of a scalar dataset downsampled by block aggregation.
+ *
+ * The stride of the selection is taken as the size of the block of values behind each point of the
+ * result. The values under the selection are read in bands of rows along the first dimension, which
+ * start and end on the chunk grid of the dataset where possible so that no chunk is read twice, and
+ * each band is folded into the result before the next one is read. A block may span two bands.
+ *
+ * @see ScalarDS#readDownsampled(ScalarDS.DownsampleMode)
+ */
+final class DownsampleReader {
+    private static final Logger log = LoggerFactory.getLogger(DownsampleReader.class);
+
+    /** The approximate number of values read per band. */
+    static final long BAND_POINTS = 1 << 22;
+
+    private DownsampleReader() { throw new IllegalStateException("Utility class"); }
+
+    /**
+     * Reads the current selection of a dataset downsampled by block aggregation.
+     *
+     * @param dataset
+     *            the dataset to read
+     * @param mode
+     *            the aggregation of each block
+     * @param maxPoints
+     *            the largest number of source values aggregated; larger selections are read by read()
+     *
+     * @return the aggregated values, of the type and shape returned by read() for the selection
+     *
+     * @throws Exception
+     *             if the data can not be read
+     */
+    static Object read(ScalarDS dataset, ScalarDS.DownsampleMode mode, long maxPoints) throws Exception
+    {
+        if (!dataset.isInited())
+            dataset.init();
+
+        int rank       = dataset.getRank();
+        long[] dims    = dataset.getDims();
+        long[] start   = dataset.getStartDims();
+        long[] count   = dataset.getSelectedDims();
+        long[] stride  = dataset.getStride();
+        Datatype dtype = dataset.getDatatype();
+
+        long[] block      = new long[rank];
+        boolean isBlocked = false;
+        for (int i = 0; i < rank; i++) {
+            block[i] = ((stride == null) || (stride[i] < 1)) ? 1 : stride[i];
+            isBlocked |= (block[i] > 1);
+        }
+        if ((mode == null) || !isBlocked || (dtype == null) || !(dtype.isInteger() || dtype.isFloat()))
+            return dataset.read();
+
+        // the source values under the selection, clipped to the dataset
+        long[] extent    = new long[rank];
+        long[] outStride = new long[rank];
+        long outPoints   = 1;
+        double srcPoints = 1;
+        for (int i = rank - 1; i >= 0; i--) {
+            extent[i]    = Math.min(count[i] * block[i], dims[i] - start[i]);
+            outStride[i] = outPoints;
+            outPoints *= count[i];
+            srcPoints *= extent[i];
+        }
+        if ((outPoints <= 0) || (outPoints > Integer.MAX_VALUE))
+            return dataset.read();
+        if (srcPoints > maxPoints) {
+            log.trace("read(): {} source points over {}, read by stride", srcPoints, maxPoints);
+            return dataset.read();
+        }
+
+        // the offset in the result of each source index of the other dimensions
+        int[][] maps = new int[rank][];
+        for (int i = 1; i < rank; i++) {
+            maps[i] = new int[(int)extent[i]];
+            for (int j = 0; j < extent[i]; j++)
+                maps[i][j] = (int)((j / block[i]) * outStride[i]);
+        }
+
+        // bands end on the chunk grid of the first dimension where a row of chunks fits in a band
+        long rowPoints = 1;
+        for (int i = 1; i < rank; i++)
+            rowPoints *= extent[i];
+        long bandRows = Math.max(1, BAND_POINTS / rowPoints);
+        long chunk0   = 1;
+        long[] chunks = dataset.getChunkSize();
+        if ((chunks != null) && (chunks.length == rank) && (chunks[0] > 1) && (chunks[0] <= bandRows)) {
+            chunk0   = chunks[0];
+            bandRows = bandRows - (bandRows % chunk0);
+        }
+
+        Aggregator aggregator = null;
+        long[] bandStart      = start.clone();
+        long[] bandCount      = extent.clone();
+        long end0             = start[0] + extent[0];
+        for (long row = 0; row < extent[0]; row += bandCount[0]) {
+            bandStart[0] = start[0] + row;
+            long bandEnd = bandStart[0] + bandRows;
+            bandEnd -= bandEnd % chunk0;
+            bandCount[0] = Math.min(bandEnd, end0) - bandStart[0];
+
+            Object band = readBand(dataset, bandStart, bandCount);
+            if (aggregator == null) {
+                aggregator = Aggregator.create(band, mode, dtype.isUnsigned(), (int)outPoints);
+                if (aggregator == null) {
+                    log.debug("read(): {} values can not be aggregated", band.getClass().getName());
+                    return dataset.read();
+                }
+            }
+            aggregator.setBand(band);
+            aggregate(aggregator, row, bandCount, block[0], outStride[0], maps);
+        }
+        log.trace("read(): {} points of blocks {} in bands of {} rows", outPoints, Arrays.toString(block),
+                  bandRows);
+
+        return (aggregator == null) ? dataset.read() : aggregator.getResult();
+    }
+
+    /*
+     * Reads a hyperslab of the dataset without changing its selection where the format allows it.
+     */
+    private static Object readBand(ScalarDS dataset, long[] bandStart, long[] bandCount) throws Exception
+    {
+        try {
+            return dataset.readHyperslabs(new long[][] {bandStart}, null, new long[][] {bandCount});
+        }
+        catch (UnsupportedOperationException ex) {
+            log.trace("readBand(): read through the selection of the dataset");
+        }
+
+        int rank       = dataset.getRank();
+        long[] start   = dataset.getStartDims();
+        long[] count   = dataset.getSelectedDims();
+        long[] stride  = dataset.getStride();
+        long[] tstart  = start.clone();
+        long[] tcount  = count.clone();
+        long[] tstride = (stride == null) ? null : stride.clone();
+        try {
+            System.arraycopy(bandStart, 0, start, 0, rank);
+            System.arraycopy(bandCount, 0, count, 0, rank);
+            if (stride != null)
+                Arrays.fill(stride, 1);
+            return dataset.read();
+        }
+        finally {
+            System.arraycopy(tstart, 0, start, 0, rank);
+            System.arraycopy(tcount, 0, count, 0, rank);
+            if (stride != null)
+                System.arraycopy(tstride, 0, stride, 0, rank);
+        }
+    }
+
+    /*
+     * Folds the values of a band into the result, walking the band in row-major order.
+     */
+    private static void aggregate(Aggregator aggregator, long row, long[] bandCount, long block0,
+                                  long outStride0, int[][] maps)
+    {
+        int rank  = bandCount.length;
+        int last  = rank - 1;
+        int inner = (int)bandCount[last];
+        int total = aggregator.getBandLength();
+        int[] idx = new int[rank];
+        int pos   = 0;
+
+        while (pos < total) {
+            if (last == 0) {
+                for (int j = 0; j < inner; j++)
+                    aggregator.add((int)((row + j) / block0), pos + j);
+            }
+            else {
+                long outer = ((row + idx[0]) / block0) * outStride0;
+                for (int i = 1; i < last; i++)
+                    outer += maps[i][idx[i]];
+
+                int[] map = maps[last];
+                for (int j = 0; j < inner; j++)
+                    aggregator.add((int)(outer + map[j]), pos + j);
+            }
+            pos += inner;
+
+            for (int i = last - 1; i >= 0; i--) {
+                if (++idx[i] < bandCount[i])
+                    break;
+                idx[i] = 0;
+            }
+        }
+    }
+
+    /*
+     * Accumulates the mean, minimum or maximum of the values falling on each point of the result.
+     */
+    private static final class Aggregator {
+        private final ScalarDS.DownsampleMode mode;
+        private final boolean isUnsigned;
+        private final char type;
+
+        /* the sums, minimums or maximums; 64-bit minimums and maximums are kept exactly in longs */
+        private final double[] acc;
+        private final long[] accLong;
+        private final int[] counts;
+
+        private byte[] bytes;
+        private short[] shorts;
+        private int[] ints;
+        private long[] longs;
+        private float[] floats;
+        private double[] doubles;
+
+        private Aggregator(ScalarDS.DownsampleMode mode, boolean isUnsigned, char type, int n)
+        {
+            this.mode       = mode;
+            this.isUnsigned = isUnsigned;
+            this.type       = type;
+            this.counts     = new int[n];
+            if ((type == 'J') && (mode != ScalarDS.DownsampleMode.MEAN)) {
+                this.acc     = null;
+                this.accLong = new long[n];
+            }
+            else {
+                this.acc     = new double[n];
+                this.accLong = null;
+            }
+        }
+
+        /*
+         * Creates an aggregator for the values of a band, or returns null for buffers which are not
+         * arrays of numbers.
+         */
+        static Aggregator create(Object band, ScalarDS.DownsampleMode mode, boolean isUnsigned, int n)
+        {
+            char type;
+            if (band instanceof byte[])
+                type = 'B';
+            else if (band instanceof short[])
+                type = 'S';
+            else if (band instanceof int[])
+                type = 'I';
+            else if (band instanceof long[])
+                type = 'J';
+            else if (band instanceof float[])
+                type = 'F';
+            else if (band instanceof double[])
+                type = 'D';
+            else
+                return null;
+
+            return new Aggregator(mode, isUnsigned, type, n);
+        }
+
+        void setBand(Object band)
+        {
+            switch (type) {
+            case 'B':
+                bytes = (byte[])band;
+                break;
+            case 'S':
+                shorts = (short[])band;
+                break;
+            case 'I':
+                ints = (int[])band;
+                break;
+            case 'J':
+                longs = (long[])band;
+                break;
+            case 'F':
+                floats = (float[])band;
+                break;
+            default:
+                doubles = (double[])band;
+                break;
+            }
+        }
+
+        int getBandLength()
+        {
+            switch (type) {
+            case 'B':
+                return bytes.length;
+            case 'S':
+                return shorts.length;
+            case 'I':
+                return ints.length;
+            case 'J':
+                return longs.length;
+            case 'F':
+                return floats.length;
+            default:
+                return doubles.length;
+            }
+        }
+
+        void add(int out, int k)
+        {
+            if (accLong != null) {
+                addLong(out, longs[k]);
+                return;
+            }
+
+            double v;
+            switch (type) {
+            case 'B':
+                v = isUnsigned ? (bytes[k] & 0xff) : bytes[k];
+                break;
+            case 'S':
+                v = isUnsigned ? (shorts[k] & 0xffff) : shorts[k];
+                break;
+            case 'I':
+                v = isUnsigned ? (ints[k] & 0xffffffffL) : ints[k];
+                break;
+            case 'J':
+                v = isUnsigned ? unsignedToDouble(longs[k]) : longs[k];
+                break;
+            case 'F':
+                v = floats[k];
+                break;
+            default:
+                v = doubles[k];
+                break;
+            }
+            if (Double.isNaN(v))
+                return;
+
+            if (counts[out] == 0)
+                acc[out] = v;
+            else if (mode == ScalarDS.DownsampleMode.MEAN)
+                acc[out] += v;
+            else if (mode == ScalarDS.DownsampleMode.MIN)
+                acc[out] = Math.min(acc[out], v);
+            else
+                acc[out] = Math.max(acc[out], v);
+            counts[out]++;
+        }
+
+        private void addLong(int out, long v)
+        {
+            if (counts[out] == 0)
+                accLong[out] = v;
+            else {
+                int cmp = isUnsigned ? Long.compareUnsigned(v, accLong[out]) : Long.compare(v, accLong[out]);
+                if ((mode == ScalarDS.DownsampleMode.MIN) ? (cmp < 0) : (cmp > 0))
+                    accLong[out] = v;
+            }
+            counts[out]++;
+        }
+
+        Object getResult()
+        {
+            int n = counts.length;
+            if (accLong != null)
+                return accLong;
+
+            switch (type) {
+            case 'B': {
+                byte[] result = new byte[n];
+                for (int i = 0; i < n; i++)
+                    result[i] = (byte)Math.round(getValue(i));
+                return result;
+            }
+            case 'S': {
+                short[] result = new short[n];
+                for (int i = 0; i < n; i++)
+                    result[i] = (short)Math.round(getValue(i));
+                return result;
+            }
+            case 'I': {
+                int[] result = new int[n];
+                for (int i = 0; i < n; i++)
+                    result[i] = (int)Math.round(getValue(i));
+                return result;
+            }
+            case 'J': {
+                long[] result = new long[n];
+                for (int i = 0; i < n; i++)
+                    result[i] = isUnsigned ? doubleToUnsigned(getValue(i)) : Math.round(getValue(i));
+                return result;
+            }
+            case 'F': {
+                float[] result = new float[n];
+                for (int i = 0; i < n; i++)
+                    result[i] = (float)getValue(i);
+                return result;
+            }
+            default: {
+                double[] result = new double[n];
+                for (int i = 0; i < n; i++)
+                    result[i] = getValue(i);
+                return result;
+            }
+            }
+        }
+
+        /*
+         * Returns the aggregate of a point, or NaN if all of its values were NaN.
+         */
+        private double getValue(int i)
+        {
+            if (counts[i] == 0)
+                return Double.NaN;
+
+            return (mode == ScalarDS.DownsampleMode.MEAN) ? acc[i] / counts[i] : acc[i];
+        }
+
+        private static double unsignedToDouble(long v)
+        {
+            return (v >= 0) ? v : ((v >>> 1) | (v & 1)) * 2.0;
+        }
+
+        private static long doubleToUnsigned(double v)
+        {
+            return (v < 0x1p63) ? Math.round(v) : Math.round(v - 0x1p63) ^ Long.MIN_VALUE;
+        }
+    }
+}
@@ -18,6 +18,7 @@ import java.io.File;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
 import java.util.Vector;
@@ -176,6 +177,12 @@ public abstract class FileFormat extends File {
      */
     private int startMembers = 0; // 0 by default
 
+    /**
+     * Flag indicating if the members of a group are retrieved from the file only when the group is
+     * first accessed, instead of loading the whole file structure when the file is opened.
+     */
+    private boolean loadOnDemand = false;
+
     /**
      * File identifier. -1 indicates the file is not open.
      */
@@ -191,6 +198,16 @@ public abstract class FileFormat extends File {
      */
     protected boolean isReadOnly = false;
 
+    /**
+     * The objects of the file in memory by full name and object ID, built on the first lookup.
+     */
+    private transient ObjectIndex objectIndex = null;
+
+    /**
+     * The number of changes to the object tree in memory, which tells search indexes to update.
+     */
+    private transient volatile long structureModCount = 0;
+
     // By default, HDF4 and HDF5 file formats are added to the supported formats list.
     static
     {
@@ -504,6 +521,10 @@ public abstract class FileFormat extends File {
      * returns an instance of the associated FileFormat object. If no match is
      * found, <code>null</code> is returned.
      *
+     * The HDF5, HDF4, netCDF-3 and FITS formats are recognized by the signature
+     * of the file, see {@link FileSignature}; the other formats are checked
+     * with isThisType(String).
+     *
      * For example, if "test_hdf5.h5" is an HDF5 file,
      * FileFormat.getInstance("test_hdf5.h5") will return an instance of H5File.
      *
@@ -535,10 +556,29 @@ public abstract class FileFormat extends File {
 
         FileFormat fileFormat  = null;
         FileFormat knownFormat = null;
-        Enumeration<?> elms    = ((Hashtable)FileList).elements();
 
-        while (elms.hasMoreElements()) {
-            knownFormat = (FileFormat)elms.nextElement();
+        // the signature of the file, read once, tells the format of the built-in formats directly
+        for (String key : FileSignature.getFileFormatKeys(filename)) {
+            knownFormat = getFileFormat(key);
+            if (knownFormat != null) {
+                try {
+                    fileFormat = knownFormat.createInstance(filename, WRITE);
+                }
+                catch (Exception ex) {
+                    log.debug("File {} createInstance failure: ", filename, ex);
+                }
+                return fileFormat;
+            }
+        }
+
+        // only formats without a known signature need to probe the file
+        Enumeration<?> keys = ((Hashtable)FileList).keys();
+        while (keys.hasMoreElements()) {
+            String key = (String)keys.nextElement();
+            if (FileSignature.isKnownFormat(key))
+                continue;
+
+            knownFormat = getFileFormat(key);
             if (knownFormat.isThisType(filename)) {
                 try {
                     fileFormat = knownFormat.createInstance(filename, WRITE);
@@ -827,6 +867,30 @@ public abstract class FileFormat extends File {
      */
     public final int getStartMembers() { return startMembers; }
 
+    /**
+     * Sets whether the file structure is loaded on demand.
+     *
+     * When set, open() loads only the members of the root group. The members of any other group are
+     * retrieved from the file the first time the group's member list is accessed. This keeps the cost of
+     * opening files with a very large number of objects proportional to what is actually browsed.
+     *
+     * The implementing FileFormat class has freedom in how it interprets this flag; implementations that do
+     * not support loading on demand always load the whole structure.
+     *
+     * @param b
+     *            true to load group members on demand; false to load the full structure at open().
+     * @see #isLoadOnDemand()
+     */
+    public final void setLoadOnDemand(boolean b) { loadOnDemand = b; }
+
+    /**
+     * Returns true if the file structure is loaded on demand.
+     *
+     * @return true if group members are loaded on demand; otherwise, returns false.
+     * @see #setLoadOnDemand(boolean)
+     */
+    public final boolean isLoadOnDemand() { return loadOnDemand; }
+
     /**
      * Returns the number of objects in memory.
      *
@@ -1651,22 +1715,25 @@ public abstract class FileFormat extends File {
             return null;
         }
 
-        HObject theObj = null;
-
         HObject theRoot = file.getRootObject();
         if (theRoot == null) {
             log.debug("findObject(): rootObject is null");
             return null;
         }
 
+        HObject theObj = file.findIndexedObject(oid);
+        if ((theObj != null) || !file.isLoadOnDemand())
+            return theObj;
+
+        // the object may be in a group whose members have not been loaded yet
         Iterator<HObject> memberIt = ((Group)theRoot).breadthFirstMemberList().iterator();
         while (memberIt.hasNext()) {
             theObj = memberIt.next();
             if (theObj.equalsOID(oid))
-                break;
+                return theObj;
         }
 
-        return theObj;
+        return null;
     }
 
     /**
@@ -1700,16 +1767,111 @@ public abstract class FileFormat extends File {
             return theRoot;
         }
 
-        Iterator<HObject> memberIt = ((Group)theRoot).breadthFirstMemberList().iterator();
-        HObject theObj             = null;
-        while (memberIt.hasNext()) {
-            theObj          = memberIt.next();
-            String fullPath = theObj.getFullName() + "/";
+        HObject theObj = file.getObjectIndex(theRoot).get(path.substring(0, path.length() - 1));
+        if (theObj != null)
+            return theObj;
 
-            if (path.equals(fullPath) && theObj.getPath() != null)
-                break;
-            else
-                theObj = null;
+        // only load the groups along the path, not the whole structure
+        if (file.isLoadOnDemand())
+            return findObjectAlongPath((Group)theRoot, path);
+
+        return null;
+    }
+
+    /**
+     * Finds an object in memory by its object ID, without retrieving any members of groups from the file.
+     *
+     * Loaders use it to detect loops in the group structure without walking the tree. When several
+     * objects in memory have the same object ID, the one closest to the root group is returned.
+     *
+     * @param oid the oid to search for
+     *
+     * @return the object that has the given OID; null if there is no such object in memory
+     */
+    protected final HObject findIndexedObject(long[] oid)
+    {
+        HObject theRoot = getRootObject();
+        if ((theRoot == null) || (oid == null))
+            return null;
+
+        return getObjectIndex(theRoot).get(oid);
+    }
+
+    /**
+     * Drops the index of the objects in memory, which is built again on the next lookup. File formats
+     * call it when they replace or drop the object tree.
+     */
+    protected final synchronized void invalidateObjectIndex()
+    {
+        objectIndex = null;
+        structureModCount++;
+    }
+
+    /*
+     * Returns the number of changes to the object tree in memory, to find out if it changed since.
+     */
+    final long getStructureModCount() { return structureModCount; }
+
+    /*
+     * Returns the index of the objects in memory under the root group, building it first if needed.
+     */
+    private synchronized ObjectIndex getObjectIndex(HObject theRoot)
+    {
+        if ((objectIndex == null) || (objectIndex.getRoot() != theRoot))
+            objectIndex = new ObjectIndex(theRoot);
+        return objectIndex;
+    }
+
+    /*
+     * Adds an object added to the member list of a group to the index, if it has been built.
+     */
+    final synchronized void indexObject(HObject obj)
+    {
+        if (objectIndex != null)
+            objectIndex.add(obj);
+        structureModCount++;
+    }
+
+    /*
+     * Moves an object in the index after its full name changed.
+     */
+    final synchronized void renameIndexedObject(HObject obj, String oldFullName)
+    {
+        if (objectIndex != null)
+            objectIndex.rename(obj, oldFullName);
+        structureModCount++;
+    }
+
+    /**
+     * Finds an object by walking down the groups named in the path, starting from the root group. Only the
+     * member lists of the groups along the path are accessed.
+     *
+     * @param theRoot the root group of the file
+     * @param path    the full path of the object to search for, ending with "/"
+     *
+     * @return the object that has the given path; otherwise returns null
+     */
+    private static HObject findObjectAlongPath(Group theRoot, String path)
+    {
+        HObject theObj     = theRoot;
+        StringTokenizer st = new StringTokenizer(path, HObject.SEPARATOR);
+
+        while (st.hasMoreTokens()) {
+            if (!(theObj instanceof Group))
+                return null;
+
+            String name    = st.nextToken();
+            HObject member = null;
+            for (HObject obj : ((Group)theObj).getMemberList()) {
+                if (name.equals(obj.getName()) && (obj.getPath() != null)) {
+                    member = obj;
+                    break;
+                }
+            }
+
+            if (member == null)
+                return null;
+            theObj = member;
         }
 
         return theObj;
@@ -1853,6 +2015,66 @@ public abstract class FileFormat extends File {
             "Unsupported operation. Subclasses must implement FileFormat:renameAttribute.");
     }
 
+    /**
+     * Reads the attributes of an object from the file, without changing the attributes held by the
+     * object. Unlike MetaDataContainer.getMetadata(), it can be called from a thread other than the one
+     * using the object, e.g. to index the attributes in the background.
+     *
+     * @param obj
+     *            The object whose attributes are read.
+     *
+     * @return The attributes of the object, with their values read.
+     *
+     * @throws Exception
+     *             The exceptions thrown vary depending on the implementing class.
+     */
+    public List<Attribute> readAttributes(HObject obj) throws Exception
+    {
+        // If the implementing subclass doesn't have this method then that
+        // format doesn't support reading attributes apart from the object
+        throw new UnsupportedOperationException("FileFormat.readAttributes(...) is not implemented.");
+    }
+
+    /**
+     * Reads the attributes of an object from the file like readAttributes(HObject), but leaves the
+     * values of attributes with more than maxValues values unread, e.g. when only small values are
+     * indexed. By default the values of all attributes are read.
+     *
+     * @param obj
+     *            The object whose attributes are read.
+     * @param maxValues
+     *            The largest number of values of an attribute whose values are read.
+     *
+     * @return The attributes of the object, with the values of the small attributes read.
+     *
+     * @throws Exception
+     *             The exceptions thrown vary depending on the implementing class.
+     */
+    public List<Attribute> readAttributes(HObject obj, long maxValues) throws Exception
+    {
+        return readAttributes(obj);
+    }
+
+    /**
+     * Reads the description of the datatype of a dataset or named datatype from the file, without
+     * initializing the object.
+     *
+     * @param obj
+     *            The dataset or named datatype.
+     *
+     * @return The description of the datatype, e.g. "32-bit floating-point", or null if the object has
+     *         no datatype.
+     *
+     * @throws Exception
+     *             The exceptions thrown vary depending on the implementing class.
+     */
+    public String getDatatypeDescription(HObject obj) throws Exception
+    {
+        // If the implementing subclass doesn't have this method then that
+        // format doesn't support reading datatypes apart from the object
+        throw new UnsupportedOperationException("FileFormat.getDatatypeDescription(...) is not implemented.");
+    }
+
     /**
      * Sets the bounds of new library versions.
      *
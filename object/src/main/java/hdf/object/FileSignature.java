@@ -0,0 +1,250 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Detects the format of a file from the signature at its start.
+ *
+ * Finding the FileFormat of a file by calling isThisType(String) of every registered format opens the
+ * file once per format, each through its own library. The signatures of the built-in formats are known,
+ * so the first bytes of the file are read once instead, and the HDF5 signature is also looked for after
+ * a user block, at the offsets 512, 1024, 2048 and so on, with positional reads. The result is kept for
+ * the most recently checked files, as long as their length and modification time do not change.
+ *
+ * The formats are:
+ * <ul>
+ * <li>{@link FileFormat#FILE_TYPE_HDF5}: "\211HDF\r\n\032\n" at offset 0 or after a user block
+ * <li>{@link FileFormat#FILE_TYPE_HDF4}: the bytes 0x0e, 0x03, 0x13, 0x01
+ * <li>{@link FileFormat#FILE_TYPE_NC3}: "CDF" followed by the version 1 or 2; the HDF4 library can open
+ * these files too
+ * <li>{@link #FILE_TYPE_FITS}: "SIMPLE  = T" in the first header card
+ * </ul>
+ */
+public final class FileSignature {
+    private static final Logger log = LoggerFactory.getLogger(FileSignature.class);
+
+    /** The key of the FITS file format. */
+    public static final String FILE_TYPE_FITS = "FITS";
+
+    /** The maximum number of files whose format is kept. */
+    private static final int MAX_CACHED = 1024;
+
+    /** The number of bytes read at the start of the file, enough for every signature. */
+    private static final int HEADER_SIZE = 512;
+
+    private static final byte[] HDF5_SIGNATURE = {(byte)0x89, 'H', 'D', 'F', '\r', '\n', 0x1a, '\n'};
+
+    private static final byte[] HDF4_SIGNATURE = {0x0e, 0x03, 0x13, 0x01};
+
+    private static final byte[] FITS_SIGNATURE = "SIMPLE  =".getBytes(StandardCharsets.US_ASCII);
+
+    /** The keys of the formats which can open a file, by detected format. */
+    private static final String[] HDF5_FORMATS = {FileFormat.FILE_TYPE_HDF5};
+    private static final String[] HDF4_FORMATS = {FileFormat.FILE_TYPE_HDF4};
+    private static final String[] NC3_FORMATS  = {FileFormat.FILE_TYPE_NC3, FileFormat.FILE_TYPE_HDF4};
+    private static final String[] FITS_FORMATS = {FILE_TYPE_FITS};
+    private static final String[] NO_FORMATS   = {};
+
+    /** A detected format with the length and modification time of the file it was detected for. */
+    private static final class Verdict {
+        final long length;
+        final long lastModified;
+        final String[] formats;
+
+        Verdict(long length, long lastModified, String[] formats)
+        {
+            this.length       = length;
+            this.lastModified = lastModified;
+            this.formats      = formats;
+        }
+    }
+
+    /** The most recently detected formats by absolute path. */
+    private static final Map<String, Verdict> verdicts = new LinkedHashMap<String, Verdict>(16, 0.75f, true) {
+        private static final long serialVersionUID = 5139472381739283736L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Verdict> eldest)
+        {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    private FileSignature() {}
+
+    /**
+     * Returns the keys of the file formats which can open a file, by its signature.
+     *
+     * @param filename
+     *            the name of the file
+     *
+     * @return the keys of the formats in order of preference, e.g. {FILE_TYPE_NC3, FILE_TYPE_HDF4} for a
+     *         netCDF file; an empty array if the file has none of the known signatures or can not be read
+     */
+    public static String[] getFileFormatKeys(String filename)
+    {
+        File file    = new File(filename).getAbsoluteFile();
+        String path  = file.getPath();
+        long length  = file.length();
+        long modTime = file.lastModified();
+
+        synchronized (verdicts) {
+            Verdict verdict = verdicts.get(path);
+            if ((verdict != null) && (verdict.length == length) && (verdict.lastModified == modTime))
+                return verdict.formats.clone();
+        }
+
+        String[] formats = detect(file);
+        synchronized (verdicts) {
+            verdicts.put(path, new Verdict(length, modTime, formats));
+        }
+        log.trace("getFileFormatKeys(): {} is {}", path, (formats.length == 0) ? "unknown" : formats[0]);
+
+        return formats.clone();
+    }
+
+    /**
+     * Checks if a file has the signature of a file format.
+     *
+     * @param filename
+     *            the name of the file
+     * @param key
+     *            the key of the format, e.g. FileFormat.FILE_TYPE_HDF5
+     *
+     * @return true if the format is the first one returned by getFileFormatKeys()
+     */
+    public static boolean isFileType(String filename, String key)
+    {
+        String[] formats = getFileFormatKeys(filename);
+        return (formats.length > 0) && formats[0].equals(key);
+    }
+
+    /**
+     * Checks if the signature of a file format is known, so that a file without it can not have the
+     * format.
+     *
+     * @param key
+     *            the key of the format
+     *
+     * @return true for the HDF5, HDF4, netCDF-3 and FITS formats
+     */
+    public static boolean isKnownFormat(String key)
+    {
+        return FileFormat.FILE_TYPE_HDF5.equals(key) || FileFormat.FILE_TYPE_HDF4.equals(key) ||
+            FileFormat.FILE_TYPE_NC3.equals(key) || FILE_TYPE_FITS.equals(key);
+    }
+
+    /**
+     * Forgets the formats detected so far.
+     */
+    public static void clearCache()
+    {
+        synchronized (verdicts) {
+            verdicts.clear();
+        }
+    }
+
+    /*
+     * Reads the start of a file, and the places of the HDF5 signature after a user block, to find the
+     * formats which can open it.
+     */
+    private static String[] detect(File file)
+    {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size         = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            read(channel, header, 0);
+
+            if (startsWith(header, HDF5_SIGNATURE))
+                return HDF5_FORMATS;
+            if (startsWith(header, HDF4_SIGNATURE))
+                return HDF4_FORMATS;
+            if ((header.limit() >= 4) && (header.get(0) == 'C') && (header.get(1) == 'D') &&
+                (header.get(2) == 'F') && ((header.get(3) == 1) || (header.get(3) == 2)))
+                return NC3_FORMATS;
+            if (startsWith(header, FITS_SIGNATURE) && isFitsTrue(header))
+                return FITS_FORMATS;
+
+            // the superblock follows a user block of 512 bytes or a multiple of two of that
+            ByteBuffer signature = ByteBuffer.allocate(HDF5_SIGNATURE.length);
+            for (long offset = 512; offset + HDF5_SIGNATURE.length <= size; offset *= 2) {
+                signature.clear();
+                read(channel, signature, offset);
+                if (startsWith(signature, HDF5_SIGNATURE))
+                    return HDF5_FORMATS;
+            }
+        }
+        catch (IOException | SecurityException ex) {
+            log.debug("detect(): {} failure: ", file, ex);
+        }
+
+        return NO_FORMATS;
+    }
+
+    /*
+     * Reads a buffer from a position of a file until it is full or the end of the file is reached, and
+     * flips it for reading.
+     */
+    private static void read(FileChannel channel, ByteBuffer buf, long position) throws IOException
+    {
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, position + buf.position());
+            if (n < 0)
+                break;
+        }
+        buf.flip();
+    }
+
+    /*
+     * Checks if the value of the first header card of a FITS file, "SIMPLE  = T", is true.
+     */
+    private static boolean isFitsTrue(ByteBuffer header)
+    {
+        int end = Math.min(header.limit(), 80);
+        for (int i = FITS_SIGNATURE.length; i < end; i++) {
+            if (header.get(i) != ' ')
+                return header.get(i) == 'T';
+        }
+
+        return false;
+    }
+
+    /*
+     * Checks if a buffer starts with a signature.
+     */
+    private static boolean startsWith(ByteBuffer buf, byte[] signature)
+    {
+        if (buf.limit() < signature.length)
+            return false;
+        for (int i = 0; i < signature.length; i++) {
+            if (buf.get(i) != signature[i])
+                return false;
+        }
+
+        return true;
+    }
+}
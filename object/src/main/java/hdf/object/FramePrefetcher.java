@@ -0,0 +1,406 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the frames around the current frame of a dataset with three or more dimensions in the
+ * background.
+ *
+ * A frame is the two-dimensional selection of a dataset at one index of the dimension
+ * getSelectedIndex()[2], as shown one at a time by the table and image views. After the view has
+ * moved to a frame, {@link #prefetchAround(long)} schedules reads of the next and previous frames on
+ * a background thread. When the view moves to one of these frames, {@link #loadFrame(long)} hands the
+ * buffer read ahead of time to the dataset, so that getData() returns it without reading the file.
+ *
+ * The frames are read through a separate instance of the dataset, so that the selection and the
+ * buffer of the dataset shown by the view are never touched by the background thread. At most
+ * 2 * radius frames are kept, and no more than the memory limit given to the constructor. Reads of
+ * frames which are no longer near the current frame are cancelled, and all frames are dropped when
+ * the selection of the dataset is changed.
+ *
+ * Only scalar datasets are supported; see {@link #isSupported(Object)}.
+ */
+public class FramePrefetcher {
+    private static final Logger log = LoggerFactory.getLogger(FramePrefetcher.class);
+
+    /** The default number of frames read ahead on each side of the current frame. */
+    public static final int DEFAULT_RADIUS = 2;
+
+    /** The default maximum number of bytes held by the frames read ahead. */
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    /** The maximum number of seconds close() waits for a frame being read. */
+    public static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    /** The value of the frame being read when no frame is being read. */
+    private static final long NO_FRAME = -1;
+
+    private final Dataset dataset;
+
+    private final int radius;
+
+    private final long maxBytes;
+
+    private final ExecutorService executor;
+
+    /** The frames read ahead, by index. */
+    private final Map<Long, Object> frames = new HashMap<>();
+
+    /** The reads scheduled and not yet collected, by frame index. */
+    private final Map<Long, Future<Object>> pending = new HashMap<>();
+
+    /** The frame read by the background thread at the moment. */
+    private final AtomicLong reading = new AtomicLong(NO_FRAME);
+
+    /** The selection the frames were read for. */
+    private String selection = null;
+
+    /** The instance of the dataset used by the background thread, only touched by that thread. */
+    private Dataset reader = null;
+
+    private boolean closed = false;
+
+    /**
+     * Creates a prefetcher with the default radius and memory limit.
+     *
+     * @param dataset
+     *            the dataset shown by the view
+     */
+    public FramePrefetcher(Dataset dataset) { this(dataset, DEFAULT_RADIUS, DEFAULT_MAX_BYTES); }
+
+    /**
+     * Creates a prefetcher.
+     *
+     * @param dataset
+     *            the dataset shown by the view
+     * @param radius
+     *            the number of frames read ahead on each side of the current frame
+     * @param maxBytes
+     *            the maximum number of bytes held by the frames read ahead
+     */
+    public FramePrefetcher(Dataset dataset, int radius, long maxBytes)
+    {
+        this.dataset  = dataset;
+        this.radius   = Math.max(0, radius);
+        this.maxBytes = Math.max(0, maxBytes);
+
+        String name   = "FramePrefetcher-" + dataset.getName();
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Checks if the frames of a dataset can be read ahead.
+     *
+     * @param dataset
+     *            the dataset shown by the view
+     *
+     * @return true for scalar datasets with three or more dimensions
+     */
+    public static boolean isSupported(Object dataset)
+    {
+        return (dataset instanceof ScalarDS) && (((Dataset)dataset).getRank() > 2);
+    }
+
+    /**
+     * Hands the buffer of a frame read ahead of time to the dataset.
+     *
+     * The start of the selection of the dataset must already point at the frame. If the frame is being
+     * read by the background thread, this waits for the read to finish. Otherwise, if the frame has
+     * not been read, the dataset is left as it is and getData() reads the frame from the file.
+     *
+     * @param frame
+     *            the index of the frame along the dimension getSelectedIndex()[2]
+     *
+     * @return true if the dataset holds the frame read ahead of time
+     */
+    public synchronized boolean loadFrame(long frame)
+    {
+        if (closed || !checkSelection())
+            return false;
+
+        Object buf = frames.remove(frame);
+        if (buf == null) {
+            Future<Object> future = pending.remove(frame);
+            if ((future != null) && (future.isDone() || (reading.get() == frame)))
+                buf = getResult(frame, future);
+            else if (future != null)
+                future.cancel(false);
+        }
+        if (buf == null)
+            return false;
+
+        dataset.loadSelectionData(buf);
+        log.trace("loadFrame(): frame {} of {}", frame, dataset.getName());
+
+        return true;
+    }
+
+    /**
+     * Schedules reads of the frames around the current frame, and cancels the reads and drops the
+     * frames which are no longer near it.
+     *
+     * @param frame
+     *            the index of the current frame along the dimension getSelectedIndex()[2]
+     */
+    public synchronized void prefetchAround(long frame)
+    {
+        if (closed)
+            return;
+        checkSelection();
+
+        long nFrames    = dataset.getDims()[dataset.getSelectedIndex()[2]];
+        long frameBytes = getFrameBytes();
+        int maxFrames   = (int)Math.min(2L * radius, (frameBytes <= 0) ? 0 : maxBytes / frameBytes);
+
+        // frames held and scheduled by distance from the current frame, the next frame first
+        long[] wanted = new long[maxFrames];
+        int n         = 0;
+        for (int d = 1; (n < maxFrames) && (d <= radius); d++) {
+            if (frame + d < nFrames)
+                wanted[n++] = frame + d;
+            if ((n < maxFrames) && (frame - d >= 0))
+                wanted[n++] = frame - d;
+        }
+        long[] window = Arrays.copyOf(wanted, n);
+
+        collectDone();
+        frames.keySet().removeIf(f -> !contains(window, f));
+        Iterator<Map.Entry<Long, Future<Object>>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Future<Object>> entry = it.next();
+            if (!contains(window, entry.getKey())) {
+                entry.getValue().cancel(false);
+                it.remove();
+            }
+        }
+
+        long[] start    = dataset.getStartDims().clone();
+        long[] count    = dataset.getSelectedDims().clone();
+        long[] stride   = (dataset.getStride() == null) ? null : dataset.getStride().clone();
+        int[] index     = dataset.getSelectedIndex().clone();
+        for (long f : window) {
+            if (frames.containsKey(f) || pending.containsKey(f))
+                continue;
+            pending.put(f, executor.submit(() -> readFrame(f, start, count, stride, index)));
+        }
+        log.trace("prefetchAround(): frame {} window {} held {} pending {}", frame, Arrays.toString(window),
+                  frames.size(), pending.size());
+    }
+
+    /**
+     * Cancels all scheduled reads and drops all frames read ahead.
+     */
+    public synchronized void invalidate()
+    {
+        for (Future<Object> future : pending.values())
+            future.cancel(false);
+        pending.clear();
+        frames.clear();
+        selection = null;
+    }
+
+    /**
+     * Cancels all scheduled reads, drops all frames read ahead and stops the background thread.
+     *
+     * A frame being read is not interrupted, as the read can not be cancelled in the library; this
+     * waits up to CLOSE_TIMEOUT_SECONDS for it to finish, so that the file can be closed safely after
+     * this returns.
+     */
+    public void close()
+    {
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            invalidate();
+            executor.shutdown();
+        }
+
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.debug("close(): read of frame {} of {} did not finish", reading.get(), dataset.getName());
+                executor.shutdownNow();
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the number of frames read ahead and not yet loaded.
+     *
+     * @return the number of frames held
+     */
+    public synchronized int getFrameCount()
+    {
+        collectDone();
+        return frames.size();
+    }
+
+    /*
+     * Drops the frames if the selection of the dataset changed since they were read. Returns false if
+     * the frames were dropped.
+     */
+    private boolean checkSelection()
+    {
+        long[] start = dataset.getStartDims().clone();
+        int[] index  = dataset.getSelectedIndex();
+        start[index[2]] = 0;
+
+        String current = Arrays.toString(start) + Arrays.toString(dataset.getSelectedDims()) +
+                         Arrays.toString(dataset.getStride()) + Arrays.toString(index);
+        if (current.equals(selection))
+            return true;
+
+        if (selection != null)
+            log.trace("checkSelection(): selection of {} changed", dataset.getName());
+        invalidate();
+        selection = current;
+
+        return false;
+    }
+
+    /*
+     * Moves the frames read by the background thread into the held frames.
+     */
+    private void collectDone()
+    {
+        Iterator<Map.Entry<Long, Future<Object>>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Future<Object>> entry = it.next();
+            if (entry.getValue().isDone()) {
+                Object buf = getResult(entry.getKey(), entry.getValue());
+                if (buf != null)
+                    frames.put(entry.getKey(), buf);
+                it.remove();
+            }
+        }
+    }
+
+    /*
+     * Waits for the read of a frame and returns the buffer, or null if the read failed or was
+     * cancelled.
+     */
+    private Object getResult(long frame, Future<Object> future)
+    {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        catch (Exception ex) {
+            log.debug("getResult(): frame {} failure: ", frame, ex);
+        }
+
+        return null;
+    }
+
+    /*
+     * Returns the size in bytes of the buffer of one frame, or 0 if it is not known.
+     */
+    private long getFrameBytes()
+    {
+        Datatype dtype = dataset.getDatatype();
+        long size      = (dtype == null) ? 0 : dtype.getDatatypeSize();
+        if (size <= 0)
+            return 0;
+
+        long[] count = dataset.getSelectedDims();
+        int[] index  = dataset.getSelectedIndex();
+        long points  = 1;
+        for (int i = 0; i < count.length; i++)
+            points *= (i == index[2]) ? 1 : count[i];
+
+        return points * size;
+    }
+
+    /*
+     * Reads one frame on the background thread.
+     */
+    private Object readFrame(long frame, long[] start, long[] count, long[] stride, int[] selection)
+        throws Exception
+    {
+        reading.set(frame);
+        try {
+            Dataset ds = getReader();
+            System.arraycopy(selection, 0, ds.getSelectedIndex(), 0, selection.length);
+            System.arraycopy(start, 0, ds.getStartDims(), 0, start.length);
+            System.arraycopy(count, 0, ds.getSelectedDims(), 0, count.length);
+            if ((stride != null) && (ds.getStride() != null))
+                System.arraycopy(stride, 0, ds.getStride(), 0, stride.length);
+            ds.getStartDims()[selection[2]] = frame;
+
+            // drop the buffer of the previous frame so that read() allocates a new one
+            ds.clear();
+            Object buf = ds.getData();
+            log.trace("readFrame(): frame {} of {}", frame, ds.getName());
+
+            return buf;
+        }
+        finally {
+            reading.set(NO_FRAME);
+        }
+    }
+
+    /*
+     * Returns the instance of the dataset used by the background thread, creating it on first use.
+     */
+    private Dataset getReader() throws Exception
+    {
+        if (reader == null) {
+            Constructor<? extends Dataset> constructor = dataset.getClass().getConstructor(
+                FileFormat.class, String.class, String.class);
+            Dataset ds =
+                constructor.newInstance(dataset.getFileFormat(), dataset.getName(), dataset.getPath());
+            ds.init();
+            reader = ds;
+        }
+
+        return reader;
+    }
+
+    /*
+     * Checks if a frame index is in a window.
+     */
+    private static boolean contains(long[] window, long frame)
+    {
+        for (long f : window) {
+            if (f == frame)
+                return true;
+        }
+
+        return false;
+    }
+}
@@ -17,6 +17,7 @@ package hdf.object;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Queue;
 import java.util.Stack;
 import java.util.Vector;
@@ -119,8 +120,11 @@ public abstract class Group extends HObject implements MetaDataContainer {
      */
     public void clear()
     {
-        if (memberList != null)
+        if (memberList != null) {
             ((Vector<HObject>)memberList).setSize(0);
+            if (getFileFormat() != null)
+                getFileFormat().invalidateObjectIndex();
+        }
     }
 
     /**
@@ -138,6 +142,9 @@ public abstract class Group extends HObject implements MetaDataContainer {
 
         if ((object != null) && !memberList.contains(object))
             memberList.add(object);
+
+        if ((object != null) && (getFileFormat() != null))
+            getFileFormat().indexObject(object);
     }
 
     /**
@@ -149,10 +156,17 @@ public abstract class Group extends HObject implements MetaDataContainer {
      */
     public void removeFromMemberList(HObject object)
     {
-        if (memberList != null)
-            memberList.remove(object);
+        if ((memberList != null) && memberList.remove(object) && (getFileFormat() != null))
+            getFileFormat().invalidateObjectIndex();
     }
 
+    /**
+     * Returns the member list of this group if it is in memory, without retrieving it from the file.
+     *
+     * @return the list of members of this group, or null if it has not been created.
+     */
+    List<HObject> getLoadedMemberList() { return memberList; }
+
     /**
      * Returns the list of members of this group. The list is an java.util.List
      * containing HObjects.
@@ -167,6 +181,11 @@ public abstract class Group extends HObject implements MetaDataContainer {
             int size   = Math.min(getNumberOfMembersInFile(), this.getFileFormat().getMaxMembers());
             memberList = new Vector<>(size + 5); // avoid infinite loop search for groups without members
 
+            // groups loaded on demand retrieve their own members; searching the tree would load
+            // the whole file structure
+            if (theFile.isLoadOnDemand())
+                return memberList;
+
             // find the memberList from the file by checking the group path and
             // name. group may be created out of the structure tree
             // (H4/5File.loadTree()).
@@ -204,6 +223,19 @@ public abstract class Group extends HObject implements MetaDataContainer {
         return memberList;
     }
 
+    /**
+     * Checks if the member list of this group is available in memory.
+     *
+     * Groups of a file that is loaded on demand retrieve their members from the file the first time
+     * getMemberList() is called. Applications, such as HDFView, can use this method to avoid reading
+     * the members of a group before they are actually needed.
+     *
+     * @return true if the member list does not need to be retrieved from the file; otherwise, false.
+     *
+     * @see FileFormat#isLoadOnDemand()
+     */
+    public boolean isMemberListLoaded() { return true; }
+
     /**
      * Get the members of this Group in breadth-first order.
      *
@@ -330,9 +362,81 @@ public abstract class Group extends HObject implements MetaDataContainer {
      */
     public HObject getMember(int idx)
     {
-        if (memberList.size() <= 0 || idx >= memberList.size())
+        List<HObject> members = getMemberList();
+
+        if (members == null || members.size() <= 0 || idx >= members.size())
             return null;
 
-        return memberList.get(idx);
+        return members.get(idx);
+    }
+
+    /**
+     * Returns a window of the members of this group, in the order of the member list.
+     *
+     * Implementing classes can retrieve only the requested members from the file, so that groups with
+     * very many members can be browsed a window at a time without loading the whole member list. The
+     * objects returned are then not added to the member list in memory. This implementation returns the
+     * members from getMemberList().
+     *
+     * @param start
+     *            the index of the first member
+     * @param count
+     *            the maximum number of members
+     *
+     * @return the members from index start to start+count-1; fewer if the group has fewer members
+     */
+    public List<HObject> getMembers(int start, int count)
+    {
+        List<HObject> window  = new Vector<>();
+        List<HObject> members = getMemberList();
+        if ((members == null) || (start < 0) || (count <= 0) || (start >= members.size()))
+            return window;
+
+        window.addAll(members.subList(start, (int)Math.min(members.size(), (long)start + count)));
+
+        return window;
+    }
+
+    /**
+     * Returns an iterator over the members of this group which retrieves them a window at a time with
+     * {@link #getMembers(int, int)}, so that only one window of members is held at once.
+     *
+     * @param windowSize
+     *            the number of members retrieved at once
+     *
+     * @return an iterator over the members of this group
+     */
+    public Iterator<HObject> memberIterator(int windowSize)
+    {
+        if (windowSize <= 0)
+            throw new IllegalArgumentException("Invalid window size " + windowSize);
+
+        return new Iterator<HObject>() {
+            private List<HObject> window = getMembers(0, windowSize);
+            private int start            = 0;
+            private int pos              = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                // a full window may be followed by more members
+                if ((pos >= window.size()) && (window.size() == windowSize)) {
+                    start += windowSize;
+                    window = getMembers(start, windowSize);
+                    pos    = 0;
+                }
+
+                return pos < window.size();
+            }
+
+            @Override
+            public HObject next()
+            {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+
+                return window.get(pos++);
+            }
+        };
     }
 }
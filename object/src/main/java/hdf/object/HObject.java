@@ -284,6 +284,7 @@ public abstract class HObject implements Serializable {
                                                HObject.SEPARATOR);
 
         name = newName;
+        updateFullname();
     }
 
     /**
@@ -305,6 +306,7 @@ public abstract class HObject implements Serializable {
             newPath = "/";
 
         path = newPath;
+        updateFullname();
     }
 
     /**
@@ -374,7 +376,21 @@ public abstract class HObject implements Serializable {
         this.name = theName;
         this.path = thePath;
 
-        this.fullName = createFullname(thePath, theName);
+        updateFullname();
+    }
+
+    /*
+     * Rebuilds the full name from the path and the name, and moves the object in the object index of the
+     * file if the full name changed.
+     */
+    private void updateFullname()
+    {
+        String oldFullName = this.fullName;
+
+        this.fullName = createFullname(path, name);
+
+        if ((fileFormat != null) && (oldFullName != null) && !oldFullName.equals(fullName))
+            fileFormat.renameIndexedObject(this, oldFullName);
     }
 
     /**
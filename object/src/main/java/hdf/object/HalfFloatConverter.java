@@ -0,0 +1,178 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Widens buffers of 16-bit floating-point values to float in bulk.
+ *
+ * Two formats are supported: IEEE 754 half precision (float16, 5 exponent and 10 mantissa bits) and
+ * bfloat16 (8 exponent and 7 mantissa bits, the upper half of a float). Converting a whole buffer
+ * with one call instead of converting the values one by one lets the JIT compiler turn the inner
+ * loops into SIMD conversions: float16 values are widened with the Float.float16ToFloat intrinsic
+ * and bfloat16 values with a shift, both of which are vectorized by HotSpot on current hardware.
+ *
+ * Raw values stored in a ByteBuffer are first copied into a short block of {@link #BLOCK_SIZE}
+ * values and then widened, so the whole buffer never has to be copied into a short array.
+ */
+public final class HalfFloatConverter {
+    /** The IEEE 754 half precision format. */
+    public static final int FLOAT16 = 0;
+
+    /** The bfloat16 format. */
+    public static final int BFLOAT16 = 1;
+
+    /** The number of values widened per block when converting from a ByteBuffer. */
+    public static final int BLOCK_SIZE = 8192;
+
+    private HalfFloatConverter() { throw new IllegalStateException("Utility class"); }
+
+    /**
+     * Checks if a format is supported by this converter.
+     *
+     * @param format
+     *            the format of the 16-bit values
+     *
+     * @return true if the format is FLOAT16 or BFLOAT16
+     */
+    public static boolean isSupportedFormat(int format)
+    {
+        return (format == FLOAT16) || (format == BFLOAT16);
+    }
+
+    /**
+     * Widens a single 16-bit value to float.
+     *
+     * @param value
+     *            the bits of the 16-bit value
+     * @param format
+     *            the format of the value, FLOAT16 or BFLOAT16
+     *
+     * @return the value as a float
+     */
+    public static float toFloat(short value, int format)
+    {
+        return (format == BFLOAT16) ? Float.intBitsToFloat(value << 16) : Float.float16ToFloat(value);
+    }
+
+    /**
+     * Widens an array of 16-bit values to a new float array.
+     *
+     * @param src
+     *            the bits of the 16-bit values
+     * @param format
+     *            the format of the values, FLOAT16 or BFLOAT16
+     *
+     * @return the values as floats
+     */
+    public static float[] toFloat(short[] src, int format)
+    {
+        float[] dst = new float[src.length];
+        toFloat(src, 0, dst, 0, src.length, format);
+        return dst;
+    }
+
+    /**
+     * Widens a range of an array of 16-bit values into a float array.
+     *
+     * @param src
+     *            the bits of the 16-bit values
+     * @param srcPos
+     *            the index of the first value to widen
+     * @param dst
+     *            the array receiving the widened values
+     * @param dstPos
+     *            the index in dst of the first widened value
+     * @param length
+     *            the number of values to widen
+     * @param format
+     *            the format of the values, FLOAT16 or BFLOAT16
+     *
+     * @throws IllegalArgumentException
+     *             if the format is not supported
+     * @throws IndexOutOfBoundsException
+     *             if a range lies outside of its array
+     */
+    public static void toFloat(short[] src, int srcPos, float[] dst, int dstPos, int length, int format)
+    {
+        if (!isSupportedFormat(format))
+            throw new IllegalArgumentException("unsupported 16-bit float format: " + format);
+        if ((srcPos < 0) || (dstPos < 0) || (length < 0) || (srcPos + length > src.length) ||
+            (dstPos + length > dst.length))
+            throw new IndexOutOfBoundsException("invalid range: srcPos=" + srcPos + ", dstPos=" + dstPos +
+                                                ", length=" + length);
+
+        // keep the loops free of calls and branches so that they are vectorized
+        if (format == BFLOAT16)
+            widenBFloat16(src, srcPos, dst, dstPos, length);
+        else
+            widenFloat16(src, srcPos, dst, dstPos, length);
+    }
+
+    /**
+     * Widens the 16-bit values remaining in a byte buffer into a float array. The values are read in
+     * the byte order of the buffer, and the position of the buffer is advanced past them.
+     *
+     * @param src
+     *            the buffer holding the raw 16-bit values
+     * @param dst
+     *            the array receiving the widened values
+     * @param dstPos
+     *            the index in dst of the first widened value
+     * @param format
+     *            the format of the values, FLOAT16 or BFLOAT16
+     *
+     * @return the number of values widened
+     *
+     * @throws IllegalArgumentException
+     *             if the format is not supported
+     * @throws IndexOutOfBoundsException
+     *             if dst is too small for the values in the buffer
+     */
+    public static int toFloat(ByteBuffer src, float[] dst, int dstPos, int format)
+    {
+        ShortBuffer values = src.asShortBuffer();
+        int length         = values.remaining();
+        short[] block      = new short[Math.min(length, BLOCK_SIZE)];
+        for (int done = 0; done < length; done += block.length) {
+            int n = Math.min(block.length, length - done);
+            values.get(block, 0, n);
+            toFloat(block, 0, dst, dstPos + done, n, format);
+        }
+        src.position(src.position() + 2 * length);
+
+        return length;
+    }
+
+    /*
+     * Widens bfloat16 values, which are the upper 16 bits of the equivalent float.
+     */
+    private static void widenBFloat16(short[] src, int srcPos, float[] dst, int dstPos, int length)
+    {
+        for (int i = 0; i < length; i++)
+            dst[dstPos + i] = Float.intBitsToFloat(src[srcPos + i] << 16);
+    }
+
+    /*
+     * Widens IEEE 754 half precision values.
+     */
+    private static void widenFloat16(short[] src, int srcPos, float[] dst, int dstPos, int length)
+    {
+        for (int i = 0; i < length; i++)
+            dst[dstPos + i] = Float.float16ToFloat(src[srcPos + i]);
+    }
+}
@@ -0,0 +1,177 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The objects of a file in memory, by full name and by object ID.
+ *
+ * FileFormat.findObject() used to walk the whole tree for every lookup. The index is built once from
+ * the member lists of the groups in memory, starting from the root group, and is then kept up to date
+ * by Group.addToMemberList() and by HObject.setName(), setPath() and setFullname(), which rename objects.
+ * Removing members from a group drops the index, which is built again on the next lookup.
+ *
+ * The index only reads the member lists already in memory, so that building it never loads members
+ * from the file. When several objects have the same object ID, e.g. hard links to the same object, the
+ * one found first in breadth-first order is returned, as the tree walk did.
+ */
+final class ObjectIndex {
+    private static final Logger log = LoggerFactory.getLogger(ObjectIndex.class);
+
+    /** The object ID of an object as a hash key. */
+    private static final class OidKey {
+        private final long[] oid;
+
+        private final int hash;
+
+        OidKey(long[] oid)
+        {
+            this.oid  = oid;
+            this.hash = Arrays.hashCode(oid);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            return (obj instanceof OidKey) && Arrays.equals(oid, ((OidKey)obj).oid);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+    }
+
+    /** The root group the index was built from. */
+    private final HObject root;
+
+    private final Map<String, HObject> byPath = new HashMap<>();
+
+    private final Map<OidKey, HObject> byOid = new HashMap<>();
+
+    /**
+     * Builds the index of the objects in memory under a root group.
+     *
+     * @param root
+     *            the root group of the file
+     */
+    ObjectIndex(HObject root)
+    {
+        this.root = root;
+
+        Queue<HObject> queue = new LinkedList<>();
+        addMembers(queue, root);
+        while (!queue.isEmpty()) {
+            HObject obj = queue.remove();
+            put(obj);
+            addMembers(queue, obj);
+        }
+        log.trace("ObjectIndex(): {} paths, {} object IDs", byPath.size(), byOid.size());
+    }
+
+    /**
+     * Returns the root group the index was built from.
+     *
+     * @return the root group
+     */
+    HObject getRoot() { return root; }
+
+    /**
+     * Adds an object, and the members of a group in memory, to the index.
+     *
+     * @param obj
+     *            the object added to the member list of a group
+     */
+    void add(HObject obj)
+    {
+        Queue<HObject> queue = new LinkedList<>();
+        queue.add(obj);
+        while (!queue.isEmpty()) {
+            HObject member = queue.remove();
+            put(member);
+            addMembers(queue, member);
+        }
+    }
+
+    /**
+     * Moves an indexed object from its old full name to its current one.
+     *
+     * @param obj
+     *            the object whose full name changed
+     * @param oldFullName
+     *            the full name of the object before the change
+     */
+    void rename(HObject obj, String oldFullName)
+    {
+        if ((oldFullName != null) && byPath.remove(oldFullName, obj) && (obj.getPath() != null))
+            byPath.put(obj.getFullName(), obj);
+    }
+
+    /**
+     * Returns the object with a full name.
+     *
+     * @param fullName
+     *            the full name of the object, without a trailing separator
+     *
+     * @return the object, or null if there is no object with the full name in memory
+     */
+    HObject get(String fullName) { return byPath.get(fullName); }
+
+    /**
+     * Returns the object with an object ID.
+     *
+     * @param oid
+     *            the object ID
+     *
+     * @return the object, or null if there is no object with the object ID in memory
+     */
+    HObject get(long[] oid) { return byOid.get(new OidKey(oid)); }
+
+    /*
+     * Adds an object, keeping the object already indexed for its object ID.
+     */
+    private void put(HObject obj)
+    {
+        // the root group is found by FileFormat.findObject() itself
+        if (obj.getPath() != null)
+            byPath.put(obj.getFullName(), obj);
+
+        long[] oid = obj.getOID();
+        if (oid != null)
+            byOid.putIfAbsent(new OidKey(oid), obj);
+    }
+
+    /*
+     * Queues the members of a group which are in memory, without loading any from the file.
+     */
+    private static void addMembers(Queue<HObject> queue, HObject obj)
+    {
+        if (obj instanceof Group) {
+            List<HObject> members = ((Group)obj).getLoadedMemberList();
+            if (members != null)
+                queue.addAll(members);
+        }
+    }
+}
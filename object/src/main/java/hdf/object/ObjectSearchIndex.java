@@ -0,0 +1,795 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An inverted index over the names, paths, datatypes and small attribute values of the objects of a file,
+ * for finding objects by more than their names.
+ *
+ * The index covers the objects of the file in memory, i.e. the members of the groups loaded so far.
+ * {@link #update()} indexes the names and paths of the objects added to the tree, and drops the objects
+ * removed or renamed, since the previous update; it does nothing when the tree did not change. The
+ * datatypes and attributes of the objects are then read on a background thread with
+ * FileFormat.getDatatypeDescription() and FileFormat.readAttributes(), which leave the objects themselves
+ * untouched. Only the values of attributes with at most {@link #MAX_VALUE_ITEMS} items are indexed;
+ * larger attributes are found by name only. {@link #invalidate(HObject)} reads the datatype and
+ * attributes of an object again, e.g. after one of its attributes was changed.
+ *
+ * A query is made of terms separated by white space, which must all match an object:
+ * <ul>
+ * <li>word: a word of the name, path, datatype or attributes of the object, e.g. "temperature", or its
+ * whole name, e.g. "o3_quality"
+ * <li>prefix*: a word starting with the prefix, e.g. "temp*"
+ * <li>*suffix, *part*, a?c: the name of the object matching the wildcards
+ * <li>name=value: an attribute whose name matches and whose value is or contains the word value, e.g.
+ * "units=kelvin"; "units=" matches any value. Both may contain wildcards.
+ * </ul>
+ * A query enclosed in slashes, e.g. "/temp.*[0-9]+/", is a regular expression, found in the name, full
+ * name, datatype or an "name=value" attribute of an object. All matching ignores case.
+ *
+ * Searches run on the background thread and deliver their results in breadth-first order of the tree as
+ * they are found. While the datatypes and attributes of some objects have not been read yet, a search
+ * first delivers the results among the objects already indexed and then reads the remaining ones
+ * itself, so that the first results arrive before the whole file is indexed.
+ */
+public class ObjectSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(ObjectSearchIndex.class);
+
+    /** The maximum number of items of an attribute whose value is indexed. */
+    public static final int MAX_VALUE_ITEMS = 16;
+
+    /** The maximum number of characters of an attribute value which are indexed. */
+    private static final int MAX_VALUE_LENGTH = 1024;
+
+    /** The number of objects whose datatype and attributes are read by one background task. */
+    private static final int LOAD_BATCH = 64;
+
+    /** The maximum number of seconds close() waits for the background thread. */
+    public static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    /** The characters between the words of names, paths, datatypes and attributes. */
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /** What the index knows about an object. */
+    private static final class Entry {
+        final HObject obj;
+
+        /** The position of the object in breadth-first order. */
+        final long seq;
+
+        /** The name and full name of the object when it was indexed. */
+        final String name;
+        final String fullName;
+
+        /** The words of the object, in order, for matching prefixes. */
+        final TreeSet<String> words = new TreeSet<>();
+
+        /** The description of the datatype, in lower case, or null. */
+        String type = null;
+
+        /** The attribute values in lower case by attribute name, null for values which are not indexed. */
+        Map<String, String> attrs = Collections.emptyMap();
+
+        /** Whether the datatype and attributes have been read. */
+        boolean loaded = false;
+
+        Entry(HObject obj, long seq)
+        {
+            this.obj      = obj;
+            this.seq      = seq;
+            this.name     = obj.getName();
+            this.fullName = obj.getFullName();
+        }
+    }
+
+    /** One term of a query. */
+    private abstract class Term {
+        /*
+         * Returns the indexed entries which can match the term, or null if every entry has to be tested.
+         * Called while holding the lock of the index.
+         */
+        Collection<Entry> getCandidates() { return null; }
+
+        /*
+         * Checks if an entry matches the term. Called while holding the lock of the index.
+         */
+        abstract boolean matches(Entry entry);
+    }
+
+    /** A word, or the prefix of a word, of an object. */
+    private final class WordTerm extends Term {
+        private final String word;
+
+        private final boolean prefix;
+
+        WordTerm(String word, boolean prefix)
+        {
+            this.word   = word;
+            this.prefix = prefix;
+        }
+
+        @Override
+        Collection<Entry> getCandidates()
+        {
+            if (!prefix)
+                return words.getOrDefault(word, Collections.emptySet());
+
+            return union(words.subMap(word, word + Character.MAX_VALUE).values());
+        }
+
+        @Override
+        boolean matches(Entry entry)
+        {
+            if (!prefix)
+                return entry.words.contains(word);
+
+            String next = entry.words.ceiling(word);
+            return (next != null) && next.startsWith(word);
+        }
+    }
+
+    /** The name of an object matching wildcards. */
+    private final class NameTerm extends Term {
+        private final Pattern pattern;
+
+        NameTerm(String glob) { this.pattern = toPattern(glob); }
+
+        @Override
+        boolean matches(Entry entry)
+        {
+            return (entry.name != null) && pattern.matcher(entry.name.toLowerCase(Locale.ROOT)).matches();
+        }
+    }
+
+    /** An attribute of an object with a name and value. */
+    private final class AttributeTerm extends Term {
+        private final String key;
+
+        private final Pattern keyPattern;
+
+        private final String value;
+
+        private final Pattern valuePattern;
+
+        AttributeTerm(String key, String value)
+        {
+            this.key          = key;
+            this.keyPattern   = hasWildcard(key) ? toPattern(key) : null;
+            this.value        = value;
+            this.valuePattern = hasWildcard(value) ? toPattern(value) : null;
+        }
+
+        @Override
+        Collection<Entry> getCandidates()
+        {
+            if (keyPattern == null)
+                return attrNames.getOrDefault(key, Collections.emptySet());
+            if (isPrefix(key)) {
+                String keyPrefix = key.substring(0, key.length() - 1);
+                return union(attrNames.subMap(keyPrefix, keyPrefix + Character.MAX_VALUE).values());
+            }
+
+            return null;
+        }
+
+        @Override
+        boolean matches(Entry entry)
+        {
+            for (Map.Entry<String, String> attr : entry.attrs.entrySet()) {
+                boolean keyMatches = (keyPattern == null) ? key.equals(attr.getKey())
+                                                          : keyPattern.matcher(attr.getKey()).matches();
+                if (keyMatches && matchesValue(attr.getValue()))
+                    return true;
+            }
+
+            return false;
+        }
+
+        private boolean matchesValue(String v)
+        {
+            if (value.isEmpty())
+                return true;
+            if (v == null)
+                return false;
+            if (valuePattern != null)
+                return valuePattern.matcher(v).matches();
+
+            return v.equals(value) || Arrays.asList(WORD_SEPARATOR.split(v)).contains(value);
+        }
+    }
+
+    /** A regular expression found in the name, full name, datatype or attributes of an object. */
+    private final class RegexTerm extends Term {
+        private final Pattern pattern;
+
+        RegexTerm(Pattern pattern) { this.pattern = pattern; }
+
+        @Override
+        boolean matches(Entry entry)
+        {
+            if (find(entry.name) || find(entry.fullName) || find(entry.type))
+                return true;
+            for (Map.Entry<String, String> attr : entry.attrs.entrySet()) {
+                String value = attr.getValue();
+                if (find((value == null) ? attr.getKey() : attr.getKey() + "=" + value))
+                    return true;
+            }
+
+            return false;
+        }
+
+        private boolean find(String text) { return (text != null) && pattern.matcher(text).find(); }
+    }
+
+    private final FileFormat file;
+
+    private final ExecutorService executor;
+
+    /** The indexed objects. */
+    private final Map<HObject, Entry> entries = new IdentityHashMap<>();
+
+    /** The indexed objects by word. */
+    private final TreeMap<String, Set<Entry>> words = new TreeMap<>();
+
+    /** The indexed objects by attribute name. */
+    private final TreeMap<String, Set<Entry>> attrNames = new TreeMap<>();
+
+    /** The objects whose datatype and attributes have not been read yet, in breadth-first order. */
+    private final Queue<Entry> pending = new LinkedList<>();
+
+    private long nextSeq = 0;
+
+    /** The number of changes to the tree of the file at the last update. */
+    private long modCount = -1;
+
+    /** Whether a background task reading the pending objects is scheduled. */
+    private boolean loading = false;
+
+    private boolean closed = false;
+
+    /**
+     * Creates an empty index of a file. Call {@link #update()} once the file is open.
+     *
+     * @param file
+     *            the file to index
+     */
+    public ObjectSearchIndex(FileFormat file)
+    {
+        this.file = file;
+
+        String name   = "ObjectSearchIndex-" + file.getName();
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Returns the file of the index.
+     *
+     * @return the file
+     */
+    public FileFormat getFileFormat() { return file; }
+
+    /**
+     * Brings the index up to date with the objects of the file in memory, and schedules reading the
+     * datatypes and attributes of the objects added. Does nothing if the tree did not change since the
+     * last update.
+     *
+     * The tree is walked on the calling thread, which must be the one changing the tree, e.g. the user
+     * interface thread.
+     */
+    public synchronized void update()
+    {
+        long count = file.getStructureModCount();
+        if (closed || (count == modCount))
+            return;
+        modCount = count;
+
+        Set<HObject> reachable = Collections.newSetFromMap(new IdentityHashMap<>());
+        Queue<HObject> queue   = new LinkedList<>();
+        HObject root           = file.getRootObject();
+        if (root != null)
+            queue.add(root);
+
+        int added = 0;
+        while (!queue.isEmpty()) {
+            HObject obj = queue.remove();
+            if (!reachable.add(obj))
+                continue;
+
+            // a renamed object is indexed again under its new name, keeping its place in the order
+            Entry entry = entries.get(obj);
+            if ((entry != null) &&
+                !(isSame(entry.name, obj.getName()) && isSame(entry.fullName, obj.getFullName()))) {
+                remove(entry);
+                add(obj, entry.seq);
+            }
+            else if (entry == null) {
+                add(obj, nextSeq++);
+                added++;
+            }
+
+            if (obj instanceof Group) {
+                List<HObject> members = ((Group)obj).getLoadedMemberList();
+                if (members != null)
+                    queue.addAll(members);
+            }
+        }
+
+        int removed = 0;
+        for (Entry entry : new ArrayList<>(entries.values())) {
+            if (!reachable.contains(entry.obj)) {
+                remove(entry);
+                removed++;
+            }
+        }
+
+        scheduleLoad();
+        log.trace("update(): {} added {} removed {} objects {} words", added, removed, entries.size(),
+                  words.size());
+    }
+
+    /**
+     * Reads the datatype and attributes of an indexed object again in the background, e.g. after an
+     * attribute of the object was added, changed or deleted.
+     *
+     * @param obj
+     *            the changed object
+     */
+    public synchronized void invalidate(HObject obj)
+    {
+        Entry entry = entries.get(obj);
+        if (closed || (entry == null))
+            return;
+
+        remove(entry);
+        add(obj, entry.seq);
+        scheduleLoad();
+    }
+
+    /**
+     * Updates the index and searches it on the background thread.
+     *
+     * @param query
+     *            the query, as described in the class documentation
+     * @param consumer
+     *            receives the matching objects, one at a time on the background thread, in breadth-first
+     *            order
+     *
+     * @return the running search, which is cancelled with cancel(true)
+     *
+     * @throws IllegalArgumentException
+     *             if the query is a regular expression with a syntax error
+     * @throws IllegalStateException
+     *             if the index is closed
+     */
+    public Future<?> search(String query, Consumer<HObject> consumer)
+    {
+        List<Term> terms = parse(query);
+
+        synchronized (this) {
+            if (closed)
+                throw new IllegalStateException("The search index of " + file.getName() + " is closed.");
+            update();
+
+            return executor.submit(() -> run(terms, consumer));
+        }
+    }
+
+    /**
+     * Updates the index, searches it and waits for all results.
+     *
+     * @param query
+     *            the query, as described in the class documentation
+     *
+     * @return the matching objects in breadth-first order
+     *
+     * @throws Exception
+     *             if the query is invalid or the search failed
+     */
+    public List<HObject> search(String query) throws Exception
+    {
+        List<HObject> results = new ArrayList<>();
+        Future<?> future      = search(query, results::add);
+        try {
+            future.get();
+        }
+        catch (ExecutionException ex) {
+            throw (ex.getCause() instanceof Exception) ? (Exception)ex.getCause() : ex;
+        }
+
+        return results;
+    }
+
+    /**
+     * Returns the number of indexed objects.
+     *
+     * @return the number of objects
+     */
+    public synchronized int size() { return entries.size(); }
+
+    /**
+     * Stops the background thread and drops the index.
+     *
+     * The background thread stops after the object it is reading; this waits up to
+     * CLOSE_TIMEOUT_SECONDS for it, so that the file can be closed safely after this returns.
+     */
+    public void close()
+    {
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            executor.shutdownNow();
+            entries.clear();
+            words.clear();
+            attrNames.clear();
+            pending.clear();
+        }
+
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                log.debug("close(): the search index of {} did not stop", file.getName());
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * Indexes the name and path of an object and queues it for reading its datatype and attributes.
+     */
+    private void add(HObject obj, long seq)
+    {
+        Entry entry = new Entry(obj, seq);
+        entries.put(obj, entry);
+
+        if (entry.name != null) {
+            addWord(entry, entry.name.toLowerCase(Locale.ROOT));
+            addWords(entry, entry.name);
+        }
+        addWords(entry, obj.getPath());
+        pending.add(entry);
+    }
+
+    /*
+     * Drops an object from the index.
+     */
+    private void remove(Entry entry)
+    {
+        entries.remove(entry.obj);
+        for (String word : entry.words)
+            removeFrom(words, word, entry);
+        for (String attrName : entry.attrs.keySet())
+            removeFrom(attrNames, attrName, entry);
+    }
+
+    /*
+     * Indexes the words of a text for an entry.
+     */
+    private void addWords(Entry entry, String text)
+    {
+        if (text == null)
+            return;
+        for (String word : WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+            addWord(entry, word);
+    }
+
+    /*
+     * Indexes a word for an entry.
+     */
+    private void addWord(Entry entry, String word)
+    {
+        if (!word.isEmpty() && entry.words.add(word))
+            words.computeIfAbsent(word, k -> new HashSet<>()).add(entry);
+    }
+
+    /*
+     * Schedules a background task reading the datatypes and attributes of the pending objects, unless
+     * one is scheduled already.
+     */
+    private void scheduleLoad()
+    {
+        if (!loading && !closed && !pending.isEmpty()) {
+            loading = true;
+            executor.execute(this::loadPending);
+        }
+    }
+
+    /*
+     * Reads the datatypes and attributes of a batch of pending objects, then schedules the next batch, so
+     * that searches submitted meanwhile do not wait for the whole file.
+     */
+    private void loadPending()
+    {
+        for (int i = 0; i < LOAD_BATCH; i++) {
+            Entry entry;
+            synchronized (this) {
+                entry = closed ? null : pending.poll();
+            }
+            if (entry == null)
+                break;
+            load(entry);
+        }
+
+        synchronized (this) {
+            loading = false;
+            scheduleLoad();
+        }
+    }
+
+    /*
+     * Reads the datatype and attributes of an object and indexes them, unless this was done already or
+     * the object was dropped from the index.
+     */
+    private void load(Entry entry)
+    {
+        synchronized (this) {
+            if (entry.loaded || (entries.get(entry.obj) != entry))
+                return;
+        }
+
+        String type = null;
+        try {
+            type = file.getDatatypeDescription(entry.obj);
+        }
+        catch (UnsupportedOperationException ex) {
+            // the file format only supports searching by name
+        }
+        catch (Exception ex) {
+            log.debug("load(): {} datatype failure: ", entry.fullName, ex);
+        }
+
+        Map<String, String> attrs = new LinkedHashMap<>();
+        try {
+            for (Attribute attr : file.readAttributes(entry.obj, MAX_VALUE_ITEMS))
+                attrs.put(attr.getAttributeName().toLowerCase(Locale.ROOT), getValue(attr));
+        }
+        catch (UnsupportedOperationException ex) {
+            // the file format only supports searching by name
+        }
+        catch (Exception ex) {
+            log.debug("load(): {} attributes failure: ", entry.fullName, ex);
+        }
+
+        synchronized (this) {
+            if (entry.loaded || (entries.get(entry.obj) != entry))
+                return;
+
+            entry.type   = (type == null) ? null : type.toLowerCase(Locale.ROOT);
+            entry.attrs  = attrs;
+            entry.loaded = true;
+            addWords(entry, entry.type);
+            for (Map.Entry<String, String> attr : attrs.entrySet()) {
+                addWord(entry, attr.getKey());
+                addWords(entry, attr.getKey());
+                addWords(entry, attr.getValue());
+                attrNames.computeIfAbsent(attr.getKey(), k -> new HashSet<>()).add(entry);
+            }
+        }
+    }
+
+    /*
+     * Runs a search on the background thread. The objects already indexed are searched through the word
+     * index first; the objects not yet read are then read and tested one by one.
+     */
+    private void run(List<Term> terms, Consumer<HObject> consumer)
+    {
+        if (terms.isEmpty())
+            return;
+
+        List<Entry> found    = new ArrayList<>();
+        List<Entry> notFound = new ArrayList<>();
+        synchronized (this) {
+            Collection<Entry> candidates = null;
+            for (Term term : terms) {
+                Collection<Entry> c = term.getCandidates();
+                if ((c != null) && ((candidates == null) || (c.size() < candidates.size())))
+                    candidates = c;
+            }
+            for (Entry entry : (candidates == null) ? entries.values() : candidates) {
+                if (entry.loaded && matches(terms, entry))
+                    found.add(entry);
+            }
+            for (Entry entry : entries.values()) {
+                if (!entry.loaded)
+                    notFound.add(entry);
+            }
+        }
+
+        Comparator<Entry> bySeq = Comparator.comparingLong(e -> e.seq);
+        found.sort(bySeq);
+        for (Entry entry : found) {
+            if (Thread.currentThread().isInterrupted())
+                return;
+            consumer.accept(entry.obj);
+        }
+
+        notFound.sort(bySeq);
+        for (Entry entry : notFound) {
+            if (Thread.currentThread().isInterrupted())
+                return;
+
+            load(entry);
+            boolean isMatch;
+            synchronized (this) {
+                isMatch = entry.loaded && (entries.get(entry.obj) == entry) && matches(terms, entry);
+            }
+            if (isMatch)
+                consumer.accept(entry.obj);
+        }
+        log.trace("run(): {} found among indexed objects, {} objects read", found.size(), notFound.size());
+    }
+
+    /*
+     * Checks if an entry matches all terms of a query.
+     */
+    private static boolean matches(List<Term> terms, Entry entry)
+    {
+        for (Term term : terms) {
+            if (!term.matches(entry))
+                return false;
+        }
+
+        return true;
+    }
+
+    /*
+     * Splits a query into its terms.
+     */
+    private List<Term> parse(String query)
+    {
+        List<Term> terms = new ArrayList<>();
+        String q         = (query == null) ? "" : query.trim();
+
+        if ((q.length() > 1) && q.startsWith("/") && q.endsWith("/")) {
+            int flags = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+            terms.add(new RegexTerm(Pattern.compile(q.substring(1, q.length() - 1), flags)));
+            return terms;
+        }
+
+        for (String token : q.toLowerCase(Locale.ROOT).split("\\s+")) {
+            int eq = token.indexOf('=');
+            if (token.isEmpty())
+                continue;
+            else if (eq > 0)
+                terms.add(new AttributeTerm(token.substring(0, eq), token.substring(eq + 1)));
+            else if (!hasWildcard(token))
+                terms.add(new WordTerm(token, false));
+            else if (isPrefix(token))
+                terms.add(new WordTerm(token.substring(0, token.length() - 1), true));
+            else
+                terms.add(new NameTerm(token));
+        }
+
+        return terms;
+    }
+
+    /*
+     * Returns the value of a small attribute in lower case, or null if it is too large to be indexed.
+     */
+    private static String getValue(Attribute attr)
+    {
+        long[] dims = attr.getAttributeDims();
+        long n      = 1;
+        if (dims != null) {
+            for (long d : dims)
+                n *= d;
+        }
+        if (attr.isAttributeNULL() || (n > MAX_VALUE_ITEMS))
+            return null;
+
+        try {
+            String value = attr.toAttributeString(", ", MAX_VALUE_ITEMS);
+            if (value == null)
+                return null;
+            if (value.length() > MAX_VALUE_LENGTH)
+                value = value.substring(0, MAX_VALUE_LENGTH);
+
+            return value.toLowerCase(Locale.ROOT);
+        }
+        catch (Exception ex) {
+            log.debug("getValue(): {} failure: ", attr.getAttributeName(), ex);
+            return null;
+        }
+    }
+
+    /*
+     * Returns the entries of several sets of the word index, without duplicates.
+     */
+    private static Collection<Entry> union(Collection<Set<Entry>> sets)
+    {
+        Set<Entry> all = new HashSet<>();
+        for (Set<Entry> set : sets)
+            all.addAll(set);
+
+        return all;
+    }
+
+    /*
+     * Removes an entry from the set of a key, dropping the key when its set becomes empty.
+     */
+    private static void removeFrom(Map<String, Set<Entry>> index, String key, Entry entry)
+    {
+        Set<Entry> set = index.get(key);
+        if ((set != null) && set.remove(entry) && set.isEmpty())
+            index.remove(key);
+    }
+
+    private static boolean isSame(String a, String b) { return (a == null) ? (b == null) : a.equals(b); }
+
+    private static boolean hasWildcard(String s) { return (s.indexOf('*') >= 0) || (s.indexOf('?') >= 0); }
+
+    /*
+     * Checks if a pattern is a prefix followed by one "*" and no other wildcards.
+     */
+    private static boolean isPrefix(String s)
+    {
+        return (s.length() > 1) && (s.indexOf('*') == s.length() - 1) && (s.indexOf('?') < 0);
+    }
+
+    /*
+     * Converts a pattern with the wildcards "*" and "?" into a regular expression matching whole strings.
+     */
+    private static Pattern toPattern(String glob)
+    {
+        StringBuilder regex   = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if ((c != '*') && (c != '?')) {
+                literal.append(c);
+                continue;
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+                literal.setLength(0);
+            }
+            regex.append((c == '*') ? ".*" : ".");
+        }
+        if (literal.length() > 0)
+            regex.append(Pattern.quote(literal.toString()));
+
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+}
@@ -0,0 +1,427 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+/**
+ * A buffer of floating-point values wider than a double, such as IEEE 754 quadruple precision or
+ * x86 extended precision, kept in their raw binary form.
+ *
+ * Converting such values to BigDecimal when they are read costs several objects per value, which
+ * for large datasets needs far more heap than the data itself. A QuadFloatBuffer keeps the raw
+ * bytes, 16 bytes per value, and decodes a value to a double or a BigDecimal only when it is
+ * accessed. The bit layout of the values is described by a {@link Format}.
+ *
+ * BigDecimal has no representation for infinities and NaN, so {@link #get(long)} returns these values
+ * as a Double.
+ */
+public class QuadFloatBuffer {
+    /**
+     * The bit layout of the floating-point values of a QuadFloatBuffer. Bit positions count from the
+     * least significant bit of a value.
+     */
+    public static final class Format {
+        private final int size;
+        private final boolean bigEndian;
+        private final int signPos;
+        private final int expPos;
+        private final int expSize;
+        private final int mantPos;
+        private final int mantSize;
+        private final long expBias;
+        private final boolean explicitIntegerBit;
+
+        /**
+         * Creates the layout of a floating-point format.
+         *
+         * @param size
+         *            the size of a value in bytes, between 9 and 16
+         * @param bigEndian
+         *            if the bytes of a value are stored most significant byte first
+         * @param signPos
+         *            the position of the sign bit
+         * @param expPos
+         *            the position of the least significant exponent bit
+         * @param expSize
+         *            the number of exponent bits, between 11 and 30
+         * @param mantPos
+         *            the position of the least significant mantissa bit
+         * @param mantSize
+         *            the number of mantissa bits, between 53 and 120
+         * @param expBias
+         *            the exponent bias
+         * @param explicitIntegerBit
+         *            if the most significant mantissa bit is the integer bit, as in x86 extended
+         *            precision, instead of being implied
+         *
+         * @throws IllegalArgumentException
+         *             if the layout is not supported
+         */
+        public Format(int size, boolean bigEndian, int signPos, int expPos, int expSize, int mantPos,
+                      int mantSize, long expBias, boolean explicitIntegerBit)
+        {
+            if ((size < 9) || (size > 16) || (expSize < 11) || (expSize > 30) || (mantSize < 53) ||
+                (mantSize > 120) || (signPos < 0) || (expPos < 0) || (mantPos < 0) ||
+                (signPos >= size * 8) || (expPos + expSize > size * 8) || (mantPos + mantSize > size * 8))
+                throw new IllegalArgumentException("unsupported floating-point layout");
+
+            this.size               = size;
+            this.bigEndian          = bigEndian;
+            this.signPos            = signPos;
+            this.expPos             = expPos;
+            this.expSize            = expSize;
+            this.mantPos            = mantPos;
+            this.mantSize           = mantSize;
+            this.expBias            = expBias;
+            this.explicitIntegerBit = explicitIntegerBit;
+        }
+
+        /**
+         * Returns the size of a value in bytes.
+         *
+         * @return the size of a value
+         */
+        public int getSize() { return size; }
+
+        @Override
+        public String toString()
+        {
+            return "size=" + size + (bigEndian ? ", BE" : ", LE") + ", spos=" + signPos + ", epos=" + expPos +
+                ", esize=" + expSize + ", mpos=" + mantPos + ", msize=" + mantSize + ", ebias=" + expBias +
+                (explicitIntegerBit ? ", explicit" : ", implied");
+        }
+    }
+
+    /** The IEEE 754 quadruple precision format in little-endian byte order. */
+    public static final Format IEEE_BINARY128_LE = new Format(16, false, 127, 112, 15, 0, 112, 16383, false);
+
+    /** The IEEE 754 quadruple precision format in big-endian byte order. */
+    public static final Format IEEE_BINARY128_BE = new Format(16, true, 127, 112, 15, 0, 112, 16383, false);
+
+    /** The raw values. */
+    private final byte[] raw;
+
+    /** The layout of the values. */
+    private final Format format;
+
+    /** The number of values in the buffer. */
+    private final int size;
+
+    /**
+     * Wraps the raw bytes of floating-point values. The bytes are not copied.
+     *
+     * @param raw
+     *            the raw values, format.getSize() bytes per value
+     * @param format
+     *            the layout of the values
+     *
+     * @throws IllegalArgumentException
+     *             if the length of raw is not a multiple of the size of a value
+     */
+    public QuadFloatBuffer(byte[] raw, Format format)
+    {
+        if ((raw.length % format.size) != 0)
+            throw new IllegalArgumentException("buffer of " + raw.length + " bytes does not hold values of " +
+                                               format.size + " bytes");
+
+        this.raw    = raw;
+        this.format = format;
+        this.size   = raw.length / format.size;
+    }
+
+    /**
+     * Returns the layout of the values.
+     *
+     * @return the layout of the values
+     */
+    public Format getFormat() { return format; }
+
+    /**
+     * Returns the number of values in the buffer.
+     *
+     * @return the number of values.
+     */
+    public long getSize() { return size; }
+
+    /**
+     * Returns the raw values backing this buffer, e.g. to write them back to a file. Changes to the
+     * array are visible in the buffer.
+     *
+     * @return the raw values
+     */
+    public byte[] getBytes() { return raw; }
+
+    /*
+     * Returns the bits of a value as two longs, least significant half first.
+     */
+    private long[] bits(long index)
+    {
+        if ((index < 0) || (index >= size))
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+
+        int start     = (int)index * format.size;
+        long[] halves = new long[2];
+        for (int i = 0; i < format.size; i++) {
+            int b = raw[start + (format.bigEndian ? format.size - 1 - i : i)] & 0xFF;
+            halves[i >> 3] |= (long)b << ((i & 7) * 8);
+        }
+
+        return halves;
+    }
+
+    /*
+     * Extracts up to 64 bits starting at the given position.
+     */
+    private static long field(long[] halves, int pos, int len)
+    {
+        long v;
+        if (pos >= 64)
+            v = halves[1] >>> (pos - 64);
+        else if (pos == 0)
+            v = halves[0];
+        else
+            v = (halves[0] >>> pos) | (halves[1] << (64 - pos));
+
+        return (len >= 64) ? v : v & ((1L << len) - 1);
+    }
+
+    /*
+     * Checks if the fraction bits of a value, i.e. the mantissa without an explicit integer bit, are
+     * all zero.
+     */
+    private boolean isFractionZero(long[] halves)
+    {
+        int len = format.mantSize - (format.explicitIntegerBit ? 1 : 0);
+        for (int pos = 0; pos < len; pos += 64) {
+            if (field(halves, format.mantPos + pos, Math.min(64, len - pos)) != 0)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the value at the given index rounded to the nearest double.
+     *
+     * @param index
+     *            the index of the value
+     *
+     * @return the value as a double
+     */
+    public double getDouble(long index)
+    {
+        long[] halves = bits(index);
+        boolean neg   = field(halves, format.signPos, 1) != 0;
+        long e        = field(halves, format.expPos, format.expSize);
+
+        if (e == (1L << format.expSize) - 1) {
+            if (isFractionZero(halves))
+                return neg ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            return Double.NaN;
+        }
+
+        // the top 62 mantissa bits are enough to round correctly to the 53 bits of a double
+        int t    = Math.min(format.mantSize, 62);
+        long m   = field(halves, format.mantPos + format.mantSize - t, t);
+        long exp = ((e == 0) ? 1 : e) - format.expBias;
+
+        double value;
+        if (format.explicitIntegerBit)
+            value = scalb(m, exp - (t - 1));
+        else
+            value = scalb((e == 0) ? m : (m | (1L << t)), exp - t);
+
+        return neg ? -value : value;
+    }
+
+    /*
+     * Returns m * 2^exp, clamping exponents which are far out of the range of a double.
+     */
+    private static double scalb(long m, long exp)
+    {
+        return Math.scalb((double)m, (int)Math.max(Math.min(exp, 4096), -4096));
+    }
+
+    /**
+     * Returns the value at the given index as a BigDecimal, rounded to 34 significant digits, which
+     * covers the precision of quadruple precision values.
+     *
+     * @param index
+     *            the index of the value
+     *
+     * @return the value as a BigDecimal, or null if the value is infinite or NaN
+     */
+    public BigDecimal getBigDecimal(long index)
+    {
+        long[] halves = bits(index);
+        boolean neg   = field(halves, format.signPos, 1) != 0;
+        long e        = field(halves, format.expPos, format.expSize);
+        if (e == (1L << format.expSize) - 1)
+            return null;
+
+        BigInteger m = BigInteger.ZERO;
+        for (int pos = format.mantSize; pos > 0; pos -= 32) {
+            int len = Math.min(32, pos);
+            m       = m.shiftLeft(len).or(BigInteger.valueOf(field(halves, format.mantPos + pos - len, len)));
+        }
+        if (!format.explicitIntegerBit && (e != 0))
+            m = m.setBit(format.mantSize);
+
+        // the value is the integer m times 2^exp
+        long exp = ((e == 0) ? 1 : e) - format.expBias - format.mantSize;
+        if (format.explicitIntegerBit)
+            exp++;
+        BigDecimal value;
+        if (exp >= 0)
+            value = new BigDecimal(m.shiftLeft((int)exp), MathContext.DECIMAL128);
+        else
+            value = new BigDecimal(m).divide(new BigDecimal(BigInteger.ONE.shiftLeft((int)-exp)),
+                                             MathContext.DECIMAL128);
+
+        return neg ? value.negate() : value;
+    }
+
+    /**
+     * Returns the value at the given index as an object, in the same way as java.lang.reflect.Array.get()
+     * does for an array of BigDecimal.
+     *
+     * @param index
+     *            the index of the value
+     *
+     * @return the value as a BigDecimal, or as a Double if the value is infinite or NaN
+     */
+    public Object get(long index)
+    {
+        BigDecimal value = getBigDecimal(index);
+        return (value != null) ? value : Double.valueOf(getDouble(index));
+    }
+
+    /**
+     * Sets the value at the given index. Every double is represented exactly by the formats this
+     * buffer supports.
+     *
+     * @param index
+     *            the index of the value
+     * @param value
+     *            the new value
+     */
+    public void setDouble(long index, double value)
+    {
+        if ((index < 0) || (index >= size))
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+
+        long[] halves = new long[2];
+        long dbits    = Double.doubleToRawLongBits(value);
+        long maxExp   = (1L << format.expSize) - 1;
+        long e        = (dbits >>> 52) & 0x7FF;
+        long m        = dbits & ((1L << 52) - 1);
+
+        long exp;
+        if (e == 0x7FF) {
+            exp = maxExp;
+            m   = (m == 0) ? 0 : (1L << 51);
+        }
+        else if ((e == 0) && (m == 0)) {
+            exp = 0;
+        }
+        else {
+            // normalize double subnormals, which are normal in the wider format
+            long unbiased = (e == 0) ? -1022 : e - 1023;
+            if (e == 0) {
+                int shift = Long.numberOfLeadingZeros(m) - 11;
+                m         = (m << shift) & ((1L << 52) - 1);
+                unbiased -= shift;
+            }
+            exp = unbiased + format.expBias;
+        }
+
+        // place the 52 fraction bits at the top of the fraction field
+        int fraction = format.mantSize - (format.explicitIntegerBit ? 1 : 0);
+        setField(halves, format.mantPos + fraction - 52, 52, m);
+        if (format.explicitIntegerBit && (exp != 0))
+            setField(halves, format.mantPos + fraction, 1, 1);
+        setField(halves, format.expPos, format.expSize, exp);
+        setField(halves, format.signPos, 1, dbits >>> 63);
+
+        int start = (int)index * format.size;
+        for (int i = 0; i < format.size; i++) {
+            int pos  = start + (format.bigEndian ? format.size - 1 - i : i);
+            raw[pos] = (byte)(halves[i >> 3] >>> ((i & 7) * 8));
+        }
+    }
+
+    /*
+     * Stores up to 64 bits starting at the given position into cleared bits.
+     */
+    private static void setField(long[] halves, int pos, int len, long v)
+    {
+        if (len < 64)
+            v &= (1L << len) - 1;
+        if (pos >= 64)
+            halves[1] |= v << (pos - 64);
+        else {
+            halves[0] |= v << pos;
+            if ((pos > 0) && (pos + len > 64))
+                halves[1] |= v >>> (64 - pos);
+        }
+    }
+
+    /**
+     * Decodes all values into an array of BigDecimal, in the representation used for these values by
+     * earlier versions.
+     *
+     * @return the values as BigDecimal; infinite and NaN values are null
+     */
+    public BigDecimal[] toBigDecimalArray()
+    {
+        BigDecimal[] values = new BigDecimal[size];
+        for (int i = 0; i < size; i++)
+            values[i] = getBigDecimal(i);
+
+        return values;
+    }
+
+    /**
+     * Returns a string representation of the first values of the buffer.
+     *
+     * @param delimiter
+     *            the delimiter between two values
+     * @param maxItems
+     *            the maximum number of values, or a non-positive number for all values
+     *
+     * @return the values separated by the delimiter
+     */
+    public String toString(String delimiter, int maxItems)
+    {
+        int n            = (maxItems > 0) ? Math.min(maxItems, size) : size;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            if (i > 0)
+                sb.append(delimiter);
+            sb.append(get(i));
+        }
+
+        return sb.toString();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "QuadFloatBuffer[size=" + size + ", " + format + "]";
+    }
+}
@@ -50,6 +50,20 @@ public abstract class ScalarDS extends Dataset {
     /** Indicates that each pixel component of RGB is stored as a plane. */
     public static final int INTERLACE_PLANE = 2;
 
+    /**
+     * The ways of reducing the block of values behind each point of a downsampled read to one value.
+     *
+     * @see #readDownsampled(DownsampleMode)
+     */
+    public enum DownsampleMode {
+        /** The mean of the values of the block. */
+        MEAN,
+        /** The smallest value of the block. */
+        MIN,
+        /** The largest value of the block. */
+        MAX
+    }
+
     /**
      * The interlace mode of the stored raster image data. Valid values are INTERLACE_PIXEL, INTERLACE_LINE
      * and INTERLACE_PLANE.
@@ -81,6 +95,12 @@ public abstract class ScalarDS extends Dataset {
      */
     protected boolean unsignedConverted;
 
+    /**
+     * Flag to indicate if unsigned integer data is kept in its original C-type buffer and interpreted as
+     * unsigned by the readers of the data, instead of being converted to the next wider Java type.
+     */
+    private boolean unsignedView = false;
+
     /** The fill value of the dataset. */
     protected Object fillValue = null;
 
@@ -180,8 +200,8 @@ public abstract class ScalarDS extends Dataset {
     {
         // keep a copy of original buffer and the converted buffer
         // so that they can be reused later to save memory
-        log.trace("convertFromUnsignedC(): unsigned={}", getDatatype().isUnsigned());
-        if ((data != null) && getDatatype().isUnsigned() && !unsignedConverted) {
+        log.trace("convertFromUnsignedC(): unsigned={} view={}", getDatatype().isUnsigned(), unsignedView);
+        if ((data != null) && getDatatype().isUnsigned() && !unsignedConverted && !unsignedView) {
             log.trace("convertFromUnsignedC(): convert");
             originalBuf       = data;
             convertedBuf      = convertFromUnsignedC(originalBuf, convertedBuf);
@@ -214,8 +234,8 @@ public abstract class ScalarDS extends Dataset {
     {
         // keep a copy of original buffer and the converted buffer
         // so that they can be reused later to save memory
-        log.trace("convertToUnsignedC(): unsigned={}", getDatatype().isUnsigned());
-        if ((data != null) && getDatatype().isUnsigned()) {
+        log.trace("convertToUnsignedC(): unsigned={} view={}", getDatatype().isUnsigned(), unsignedView);
+        if ((data != null) && getDatatype().isUnsigned() && (unsignedConverted || !unsignedView)) {
             log.trace("convertToUnsignedC(): convert");
             convertedBuf = data;
             originalBuf  = convertToUnsignedC(convertedBuf, originalBuf);
@@ -225,6 +245,78 @@ public abstract class ScalarDS extends Dataset {
         return data;
     }
 
+    /**
+     * Returns true if unsigned integer data is kept in its original C-type buffer.
+     *
+     * @return true if unsigned integer data is not converted to a wider type.
+     *
+     * @see #setUnsignedView(boolean)
+     */
+    public boolean isUnsignedView() { return unsignedView; }
+
+    /**
+     * Sets the unsigned view mode of this dataset.
+     *
+     * By default, convertFromUnsignedC() copies unsigned integer data into an array of the next wider
+     * Java type (for example, unsigned 32-bit integers into a long[]), which doubles the memory used by
+     * the data. In unsigned view mode, convertFromUnsignedC() and convertToUnsignedC() leave the
+     * original buffer unchanged, and the readers of the data are expected to interpret the values as
+     * unsigned, for example with Short.toUnsignedInt() or Integer.toUnsignedLong(). The view mode only
+     * affects data which has not been converted yet.
+     *
+     * @param unsignedView
+     *            true to keep unsigned integer data in its original C-type buffer.
+     */
+    public void setUnsignedView(boolean unsignedView) { this.unsignedView = unsignedView; }
+
+    /**
+     * Reads the current selection downsampled by block aggregation instead of by plain stride.
+     *
+     * The stride of the selection is taken as the size of the block of values behind each point: along
+     * dimension d, point i aggregates the values from start[d] + i * stride[d] to start[d] + (i + 1) *
+     * stride[d] - 1. The values are read in bands of rows, aligned to the chunks of the dataset where
+     * possible, and folded into the result in one pass, so only one band is held in memory at a time. NaN
+     * values are ignored.
+     *
+     * The result has the type and size of the buffer returned by read() for the same selection, so it can
+     * be displayed in place of it. Datasets which are not of an integer or floating-point type, and
+     * selections without a stride, are read by read().
+     *
+     * @param mode
+     *            the aggregation of each block
+     *
+     * @return the aggregated values of the selection
+     *
+     * @throws Exception
+     *             if the data can not be read
+     */
+    public Object readDownsampled(DownsampleMode mode) throws Exception
+    {
+        return DownsampleReader.read(this, mode, Long.MAX_VALUE);
+    }
+
+    /**
+     * Reads the current selection downsampled by block aggregation, as readDownsampled(DownsampleMode),
+     * if the blocks of the selection cover at most a number of values of the dataset. Every value under
+     * the selection is read to aggregate it, so larger selections are read by read() with plain stride
+     * instead, which only reads the values at the points of the result.
+     *
+     * @param mode
+     *            the aggregation of each block
+     * @param maxPoints
+     *            the largest number of values of the dataset aggregated
+     *
+     * @return the aggregated values of the selection, or the values read by read() if the blocks cover
+     *         more than maxPoints values
+     *
+     * @throws Exception
+     *             if the data can not be read
+     */
+    public Object readDownsampled(DownsampleMode mode, long maxPoints) throws Exception
+    {
+        return DownsampleReader.read(this, mode, maxPoints);
+    }
+
     /**
      * Returns the palette of this scalar dataset or null if palette does not exist.
      *
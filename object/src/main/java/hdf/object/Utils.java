@@ -31,6 +31,14 @@ public final class Utils {
         if (o == null)
             return ' ';
 
+        // decoded on access to BigDecimal, like the arrays of BigDecimal it replaces
+        if (o instanceof QuadFloatBuffer)
+            return 'L';
+
+        // decoded on access to String or ArrayList, like the arrays of objects it replaces
+        if (o instanceof VarLenArena)
+            return 'L';
+
         String cName = o.getClass().getName();
 
         if (cName.equals("java.lang.String") || cName.equals("java.util.Vector") ||
@@ -0,0 +1,460 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores the values of a variable-length string or variable-length sequence dataset in one byte array.
+ *
+ * Reading variable-length data through the HDF5 library produces one String or one ArrayList of
+ * boxed numbers per element, which costs several times the size of the data itself in object
+ * headers and pointers. An arena packs the values one after the other into a single byte array and
+ * keeps the start of each value in an offsets array: strings are stored UTF-8 encoded and sequences
+ * of numbers as their raw little-endian values. A value is decoded to a String or an ArrayList only
+ * when it is accessed, e.g. for the cells of a table that are visible.
+ *
+ * The numeric type of a sequence arena is taken from the first number added to it; all further
+ * numbers must have the same boxed type. Values replaced with {@link #set(int, Object)} are kept
+ * aside instead of rewriting the packed data.
+ */
+public class VarLenArena {
+    /** The initial capacity of the packed data, in bytes. */
+    private static final int INITIAL_CAPACITY = 4096;
+
+    /** The largest number of bytes a Java array can hold. */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private final boolean isString;
+
+    /** The boxed type of the numbers of a sequence arena, ' ' until the first number is added. */
+    private char typeClass = ' ';
+    private int elementSize = 0;
+
+    private byte[] data;
+    private ByteBuffer view;
+    private int dataLength = 0;
+
+    /** The value i is stored in data[offsets[i]] to data[offsets[i + 1] - 1]. */
+    private int[] offsets;
+    private int size = 0;
+
+    /** The null strings. */
+    private final BitSet nulls = new BitSet();
+
+    /** The values replaced after they were added, by index. */
+    private final Map<Integer, Object> replaced = new HashMap<>();
+
+    /**
+     * Creates an empty arena.
+     *
+     * @param isString
+     *            true for an arena of strings, false for an arena of sequences of numbers
+     * @param capacity
+     *            the expected number of values
+     */
+    public VarLenArena(boolean isString, int capacity)
+    {
+        this.isString = isString;
+        this.offsets  = new int[Math.max(capacity, 1) + 1];
+        this.data     = new byte[INITIAL_CAPACITY];
+        this.view     = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Checks if the arena holds strings.
+     *
+     * @return true for an arena of strings, false for an arena of sequences of numbers
+     */
+    public boolean isString() { return isString; }
+
+    /**
+     * Returns the Java runtime class of the numbers of a sequence arena, as returned by
+     * Utils.getJavaObjectRuntimeClass for an array of them.
+     *
+     * @return 'B', 'S', 'I', 'J', 'F' or 'D', or ' ' for an arena of strings or without numbers
+     */
+    public char getTypeClass() { return typeClass; }
+
+    /**
+     * Returns the number of values in the arena.
+     *
+     * @return the number of values
+     */
+    public int getSize() { return size; }
+
+    /**
+     * Returns the number of bytes of packed data.
+     *
+     * @return the number of bytes used by the values, without the offsets
+     */
+    public long getByteCount() { return dataLength; }
+
+    /**
+     * Appends a string.
+     *
+     * @param value
+     *            the string, or null
+     *
+     * @throws IllegalStateException
+     *             if the arena holds sequences, or the packed data would exceed the size of a Java array
+     */
+    public void add(String value)
+    {
+        if (!isString)
+            throw new IllegalStateException("cannot add a string to an arena of sequences");
+
+        if (value == null)
+            nulls.set(size);
+        else
+            append(value.getBytes(StandardCharsets.UTF_8));
+        endValue();
+    }
+
+    /**
+     * Appends a sequence of numbers.
+     *
+     * @param value
+     *            the sequence, or null for an empty sequence
+     *
+     * @throws IllegalArgumentException
+     *             if the sequence holds something else than boxed numbers of the type of the arena
+     * @throws IllegalStateException
+     *             if the arena holds strings, or the packed data would exceed the size of a Java array
+     */
+    public void add(List<?> value)
+    {
+        if (isString)
+            throw new IllegalStateException("cannot add a sequence to an arena of strings");
+
+        if (value != null) {
+            for (Object element : value) {
+                char elementClass = classOf(element);
+                if (typeClass == ' ') {
+                    typeClass   = elementClass;
+                    elementSize = sizeOf(elementClass);
+                }
+                else if (elementClass != typeClass)
+                    throw new IllegalArgumentException("sequence element " + element + " is not of type " +
+                                                       typeClass);
+            }
+            ensureCapacity((long)value.size() * elementSize);
+            for (Object element : value)
+                putNumber((Number)element);
+        }
+        endValue();
+    }
+
+    /**
+     * Appends the values of a block read through the HDF5 library.
+     *
+     * @param block
+     *            an array of String for an arena of strings, or of List for an arena of sequences
+     * @param length
+     *            the number of values of the block to append
+     */
+    public void addAll(Object[] block, int length)
+    {
+        for (int i = 0; i < length; i++) {
+            if (isString)
+                add((String)block[i]);
+            else
+                add((List<?>)block[i]);
+        }
+    }
+
+    /**
+     * Releases the unused capacity of the arena once all values are added.
+     */
+    public void trimToSize()
+    {
+        if (data.length > dataLength) {
+            data = Arrays.copyOf(data, dataLength);
+            view = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (offsets.length > size + 1)
+            offsets = Arrays.copyOf(offsets, size + 1);
+    }
+
+    /**
+     * Returns a value, decoded to a String for an arena of strings or to an ArrayList for an arena of
+     * sequences.
+     *
+     * @param index
+     *            the index of the value
+     *
+     * @return the value
+     *
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of range
+     */
+    public Object get(int index)
+    {
+        return isString ? getString(index) : getList(index);
+    }
+
+    /**
+     * Returns a string of an arena of strings.
+     *
+     * @param index
+     *            the index of the string
+     *
+     * @return the string, which may be null
+     *
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of range
+     */
+    public String getString(int index)
+    {
+        checkIndex(index);
+        if (replaced.containsKey(index))
+            return (String)replaced.get(index);
+        if (nulls.get(index))
+            return null;
+
+        return new String(data, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a sequence of an arena of sequences as a new list of boxed numbers.
+     *
+     * @param index
+     *            the index of the sequence
+     *
+     * @return the sequence
+     *
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public ArrayList<Object> getList(int index)
+    {
+        checkIndex(index);
+        if (replaced.containsKey(index))
+            return new ArrayList<>((List<Object>)replaced.get(index));
+
+        int n                  = (elementSize == 0) ? 0 : (offsets[index + 1] - offsets[index]) / elementSize;
+        ArrayList<Object> list = new ArrayList<>(n);
+        for (int i = 0, pos = offsets[index]; i < n; i++, pos += elementSize)
+            list.add(getNumber(pos));
+
+        return list;
+    }
+
+    /**
+     * Replaces a value.
+     *
+     * @param index
+     *            the index of the value
+     * @param value
+     *            a String for an arena of strings, or a List for an arena of sequences
+     *
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of range
+     */
+    public void set(int index, Object value)
+    {
+        checkIndex(index);
+        if (isString)
+            replaced.put(index, (String)value);
+        else
+            replaced.put(index, (value == null) ? new ArrayList<>() : new ArrayList<>((List<?>)value));
+    }
+
+    /**
+     * Decodes all values, in the form the HDF5 library reads and writes them.
+     *
+     * @return an array of String for an arena of strings, or of ArrayList for an arena of sequences
+     */
+    public Object[] toArray()
+    {
+        Object[] values = isString ? new String[size] : new ArrayList[size];
+        for (int i = 0; i < size; i++)
+            values[i] = get(i);
+
+        return values;
+    }
+
+    /**
+     * Returns the values as a string, separated by the given delimiter.
+     *
+     * @param delimiter
+     *            the separator between values
+     * @param maxItems
+     *            the maximum number of values to include, or 0 for all of them
+     *
+     * @return the string representation of the values
+     */
+    public String toString(String delimiter, int maxItems)
+    {
+        int n            = ((maxItems > 0) && (maxItems < size)) ? maxItems : size;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            if (i > 0)
+                sb.append(delimiter);
+            sb.append(get(i));
+        }
+
+        return sb.toString();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "VarLenArena[size=" + size + ", bytes=" + dataLength +
+            (isString ? ", strings]" : ", sequences]");
+    }
+
+    /*
+     * Closes the value being appended.
+     */
+    private void endValue()
+    {
+        if (size + 2 > offsets.length)
+            offsets = Arrays.copyOf(offsets, (int)Math.min(2L * offsets.length, Integer.MAX_VALUE - 8));
+        size++;
+        offsets[size] = dataLength;
+    }
+
+    /*
+     * Appends raw bytes to the packed data.
+     */
+    private void append(byte[] bytes)
+    {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, data, dataLength, bytes.length);
+        dataLength += bytes.length;
+    }
+
+    /*
+     * Grows the packed data so that it can hold the given number of additional bytes.
+     */
+    private void ensureCapacity(long extra)
+    {
+        long needed = dataLength + extra;
+        if (needed <= data.length)
+            return;
+        if (needed > MAX_CAPACITY)
+            throw new IllegalStateException("variable-length data exceeds " + MAX_CAPACITY + " bytes");
+
+        data = Arrays.copyOf(data, (int)Math.min(Math.max(2L * data.length, needed), MAX_CAPACITY));
+        view = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /*
+     * Appends a number of the type of the arena to the packed data.
+     */
+    private void putNumber(Number value)
+    {
+        switch (typeClass) {
+        case 'B':
+            view.put(dataLength, value.byteValue());
+            break;
+        case 'S':
+            view.putShort(dataLength, value.shortValue());
+            break;
+        case 'I':
+            view.putInt(dataLength, value.intValue());
+            break;
+        case 'J':
+            view.putLong(dataLength, value.longValue());
+            break;
+        case 'F':
+            view.putFloat(dataLength, value.floatValue());
+            break;
+        default:
+            view.putDouble(dataLength, value.doubleValue());
+            break;
+        }
+        dataLength += elementSize;
+    }
+
+    /*
+     * Decodes the number of the type of the arena stored at the given position.
+     */
+    private Object getNumber(int pos)
+    {
+        switch (typeClass) {
+        case 'B':
+            return view.get(pos);
+        case 'S':
+            return view.getShort(pos);
+        case 'I':
+            return view.getInt(pos);
+        case 'J':
+            return view.getLong(pos);
+        case 'F':
+            return view.getFloat(pos);
+        default:
+            return view.getDouble(pos);
+        }
+    }
+
+    /*
+     * Returns the runtime class of a sequence element, which must be a boxed number.
+     */
+    private static char classOf(Object element)
+    {
+        if (element instanceof Byte)
+            return 'B';
+        if (element instanceof Short)
+            return 'S';
+        if (element instanceof Integer)
+            return 'I';
+        if (element instanceof Long)
+            return 'J';
+        if (element instanceof Float)
+            return 'F';
+        if (element instanceof Double)
+            return 'D';
+
+        throw new IllegalArgumentException("unsupported sequence element: " + element);
+    }
+
+    /*
+     * Returns the size in bytes of a number of the given runtime class.
+     */
+    private static int sizeOf(char elementClass)
+    {
+        switch (elementClass) {
+        case 'B':
+            return 1;
+        case 'S':
+            return 2;
+        case 'I':
+        case 'F':
+            return 4;
+        default:
+            return 8;
+        }
+    }
+
+    /*
+     * Checks that a value index is in range.
+     */
+    private void checkIndex(int index)
+    {
+        if ((index < 0) || (index >= size))
+            throw new IndexOutOfBoundsException("index " + index + " out of range [0, " + size + ")");
+    }
+}
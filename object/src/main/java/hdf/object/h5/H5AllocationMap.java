@@ -0,0 +1,422 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object.h5;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.Consumer;
+
+import hdf.object.Dataset;
+
+import hdf.hdf5lib.H5;
+import hdf.hdf5lib.exceptions.HDF5Exception;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tells which parts of the selection of a chunked dataset are stored in allocated chunks.
+ *
+ * The map has one bit per chunk touched by the selection, so that a view can find out cheaply
+ * whether a selected point holds written data or only the fill value, e.g. to grey out regions
+ * which were never written. Points are addressed by their index in the selection, in the same
+ * order as the data returned by read().
+ *
+ * The map of a selection is built from a {@link ChunkIndex} of the whole dataset, which is read once
+ * and kept by the dataset between reads, by looking up only the chunks touched by the selection.
+ */
+public final class H5AllocationMap {
+    private static final Logger log = LoggerFactory.getLogger(H5AllocationMap.class);
+
+    /**
+     * The allocated chunks of a whole dataset, read from its chunk index in one pass.
+     *
+     * Chunks are only deallocated when the dimensions of a dataset change, so an index which shows no
+     * unallocated chunk stays true for as long as the dimensions are the same. Writes may allocate
+     * chunks, so an index of a partially allocated dataset is only used while the storage size of the
+     * dataset is the one it was read with.
+     */
+    static final class ChunkIndex {
+        private final long[] dims;
+        private final long[] chunkDims;
+        private final long storageSize;
+        private final long totalChunks;
+
+        /** The row-major indices of the allocated chunks, in increasing order. */
+        private final long[] allocated;
+
+        private ChunkIndex(long[] dims, long[] chunkDims, long storageSize, long[] allocated)
+        {
+            this.dims        = dims;
+            this.chunkDims   = chunkDims;
+            this.storageSize = storageSize;
+            this.allocated   = allocated;
+
+            long total = 1;
+            if (chunkDims != null) {
+                for (int i = 0; i < dims.length; i++) {
+                    long n = (dims[i] + chunkDims[i] - 1) / chunkDims[i];
+                    total  = ((n > 0) && (total > Long.MAX_VALUE / n)) ? Long.MAX_VALUE : total * n;
+                }
+            }
+            this.totalChunks = total;
+        }
+
+        /**
+         * Reads the allocated chunks of an open dataset from its chunk index.
+         *
+         * @param did
+         *            the identifier of the dataset
+         * @param dims
+         *            the dimensions of the dataset
+         *
+         * @return the index; an index without chunks if the dataset is not chunked
+         *
+         * @throws HDF5Exception
+         *             if the chunk index can not be read
+         */
+        static ChunkIndex scan(long did, long[] dims) throws HDF5Exception
+        {
+            long storageSize = H5.H5Dget_storage_size(did);
+            long[] chunkDims = H5ChunkMap.getChunkDims(did, dims.length);
+            if (chunkDims == null)
+                return new ChunkIndex(dims.clone(), null, storageSize, new long[0]);
+            for (long c : chunkDims) {
+                if (c <= 0)
+                    return new ChunkIndex(dims.clone(), null, storageSize, new long[0]);
+            }
+
+            final ChunkIndex layout = new ChunkIndex(dims.clone(), chunkDims, storageSize, null);
+            final long[][] found    = {new long[64]};
+            final int[] n           = {0};
+            H5ChunkMap.iterate(did, chunk -> {
+                if (n[0] == found[0].length)
+                    found[0] = Arrays.copyOf(found[0], 2 * n[0]);
+                found[0][n[0]++] = layout.linearIndex(chunk.getOffset(), true);
+            });
+
+            long[] allocated = Arrays.copyOf(found[0], n[0]);
+            Arrays.sort(allocated);
+
+            return new ChunkIndex(layout.dims, chunkDims, storageSize, allocated);
+        }
+
+        /**
+         * Checks if the dataset has unallocated chunks, so that a read may skip them.
+         *
+         * @return true if the dataset is chunked and not every chunk is allocated
+         */
+        boolean isSparse() { return (chunkDims != null) && (allocated.length < totalChunks); }
+
+        /**
+         * Checks if the index was read for a dataset of the given dimensions.
+         *
+         * @param curDims
+         *            the current dimensions of the dataset
+         *
+         * @return true if the dimensions are the same
+         */
+        boolean hasDims(long[] curDims) { return Arrays.equals(dims, curDims); }
+
+        /**
+         * Checks if the index still describes an open dataset: its dimensions and storage size are the
+         * ones the index was read with.
+         *
+         * @param did
+         *            the identifier of the dataset
+         * @param curDims
+         *            the current dimensions of the dataset
+         *
+         * @return true if the index can be used
+         *
+         * @throws HDF5Exception
+         *             if the storage size can not be read
+         */
+        boolean isCurrent(long did, long[] curDims) throws HDF5Exception
+        {
+            return hasDims(curDims) && (H5.H5Dget_storage_size(did) == storageSize);
+        }
+
+        /**
+         * Returns the chunk dimensions of the dataset.
+         *
+         * @return the chunk dimensions, or null if the dataset is not chunked
+         */
+        long[] getChunkDims() { return chunkDims; }
+
+        /**
+         * Checks if a chunk is allocated.
+         *
+         * @param chunk
+         *            the position of the chunk, in chunks along each dimension
+         *
+         * @return true if the chunk is allocated
+         */
+        boolean isAllocated(long[] chunk)
+        {
+            return Arrays.binarySearch(allocated, linearIndex(chunk, false)) >= 0;
+        }
+
+        /*
+         * Returns the row-major index of a chunk, from its position in chunks or, if isOffset, from the
+         * coordinates of its first element.
+         */
+        private long linearIndex(long[] pos, boolean isOffset)
+        {
+            long idx = 0;
+            for (int i = 0; i < dims.length; i++) {
+                long n = (dims[i] + chunkDims[i] - 1) / chunkDims[i];
+                idx    = idx * n + (isOffset ? pos[i] / chunkDims[i] : pos[i]);
+            }
+
+            return idx;
+        }
+    }
+
+    private final int rank;
+    private final long[] start;
+    private final long[] stride;
+    private final long[] count;
+    private final long[] chunkDims;
+
+    /** The first and last chunk touched by the selection along each dimension. */
+    private final long[] firstChunk;
+    private final long[] lastChunk;
+
+    /** Whether a chunk between the first and last chunk contains selected points, per dimension. */
+    private final boolean[][] hasPoints;
+
+    /** The allocated chunks between the first and last chunk, in row-major order. */
+    private final BitSet allocated;
+
+    private long touchedBlocks   = 1;
+    private long allocatedBlocks = 0;
+
+    private H5AllocationMap(long[] start, long[] stride, long[] count, long[] chunkDims)
+    {
+        this.rank       = count.length;
+        this.start      = start;
+        this.stride     = stride;
+        this.count      = count;
+        this.chunkDims  = chunkDims;
+        this.firstChunk = new long[rank];
+        this.lastChunk  = new long[rank];
+        this.hasPoints  = new boolean[rank][];
+
+        long span = 1;
+        for (int i = 0; i < rank; i++) {
+            firstChunk[i] = start[i] / chunkDims[i];
+            lastChunk[i]  = (start[i] + (count[i] - 1) * stride[i]) / chunkDims[i];
+            hasPoints[i]  = new boolean[(int)(lastChunk[i] - firstChunk[i] + 1)];
+            for (long k = 0; k < count[i]; k += Math.max(1, chunkDims[i] / stride[i]))
+                hasPoints[i][(int)((start[i] + k * stride[i]) / chunkDims[i] - firstChunk[i])] = true;
+            hasPoints[i][hasPoints[i].length - 1] = true;
+
+            int n = 0;
+            for (boolean b : hasPoints[i])
+                n += b ? 1 : 0;
+            touchedBlocks *= n;
+            span *= hasPoints[i].length;
+        }
+        this.allocated = new BitSet((int)span);
+    }
+
+    /**
+     * Builds the allocation map of the current selection of a dataset from the index of its allocated
+     * chunks, looking up only the chunks touched by the selection.
+     *
+     * @param dataset
+     *            the dataset
+     * @param index
+     *            the allocated chunks of the dataset
+     *
+     * @return the allocation map, or null if the dataset is not chunked or the selection touches too
+     *         many chunks to map
+     */
+    static H5AllocationMap create(Dataset dataset, ChunkIndex index)
+    {
+        int rank = dataset.getRank();
+        if (rank <= 0)
+            return null;
+
+        long[] chunkDims = index.getChunkDims();
+        if ((chunkDims == null) || (chunkDims.length != rank))
+            return null;
+
+        long[] start  = dataset.getStartDims().clone();
+        long[] count  = dataset.getSelectedDims().clone();
+        long[] stride = new long[rank];
+        long span     = 1;
+        for (int i = 0; i < rank; i++) {
+            stride[i] = (dataset.getStride() == null) ? 1 : Math.max(1, dataset.getStride()[i]);
+            if ((count[i] <= 0) || (chunkDims[i] <= 0))
+                return null;
+            span *= (start[i] + (count[i] - 1) * stride[i]) / chunkDims[i] - start[i] / chunkDims[i] + 1;
+            if (span > Integer.MAX_VALUE)
+                return null;
+        }
+
+        H5AllocationMap map = new H5AllocationMap(start, stride, count, chunkDims);
+        map.markAllocated(index);
+        log.trace("create(): {}", map);
+
+        return map;
+    }
+
+    /*
+     * Marks the chunks with selected points which are allocated, visiting the chunks between the first
+     * and last chunk in row-major order.
+     */
+    private void markAllocated(ChunkIndex index)
+    {
+        long[] chunk = firstChunk.clone();
+        int bit      = 0;
+        while (true) {
+            boolean selected = true;
+            for (int i = 0; (i < rank) && selected; i++)
+                selected = hasPoints[i][(int)(chunk[i] - firstChunk[i])];
+            if (selected && index.isAllocated(chunk)) {
+                allocated.set(bit);
+                allocatedBlocks++;
+            }
+            bit++;
+
+            int i = rank - 1;
+            while ((i >= 0) && (chunk[i] == lastChunk[i])) {
+                chunk[i] = firstChunk[i];
+                i--;
+            }
+            if (i < 0)
+                break;
+            chunk[i]++;
+        }
+    }
+
+    /**
+     * Returns the chunk dimensions of the dataset, i.e. the size of the blocks the map is made of.
+     *
+     * @return the chunk dimensions
+     */
+    public long[] getBlockDims() { return chunkDims.clone(); }
+
+    /**
+     * Returns the number of chunks which contain selected points.
+     *
+     * @return the number of chunks touched by the selection
+     */
+    public long getTotalBlocks() { return touchedBlocks; }
+
+    /**
+     * Returns the number of allocated chunks which contain selected points.
+     *
+     * @return the number of allocated chunks touched by the selection
+     */
+    public long getAllocatedBlocks() { return allocatedBlocks; }
+
+    /**
+     * Returns the fraction of the chunks touched by the selection which are allocated.
+     *
+     * @return the allocated fraction between 0 and 1
+     */
+    public double getAllocatedFraction()
+    {
+        return (touchedBlocks == 0) ? 0 : (double)allocatedBlocks / touchedBlocks;
+    }
+
+    /**
+     * Checks if every chunk touched by the selection is allocated.
+     *
+     * @return true if the whole selection is stored in allocated chunks
+     */
+    public boolean isFullyAllocated() { return allocatedBlocks == touchedBlocks; }
+
+    /**
+     * Checks if a selected point is stored in an allocated chunk.
+     *
+     * @param index
+     *            the index of the point in the selection, in row-major order
+     *
+     * @return true if the chunk of the point is allocated; false if the point holds the fill value
+     */
+    public boolean isAllocated(long index)
+    {
+        long bit    = 0;
+        long factor = 1;
+        for (int i = rank - 1; i >= 0; i--) {
+            long idx = index % count[i];
+            index /= count[i];
+            bit += (chunkOf(i, idx) - firstChunk[i]) * factor;
+            factor *= hasPoints[i].length;
+        }
+
+        return allocated.get((int)bit);
+    }
+
+    /**
+     * Checks if a selected point is stored in an allocated chunk.
+     *
+     * @param index
+     *            the position of the point in the selection, one index per dimension
+     *
+     * @return true if the chunk of the point is allocated; false if the point holds the fill value
+     */
+    public boolean isAllocated(long[] index)
+    {
+        long bit = 0;
+        for (int i = 0; i < rank; i++)
+            bit = bit * hasPoints[i].length + (chunkOf(i, index[i]) - firstChunk[i]);
+
+        return allocated.get((int)bit);
+    }
+
+    /*
+     * Returns the chunk index along a dimension of the point with the given selection index.
+     */
+    private long chunkOf(int dim, long idx) { return (start[dim] + idx * stride[dim]) / chunkDims[dim]; }
+
+    /**
+     * Visits the allocated chunks touched by the selection, as the range of selection indices they
+     * contain along each dimension.
+     *
+     * @param action
+     *            receives the first selection index and the number of selected points of a chunk along
+     *            each dimension
+     */
+    void forEachAllocatedBlock(Consumer<long[][]> action)
+    {
+        long[] first = new long[rank];
+        long[] size  = new long[rank];
+        for (int bit = allocated.nextSetBit(0); bit >= 0; bit = allocated.nextSetBit(bit + 1)) {
+            long rest = bit;
+            for (int i = rank - 1; i >= 0; i--) {
+                long c = firstChunk[i] + rest % hasPoints[i].length;
+                rest /= hasPoints[i].length;
+
+                // the selected points within [c * chunk, (c + 1) * chunk)
+                long lo  = Math.max(c * chunkDims[i] - start[i], 0);
+                long hi  = (c + 1) * chunkDims[i] - 1 - start[i];
+                first[i] = (lo + stride[i] - 1) / stride[i];
+                size[i]  = Math.min(count[i] - 1, hi / stride[i]) - first[i] + 1;
+            }
+            action.accept(new long[][] {first.clone(), size.clone()});
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "allocated=" + allocatedBlocks + "/" + touchedBlocks;
+    }
+}
@@ -0,0 +1,418 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object.h5;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import hdf.object.Dataset;
+import hdf.object.FileFormat;
+
+import hdf.hdf5lib.H5;
+import hdf.hdf5lib.HDF5Constants;
+import hdf.hdf5lib.exceptions.HDF5Exception;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The raw data chunk cache settings of a chunked dataset, and the cache hits and misses of the reads
+ * done through it.
+ *
+ * HDF5 keeps a cache of decompressed chunks for every open dataset, 1 MB with 521 hash slots by
+ * default. A selection which cuts across more chunks than fit into the cache, such as a strided or
+ * transposed slice of a dataset with large chunks, evicts every chunk before it is used again and
+ * has to decompress it once more for the next read. When chunk cache tuning is enabled in the
+ * H5File, the cache is sized so that all chunks touched by the current selection fit into it, up to
+ * {@link #MAX_AUTO_BYTES}, and the number of hash slots is chosen as a prime about 100 times the
+ * number of chunks in the cache. The slots, bytes and preemption policy can also be set explicitly
+ * in the H5File.
+ *
+ * The chunk cache of a dataset can only be set when the dataset is opened, so a dataset is opened
+ * again when its selection needs a different cache.
+ *
+ * The HDF5 library does not report hits and misses of the chunk cache of a dataset. The counts kept
+ * here are estimates: every read is replayed against a least recently used model of the cache with
+ * the same number of chunks, which is emptied whenever the dataset is opened anew.
+ */
+public final class H5ChunkCache {
+    private static final Logger log = LoggerFactory.getLogger(H5ChunkCache.class);
+
+    /** The default number of hash slots of the HDF5 chunk cache. */
+    public static final long DEFAULT_SLOTS = 521;
+
+    /** The default size of the HDF5 chunk cache in bytes. */
+    public static final long DEFAULT_BYTES = 1024L * 1024L;
+
+    /** The default preemption policy of the HDF5 chunk cache. */
+    public static final double DEFAULT_PREEMPTION = 0.75;
+
+    /** The largest chunk cache, in bytes, chosen from the selection of a dataset. */
+    public static final long MAX_AUTO_BYTES = 64L * 1024L * 1024L;
+
+    /** The number of hash slots per chunk recommended by the HDF5 documentation. */
+    private static final long SLOTS_PER_CHUNK = 100;
+
+    /** The largest number of hash slots chosen from the selection of a dataset. */
+    private static final long MAX_AUTO_SLOTS = 1048576;
+
+    /** The largest number of chunks per read which are replayed against the cache model. */
+    private static final long MAX_MODEL_CHUNKS = 1L << 20;
+
+    /** The maximum rank of an HDF5 dataspace. */
+    private static final int MAX_RANK = 32;
+
+    private long nSlots       = DEFAULT_SLOTS;
+    private long nBytes       = DEFAULT_BYTES;
+    private double preemption = DEFAULT_PREEMPTION;
+
+    /** Whether the dataset is opened with its own access property list. */
+    private boolean tuned = false;
+
+    private long hits   = 0;
+    private long misses = 0;
+
+    /** The chunk dimensions of the dataset, or null if the dataset is not chunked or not yet opened. */
+    private long[] chunkDims = null;
+
+    /** Whether the storage layout of the dataset has been looked up. */
+    private boolean layoutKnown = false;
+
+    /** The size of one chunk in bytes, or zero if the dataset is not chunked. */
+    private long chunkBytes = 0;
+
+    /** The chunks in the cache model in access order, keyed by their linear index. */
+    private final LinkedHashMap<Long, Boolean> resident = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Creates the chunk cache settings of a dataset with the HDF5 defaults. */
+    H5ChunkCache() {}
+
+    /**
+     * Returns the number of hash slots of the chunk cache.
+     *
+     * @return the number of hash slots
+     */
+    public synchronized long getSlots() { return nSlots; }
+
+    /**
+     * Returns the size of the chunk cache in bytes.
+     *
+     * @return the size of the chunk cache in bytes
+     */
+    public synchronized long getBytes() { return nBytes; }
+
+    /**
+     * Returns the preemption policy of the chunk cache, between 0 and 1.
+     *
+     * @return the preemption policy
+     */
+    public synchronized double getPreemption() { return preemption; }
+
+    /**
+     * Returns the estimated number of chunk reads which were served from the chunk cache.
+     *
+     * @return the number of cache hits
+     */
+    public synchronized long getHits() { return hits; }
+
+    /**
+     * Returns the estimated number of chunk reads which had to read the chunk from the file.
+     *
+     * @return the number of cache misses
+     */
+    public synchronized long getMisses() { return misses; }
+
+    /**
+     * Returns the estimated fraction of chunk reads which were served from the chunk cache.
+     *
+     * @return the hit rate between 0 and 1, or 0 if no chunk was read
+     */
+    public synchronized double getHitRate()
+    {
+        long total = hits + misses;
+        return (total == 0) ? 0 : (double)hits / total;
+    }
+
+    /**
+     * Resets the hit and miss counts.
+     */
+    public synchronized void resetStatistics()
+    {
+        hits   = 0;
+        misses = 0;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "slots=" + nSlots + ", bytes=" + nBytes + ", preemption=" + preemption + ", hits=" + hits +
+            ", misses=" + misses;
+    }
+
+    /**
+     * Chooses the chunk cache settings for the current selection of a dataset and the chunk cache
+     * settings of its file. Nothing is changed before the dataset has been opened and initialized, or
+     * if it is not chunked.
+     *
+     * @param dset
+     *            the dataset
+     *
+     * @return true if the settings changed, so that an open identifier of the dataset has to be
+     *         closed before the new settings take effect
+     */
+    synchronized boolean configure(Dataset dset)
+    {
+        FileFormat file = dset.getFileFormat();
+        long[] chunks   = chunkDims;
+        if (!dset.isInited() || (chunks == null) || (chunks.length != dset.getRank()) ||
+            !(file instanceof H5File))
+            return false;
+
+        H5File h5file = (H5File)file;
+        long size     = dset.getDatatype().getDatatypeSize();
+        for (int i = 0; i < chunks.length; i++)
+            size *= chunks[i];
+        if (size <= 0)
+            return false;
+        chunkBytes = size;
+
+        long slots = DEFAULT_SLOTS;
+        long bytes = DEFAULT_BYTES;
+        double w0  = DEFAULT_PREEMPTION;
+        if (h5file.isChunkCacheTuning()) {
+            // room for every chunk touched by the selection
+            long touched = countChunks(dset, chunks);
+            bytes        = (touched > MAX_AUTO_BYTES / chunkBytes) ? MAX_AUTO_BYTES : touched * chunkBytes;
+            bytes        = Math.max(DEFAULT_BYTES, bytes);
+            slots        = Math.min(MAX_AUTO_SLOTS, Math.max(1, bytes / chunkBytes) * SLOTS_PER_CHUNK);
+            slots        = nextPrime(Math.max(DEFAULT_SLOTS, slots));
+        }
+        if (h5file.getChunkCacheSlots() > 0)
+            slots = h5file.getChunkCacheSlots();
+        if (h5file.getChunkCacheBytes() >= 0)
+            bytes = h5file.getChunkCacheBytes();
+        if (h5file.getChunkCachePreemption() >= 0)
+            w0 = Math.min(1, h5file.getChunkCachePreemption());
+
+        boolean newTuned = h5file.isChunkCacheTuning() || (h5file.getChunkCacheSlots() > 0) ||
+                           (h5file.getChunkCacheBytes() >= 0) || (h5file.getChunkCachePreemption() >= 0);
+        if ((slots == nSlots) && (bytes == nBytes) && (w0 == preemption) && (newTuned == tuned))
+            return false;
+
+        log.trace("configure(): {} slots={} bytes={} w0={}", dset.getFullName(), slots, bytes, w0);
+        nSlots     = slots;
+        nBytes     = bytes;
+        preemption = w0;
+        tuned      = newTuned;
+
+        return true;
+    }
+
+    /**
+     * Creates the dataset access property list to open the dataset with.
+     *
+     * @return the access property list, or H5P_DEFAULT if the dataset uses the default chunk cache
+     *
+     * @throws HDF5Exception
+     *             if the property list can not be created
+     */
+    synchronized long createAccessPlist() throws HDF5Exception
+    {
+        if (!tuned)
+            return HDF5Constants.H5P_DEFAULT;
+
+        long dapl = H5.H5Pcreate(HDF5Constants.H5P_DATASET_ACCESS);
+        try {
+            H5.H5Pset_chunk_cache(dapl, nSlots, nBytes, preemption);
+        }
+        catch (HDF5Exception ex) {
+            closePlist(dapl);
+            throw ex;
+        }
+
+        return dapl;
+    }
+
+    /**
+     * Closes a property list, such as one returned by createAccessPlist().
+     *
+     * @param plist
+     *            the property list; H5P_DEFAULT and invalid identifiers are ignored
+     */
+    static void closePlist(long plist)
+    {
+        if ((plist < 0) || (plist == HDF5Constants.H5P_DEFAULT))
+            return;
+
+        try {
+            H5.H5Pclose(plist);
+        }
+        catch (Exception ex) {
+            log.debug("closePlist(): H5Pclose(plist {}) failure: ", plist, ex);
+        }
+    }
+
+    /**
+     * Empties the cache model, because the dataset was opened with a new, empty chunk cache, and looks
+     * up the chunk dimensions of the dataset the first time it is opened.
+     *
+     * @param did
+     *            the identifier of the dataset
+     */
+    synchronized void opened(long did)
+    {
+        resident.clear();
+        if (layoutKnown)
+            return;
+
+        long pcid = HDF5Constants.H5I_INVALID_HID;
+        try {
+            pcid = H5.H5Dget_create_plist(did);
+            if (H5.H5Pget_layout(pcid) == HDF5Constants.H5D_CHUNKED) {
+                long[] dims = new long[MAX_RANK];
+                int rank    = H5.H5Pget_chunk(pcid, MAX_RANK, dims);
+                chunkDims   = Arrays.copyOf(dims, rank);
+            }
+            layoutKnown = true;
+        }
+        catch (Exception ex) {
+            log.debug("opened(): failed to get the chunk dimensions: ", ex);
+        }
+        finally {
+            closePlist(pcid);
+        }
+    }
+
+    /**
+     * Counts the hits and misses of a read of the current selection of a dataset.
+     *
+     * @param dset
+     *            the dataset which was read
+     */
+    synchronized void recordRead(Dataset dset)
+    {
+        long[] chunks = chunkDims;
+        if ((chunks == null) || (chunkBytes <= 0) || (chunks.length != dset.getRank()))
+            return;
+
+        int rank          = chunks.length;
+        long[] nTouchDims = new long[rank];
+        long[] nChunkDims = new long[rank];
+        for (int i = 0; i < rank; i++) {
+            nTouchDims[i] = countTouched(dset, chunks, i);
+            nChunkDims[i] = (dset.getDims()[i] + chunks[i] - 1) / chunks[i];
+        }
+        long nTouched = countChunks(dset, chunks);
+        if (nTouched <= 0)
+            return;
+
+        long capacity = Math.min(nSlots, nBytes / chunkBytes);
+        if (nTouched > MAX_MODEL_CHUNKS) {
+            // a read this large flushes the whole cache
+            misses = (nTouched > Long.MAX_VALUE - misses) ? Long.MAX_VALUE : misses + nTouched;
+            resident.clear();
+            return;
+        }
+
+        // visit the chunks in the order the library does, fastest varying dimension last
+        long[] pos = new long[rank];
+        while (true) {
+            long key = 0;
+            for (int i = 0; i < rank; i++)
+                key = key * nChunkDims[i] + touchedChunk(dset, chunks, i, pos[i]);
+
+            if (resident.get(key) != null)
+                hits++;
+            else {
+                misses++;
+                if (capacity > 0) {
+                    resident.put(key, Boolean.TRUE);
+                    Iterator<Long> it = resident.keySet().iterator();
+                    while (resident.size() > capacity) {
+                        it.next();
+                        it.remove();
+                    }
+                }
+            }
+
+            int i = rank - 1;
+            while ((i >= 0) && (pos[i] == nTouchDims[i] - 1)) {
+                pos[i] = 0;
+                i--;
+            }
+            if (i < 0)
+                break;
+            pos[i]++;
+        }
+    }
+
+    /*
+     * Returns the number of chunks which contain selected points, or Long.MAX_VALUE if the number does
+     * not fit in a long.
+     */
+    private static long countChunks(Dataset dset, long[] chunks)
+    {
+        long n = 1;
+        for (int i = 0; i < chunks.length; i++) {
+            long touched = countTouched(dset, chunks, i);
+            if (touched <= 0)
+                return 0;
+            n = (n > Long.MAX_VALUE / touched) ? Long.MAX_VALUE : n * touched;
+        }
+
+        return n;
+    }
+
+    /*
+     * Returns the number of chunks along one dimension which contain selected points.
+     */
+    private static long countTouched(Dataset dset, long[] chunks, int dim)
+    {
+        long start  = dset.getStartDims()[dim];
+        long count  = dset.getSelectedDims()[dim];
+        long stride = (dset.getStride() == null) ? 1 : Math.max(1, dset.getStride()[dim]);
+        long chunk  = Math.max(1, chunks[dim]);
+        if (count <= 0)
+            return 0;
+
+        // with a stride larger than a chunk every selected point lies in a chunk of its own
+        if (stride > chunk)
+            return count;
+
+        return (start + (count - 1) * stride) / chunk - start / chunk + 1;
+    }
+
+    /*
+     * Returns the index of the k-th chunk along one dimension which contains selected points.
+     */
+    private static long touchedChunk(Dataset dset, long[] chunks, int dim, long k)
+    {
+        long start  = dset.getStartDims()[dim];
+        long stride = (dset.getStride() == null) ? 1 : Math.max(1, dset.getStride()[dim]);
+        long chunk  = Math.max(1, chunks[dim]);
+
+        return (stride > chunk) ? (start + k * stride) / chunk : start / chunk + k;
+    }
+
+    /*
+     * Returns the smallest prime which is not less than n.
+     */
+    private static long nextPrime(long n)
+    {
+        return BigInteger.valueOf(Math.max(1, n - 1)).nextProbablePrime().longValue();
+    }
+}
@@ -0,0 +1,293 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object.h5;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import hdf.hdf5lib.H5;
+import hdf.hdf5lib.HDF5Constants;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Java implementations of the HDF5 deflate and shuffle filters, used to encode and decode raw chunks
+ * for direct chunk I/O outside of the HDF5 library.
+ *
+ * The deflate filter stores a chunk as a zlib stream, which is what java.util.zip produces and
+ * consumes. The shuffle filter stores the first byte of every element, followed by the second byte of
+ * every element and so on; bytes left over when the chunk size is not a multiple of the element size
+ * are stored unchanged at the end.
+ */
+final class H5ChunkCodec {
+    private static final Logger log = LoggerFactory.getLogger(H5ChunkCodec.class);
+
+    private H5ChunkCodec() { throw new IllegalStateException("Utility class"); }
+
+    /**
+     * Returns the filter pipeline of a dataset creation property list, or null if the pipeline
+     * contains a filter which can not be handled in Java. Only the deflate and shuffle filters are
+     * supported; any other filter, including the filter plugins found on the paths managed by
+     * H5Plugins, must be applied by the HDF5 library.
+     *
+     * @param pcid
+     *            the dataset creation property list
+     *
+     * @return the filter identifiers in pipeline order, or null if a filter is not supported
+     */
+    static int[] getSupportedFilters(long pcid) { return getSupportedFilters(pcid, null); }
+
+    /**
+     * Returns the filter pipeline of a dataset creation property list and the deflate level, or null
+     * if the pipeline contains a filter which can not be handled in Java.
+     *
+     * @param pcid
+     *            the dataset creation property list
+     * @param level
+     *            if not null, receives the compression level of the deflate filter in level[0]
+     *
+     * @return the filter identifiers in pipeline order, or null if a filter is not supported
+     */
+    static int[] getSupportedFilters(long pcid, int[] level)
+    {
+        try {
+            int nfilt     = H5.H5Pget_nfilters(pcid);
+            int[] filters = new int[nfilt];
+            for (int i = 0; i < nfilt; i++) {
+                int[] flags        = {0, 0};
+                long[] cdNelmts    = {20};
+                int[] cdValues     = new int[(int)cdNelmts[0]];
+                String[] cdName    = {"", ""};
+                int[] filterConfig = {1};
+
+                filters[i] =
+                    H5.H5Pget_filter(pcid, i, flags, cdNelmts, cdValues, 120, cdName, filterConfig);
+                if ((filters[i] != HDF5Constants.H5Z_FILTER_DEFLATE) &&
+                    (filters[i] != HDF5Constants.H5Z_FILTER_SHUFFLE)) {
+                    log.trace("getSupportedFilters(): filter[{}]={} is not supported", i, cdName[0]);
+                    return null;
+                }
+
+                if ((filters[i] == HDF5Constants.H5Z_FILTER_DEFLATE) && (level != null) && (cdNelmts[0] > 0))
+                    level[0] = cdValues[0];
+            }
+
+            return filters;
+        }
+        catch (Exception ex) {
+            log.debug("getSupportedFilters(): failure: ", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Reverses the filter pipeline on a raw chunk.
+     *
+     * @param raw
+     *            the chunk as stored in the file
+     * @param filters
+     *            the filter identifiers in pipeline order
+     * @param filterMask
+     *            the filter mask of the chunk; bit i is set if filter i was skipped for the chunk
+     * @param chunkBytes
+     *            the size of the decoded chunk in bytes
+     * @param typeSize
+     *            the size of one element in bytes
+     *
+     * @return the decoded chunk
+     *
+     * @throws DataFormatException
+     *             if the compressed data is corrupt or does not have the expected size
+     */
+    static byte[] decode(byte[] raw, int[] filters, int filterMask, int chunkBytes, int typeSize)
+        throws DataFormatException
+    {
+        byte[] data = raw;
+        for (int i = filters.length - 1; i >= 0; i--) {
+            if ((filterMask & (1 << i)) != 0)
+                continue;
+
+            if (filters[i] == HDF5Constants.H5Z_FILTER_DEFLATE)
+                data = inflate(data, chunkBytes);
+            else if (filters[i] == HDF5Constants.H5Z_FILTER_SHUFFLE)
+                data = unshuffle(data, typeSize);
+        }
+
+        if (data.length != chunkBytes)
+            throw new DataFormatException("decoded chunk has " + data.length + " bytes, expected " +
+                                          chunkBytes);
+
+        return data;
+    }
+
+    /**
+     * Applies the filter pipeline to a chunk, so that it can be written with a direct chunk write and
+     * a filter mask of zero.
+     *
+     * @param data
+     *            the chunk in element order
+     * @param filters
+     *            the filter identifiers in pipeline order
+     * @param level
+     *            the compression level of the deflate filter
+     * @param typeSize
+     *            the size of one element in bytes
+     *
+     * @return the chunk as stored in the file
+     */
+    static byte[] encode(byte[] data, int[] filters, int level, int typeSize)
+    {
+        byte[] out = data;
+        for (int i = 0; i < filters.length; i++) {
+            if (filters[i] == HDF5Constants.H5Z_FILTER_DEFLATE)
+                out = deflate(out, level);
+            else if (filters[i] == HDF5Constants.H5Z_FILTER_SHUFFLE)
+                out = shuffle(out, typeSize);
+        }
+
+        return out;
+    }
+
+    /**
+     * Compresses data into a zlib stream.
+     *
+     * @param in
+     *            the data to compress
+     * @param level
+     *            the compression level, 0 to 9
+     *
+     * @return the compressed data
+     */
+    static byte[] deflate(byte[] in, int level)
+    {
+        Deflater deflate = new Deflater(Math.max(0, Math.min(9, level)));
+        try {
+            deflate.setInput(in);
+            deflate.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, in.length / 2));
+            byte[] buf                = new byte[Math.max(64, Math.min(in.length, 65536))];
+            while (!deflate.finished()) {
+                int n = deflate.deflate(buf);
+                out.write(buf, 0, n);
+            }
+
+            return out.toByteArray();
+        }
+        finally {
+            deflate.end();
+        }
+    }
+
+    /**
+     * Decompresses a zlib stream of known uncompressed size.
+     *
+     * @param in
+     *            the compressed data
+     * @param size
+     *            the size of the uncompressed data
+     *
+     * @return the uncompressed data
+     *
+     * @throws DataFormatException
+     *             if the compressed data is corrupt or too short
+     */
+    static byte[] inflate(byte[] in, int size) throws DataFormatException
+    {
+        byte[] out       = new byte[size];
+        Inflater inflate = new Inflater();
+        try {
+            inflate.setInput(in);
+            int pos = 0;
+            while ((pos < size) && !inflate.finished()) {
+                int n = inflate.inflate(out, pos, size - pos);
+                if ((n == 0) && (inflate.needsInput() || inflate.needsDictionary()))
+                    break;
+                pos += n;
+            }
+
+            if (pos != size)
+                throw new DataFormatException("inflated " + pos + " bytes, expected " + size);
+        }
+        finally {
+            inflate.end();
+        }
+
+        return out;
+    }
+
+    /**
+     * Applies the shuffle filter.
+     *
+     * @param in
+     *            the data in element order
+     * @param typeSize
+     *            the size of one element in bytes
+     *
+     * @return the shuffled data
+     */
+    static byte[] shuffle(byte[] in, int typeSize)
+    {
+        if (typeSize <= 1)
+            return in;
+
+        int nElems = in.length / typeSize;
+        byte[] out = new byte[in.length];
+        for (int j = 0; j < typeSize; j++) {
+            int dst = j * nElems;
+            for (int i = 0; i < nElems; i++)
+                out[dst + i] = in[i * typeSize + j];
+        }
+
+        // the leftover bytes are not shuffled
+        int done = nElems * typeSize;
+        System.arraycopy(in, done, out, done, in.length - done);
+
+        return out;
+    }
+
+    /**
+     * Reverses the shuffle filter.
+     *
+     * @param in
+     *            the shuffled data
+     * @param typeSize
+     *            the size of one element in bytes
+     *
+     * @return the data in element order
+     */
+    static byte[] unshuffle(byte[] in, int typeSize)
+    {
+        if (typeSize <= 1)
+            return in;
+
+        int nElems = in.length / typeSize;
+        byte[] out = new byte[in.length];
+        for (int j = 0; j < typeSize; j++) {
+            int src = j * nElems;
+            for (int i = 0; i < nElems; i++)
+                out[i * typeSize + j] = in[src + i];
+        }
+
+        // the leftover bytes are not shuffled
+        int done = nElems * typeSize;
+        System.arraycopy(in, done, out, done, in.length - done);
+
+        return out;
+    }
+}
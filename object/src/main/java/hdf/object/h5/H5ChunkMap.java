@@ -0,0 +1,380 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object.h5;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import hdf.object.Dataset;
+
+import hdf.hdf5lib.H5;
+import hdf.hdf5lib.HDF5Constants;
+import hdf.hdf5lib.callbacks.H5D_chunk_cb;
+import hdf.hdf5lib.callbacks.H5D_chunk_t;
+import hdf.hdf5lib.exceptions.HDF5Exception;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A summary of the chunk index of a chunked dataset: how many of its chunks are allocated in the
+ * file and how well they are compressed.
+ *
+ * The chunk index is read with H5Dchunk_iter in a single pass, without reading any data. The
+ * allocated chunks can also be visited one by one with {@link #forEachChunk(Dataset, Consumer)}, e.g.
+ * to plan parallel reads or to skip unallocated regions.
+ */
+public final class H5ChunkMap {
+    private static final Logger log = LoggerFactory.getLogger(H5ChunkMap.class);
+
+    /**
+     * The upper bounds of the compression ratio classes counted by {@link #getRatioHistogram()}. The
+     * last class counts all chunks with a larger ratio.
+     */
+    public static final double[] RATIO_BOUNDS = {1, 2, 4, 8, 16};
+
+    /**
+     * An allocated chunk of a dataset.
+     */
+    public static final class Chunk {
+        private final long[] offset;
+        private final int filterMask;
+        private final long address;
+        private final long size;
+
+        Chunk(long[] offset, int filterMask, long address, long size)
+        {
+            this.offset     = offset;
+            this.filterMask = filterMask;
+            this.address    = address;
+            this.size       = size;
+        }
+
+        /**
+         * Returns the coordinates of the first element of the chunk in the dataset.
+         *
+         * @return the coordinates of the chunk
+         */
+        public long[] getOffset() { return offset.clone(); }
+
+        /**
+         * Returns the filter mask of the chunk; bit i is set if filter i of the pipeline was skipped
+         * for this chunk.
+         *
+         * @return the filter mask
+         */
+        public int getFilterMask() { return filterMask; }
+
+        /**
+         * Returns the address of the chunk in the file.
+         *
+         * @return the file address
+         */
+        public long getAddress() { return address; }
+
+        /**
+         * Returns the size of the chunk as stored in the file, after filtering.
+         *
+         * @return the stored size in bytes
+         */
+        public long getSize() { return size; }
+
+        @Override
+        public String toString()
+        {
+            return "offset=" + Arrays.toString(offset) + ", filterMask=" + filterMask + ", address=" +
+                address + ", size=" + size;
+        }
+    }
+
+    private final long totalChunks;
+    private final long chunkBytes;
+
+    private long allocatedChunks = 0;
+    private long storedBytes     = 0;
+    private double minRatio      = Double.MAX_VALUE;
+    private double maxRatio      = 0;
+
+    /** The number of allocated chunks per compression ratio class. */
+    private final long[] ratioHistogram = new long[RATIO_BOUNDS.length + 1];
+
+    private H5ChunkMap(long totalChunks, long chunkBytes)
+    {
+        this.totalChunks = totalChunks;
+        this.chunkBytes  = chunkBytes;
+    }
+
+    /**
+     * Returns the number of allocated chunks of a dataset and the distribution of their compression
+     * ratios, without reading any data.
+     *
+     * @param dset
+     *            the dataset
+     *
+     * @return the chunk map, or null if the dataset is not chunked
+     *
+     * @throws HDF5Exception
+     *             if the dataset can not be opened or the chunk index can not be read
+     */
+    public static H5ChunkMap getChunkMap(Dataset dset) throws HDF5Exception
+    {
+        if (!dset.isInited())
+            dset.init();
+
+        long did = open(dset);
+        try {
+            return scan(did, dset.getDims(), dset.getDatatype().getDatatypeSize());
+        }
+        finally {
+            dset.close(did);
+        }
+    }
+
+    /**
+     * Visits the allocated chunks of a dataset in a single pass over the chunk index, without reading
+     * any data. Unallocated chunks are not visited.
+     *
+     * @param dset
+     *            the dataset
+     * @param action
+     *            the action to perform on each allocated chunk
+     *
+     * @return the number of allocated chunks, or zero if the dataset is not chunked
+     *
+     * @throws HDF5Exception
+     *             if the dataset can not be opened or the chunk index can not be read
+     */
+    public static long forEachChunk(Dataset dset, Consumer<Chunk> action) throws HDF5Exception
+    {
+        long did = open(dset);
+        try {
+            return iterate(did, action);
+        }
+        finally {
+            dset.close(did);
+        }
+    }
+
+    /* Opens a dataset, failing with an exception instead of an invalid identifier. */
+    private static long open(Dataset dset) throws HDF5Exception
+    {
+        long did = dset.open();
+        if (did < 0)
+            throw new HDF5Exception("failed to open dataset " + dset.getFullName());
+
+        return did;
+    }
+
+    /**
+     * Summarizes the chunk index of an open dataset.
+     *
+     * @param did
+     *            the identifier of the dataset
+     * @param dims
+     *            the dimensions of the dataset
+     * @param typeSize
+     *            the size of one element in the file
+     *
+     * @return the chunk map, or null if the dataset is not chunked
+     *
+     * @throws HDF5Exception
+     *             if the chunk index can not be read
+     */
+    static H5ChunkMap scan(long did, long[] dims, long typeSize) throws HDF5Exception
+    {
+        long[] chunkDims = getChunkDims(did, dims.length);
+        if (chunkDims == null)
+            return null;
+
+        long total = 1;
+        long bytes = typeSize;
+        for (int i = 0; i < dims.length; i++) {
+            total *= (dims[i] + chunkDims[i] - 1) / chunkDims[i];
+            bytes *= chunkDims[i];
+        }
+
+        H5ChunkMap map = new H5ChunkMap(total, bytes);
+        iterate(did, map::add);
+        log.trace("scan(): {}", map);
+
+        return map;
+    }
+
+    /**
+     * Visits the allocated chunks of an open dataset in the order of the chunk index.
+     *
+     * @param did
+     *            the identifier of the dataset
+     * @param action
+     *            the action to perform on each allocated chunk
+     *
+     * @return the number of allocated chunks, or zero if the dataset is not chunked
+     *
+     * @throws HDF5Exception
+     *             if the chunk index can not be read or the action fails
+     */
+    static long iterate(long did, Consumer<Chunk> action) throws HDF5Exception
+    {
+        if (getChunkDims(did, 1) == null)
+            return 0;
+
+        final long[] count          = {0};
+        final RuntimeException[] ex = {null};
+
+        H5D_chunk_cb callback = (offset, filterMask, addr, size, opData) -> {
+            try {
+                action.accept(new Chunk(offset.clone(), filterMask, addr, size));
+                count[0]++;
+                return 0;
+            }
+            catch (RuntimeException err) {
+                ex[0] = err;
+                return -1;
+            }
+        };
+
+        try {
+            H5.H5Dchunk_iter(did, HDF5Constants.H5P_DEFAULT, callback, new H5D_chunk_t() {});
+        }
+        catch (HDF5Exception err) {
+            if (ex[0] == null)
+                throw err;
+        }
+        if (ex[0] != null)
+            throw new HDF5Exception("chunk iteration failed: " + ex[0].getMessage());
+
+        return count[0];
+    }
+
+    /*
+     * Returns the chunk dimensions of an open dataset, up to the given rank, or null if the dataset is
+     * not chunked.
+     */
+    static long[] getChunkDims(long did, int rank) throws HDF5Exception
+    {
+        long pcid = HDF5Constants.H5I_INVALID_HID;
+        try {
+            pcid = H5.H5Dget_create_plist(did);
+            if (H5.H5Pget_layout(pcid) != HDF5Constants.H5D_CHUNKED)
+                return null;
+
+            long[] chunkDims = new long[rank];
+            H5.H5Pget_chunk(pcid, rank, chunkDims);
+            return chunkDims;
+        }
+        finally {
+            H5ChunkCache.closePlist(pcid);
+        }
+    }
+
+    /*
+     * Counts an allocated chunk.
+     */
+    private void add(Chunk chunk)
+    {
+        allocatedChunks++;
+        storedBytes += chunk.getSize();
+        if (chunk.getSize() <= 0)
+            return;
+
+        double ratio = (double)chunkBytes / chunk.getSize();
+        minRatio     = Math.min(minRatio, ratio);
+        maxRatio     = Math.max(maxRatio, ratio);
+
+        int i = 0;
+        while ((i < RATIO_BOUNDS.length) && (ratio >= RATIO_BOUNDS[i]))
+            i++;
+        ratioHistogram[i]++;
+    }
+
+    /**
+     * Returns the number of chunks needed to store the whole dataset.
+     *
+     * @return the number of chunks of the dataset
+     */
+    public long getTotalChunks() { return totalChunks; }
+
+    /**
+     * Returns the number of chunks which are allocated in the file.
+     *
+     * @return the number of allocated chunks
+     */
+    public long getAllocatedChunks() { return allocatedChunks; }
+
+    /**
+     * Returns the fraction of the chunks of the dataset which are allocated in the file.
+     *
+     * @return the allocated fraction between 0 and 1
+     */
+    public double getAllocatedFraction()
+    {
+        return (totalChunks == 0) ? 0 : (double)allocatedChunks / totalChunks;
+    }
+
+    /**
+     * Returns the size of one chunk before filtering.
+     *
+     * @return the size of a chunk in bytes
+     */
+    public long getChunkBytes() { return chunkBytes; }
+
+    /**
+     * Returns the total size of the allocated chunks as stored in the file.
+     *
+     * @return the stored size in bytes
+     */
+    public long getStoredBytes() { return storedBytes; }
+
+    /**
+     * Returns the smallest compression ratio of an allocated chunk.
+     *
+     * @return the smallest ratio of the chunk size to the stored size, or 0 if no chunk is allocated
+     */
+    public double getMinRatio() { return (allocatedChunks == 0) ? 0 : minRatio; }
+
+    /**
+     * Returns the largest compression ratio of an allocated chunk.
+     *
+     * @return the largest ratio of the chunk size to the stored size, or 0 if no chunk is allocated
+     */
+    public double getMaxRatio() { return maxRatio; }
+
+    /**
+     * Returns the compression ratio of all allocated chunks together.
+     *
+     * @return the ratio of the size of the allocated chunks to their stored size, or 0 if no chunk is
+     *         allocated
+     */
+    public double getRatio()
+    {
+        return (storedBytes == 0) ? 0 : (double)allocatedChunks * chunkBytes / storedBytes;
+    }
+
+    /**
+     * Returns the number of allocated chunks per compression ratio class. Class i counts the chunks
+     * with a ratio below RATIO_BOUNDS[i] and not below RATIO_BOUNDS[i - 1]; the last class counts the
+     * chunks with a ratio of at least the last bound.
+     *
+     * @return the number of chunks per ratio class
+     */
+    public long[] getRatioHistogram() { return ratioHistogram.clone(); }
+
+    @Override
+    public String toString()
+    {
+        return "allocated=" + allocatedChunks + "/" + totalChunks + ", stored=" + storedBytes +
+            ", ratio=" + getRatio() + ", histogram=" + Arrays.toString(ratioHistogram);
+    }
+}
@@ -0,0 +1,362 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object.h5;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import hdf.object.Datatype;
+
+import hdf.hdf5lib.H5;
+import hdf.hdf5lib.HDF5Constants;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the current selection of a chunked dataset with direct chunk reads and decodes the chunks in
+ * parallel.
+ *
+ * H5Dread decompresses the chunks of a selection one after the other on the calling thread. For
+ * datasets compressed with deflate and shuffle, this reader instead fetches the raw chunks which
+ * intersect the selection with H5Dread_chunk, and decompresses, unshuffles and copies them into the
+ * selection on a ForkJoin pool while the next chunks are being fetched.
+ *
+ * Only numeric datasets stored with deflate and/or shuffle are handled, and only when every chunk of
+ * the selection is allocated. In all other cases read() returns null and the caller reads the data
+ * through the HDF5 library instead.
+ */
+final class H5ChunkReader {
+    private static final Logger log = LoggerFactory.getLogger(H5ChunkReader.class);
+
+    /** The number of decode tasks in flight per worker thread. */
+    private static final int TASKS_PER_THREAD = 2;
+
+    private final long did;
+    private final int rank;
+    private final long[] start;
+    private final long[] stride;
+    private final long[] count;
+    private final long[] chunkDims;
+    private final int[] filters;
+    private final int typeSize;
+    private final int chunkBytes;
+
+    /** The selection in file byte order, assembled by the decode tasks. */
+    private final byte[] selection;
+
+    private H5ChunkReader(long did, long[] start, long[] stride, long[] count, long[] chunkDims,
+                          int[] filters, int typeSize, long nPoints)
+    {
+        this.did       = did;
+        this.rank      = count.length;
+        this.start     = start;
+        this.stride    = stride;
+        this.count     = count;
+        this.chunkDims = chunkDims;
+        this.filters   = filters;
+        this.typeSize  = typeSize;
+
+        long n = typeSize;
+        for (int i = 0; i < rank; i++)
+            n *= chunkDims[i];
+        this.chunkBytes = (int)n;
+        this.selection  = new byte[(int)(nPoints * typeSize)];
+    }
+
+    /**
+     * Reads the current selection of a dataset.
+     *
+     * @param dataset
+     *            the dataset to read
+     * @param did
+     *            the open identifier of the dataset
+     * @param buf
+     *            a buffer of the right type and size to reuse, or null
+     *
+     * @return the data of the selection in the same form as H5ScalarDS.read(), or null if the dataset
+     *         can not be read by this reader
+     *
+     * @throws Exception
+     *             if a chunk can not be read or decoded
+     */
+    static Object read(H5ScalarDS dataset, long did, Object buf) throws Exception
+    {
+        H5Datatype dtype = (H5Datatype)dataset.getDatatype();
+        int typeSize     = (int)dtype.getDatatypeSize();
+        if (!isSupportedType(dtype))
+            return null;
+
+        int rank = dataset.getRank();
+        if (rank <= 0)
+            return null;
+
+        long[] start  = dataset.getStartDims().clone();
+        long[] count  = dataset.getSelectedDims().clone();
+        long[] stride = new long[rank];
+        for (int i = 0; i < rank; i++)
+            stride[i] = (dataset.getStride() == null) ? 1 : dataset.getStride()[i];
+
+        long[] chunkDims = new long[rank];
+        int[] filters    = null;
+        long pcid        = HDF5Constants.H5I_INVALID_HID;
+        try {
+            pcid = H5.H5Dget_create_plist(did);
+            if (H5.H5Pget_layout(pcid) != HDF5Constants.H5D_CHUNKED)
+                return null;
+            H5.H5Pget_chunk(pcid, rank, chunkDims);
+            filters = H5ChunkCodec.getSupportedFilters(pcid);
+        }
+        finally {
+            try {
+                H5.H5Pclose(pcid);
+            }
+            catch (Exception ex) {
+                log.debug("read(): H5Pclose(pcid {}) failure: ", pcid, ex);
+            }
+        }
+
+        if ((filters == null) || (filters.length == 0))
+            return null;
+
+        // not worth the overhead for a selection within a single chunk
+        long nPoints     = 1;
+        long nChunks     = 1;
+        long chunkPoints = 1;
+        for (int i = 0; i < rank; i++) {
+            if ((count[i] <= 0) || (chunkDims[i] <= 0))
+                return null;
+            long first = start[i] / chunkDims[i];
+            long last  = (start[i] + (count[i] - 1) * stride[i]) / chunkDims[i];
+            nChunks *= last - first + 1;
+            nPoints *= count[i];
+            chunkPoints *= chunkDims[i];
+        }
+        if ((nChunks < 2) || (nPoints * typeSize > Integer.MAX_VALUE) ||
+            (chunkPoints * typeSize > Integer.MAX_VALUE))
+            return null;
+
+        H5ChunkReader reader =
+            new H5ChunkReader(did, start, stride, count, chunkDims, filters, typeSize, nPoints);
+        if (!reader.readChunks())
+            return null;
+
+        ByteOrder order = (dtype.getDatatypeOrder() == Datatype.ORDER_BE) ? ByteOrder.BIG_ENDIAN
+                                                                           : ByteOrder.LITTLE_ENDIAN;
+        return reader.toArray(dtype, order, buf, (int)nPoints);
+    }
+
+    /*
+     * Returns true if the elements of the datatype can be copied between chunks and Java arrays as
+     * plain numbers of a known byte order.
+     */
+    static boolean isSupportedType(H5Datatype dtype)
+    {
+        if (dtype.isVLEN() || dtype.isVarStr())
+            return false;
+
+        int order = dtype.getDatatypeOrder();
+        if ((order != Datatype.ORDER_LE) && (order != Datatype.ORDER_BE))
+            return false;
+
+        long size = dtype.getDatatypeSize();
+        if (dtype.isInteger())
+            return (size == 1) || (size == 2) || (size == 4) || (size == 8);
+        if (dtype.isFloat())
+            return (size == 4) || (size == 8);
+
+        return false;
+    }
+
+    /*
+     * Fetches the raw chunks intersecting the selection on the calling thread and hands them to the
+     * pool for decoding. Returns false if a chunk is not allocated.
+     */
+    private boolean readChunks() throws Exception
+    {
+        ForkJoinPool pool                 = ForkJoinPool.commonPool();
+        int maxPending                    = Math.max(1, pool.getParallelism() * TASKS_PER_THREAD);
+        ArrayDeque<ForkJoinTask<?>> tasks = new ArrayDeque<>();
+
+        long[] firstChunk = new long[rank];
+        long[] lastChunk  = new long[rank];
+        for (int i = 0; i < rank; i++) {
+            firstChunk[i] = start[i] / chunkDims[i];
+            lastChunk[i]  = (start[i] + (count[i] - 1) * stride[i]) / chunkDims[i];
+        }
+
+        long[] chunk   = firstChunk.clone();
+        boolean filled = true;
+        try {
+            while (true) {
+                long[] offset = new long[rank];
+                for (int i = 0; i < rank; i++)
+                    offset[i] = chunk[i] * chunkDims[i];
+
+                if (hasSelectedPoints(offset)) {
+                    long size = H5.H5Dget_chunk_storage_size(did, offset);
+                    if (size <= 0) {
+                        log.trace("readChunks(): chunk at {} is not allocated", Arrays.toString(offset));
+                        filled = false;
+                        break;
+                    }
+
+                    byte[] raw       = new byte[(int)size];
+                    int[] filterMask = {0};
+                    H5.H5Dread_chunk(did, HDF5Constants.H5P_DEFAULT, offset, filterMask, raw);
+
+                    if (tasks.size() >= maxPending)
+                        tasks.removeFirst().join();
+                    tasks.addLast(pool.submit(() -> {
+                        try {
+                            copyChunk(offset, H5ChunkCodec.decode(raw, filters, filterMask[0], chunkBytes,
+                                                                  typeSize));
+                        }
+                        catch (Exception ex) {
+                            throw new IllegalStateException("failed to decode chunk: " + ex.getMessage(), ex);
+                        }
+                    }));
+                }
+
+                // next chunk, fastest varying dimension first
+                int i = rank - 1;
+                while ((i >= 0) && (chunk[i] == lastChunk[i])) {
+                    chunk[i] = firstChunk[i];
+                    i--;
+                }
+                if (i < 0)
+                    break;
+                chunk[i]++;
+            }
+        }
+        finally {
+            // wait for all decode tasks, even on failure, before the buffer is given up
+            Exception failure = null;
+            while (!tasks.isEmpty()) {
+                try {
+                    tasks.removeFirst().join();
+                }
+                catch (Exception ex) {
+                    if (failure == null)
+                        failure = ex;
+                }
+            }
+            if (failure != null)
+                throw failure;
+        }
+
+        return filled;
+    }
+
+    /*
+     * Returns the range of selected points within a chunk, as indices into the selection, or false if
+     * the chunk contains no selected point.
+     */
+    private boolean selectedRange(long[] offset, long[] first, long[] last)
+    {
+        for (int i = 0; i < rank; i++) {
+            long lo  = Math.max(offset[i] - start[i], 0);
+            long hi  = offset[i] + chunkDims[i] - 1 - start[i];
+            first[i] = (lo + stride[i] - 1) / stride[i];
+            last[i]  = Math.min(count[i] - 1, hi / stride[i]);
+            if ((hi < 0) || (first[i] > last[i]))
+                return false;
+        }
+
+        return true;
+    }
+
+    private boolean hasSelectedPoints(long[] offset)
+    {
+        return selectedRange(offset, new long[rank], new long[rank]);
+    }
+
+    /*
+     * Copies the selected points of a decoded chunk into the selection buffer. Each chunk covers a
+     * distinct part of the selection, so chunks can be copied concurrently.
+     */
+    private void copyChunk(long[] offset, byte[] data)
+    {
+        long[] first = new long[rank];
+        long[] last  = new long[rank];
+        if (!selectedRange(offset, first, last))
+            return;
+
+        int inner  = rank - 1;
+        long run   = last[inner] - first[inner] + 1;
+        long[] pos = first.clone();
+        while (true) {
+            long src = 0;
+            long dst = 0;
+            for (int i = 0; i < rank; i++) {
+                src = src * chunkDims[i] + (start[i] + pos[i] * stride[i] - offset[i]);
+                dst = dst * count[i] + pos[i];
+            }
+
+            if (stride[inner] == 1) {
+                System.arraycopy(data, (int)(src * typeSize), selection, (int)(dst * typeSize),
+                                 (int)(run * typeSize));
+            }
+            else {
+                for (long k = 0; k < run; k++)
+                    System.arraycopy(data, (int)((src + k * stride[inner]) * typeSize), selection,
+                                     (int)((dst + k) * typeSize), typeSize);
+            }
+
+            // next row of the chunk, skipping the innermost dimension
+            int i = inner - 1;
+            while ((i >= 0) && (pos[i] == last[i])) {
+                pos[i] = first[i];
+                i--;
+            }
+            if (i < 0)
+                break;
+            pos[i]++;
+        }
+    }
+
+    /*
+     * Converts the assembled selection from file byte order into a Java array.
+     */
+    private Object toArray(H5Datatype dtype, ByteOrder order, Object buf, int nPoints) throws Exception
+    {
+        Object data = buf;
+        if ((data == null) || (Array.getLength(data) != nPoints))
+            data = H5Datatype.allocateArray(dtype, nPoints);
+
+        ByteBuffer bb = ByteBuffer.wrap(selection).order(order);
+        if (data instanceof byte[])
+            bb.get((byte[])data);
+        else if (data instanceof short[])
+            bb.asShortBuffer().get((short[])data);
+        else if (data instanceof int[])
+            bb.asIntBuffer().get((int[])data);
+        else if (data instanceof long[])
+            bb.asLongBuffer().get((long[])data);
+        else if (data instanceof float[])
+            bb.asFloatBuffer().get((float[])data);
+        else if (data instanceof double[])
+            bb.asDoubleBuffer().get((double[])data);
+        else
+            return null;
+
+        return data;
+    }
+}
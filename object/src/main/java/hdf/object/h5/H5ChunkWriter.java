@@ -0,0 +1,474 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object.h5;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import hdf.object.Dataset;
+import hdf.object.Datatype;
+import hdf.object.DirectDataBuffer;
+import hdf.object.Group;
+import hdf.object.Utils;
+
+import hdf.hdf5lib.H5;
+import hdf.hdf5lib.HDF5Constants;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes compressed chunked datasets by compressing the chunks in parallel in Java.
+ *
+ * H5Dwrite compresses the chunks of a selection one after the other on the calling thread. For bulk
+ * ingest into new datasets, this writer instead splits the data into chunks, shuffles and deflates
+ * them on a ForkJoin pool and writes the compressed chunks with direct chunk writes. The result is
+ * identical to a dataset written through the HDF5 library and can be read by any HDF5 application.
+ *
+ * The dataset must be chunked, use only the shuffle and deflate filters and hold integer or floating
+ * point numbers. Every write must cover whole chunks: the start of the written block must lie on a
+ * chunk boundary, and its size must be a multiple of the chunk size except where the block reaches
+ * the end of the dataset.
+ *
+ * <pre>
+ * long[] dims   = {100000, 1000};
+ * long[] chunks = {1000, 1000};
+ * Dataset dset  = H5ChunkWriter.create(&quot;/data&quot;, root, type, dims, null, chunks, 6, null);
+ * try (H5ChunkWriter writer = new H5ChunkWriter((H5ScalarDS)dset)) {
+ *     long[] count = {1000, 1000};
+ *     for (long row = 0; row &lt; dims[0]; row += count[0])
+ *         writer.write(new long[] {row, 0}, count, nextBlock());
+ *     log.info(&quot;wrote {} MB/s&quot;, writer.getThroughput() / 1.0e6);
+ * }
+ * </pre>
+ */
+public class H5ChunkWriter implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(H5ChunkWriter.class);
+
+    /** The number of encode tasks in flight per worker thread. */
+    private static final int TASKS_PER_THREAD = 2;
+
+    /** A chunk being encoded and the offset it is written to. */
+    private static final class PendingChunk {
+        final long[] offset;
+        final ForkJoinTask<byte[]> task;
+
+        PendingChunk(long[] offset, ForkJoinTask<byte[]> task)
+        {
+            this.offset = offset;
+            this.task   = task;
+        }
+    }
+
+    private final H5ScalarDS dataset;
+    private final long did;
+    private final int rank;
+    private final long[] dims;
+    private final long[] chunkDims;
+    private final int[] filters;
+    private final int level;
+    private final int typeSize;
+    private final boolean isFloat;
+    private final ByteOrder order;
+    private final int chunkBytes;
+
+    /** The number of uncompressed bytes written. */
+    private long rawBytes = 0;
+
+    /** The number of compressed bytes written. */
+    private long storedBytes = 0;
+
+    /** The number of chunks written. */
+    private long nChunks = 0;
+
+    /** The time spent in write() in nanoseconds. */
+    private long elapsedNanos = 0;
+
+    private boolean closed = false;
+
+    /**
+     * Opens a writer for an existing dataset.
+     *
+     * @param dataset
+     *            the dataset to write
+     *
+     * @throws Exception
+     *             if the dataset can not be opened, or is not a chunked numeric dataset that uses only
+     *             the shuffle and deflate filters
+     */
+    public H5ChunkWriter(H5ScalarDS dataset) throws Exception
+    {
+        if (dataset == null)
+            throw new IllegalArgumentException("dataset is null");
+        if (dataset.getFileFormat().isReadOnly())
+            throw new Exception("cannot write to scalar dataset in file opened as read-only");
+
+        if (!dataset.isInited())
+            dataset.init();
+
+        H5Datatype dtype = (H5Datatype)dataset.getDatatype();
+        if (!H5ChunkReader.isSupportedType(dtype))
+            throw new Exception("unsupported datatype for chunk writer: " + dtype.getDescription());
+
+        this.dataset  = dataset;
+        this.rank     = dataset.getRank();
+        this.dims     = dataset.getDims().clone();
+        this.typeSize = (int)dtype.getDatatypeSize();
+        this.isFloat  = dtype.isFloat();
+        this.order    = (dtype.getDatatypeOrder() == Datatype.ORDER_BE) ? ByteOrder.BIG_ENDIAN
+                                                                          : ByteOrder.LITTLE_ENDIAN;
+
+        long[] chunks = new long[rank];
+        int[] filts   = null;
+        int[] lvl     = {6};
+        long pcid     = HDF5Constants.H5I_INVALID_HID;
+        long id       = dataset.open();
+        if (id < 0)
+            throw new Exception("failed to open dataset " + dataset.getFullName());
+
+        try {
+            pcid = H5.H5Dget_create_plist(id);
+            if (H5.H5Pget_layout(pcid) != HDF5Constants.H5D_CHUNKED)
+                throw new Exception("dataset " + dataset.getFullName() + " is not chunked");
+            H5.H5Pget_chunk(pcid, rank, chunks);
+            filts = H5ChunkCodec.getSupportedFilters(pcid, lvl);
+            if (filts == null)
+                throw new Exception("dataset " + dataset.getFullName() + " uses an unsupported filter");
+        }
+        catch (Exception ex) {
+            dataset.close(id);
+            throw ex;
+        }
+        finally {
+            try {
+                H5.H5Pclose(pcid);
+            }
+            catch (Exception ex) {
+                log.debug("H5ChunkWriter(): H5Pclose(pcid {}) failure: ", pcid, ex);
+            }
+        }
+
+        long n = typeSize;
+        for (int i = 0; i < rank; i++)
+            n *= chunks[i];
+        if (n > Integer.MAX_VALUE) {
+            dataset.close(id);
+            throw new Exception("chunk size of " + n + " bytes is too large");
+        }
+
+        this.did        = id;
+        this.chunkDims  = chunks;
+        this.filters    = filts;
+        this.level      = lvl[0];
+        this.chunkBytes = (int)n;
+
+        log.trace("H5ChunkWriter(): {} filters={} level={}", dataset.getFullName(), filters.length, level);
+    }
+
+    /**
+     * Creates a scalar dataset compressed with shuffle and GZIP, and writes the data with parallel
+     * compression. The parameters are the same as for
+     * {@link H5ScalarDS#create(String, Group, Datatype, long[], long[], long[], int, Object)}.
+     * Datasets without compression, or with a datatype which the writer does not support, are written
+     * through the HDF5 library.
+     *
+     * @param name
+     *            the name of the dataset to create.
+     * @param pgroup
+     *            parent group where the new dataset is created.
+     * @param type
+     *            the datatype of the dataset.
+     * @param dims
+     *            the dimension size of the dataset.
+     * @param maxdims
+     *            the max dimension size of the dataset. maxdims is set to dims if maxdims = null.
+     * @param chunks
+     *            the chunk size of the dataset. No chunking if chunk = null.
+     * @param gzip
+     *            GZIP compression level (1 to 9). No compression if gzip&lt;=0.
+     * @param data
+     *            the array of data values of the whole dataset, or null.
+     *
+     * @return the new scalar dataset if successful; otherwise returns null.
+     *
+     * @throws Exception if there is a failure.
+     */
+    public static Dataset create(String name, Group pgroup, Datatype type, long[] dims, long[] maxdims,
+                                 long[] chunks, int gzip, Object data) throws Exception
+    {
+        if ((gzip <= 0) || (chunks == null))
+            return H5ScalarDS.create(name, pgroup, type, dims, maxdims, chunks, gzip, data);
+
+        H5ScalarDS dataset = (H5ScalarDS)H5ScalarDS.create(name, pgroup, type, dims, maxdims, chunks, gzip,
+                                                           true, null, null);
+        if ((dataset == null) || (data == null))
+            return dataset;
+
+        dataset.init();
+        if (!H5ChunkReader.isSupportedType((H5Datatype)dataset.getDatatype())) {
+            log.debug("create(): datatype not supported by the chunk writer, writing through H5Dwrite");
+            dataset.write(data);
+            return dataset;
+        }
+
+        try (H5ChunkWriter writer = new H5ChunkWriter(dataset)) {
+            writer.write(data);
+        }
+
+        return dataset;
+    }
+
+    /**
+     * Writes the whole dataset.
+     *
+     * @param data
+     *            a Java array, or a DirectDataBuffer, with the values of the whole dataset
+     *
+     * @throws Exception
+     *             if the data does not match the dataset or can not be written
+     */
+    public void write(Object data) throws Exception { write(new long[rank], dims, data); }
+
+    /**
+     * Writes a block of whole chunks.
+     *
+     * @param start
+     *            the offset of the block in each dimension; must be a multiple of the chunk size
+     * @param count
+     *            the size of the block in each dimension; must be a multiple of the chunk size unless
+     *            the block reaches the end of the dataset in that dimension
+     * @param data
+     *            a Java array, or a DirectDataBuffer, with the values of the block in row-major order
+     *
+     * @throws Exception
+     *             if the block or data does not match the dataset, or the data can not be written
+     */
+    public void write(long[] start, long[] count, Object data) throws Exception
+    {
+        if (closed)
+            throw new IllegalStateException("writer is closed");
+        checkBlock(start, count, data);
+
+        long begin = System.nanoTime();
+
+        ForkJoinPool pool              = ForkJoinPool.commonPool();
+        int maxPending                 = Math.max(1, pool.getParallelism() * TASKS_PER_THREAD);
+        ArrayDeque<PendingChunk> queue = new ArrayDeque<>();
+        long[] chunk                   = new long[rank];
+        long[] lastChunk               = new long[rank];
+        for (int i = 0; i < rank; i++)
+            lastChunk[i] = (count[i] - 1) / chunkDims[i];
+
+        try {
+            while (true) {
+                long[] offset = new long[rank];
+                for (int i = 0; i < rank; i++)
+                    offset[i] = start[i] + chunk[i] * chunkDims[i];
+
+                if (queue.size() >= maxPending)
+                    writeChunk(queue.removeFirst());
+                queue.addLast(new PendingChunk(
+                    offset, pool.submit(() -> H5ChunkCodec.encode(gather(start, count, offset, data), filters,
+                                                                     level, typeSize))));
+
+                // next chunk, fastest varying dimension first
+                int i = rank - 1;
+                while ((i >= 0) && (chunk[i] == lastChunk[i])) {
+                    chunk[i] = 0;
+                    i--;
+                }
+                if (i < 0)
+                    break;
+                chunk[i]++;
+            }
+
+            while (!queue.isEmpty())
+                writeChunk(queue.removeFirst());
+        }
+        finally {
+            // do not leave tasks running on the data after a failure
+            for (PendingChunk pending : queue)
+                pending.task.cancel(false);
+            dataset.invalidateChunkIndex();
+            dataset.clearData();
+            elapsedNanos += System.nanoTime() - begin;
+        }
+    }
+
+    private void checkBlock(long[] start, long[] count, Object data) throws Exception
+    {
+        if ((start == null) || (count == null) || (start.length != rank) || (count.length != rank))
+            throw new IllegalArgumentException("block rank does not match dataset rank " + rank);
+
+        long nPoints = 1;
+        for (int i = 0; i < rank; i++) {
+            if ((start[i] < 0) || (count[i] <= 0) || (start[i] + count[i] > dims[i]))
+                throw new IllegalArgumentException("block is outside of the dataset in dimension " + i);
+            if ((start[i] % chunkDims[i]) != 0)
+                throw new IllegalArgumentException("block start is not on a chunk boundary in dimension " +
+                                                   i);
+            if (((count[i] % chunkDims[i]) != 0) && (start[i] + count[i] != dims[i]))
+                throw new IllegalArgumentException("block does not cover whole chunks in dimension " + i);
+            nPoints *= count[i];
+        }
+
+        char typeClass      = (data instanceof DirectDataBuffer) ? ((DirectDataBuffer)data).getTypeClass()
+                                                                 : Utils.getJavaObjectRuntimeClass(data);
+        boolean isFloatData = (typeClass == 'F') || (typeClass == 'D');
+        if ((DirectDataBuffer.getElementSize(typeClass) != typeSize) || (isFloatData != isFloat))
+            throw new Exception("data type " + typeClass + " does not match the dataset datatype");
+
+        long size =
+            (data instanceof DirectDataBuffer) ? ((DirectDataBuffer)data).getSize() : Array.getLength(data);
+        if (size != nPoints)
+            throw new Exception("data has " + size + " values, the block has " + nPoints);
+    }
+
+    /*
+     * Copies the values of one chunk out of the block into a buffer of the full chunk size, in file
+     * byte order. The part of an edge chunk beyond the end of the block is left zero.
+     */
+    private byte[] gather(long[] start, long[] count, long[] offset, Object data)
+    {
+        byte[] buf    = new byte[chunkBytes];
+        ByteBuffer bb = ByteBuffer.wrap(buf).order(order);
+
+        long[] rel = new long[rank];
+        long[] n   = new long[rank];
+        for (int i = 0; i < rank; i++) {
+            rel[i] = offset[i] - start[i];
+            n[i]   = Math.min(chunkDims[i], count[i] - rel[i]);
+        }
+
+        int inner  = rank - 1;
+        long[] pos = new long[rank];
+        while (true) {
+            long src = 0;
+            long dst = 0;
+            for (int i = 0; i < rank; i++) {
+                src = src * count[i] + rel[i] + pos[i];
+                dst = dst * chunkDims[i] + pos[i];
+            }
+
+            putValues(bb, (int)dst, data, src, (int)n[inner]);
+
+            // next row of the chunk, skipping the innermost dimension
+            int i = inner - 1;
+            while ((i >= 0) && (pos[i] == n[i] - 1)) {
+                pos[i] = 0;
+                i--;
+            }
+            if (i < 0)
+                break;
+            pos[i]++;
+        }
+
+        return buf;
+    }
+
+    /*
+     * Puts len values of the data, starting at index src, into the buffer at element index dst.
+     */
+    private void putValues(ByteBuffer bb, int dst, Object data, long src, int len)
+    {
+        int from = (int)src;
+        if (data instanceof DirectDataBuffer) {
+            data = ((DirectDataBuffer)data).getArray(src, len);
+            from = 0;
+        }
+
+        if (data instanceof byte[])
+            bb.put(dst, (byte[])data, from, len);
+        else if (data instanceof short[])
+            bb.asShortBuffer().put(dst, (short[])data, from, len);
+        else if (data instanceof int[])
+            bb.asIntBuffer().put(dst, (int[])data, from, len);
+        else if (data instanceof long[])
+            bb.asLongBuffer().put(dst, (long[])data, from, len);
+        else if (data instanceof float[])
+            bb.asFloatBuffer().put(dst, (float[])data, from, len);
+        else if (data instanceof double[])
+            bb.asDoubleBuffer().put(dst, (double[])data, from, len);
+    }
+
+    private void writeChunk(PendingChunk pending) throws Exception
+    {
+        byte[] buf = pending.task.join();
+        H5.H5Dwrite_chunk(did, HDF5Constants.H5P_DEFAULT, 0, pending.offset, buf);
+
+        rawBytes += chunkBytes;
+        storedBytes += buf.length;
+        nChunks++;
+    }
+
+    /**
+     * Returns the number of uncompressed bytes written so far.
+     *
+     * @return the number of uncompressed bytes written.
+     */
+    public long getRawBytes() { return rawBytes; }
+
+    /**
+     * Returns the number of compressed bytes written to the file so far.
+     *
+     * @return the number of compressed bytes written.
+     */
+    public long getStoredBytes() { return storedBytes; }
+
+    /**
+     * Returns the number of chunks written so far.
+     *
+     * @return the number of chunks written.
+     */
+    public long getChunkCount() { return nChunks; }
+
+    /**
+     * Returns the time spent writing so far.
+     *
+     * @return the time spent in write() in nanoseconds.
+     */
+    public long getElapsedTime() { return elapsedNanos; }
+
+    /**
+     * Returns the write throughput so far, measured in uncompressed bytes.
+     *
+     * @return the number of uncompressed bytes written per second, or zero if nothing was written.
+     */
+    public double getThroughput()
+    {
+        if (elapsedNanos <= 0)
+            return 0;
+        return rawBytes * 1.0e9 / elapsedNanos;
+    }
+
+    /**
+     * Closes the dataset identifier used by the writer.
+     */
+    @Override
+    public void close()
+    {
+        if (closed)
+            return;
+        closed = true;
+
+        dataset.close(did);
+        log.debug("close(): {} wrote {} chunks, {} bytes ({} stored) at {} MB/s", dataset.getFullName(),
+                  nChunks, rawBytes, storedBytes, String.format("%.1f", getThroughput() / 1.0e6));
+    }
+}
@@ -1882,7 +1882,7 @@ public class H5CompoundAttr extends CompoundDS implements H5Attribute {
 
         long dtSize = dsDatatype.getDatatypeSize();
         log.trace("attributeCommonIO(): create native");
-        long tid = dsDatatype.createNative();
+        long tid = dsDatatype.getNative();
 
         if (ioType == H5File.IO_TYPE.READ) {
             log.trace("attributeCommonIO():read ioType isNamed={} isEnum={} isText={} isRefObj={}",
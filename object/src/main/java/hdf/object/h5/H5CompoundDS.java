@@ -15,9 +15,12 @@
 package hdf.object.h5;
 
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.text.DecimalFormat;
 import java.util.List;
 import java.util.Vector;
+import java.util.function.Consumer;
 
 import hdf.object.Attribute;
 import hdf.object.CompoundDS;
@@ -107,6 +110,15 @@ public class H5CompoundDS extends CompoundDS implements MetaDataContainer {
     /** the list of virtual names. */
     private List<String> virtualNameList;
 
+    /**
+     * flag to indicate if all selected members are read with a single H5Dread into a packed buffer,
+     * instead of one H5Dread per member.
+     */
+    private boolean isPackedRead = true;
+
+    /** the raw data chunk cache settings and statistics of this dataset. */
+    private transient H5ChunkCache chunkCache;
+
     /**
      * Constructs an instance of a HDF5 compound dataset with given file, dataset name and path.
      *
@@ -193,13 +205,31 @@ public class H5CompoundDS extends CompoundDS implements MetaDataContainer {
         if (getFID() < 0)
             log.trace("open(): file id for:{} is invalid", getPath() + getName());
         else {
-            try {
-                did = H5.H5Dopen(getFID(), getPath() + getName(), HDF5Constants.H5P_DEFAULT);
-                log.trace("open(): did={}", did);
-            }
-            catch (HDF5Exception ex) {
-                log.debug("open(): Failed to open dataset {}", getPath() + getName(), ex);
-                did = HDF5Constants.H5I_INVALID_HID;
+            // reuse the identifier if the dataset is still open from a previous call, unless the
+            // selection needs a different chunk cache than the one it was opened with
+            H5IdPool idPool = H5IdPool.getPool(getFileFormat());
+            if (getChunkCache().configure(this) && (idPool != null))
+                idPool.remove(this);
+            if (idPool != null)
+                did = idPool.acquire(this);
+
+            if (did < 0) {
+                long dapl = HDF5Constants.H5P_DEFAULT;
+                try {
+                    dapl = getChunkCache().createAccessPlist();
+                    did  = H5.H5Dopen(getFID(), getPath() + getName(), dapl);
+                    log.trace("open(): did={}", did);
+                    getChunkCache().opened(did);
+                    if (idPool != null)
+                        idPool.add(this, did);
+                }
+                catch (HDF5Exception ex) {
+                    log.debug("open(): Failed to open dataset {}", getPath() + getName(), ex);
+                    did = HDF5Constants.H5I_INVALID_HID;
+                }
+                finally {
+                    H5ChunkCache.closePlist(dapl);
+                }
             }
         }
 
@@ -221,11 +251,18 @@ public class H5CompoundDS extends CompoundDS implements MetaDataContainer {
             catch (Exception ex) {
                 log.debug("close(): H5Fflush(did {}) failure: ", did, ex);
             }
-            try {
-                H5.H5Dclose(did);
-            }
-            catch (HDF5Exception ex) {
-                log.debug("close(): H5Dclose(did {}) failure: ", did, ex);
+
+            // pooled identifiers stay open until they are evicted or the file is closed
+            H5IdPool idPool = H5IdPool.getPool(getFileFormat());
+            if ((idPool != null) && idPool.release(did))
+                log.trace("close(): did={} released to pool", did);
+            else {
+                try {
+                    H5.H5Dclose(did);
+                }
+                catch (HDF5Exception ex) {
+                    log.debug("close(): H5Dclose(did {}) failure: ", did, ex);
+                }
             }
         }
     }
@@ -566,12 +603,7 @@ public class H5CompoundDS extends CompoundDS implements MetaDataContainer {
                     catch (HDF5Exception ex) {
                         log.debug("getDatatype(): H5Tclose(tid {}) failure: ", tid, ex);
                     }
-                    try {
-                        H5.H5Dclose(did);
-                    }
-                    catch (HDF5Exception ex) {
-                        log.debug("getDatatype(): H5Dclose(did {}) failure: ", did, ex);
-                    }
+                    close(did);
                 }
             }
         }
@@ -884,8 +916,12 @@ public class H5CompoundDS extends CompoundDS implements MetaDataContainer {
                 long totalSelectedSpacePoints = H5Utils.getTotalSelectedSpacePoints(
                     did, dims, startDims, selectedStride, selectedDims, spaceIDs);
 
-                theData = compoundTypeIO(ioType, did, spaceIDs, (int)totalSelectedSpacePoints, dsDatatype,
-                                         writeBuf, new int[] {0});
+                if ((ioType == H5File.IO_TYPE.READ) && isPackedRead)
+                    theData = readPackedCompound(did, spaceIDs, (int)totalSelectedSpacePoints, dsDatatype);
+
+                if (theData == null)
+                    theData = compoundTypeIO(ioType, did, spaceIDs, (int)totalSelectedSpacePoints, dsDatatype,
+                                             writeBuf, new int[] {0});
             }
             finally {
                 if (HDF5Constants.H5S_ALL != spaceIDs[0]) {
@@ -1250,6 +1286,7 @@ public class H5CompoundDS extends CompoundDS implements MetaDataContainer {
                     H5.H5Dread(dsetID, compTid, spaceIDs[0], spaceIDs[1], HDF5Constants.H5P_DEFAULT,
                                memberData);
                 }
+                getChunkCache().recordRead(this);
             }
             catch (HDF5DataFiltersException exfltr) {
                 log.debug("readSingleCompoundMember(): read failure: ", exfltr);
@@ -1263,26 +1300,213 @@ public class H5CompoundDS extends CompoundDS implements MetaDataContainer {
                 dsDatatype.close(compTid);
             }
 
+            memberData = convertMemberData(memberType, memberData);
+        }
+
+        return memberData;
+    }
+
+    /*
+     * Private routine to perform any necessary data conversions on the data read for
+     * a single field of a compound datatype.
+     */
+    private Object convertMemberData(final H5Datatype memberType, Object memberData)
+    {
+        if (memberType.isUnsigned()) {
+            log.trace("convertMemberData(): converting from unsigned C-type integers");
+            memberData = Dataset.convertFromUnsignedC(memberData, null);
+        }
+        else if (Utils.getJavaObjectRuntimeClass(memberData) == 'B') {
+            log.trace("convertMemberData(): converting byte array member into Object");
+
             /*
-             * Perform any necessary data conversions.
+             * For all other types that get read into memory as a byte[] (such as nested
+             * compounds and arrays of compounds), we must manually convert the byte[] into
+             * something usable.
              */
-            if (memberType.isUnsigned()) {
-                log.trace("readSingleCompoundMember(): converting from unsigned C-type integers");
-                memberData = Dataset.convertFromUnsignedC(memberData, null);
-            }
-            else if (Utils.getJavaObjectRuntimeClass(memberData) == 'B') {
-                log.trace("readSingleCompoundMember(): converting byte array member into Object");
+            memberData = convertByteMember(memberType, (byte[])memberData);
+        }
+
+        return memberData;
+    }
+
+    /*
+     * Private routine to read all selected fields of a flat compound datatype with a
+     * single H5Dread. The selected fields are packed into one memory compound type and
+     * read into a byte buffer, which is then scattered into one primitive array per
+     * field. Reading each field separately would make the library decompress every
+     * chunk once per field.
+     *
+     * Returns null if the datatype contains fields which cannot be packed this way,
+     * e.g. nested compounds, arrays, variable-length data or strings, or if the read
+     * fails; the caller then falls back to reading the fields one by one.
+     */
+    private Object readPackedCompound(long did, long[] spaceIDs, int nSelPoints, final H5Datatype cmpdType)
+    {
+        if (!cmpdType.isCompound() || (nSelPoints <= 0))
+            return null;
+
+        List<Datatype> typeList = cmpdType.getCompoundMemberTypes();
+        int nMembers            = typeList.size();
+        if ((nMembers != this.getMemberCount()) || (flatNameList.size() != nMembers))
+            return null;
+
+        H5Datatype[] memberTypes    = new H5Datatype[nMembers];
+        Object[] memberDatas        = new Object[nMembers];
+        long[] memberTids           = new long[nMembers];
+        int[] memberOffsets         = new int[nMembers];
+        long packedSize             = 0;
+        long tid                    = HDF5Constants.H5I_INVALID_HID;
+        List<Object> memberDataList = null;
+
+        for (int i = 0; i < nMembers; i++)
+            memberTids[i] = HDF5Constants.H5I_INVALID_HID;
+
+        try {
+            for (int i = 0; i < nMembers; i++) {
+                if (!isMemberSelected[i])
+                    continue;
+
+                H5Datatype memberType = (H5Datatype)typeList.get(i);
+                if (memberType.isCompound() || memberType.isArray() || memberType.isVLEN() ||
+                    memberType.isString() || memberType.isVarStr()) {
+                    log.trace("readPackedCompound(): member[{}] of type {} cannot be packed", i,
+                              memberType.getDescription());
+                    return null;
+                }
+
+                memberTids[i] = memberType.createNative();
+                if (memberTids[i] < 0)
+                    return null;
 
                 /*
-                 * For all other types that get read into memory as a byte[] (such as nested
-                 * compounds and arrays of compounds), we must manually convert the byte[] into
-                 * something usable.
+                 * The JNI layer copies the native bytes of a member straight into the
+                 * Java array, so the packed buffer can only be scattered if the size of
+                 * the native member matches the size of one array element.
                  */
-                memberData = convertByteMember(memberType, (byte[])memberData);
+                Object memberData = H5Datatype.allocateArray(memberType, nSelPoints);
+                long memberSize   = H5.H5Tget_size(memberTids[i]);
+                if ((memberData == null) || (Array.getLength(memberData) != nSelPoints) ||
+                    (getElementSize(memberData) != memberSize))
+                    return null;
+
+                memberTypes[i]   = memberType;
+                memberDatas[i]   = memberData;
+                memberOffsets[i] = (int)packedSize;
+                packedSize += memberSize;
+            }
+
+            if ((packedSize <= 0) || (packedSize * nSelPoints > Integer.MAX_VALUE))
+                return null;
+
+            tid = H5.H5Tcreate(HDF5Constants.H5T_COMPOUND, packedSize);
+            for (int i = 0; i < nMembers; i++) {
+                if (memberTypes[i] != null)
+                    H5.H5Tinsert(tid, flatNameList.get(i), memberOffsets[i], memberTids[i]);
             }
+
+            byte[] packedBuf = new byte[(int)(packedSize * nSelPoints)];
+
+            log.trace("readPackedCompound(): H5Dread did={} tid={} packedSize={} nSelPoints={}", did, tid,
+                      packedSize, nSelPoints);
+            H5.H5Dread(did, tid, spaceIDs[0], spaceIDs[1], HDF5Constants.H5P_DEFAULT, packedBuf);
+            getChunkCache().recordRead(this);
+
+            ByteBuffer bb  = ByteBuffer.wrap(packedBuf).order(ByteOrder.nativeOrder());
+            memberDataList = (List<Object>)H5Datatype.allocateArray(cmpdType, nSelPoints);
+            for (int i = 0; i < nMembers; i++) {
+                if (memberTypes[i] == null)
+                    continue;
+
+                scatterMember(bb, memberDatas[i], memberOffsets[i], (int)packedSize, nSelPoints);
+                memberDataList.add(convertMemberData(memberTypes[i], memberDatas[i]));
+            }
+        }
+        catch (OutOfMemoryError err) {
+            log.debug("readPackedCompound(): out of memory, reading members separately");
+            memberDataList = null;
+        }
+        catch (Exception ex) {
+            log.debug("readPackedCompound(): packed read failure, reading members separately: ", ex);
+            memberDataList = null;
+        }
+        finally {
+            cmpdType.close(tid);
+            for (int i = 0; i < nMembers; i++)
+                cmpdType.close(memberTids[i]);
         }
 
-        return memberData;
+        return memberDataList;
+    }
+
+    /*
+     * Returns the size in bytes of one element of a primitive array, or -1 if the
+     * object is not a primitive array.
+     */
+    private static long getElementSize(Object data)
+    {
+        switch (Utils.getJavaObjectRuntimeClass(data)) {
+        case 'B':
+            return 1;
+        case 'S':
+            return 2;
+        case 'I':
+        case 'F':
+            return 4;
+        case 'J':
+        case 'D':
+            return 8;
+        default:
+            return -1;
+        }
+    }
+
+    /*
+     * Copies one field of every point in a packed compound buffer into the
+     * primitive array of that field.
+     */
+    private static void scatterMember(ByteBuffer bb, Object memberData, int offset, int stride, int nPoints)
+    {
+        switch (Utils.getJavaObjectRuntimeClass(memberData)) {
+        case 'B': {
+            byte[] data = (byte[])memberData;
+            for (int j = 0, pos = offset; j < nPoints; j++, pos += stride)
+                data[j] = bb.get(pos);
+            break;
+        }
+        case 'S': {
+            short[] data = (short[])memberData;
+            for (int j = 0, pos = offset; j < nPoints; j++, pos += stride)
+                data[j] = bb.getShort(pos);
+            break;
+        }
+        case 'I': {
+            int[] data = (int[])memberData;
+            for (int j = 0, pos = offset; j < nPoints; j++, pos += stride)
+                data[j] = bb.getInt(pos);
+            break;
+        }
+        case 'J': {
+            long[] data = (long[])memberData;
+            for (int j = 0, pos = offset; j < nPoints; j++, pos += stride)
+                data[j] = bb.getLong(pos);
+            break;
+        }
+        case 'F': {
+            float[] data = (float[])memberData;
+            for (int j = 0, pos = offset; j < nPoints; j++, pos += stride)
+                data[j] = bb.getFloat(pos);
+            break;
+        }
+        case 'D': {
+            double[] data = (double[])memberData;
+            for (int j = 0, pos = offset; j < nPoints; j++, pos += stride)
+                data[j] = bb.getDouble(pos);
+            break;
+        }
+        default:
+            break;
+        }
     }
 
     /*
@@ -2139,17 +2363,9 @@ public class H5CompoundDS extends CompoundDS implements MetaDataContainer {
                 offset += H5.H5Tget_size(mTypes[i]);
             }
 
-            if (chunks != null) {
-                plist = H5.H5Pcreate(HDF5Constants.H5P_DATASET_CREATE);
-
-                H5.H5Pset_layout(plist, HDF5Constants.H5D_CHUNKED);
-                H5.H5Pset_chunk(plist, rank, chunks);
-
-                // compression requires chunking
-                if (gzip > 0) {
-                    H5.H5Pset_deflate(plist, gzip);
-                }
-            }
+            // the chunked layouts of the same settings share one property list
+            if (chunks != null)
+                plist = file.getHandlePool().acquireChunkedDcpl(chunks, false, gzip);
 
             long fid = file.getFID();
 
@@ -2158,12 +2374,7 @@ public class H5CompoundDS extends CompoundDS implements MetaDataContainer {
             dataset = new H5CompoundDS(file, name, path);
         }
         finally {
-            try {
-                H5.H5Pclose(plist);
-            }
-            catch (HDF5Exception ex) {
-                log.debug("create(): H5Pclose(plist {}) failure: ", plist, ex);
-            }
+            H5HandlePool.release(file, plist);
             try {
                 H5.H5Sclose(sid);
             }
@@ -2237,6 +2448,108 @@ public class H5CompoundDS extends CompoundDS implements MetaDataContainer {
         return H5Datatype.getDatatypeSize(tid);
     }
 
+    /**
+     * Checks if all selected members are read with a single H5Dread.
+     *
+     * @return true if the selected members are read in a single pass; false if each member is read
+     *         separately.
+     */
+    public boolean isPackedRead() { return isPackedRead; }
+
+    /**
+     * Sets whether all selected members are read with a single H5Dread.
+     *
+     * In a single pass, the selected members are packed into one memory compound datatype and read into
+     * a byte buffer, which is then scattered into one array per member. Each chunk of a chunked, compressed
+     * dataset is decompressed only once instead of once per member. Datasets with nested compound, array,
+     * variable-length or string members are always read member by member.
+     *
+     * @param packedRead
+     *            true to read the selected members in a single pass; false to read each member separately.
+     */
+    public void setPackedRead(boolean packedRead) { isPackedRead = packedRead; }
+
+    /**
+     * Returns the raw data chunk cache settings of this dataset and the estimated hits and misses of
+     * the reads done through it.
+     *
+     * @return the chunk cache of this dataset
+     *
+     * @see H5File#setChunkCacheTuning(boolean)
+     */
+    public synchronized H5ChunkCache getChunkCache()
+    {
+        if (chunkCache == null)
+            chunkCache = new H5ChunkCache();
+        return chunkCache;
+    }
+
+    /**
+     * Visits the allocated chunks of this dataset in a single pass over the chunk index, without
+     * reading any data. Unallocated chunks are not visited.
+     *
+     * @param action
+     *            the action to perform on each allocated chunk
+     *
+     * @return the number of allocated chunks, or zero if the dataset is not chunked
+     *
+     * @throws HDF5Exception
+     *             if the dataset can not be opened or the chunk index can not be read
+     */
+    public long forEachChunk(Consumer<H5ChunkMap.Chunk> action) throws HDF5Exception
+    {
+        return H5ChunkMap.forEachChunk(this, action);
+    }
+
+    /**
+     * Returns the number of allocated chunks of this dataset and the distribution of their
+     * compression ratios, without reading any data.
+     *
+     * @return the chunk map, or null if the dataset is not chunked
+     *
+     * @throws HDF5Exception
+     *             if the dataset can not be opened or the chunk index can not be read
+     */
+    public H5ChunkMap getChunkMap() throws HDF5Exception
+    {
+        return H5ChunkMap.getChunkMap(this);
+    }
+
+    /**
+     * H5Dset_extent verifies that the dataset is at least of size size, extending it if necessary. The
+     * dimensionality of size is the same as that of the dataspace of the dataset being changed.
+     *
+     * This function can be applied to the following datasets: 1) Any dataset with unlimited dimensions 2) A
+     * dataset with fixed dimensions if the current dimension sizes are less than the maximum sizes set with
+     * maxdims (see H5Screate_simple)
+     *
+     * @param newDims the dimension target size
+     *
+     * @throws HDF5Exception
+     *             If there is an error at the HDF5 library level.
+     */
+    public void extend(long[] newDims) throws HDF5Exception
+    {
+        long did = open();
+        if (did >= 0) {
+            try {
+                extend(did, newDims, true);
+            }
+            finally {
+                close(did);
+            }
+        }
+    }
+
+    /*
+     * Changes the dimensions of an open dataset, optionally flushing the file, and updates the
+     * dimensions of this object.
+     */
+    void extend(long did, long[] newDims, boolean flush) throws HDF5Exception
+    {
+        dims = H5Utils.setExtent(did, newDims, flush, getName());
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -0,0 +1,540 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object.h5;
+
+import java.lang.reflect.Array;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import hdf.object.CompoundDS;
+import hdf.object.Dataset;
+
+import hdf.hdf5lib.H5;
+import hdf.hdf5lib.HDF5Constants;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Appends rows to an extendible chunked dataset.
+ *
+ * Growing a dataset with {@link H5ScalarDS#extend(long[])} and a write of the new rows opens the
+ * dataset, flushes the whole file and selects a hyperslab for every append. An H5DatasetAppender keeps
+ * the dataset open instead, collects the appended rows in memory and writes them in batches of whole
+ * chunks on a background thread, while the next batch is being filled. A row is one slice of the
+ * dataset along its first dimension; the first dimension must be extendible and the other dimensions
+ * are fixed.
+ *
+ * Each batch extends the dataset by the number of rows it holds. Batches are sized so that they end on
+ * a chunk boundary, so the dataset grows by whole chunks and no chunk is written twice, except for the
+ * rows left over when the appender is flushed or closed.
+ *
+ * In SWMR mode, the file is switched to single-writer/multiple-reader writing when the appender is
+ * created and every batch is flushed to the file when it has been written, so that processes which
+ * opened the file with {@link H5File#SWMR} can follow the data as it is appended. The file must have
+ * been opened for writing with the latest library version bounds (see
+ * {@link H5File#setLibBounds(String, String)}).
+ *
+ * The dataset is written by the background thread, so it must not be used otherwise until the appender
+ * is closed.
+ *
+ * <pre>
+ * try (H5DatasetAppender appender = new H5DatasetAppender(dataset, 0, true)) {
+ *     while (acquiring)
+ *         appender.append(readSamples());
+ * }
+ * </pre>
+ */
+public class H5DatasetAppender implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(H5DatasetAppender.class);
+
+    /** The default number of chunks along the first dimension written by one batch. */
+    public static final int DEFAULT_BATCH_CHUNKS = 16;
+
+    /** The dataset being appended to. */
+    private final Dataset dataset;
+
+    /** true if the dataset is a compound dataset, written as a list of member arrays. */
+    private final boolean isCompound;
+
+    /** The dimensions of the dataset, with the current number of rows written by the flush thread. */
+    private final long[] dims;
+
+    /** The number of elements of each buffer per row: one buffer, or one per compound member. */
+    private final int[] rowElements;
+
+    /** The number of rows in a chunk of the dataset. */
+    private final long chunkRows;
+
+    /** The number of rows of a full batch. */
+    private final int batchRows;
+
+    /** true if the file is written in SWMR mode. */
+    private final boolean swmr;
+
+    /** The open identifier of the dataset. */
+    private long did = HDF5Constants.H5I_INVALID_HID;
+
+    /** The native memory datatype for direct writes of numeric data, or H5I_INVALID_HID. */
+    private long tid = HDF5Constants.H5I_INVALID_HID;
+
+    /** The thread which writes the batches in order. */
+    private final ExecutorService flusher;
+
+    /** The batch being written, or null. */
+    private Future<?> pending = null;
+
+    /** The buffers being filled and the buffers of the batch being written. */
+    private Object[] buffer = null;
+    private Object[] spare  = null;
+
+    /** The number of rows in the buffers being filled and the capacity of the current batch. */
+    private int bufferedRows = 0;
+    private int capacity     = 0;
+
+    /** The number of rows handed to the flush thread, including the rows of the dataset when opened. */
+    private long queuedRows;
+
+    /** The number of rows of the dataset which have been written to the file. */
+    private volatile long writtenRows;
+
+    /** The number of rows appended through this appender. */
+    private long appendedRows = 0;
+
+    /** true if a batch could not be written; the appender then refuses further rows. */
+    private boolean failed = false;
+
+    private boolean closed = false;
+
+    /**
+     * Creates an appender which writes batches of the default size and does not use SWMR mode.
+     *
+     * @param dataset
+     *            the H5ScalarDS or H5CompoundDS to append to
+     *
+     * @throws Exception
+     *             if the dataset is not chunked and extendible along its first dimension, or can not be
+     *             opened
+     */
+    public H5DatasetAppender(Dataset dataset) throws Exception { this(dataset, 0, false); }
+
+    /**
+     * Creates an appender for a dataset. New rows are written after the current rows of the dataset.
+     *
+     * @param dataset
+     *            the H5ScalarDS or H5CompoundDS to append to
+     * @param batchRows
+     *            the number of rows written by one batch, rounded up to a multiple of the chunk size
+     *            along the first dimension; zero or less selects {@link #DEFAULT_BATCH_CHUNKS} chunks
+     * @param swmr
+     *            true to switch the file to SWMR writing and flush every batch to the file
+     *
+     * @throws Exception
+     *             if the dataset is not chunked and extendible along its first dimension, or can not be
+     *             opened
+     */
+    public H5DatasetAppender(Dataset dataset, long batchRows, boolean swmr) throws Exception
+    {
+        if (!(dataset instanceof H5ScalarDS) && !(dataset instanceof H5CompoundDS))
+            throw new IllegalArgumentException("dataset must be an H5ScalarDS or an H5CompoundDS");
+        if (dataset.getFileFormat().isReadOnly())
+            throw new IllegalArgumentException("cannot append to a dataset in a file opened as read-only");
+
+        this.dataset    = dataset;
+        this.isCompound = (dataset instanceof H5CompoundDS);
+        this.swmr       = swmr;
+        if (!dataset.isInited())
+            dataset.init();
+
+        int rank         = dataset.getRank();
+        long[] maxDims   = dataset.getMaxDims();
+        long[] chunkDims = dataset.getChunkSize();
+        if ((rank < 1) || (chunkDims == null) || (maxDims == null))
+            throw new IllegalArgumentException("dataset " + dataset.getName() + " is not chunked");
+        if ((maxDims[0] != HDF5Constants.H5S_UNLIMITED) && (maxDims[0] <= dataset.getDims()[0]))
+            throw new IllegalArgumentException("dataset " + dataset.getName() + " is not extendible");
+
+        dims        = dataset.getDims().clone();
+        chunkRows   = chunkDims[0];
+        queuedRows  = dims[0];
+        writtenRows = dims[0];
+
+        long rowPoints = 1;
+        for (int i = 1; i < rank; i++)
+            rowPoints *= dims[i];
+
+        int[] orders = {1};
+        if (isCompound) {
+            ((CompoundDS)dataset).setAllMemberSelection(true);
+            orders = ((CompoundDS)dataset).getMemberOrders();
+        }
+        rowElements     = new int[orders.length];
+        long maxElement = 1;
+        for (int i = 0; i < orders.length; i++) {
+            rowElements[i] = (int)(rowPoints * orders[i]);
+            maxElement     = Math.max(maxElement, rowElements[i]);
+        }
+
+        long rows = (batchRows <= 0) ? chunkRows * DEFAULT_BATCH_CHUNKS
+                                     : ((batchRows + chunkRows - 1) / chunkRows) * chunkRows;
+        if (rows * maxElement > Integer.MAX_VALUE)
+            rows = Math.max(chunkRows, ((Integer.MAX_VALUE / maxElement) / chunkRows) * chunkRows);
+        if (rows * maxElement > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("a chunk of dataset " + dataset.getName() +
+                                               " is too large to be buffered");
+        this.batchRows = (int)rows;
+
+        if (swmr)
+            H5.H5Fstart_swmr_write(dataset.getFileFormat().getFID());
+
+        did = dataset.open();
+        if (did < 0)
+            throw new IllegalStateException("failed to open dataset " + dataset.getName());
+
+        // numeric data is written directly into the open dataset
+        H5Datatype dtype = (H5Datatype)dataset.getDatatype();
+        if (!isCompound && H5ChunkReader.isSupportedType(dtype)) {
+            try {
+                tid = dtype.createNative();
+            }
+            catch (Exception ex) {
+                log.debug("H5DatasetAppender(): createNative() failure: ", ex);
+                tid = HDF5Constants.H5I_INVALID_HID;
+            }
+        }
+
+        String name = "H5DatasetAppender-" + dataset.getName();
+        flusher     = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+
+        capacity = nextCapacity();
+        log.trace("H5DatasetAppender(): {} rows={} batchRows={} swmr={}", dataset.getFullName(), dims[0],
+                  this.batchRows, swmr);
+    }
+
+    /**
+     * Appends rows to the dataset. The rows are buffered and written when a batch is full.
+     *
+     * @param data
+     *            for a scalar dataset, a one-dimensional array of the type returned by getData() holding
+     *            one or more rows; for a compound dataset, a list with one such array per member, in the
+     *            same form as used by write()
+     *
+     * @throws Exception
+     *             if the data does not hold whole rows of the dataset or a previous batch could not be
+     *             written
+     */
+    public void append(Object data) throws Exception
+    {
+        checkState();
+
+        Object[] arrays = toArrays(data);
+        int nRows       = Array.getLength(arrays[0]) / rowElements[0];
+        for (int i = 0; i < arrays.length; i++) {
+            if (Array.getLength(arrays[i]) != (long)nRows * rowElements[i])
+                throw new IllegalArgumentException("data does not hold whole rows of the dataset");
+        }
+
+        if (buffer == null)
+            buffer = allocate(arrays);
+
+        int done = 0;
+        while (done < nRows) {
+            int n = Math.min(nRows - done, capacity - bufferedRows);
+            for (int i = 0; i < arrays.length; i++)
+                System.arraycopy(arrays[i], done * rowElements[i], buffer[i], bufferedRows * rowElements[i],
+                                 n * rowElements[i]);
+            bufferedRows += n;
+            done += n;
+
+            if (bufferedRows == capacity)
+                submit();
+        }
+
+        appendedRows += nRows;
+    }
+
+    /**
+     * Writes all buffered rows to the file and waits until they are written.
+     *
+     * @throws Exception
+     *             if the rows can not be written
+     */
+    public void flush() throws Exception
+    {
+        checkState();
+
+        if (bufferedRows > 0)
+            submit();
+        waitPending();
+    }
+
+    /**
+     * Returns the number of rows appended through this appender, including buffered rows.
+     *
+     * @return the number of rows appended.
+     */
+    public long getAppendedRows() { return appendedRows; }
+
+    /**
+     * Returns the number of rows of the dataset which have been written to the file.
+     *
+     * @return the number of rows in the file.
+     */
+    public long getWrittenRows() { return writtenRows; }
+
+    /**
+     * Returns the number of rows written by one full batch.
+     *
+     * @return the number of rows of a batch.
+     */
+    public int getBatchRows() { return batchRows; }
+
+    /**
+     * Writes the buffered rows, stops the background thread and closes the dataset. The selection of
+     * the dataset is reset to the new dimensions.
+     *
+     * @throws Exception
+     *             if the buffered rows can not be written
+     */
+    @Override
+    public void close() throws Exception
+    {
+        if (closed)
+            return;
+        closed = true;
+
+        try {
+            if (!failed) {
+                if (bufferedRows > 0)
+                    submit();
+                waitPending();
+            }
+        }
+        finally {
+            flusher.shutdown();
+
+            if (tid >= 0) {
+                try {
+                    H5.H5Tclose(tid);
+                }
+                catch (Exception ex) {
+                    log.debug("close(): H5Tclose(tid {}) failure: ", tid, ex);
+                }
+            }
+            dataset.close(did);
+
+            if (dataset instanceof H5ScalarDS)
+                ((H5ScalarDS)dataset).invalidateChunkIndex();
+            dataset.clearData();
+            dataset.init();
+            log.trace("close(): {} appended={} rows={}", dataset.getFullName(), appendedRows, writtenRows);
+        }
+    }
+
+    private void checkState()
+    {
+        if (closed)
+            throw new IllegalStateException("appender is closed");
+        if (failed)
+            throw new IllegalStateException("a previous batch of dataset " + dataset.getName() +
+                                            " could not be written");
+    }
+
+    /*
+     * Returns the arrays holding the appended data, one per buffer.
+     */
+    private Object[] toArrays(Object data)
+    {
+        if (data == null)
+            throw new IllegalArgumentException("data is null");
+
+        Object[] arrays = null;
+        if (isCompound) {
+            if (!(data instanceof List) || (((List<?>)data).size() != rowElements.length))
+                throw new IllegalArgumentException("data must be a list with one array per member");
+            arrays = ((List<?>)data).toArray();
+        }
+        else
+            arrays = new Object[] {data};
+
+        for (int i = 0; i < arrays.length; i++) {
+            if ((arrays[i] == null) || !arrays[i].getClass().isArray())
+                throw new IllegalArgumentException("data must be an array");
+            if ((buffer != null) && (arrays[i].getClass() != buffer[i].getClass()))
+                throw new IllegalArgumentException("data does not match the type of the previous rows");
+        }
+
+        return arrays;
+    }
+
+    private Object[] allocate(Object[] arrays)
+    {
+        Object[] bufs = new Object[arrays.length];
+        for (int i = 0; i < arrays.length; i++)
+            bufs[i] = Array.newInstance(arrays[i].getClass().getComponentType(), batchRows * rowElements[i]);
+        return bufs;
+    }
+
+    /*
+     * Returns the number of rows of the next batch, so that the batch ends on a chunk boundary.
+     */
+    private int nextCapacity() { return batchRows - (int)(queuedRows % chunkRows); }
+
+    /*
+     * Hands the buffered rows to the flush thread and continues with the buffers of the previous batch
+     * once it has been written.
+     */
+    private void submit() throws Exception
+    {
+        waitPending();
+
+        Object[] full = buffer;
+        long start    = queuedRows;
+        int nRows     = bufferedRows;
+
+        buffer = (spare != null) ? spare : allocate(full);
+        spare  = full;
+        queuedRows += nRows;
+        bufferedRows = 0;
+        capacity     = nextCapacity();
+
+        pending = flusher.submit(() -> {
+            writeRows(full, start, nRows);
+            return null;
+        });
+    }
+
+    private void waitPending() throws Exception
+    {
+        if (pending == null)
+            return;
+
+        try {
+            pending.get();
+        }
+        catch (ExecutionException ex) {
+            failed = true;
+            log.debug("waitPending(): batch write failure: ", ex.getCause());
+            if (ex.getCause() instanceof Exception)
+                throw (Exception)ex.getCause();
+            throw ex;
+        }
+        finally {
+            pending = null;
+        }
+    }
+
+    /*
+     * Extends the dataset and writes a batch of rows. Runs on the flush thread.
+     */
+    private void writeRows(Object[] bufs, long start, int nRows) throws Exception
+    {
+        dims[0] = start + nRows;
+        if (isCompound)
+            ((H5CompoundDS)dataset).extend(did, dims, false);
+        else
+            ((H5ScalarDS)dataset).extend(did, dims, false);
+
+        if (tid >= 0)
+            writeDirect(bufs[0], start, nRows);
+        else
+            writeSelection(bufs, start, nRows);
+
+        if (swmr)
+            H5.H5Dflush(did);
+
+        writtenRows = start + nRows;
+        log.trace("writeRows(): {} rows at {}", nRows, start);
+    }
+
+    /*
+     * Writes numeric rows into the open dataset.
+     */
+    private void writeDirect(Object buf, long start, int nRows) throws Exception
+    {
+        long[] offset = new long[dims.length];
+        long[] count  = dims.clone();
+        offset[0]     = start;
+        count[0]      = nRows;
+
+        long fsid = HDF5Constants.H5I_INVALID_HID;
+        long msid = HDF5Constants.H5I_INVALID_HID;
+        try {
+            fsid = H5.H5Dget_space(did);
+            H5.H5Sselect_hyperslab(fsid, HDF5Constants.H5S_SELECT_SET, offset, null, count, null);
+            msid = H5.H5Screate_simple(count.length, count, null);
+            H5.H5Dwrite(did, tid, msid, fsid, HDF5Constants.H5P_DEFAULT, buf);
+        }
+        finally {
+            try {
+                H5.H5Sclose(msid);
+            }
+            catch (Exception ex) {
+                log.debug("writeDirect(): H5Sclose(msid {}) failure: ", msid, ex);
+            }
+            try {
+                H5.H5Sclose(fsid);
+            }
+            catch (Exception ex) {
+                log.debug("writeDirect(): H5Sclose(fsid {}) failure: ", fsid, ex);
+            }
+        }
+    }
+
+    /*
+     * Writes rows through the selection of the dataset, for strings and compound data.
+     */
+    private void writeSelection(Object[] bufs, long start, int nRows) throws Exception
+    {
+        long[] startDims = dataset.getStartDims();
+        long[] selected  = dataset.getSelectedDims();
+        long[] stride    = dataset.getStride();
+        for (int i = 0; i < dims.length; i++) {
+            startDims[i] = (i == 0) ? start : 0;
+            selected[i]  = (i == 0) ? nRows : dims[i];
+            if (stride != null)
+                stride[i] = 1;
+        }
+
+        // the write buffers have to match the selection
+        Object[] arrays = new Object[bufs.length];
+        for (int i = 0; i < bufs.length; i++) {
+            int n = nRows * rowElements[i];
+            if (Array.getLength(bufs[i]) == n)
+                arrays[i] = bufs[i];
+            else {
+                arrays[i] = Array.newInstance(bufs[i].getClass().getComponentType(), n);
+                System.arraycopy(bufs[i], 0, arrays[i], 0, n);
+            }
+        }
+
+        if (isCompound) {
+            List<Object> list = new Vector<>(arrays.length);
+            for (int i = 0; i < arrays.length; i++)
+                list.add(arrays[i]);
+            dataset.write(list);
+        }
+        else
+            dataset.write(arrays[0]);
+    }
+}
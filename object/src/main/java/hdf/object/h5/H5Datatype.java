@@ -32,6 +32,8 @@ import hdf.object.Attribute;
 import hdf.object.CompoundDS;
 import hdf.object.Datatype;
 import hdf.object.FileFormat;
+import hdf.object.HalfFloatConverter;
+import hdf.object.QuadFloatBuffer;
 import hdf.object.h5.H5MetaDataContainer;
 
 import hdf.hdf5lib.H5;
@@ -123,6 +125,12 @@ public class H5Datatype extends Datatype {
      */
     private String opaqueTag = null;
 
+    /** The native datatype identifier kept open by the handle pool of the file, see getNative(). */
+    private transient long pooledNativeTid = HDF5Constants.H5I_INVALID_HID;
+
+    /** The generation of the handle pool the native datatype identifier belongs to. */
+    private transient long pooledNativeGeneration = -1;
+
     /**
      * Constructs an named HDF5 data type object for a given file, dataset name and group path. The datatype
      * object represents an existing named datatype in file. For example,
@@ -377,14 +385,23 @@ public class H5Datatype extends Datatype {
         long tid = HDF5Constants.H5I_INVALID_HID;
 
         if (fileFormat != null) {
-            try {
-                tid = H5.H5Topen(getFID(), getFullName(), HDF5Constants.H5P_DEFAULT);
-                fromNative(tid);
-                log.trace("open(): tid={}", tid);
-            }
-            catch (HDF5Exception ex) {
-                log.debug("open(): Failed to open datatype {}", getFullName(), ex);
-                tid = HDF5Constants.H5I_INVALID_HID;
+            // reuse the identifier if the datatype is still open from a previous call
+            H5IdPool idPool = H5IdPool.getPool(fileFormat);
+            if (idPool != null)
+                tid = idPool.acquire(this);
+
+            if (tid < 0) {
+                try {
+                    tid = H5.H5Topen(getFID(), getFullName(), HDF5Constants.H5P_DEFAULT);
+                    fromNative(tid);
+                    log.trace("open(): tid={}", tid);
+                    if (idPool != null)
+                        idPool.add(this, tid);
+                }
+                catch (HDF5Exception ex) {
+                    log.debug("open(): Failed to open datatype {}", getFullName(), ex);
+                    tid = HDF5Constants.H5I_INVALID_HID;
+                }
             }
         }
 
@@ -401,14 +418,22 @@ public class H5Datatype extends Datatype {
     public void close(long tid)
     {
         if (tid >= 0) {
-            try {
-                // NOTE: Avoid calling getDescription() here as it may cause recursion
-                // if called during createNative() cleanup
-                log.trace("close(): H5Tclose(tid={})", tid);
-                H5.H5Tclose(tid);
-            }
-            catch (HDF5Exception ex) {
-                log.debug("close(): H5Tclose(tid {}) failure: ", tid, ex);
+            // pooled identifiers stay open until they are evicted or the file is closed
+            H5IdPool idPool = H5IdPool.getPool(fileFormat);
+            if (isPooledNative(tid))
+                log.trace("close(): tid={} is the pooled native type", tid);
+            else if ((idPool != null) && idPool.release(tid))
+                log.trace("close(): tid={} released to pool", tid);
+            else {
+                try {
+                    // NOTE: Avoid calling getDescription() here as it may cause recursion
+                    // if called during createNative() cleanup
+                    log.trace("close(): H5Tclose(tid={})", tid);
+                    H5.H5Tclose(tid);
+                }
+                catch (HDF5Exception ex) {
+                    log.debug("close(): H5Tclose(tid {}) failure: ", tid, ex);
+                }
             }
         }
     }
@@ -807,6 +832,61 @@ public class H5Datatype extends Datatype {
         return sig.multiply(new BigDecimal(powscale, MathContext.DECIMAL128));
     }
 
+    /**
+     * Returns the 16-bit floating-point format of this datatype, if it is a float16 or bfloat16
+     * datatype which {@link HalfFloatConverter} can widen.
+     *
+     * @return HalfFloatConverter.FLOAT16, HalfFloatConverter.BFLOAT16, or -1 if this datatype is not
+     *         one of these formats
+     */
+    public int getHalfFloatFormat()
+    {
+        if ((datatypeClass != CLASS_FLOAT) || (datatypeSize != 2) || (nativeFPspos != 15) ||
+            (nativeFPmpos != 0) || (nativeFPnorm != HDF5Constants.H5T_NORM_IMPLIED))
+            return -1;
+
+        if ((nativeFPepos == 10) && (nativeFPesize == 5) && (nativeFPmsize == 10) && (nativeFPebias == 15))
+            return HalfFloatConverter.FLOAT16;
+        if ((nativeFPepos == 7) && (nativeFPesize == 8) && (nativeFPmsize == 7) && (nativeFPebias == 127))
+            return HalfFloatConverter.BFLOAT16;
+
+        return -1;
+    }
+
+    /**
+     * Returns the layout of the values of this datatype as they are read into memory, if it is a
+     * floating-point datatype wider than a double, such as quadruple or x86 extended precision.
+     *
+     * @return the layout of the native values, or null if this datatype is not such a type or its
+     *         layout is not supported by {@link QuadFloatBuffer}
+     */
+    public QuadFloatBuffer.Format getQuadFloatFormat()
+    {
+        if ((datatypeClass != CLASS_FLOAT) || (datatypeSize <= 8))
+            return null;
+
+        long tid = HDF5Constants.H5I_INVALID_HID;
+        try {
+            tid      = createNative();
+            long[] f = new long[5];
+            H5.H5Tget_fields(tid, f);
+            int offset         = H5.H5Tget_offset(tid);
+            boolean isBE       = (H5.H5Tget_order(tid) == HDF5Constants.H5T_ORDER_BE);
+            boolean isExplicit = (H5.H5Tget_norm(tid) != HDF5Constants.H5T_NORM_IMPLIED);
+
+            return new QuadFloatBuffer.Format((int)H5.H5Tget_size(tid), isBE, offset + (int)f[0],
+                                              offset + (int)f[1], (int)f[2], offset + (int)f[3], (int)f[4],
+                                              H5.H5Tget_ebias_long(tid), isExplicit);
+        }
+        catch (Exception ex) {
+            log.debug("getQuadFloatFormat(): unsupported native layout: ", ex);
+            return null;
+        }
+        finally {
+            close(tid);
+        }
+    }
+
     /**
      * Converts a byte array representing a floating-point value to a Java double,
      * using this datatype's format metadata (sign position, exponent, mantissa, bias, etc.).
@@ -1399,6 +1479,46 @@ public class H5Datatype extends Datatype {
         return nativeID;
     }
 
+    /**
+     * Returns the native datatype identifier of this datatype for reading or writing data.
+     *
+     * If handle pooling is enabled for the file, see H5File.setHandlePooling(boolean), the identifier
+     * created by the first call is kept open by the pool and returned by the following calls until the
+     * file is closed. Otherwise a new identifier is created as by createNative(). In both cases the
+     * caller gives the identifier back with close(tid), and must not modify it.
+     *
+     * @return the native datatype identifier, or a negative value on failure
+     */
+    public synchronized long getNative()
+    {
+        H5HandlePool pool = H5HandlePool.getPool(fileFormat);
+        if (pool == null)
+            return createNative();
+        if (isPooledNative(pooledNativeTid))
+            return pooledNativeTid;
+
+        long tid        = createNative();
+        long generation = pool.addNativeType(tid);
+        if (generation >= 0) {
+            pooledNativeTid        = tid;
+            pooledNativeGeneration = generation;
+        }
+
+        return tid;
+    }
+
+    /*
+     * Checks if an identifier is the native datatype identifier kept open by the handle pool of the
+     * file, and was not closed with the pool since.
+     */
+    private boolean isPooledNative(long tid)
+    {
+        if ((tid < 0) || (tid != pooledNativeTid) || !(fileFormat instanceof H5File))
+            return false;
+
+        return ((H5File)fileFormat).getHandlePool().getGeneration() == pooledNativeGeneration;
+    }
+
     /*
      * (non-Javadoc)
      * @see hdf.object.Datatype#createNative()
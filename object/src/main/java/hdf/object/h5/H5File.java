@@ -33,6 +33,8 @@ import hdf.object.ScalarDS;
 import hdf.hdf5lib.H5;
 import hdf.hdf5lib.HDF5Constants;
 import hdf.hdf5lib.HDFNativeData;
+import hdf.hdf5lib.callbacks.H5L_iterate_opdata_t;
+import hdf.hdf5lib.callbacks.H5L_iterate_t;
 import hdf.hdf5lib.exceptions.HDF5Exception;
 import hdf.hdf5lib.structs.H5G_info_t;
 import hdf.hdf5lib.structs.H5L_info_t;
@@ -108,6 +110,70 @@ public class H5File extends FileFormat {
      */
     private HObject rootObject;
 
+    /**
+     * The pool of dataset and datatype identifiers kept open between I/O calls.
+     */
+    private transient H5IdPool idPool;
+
+    /** The suggested maximum number of pooled identifiers, see {@link #setMaxPooledIds(int)}. */
+    public static final int DEFAULT_MAX_POOLED_IDS = 32;
+
+    /**
+     * The descriptions of the object and region references resolved in this file.
+     */
+    private transient H5ReferenceCache referenceCache;
+
+    /**
+     * The native datatype identifiers and property lists kept open for reuse.
+     */
+    private transient H5HandlePool handlePool;
+
+    /**
+     * Whether compressed chunked datasets are read with parallel direct chunk reads.
+     */
+    private boolean parallelChunkRead = false;
+
+    /**
+     * Whether partially allocated chunked datasets are read without producing fill values in the
+     * library.
+     */
+    private boolean sparseRead = false;
+
+    /**
+     * Whether variable-length strings and sequences are read into a VarLenArena.
+     */
+    private boolean varLenArena = false;
+
+    /**
+     * Whether float16 and bfloat16 values are widened to float in Java instead of by the library.
+     */
+    private boolean halfFloatConversion = false;
+
+    /**
+     * The directory of the sidecar files the structure of files is cached in, or null to always load the
+     * structure from the file.
+     */
+    private File structureCacheDir = null;
+
+    /**
+     * Whether the structure of the file was restored from its sidecar when it was opened.
+     */
+    private transient boolean structureFromCache = false;
+
+    /**
+     * Whether the chunk cache of a dataset is sized from its selection, see
+     * {@link #setChunkCacheTuning(boolean)}.
+     */
+    private boolean chunkCacheTuning = false;
+
+    /**
+     * The chunk cache settings of datasets which replace the automatic or default ones; negative values
+     * are not used.
+     */
+    private long chunkCacheSlots        = -1;
+    private long chunkCacheBytes        = -1;
+    private double chunkCachePreemption = -1;
+
     /**
      * How many characters maximum in an attribute name?
      */
@@ -117,6 +183,7 @@ public class H5File extends FileFormat {
      * The library version bounds.
      */
     private int[] libver;
+
     /** The library latest version value. */
     public static final int LIBVER_LATEST = HDF5Constants.H5F_LIBVER_LATEST;
     /** The library earliest version value. */
@@ -422,6 +489,16 @@ public class H5File extends FileFormat {
      */
 
     public static final List<Attribute> getAttribute(HObject obj, int idxType, int order) throws HDF5Exception
+    {
+        return getAttribute(obj, idxType, order, Long.MAX_VALUE);
+    }
+
+    /*
+     * Returns the attributes of an object like getAttribute(HObject, int, int), leaving the values of
+     * attributes with more than maxValues values unread.
+     */
+    private static List<Attribute> getAttribute(HObject obj, int idxType, int order, long maxValues)
+        throws HDF5Exception
     {
         log.trace("getAttribute(): start: obj={} idxType={} order={}", obj, idxType, order);
         List<Attribute> attributeList = null;
@@ -528,6 +605,11 @@ public class H5File extends FileFormat {
                             continue;
                         }
 
+                        if (lsize > maxValues) {
+                            log.trace("getAttribute(): Attribute[{}] value of {} items not read", i, lsize);
+                            continue;
+                        }
+
                         try {
                             // attr.attributeCommonIO(aid, H5File.IO_TYPE.READ, null);
                             Object attrData = attr.getAttributeData();
@@ -878,7 +960,7 @@ public class H5File extends FileFormat {
                               i, sid, ex);
                 }
                 try {
-                    H5.H5Dclose(did);
+                    dest.close(did);
                 }
                 catch (Exception ex) {
                     log.debug("updateReferenceDataset(): H5ScalarDS reference[{}] H5Dclose(did {}) failure: ",
@@ -1270,7 +1352,7 @@ public class H5File extends FileFormat {
         // clean up unused objects
         if (rootObject != null) {
             HObject theObj       = null;
-            Iterator<HObject> it = getMembersBreadthFirst(rootObject).iterator();
+            Iterator<HObject> it = getLoadedMembersBreadthFirst(rootObject).iterator();
             while (it.hasNext()) {
                 theObj = it.next();
 
@@ -1285,6 +1367,12 @@ public class H5File extends FileFormat {
             }
         }
 
+        // Close the identifiers kept open by the pool before the remaining objects
+        getIdPool().closeAll();
+        getHandlePool().closeAll();
+        getReferenceCache().clear();
+        invalidateObjectIndex();
+
         // Close all open objects associated with this file.
         try {
             int type = -1;
@@ -1751,21 +1839,22 @@ public class H5File extends FileFormat {
     {
         long gcpl = -1;
         try {
-            gcpl = H5.H5Pcreate(HDF5Constants.H5P_GROUP_CREATE);
-            if (gcpl >= 0) {
+            // the same settings share one pooled property list, which H5Group.create() does not close
+            String key = "gcpl:" + creationorder + ":" + maxcompact + ":" + mindense;
+            gcpl       = getHandlePool().acquirePlist(key, HDF5Constants.H5P_GROUP_CREATE, plist -> {
                 // Set link creation order.
                 if (creationorder == Group.CRT_ORDER_TRACKED) {
                     log.trace("createGcpl(): creation order ORDER_TRACKED");
-                    H5.H5Pset_link_creation_order(gcpl, HDF5Constants.H5P_CRT_ORDER_TRACKED);
+                    H5.H5Pset_link_creation_order(plist, HDF5Constants.H5P_CRT_ORDER_TRACKED);
                 }
                 else if (creationorder == Group.CRT_ORDER_INDEXED) {
                     log.trace("createGcpl(): creation order ORDER_INDEXED");
-                    H5.H5Pset_link_creation_order(gcpl, HDF5Constants.H5P_CRT_ORDER_TRACKED +
-                                                            HDF5Constants.H5P_CRT_ORDER_INDEXED);
+                    H5.H5Pset_link_creation_order(plist, HDF5Constants.H5P_CRT_ORDER_TRACKED +
+                                                             HDF5Constants.H5P_CRT_ORDER_INDEXED);
                 }
                 // Set link storage.
-                H5.H5Pset_link_phase_change(gcpl, maxcompact, mindense);
-            }
+                H5.H5Pset_link_phase_change(plist, maxcompact, mindense);
+            });
         }
         catch (Exception ex) {
             log.debug("createGcpl(): failure: ", ex);
@@ -2059,6 +2148,9 @@ public class H5File extends FileFormat {
 
         String name = obj.getPath() + obj.getName();
 
+        getIdPool().remove(obj);
+        getReferenceCache().clear();
+
         H5.H5Ldelete(fid, name, HDF5Constants.H5P_DEFAULT);
     }
 
@@ -2364,8 +2456,169 @@ public class H5File extends FileFormat {
          * Related: Same issue in H4File.java line 712 - needs coordinated fix.
          */
         rootObject = new H5Group(this, "/", null, null);
+
+        // reuse the structure saved when the unchanged file was last opened
+        structureFromCache = H5StructureCache.load(this, (H5Group)rootObject);
+        if (structureFromCache)
+            return;
+
         log.trace("loadIntoMemory(): depth_first on root");
         depth_first(rootObject, 0);
+        H5StructureCache.save(this, (H5Group)rootObject);
+    }
+
+    /**
+     * Retrieves the immediate members of a group from file. This is used when the file structure is loaded
+     * on demand, see {@link FileFormat#setLoadOnDemand(boolean)}.
+     *
+     * @param pgroup the group whose members are retrieved.
+     */
+    void loadMembers(H5Group pgroup)
+    {
+        if ((fid < 0) || (pgroup == null)) {
+            log.debug("loadMembers(): Invalid fid or null group");
+            return;
+        }
+
+        depth_first(pgroup, 0);
+    }
+
+    /**
+     * Retrieves a window of the links of a group from file, without retrieving the other links.
+     *
+     * depth_first() reads the names, types and tokens of all the links of a group with one call of
+     * H5Gget_obj_info_full(), which needs arrays as large as the group. For groups with millions of links,
+     * only the links in the window are visited here, with one H5Literate() call starting at the first
+     * link of the window and stopping after the last one. The objects created are not added to the
+     * member list of the group. A link whose object can not be accessed, e.g. a dangling soft link, is
+     * returned as an H5Link, and a link which can not be read at all as a placeholder H5Link, so that the
+     * index of every member in the window stays the index of its link.
+     *
+     * @param pgroup     the group whose links are retrieved.
+     * @param start      the index of the first link.
+     * @param count      the maximum number of links.
+     * @param idxType    the index of the links, by name or creation order.
+     * @param idxOrder   the order of the links.
+     *
+     * @return the objects of the links in the window.
+     */
+    @SuppressWarnings("deprecation")
+    List<HObject> loadMemberWindow(H5Group pgroup, int start, int count, int idxType, int idxOrder)
+    {
+        List<HObject> members = new Vector<>();
+        if ((fid < 0) || (pgroup == null) || (start < 0) || (count <= 0)) {
+            log.debug("loadMemberWindow(): Invalid fid, null group or empty window");
+            return members;
+        }
+
+        String fullPath = HObject.SEPARATOR;
+        if (pgroup.getPath() != null)
+            fullPath = pgroup.getPath() + pgroup.getName() + HObject.SEPARATOR;
+
+        long gid = pgroup.open();
+        if (gid < 0)
+            return members;
+
+        try {
+            long nelems = H5.H5Gget_info(gid).nlinks;
+            long end    = Math.min(nelems, (long)start + count);
+
+            // one iteration over the links of the window, which sorts the link table of the group at
+            // most once, instead of two lookups by index per link
+            final List<String> names  = new Vector<>();
+            final List<Integer> types = new Vector<>();
+            final int windowSize      = (int)Math.max(0, end - start);
+
+            H5L_iterate_t visitor = new H5L_iterate_t() {
+                @Override
+                public int callback(long group, String name, H5L_info_t info, H5L_iterate_opdata_t opData)
+                {
+                    int type = HDF5Constants.H5O_TYPE_UNKNOWN;
+                    try {
+                        H5O_info_t objInfo = H5.H5Oget_info_by_name(group, name, HDF5Constants.H5O_INFO_BASIC,
+                                                                    HDF5Constants.H5P_DEFAULT);
+                        type               = objInfo.type;
+                    }
+                    catch (Exception ex) {
+                        log.debug("loadMemberWindow(): {} info failure: ", name, ex);
+                    }
+                    names.add(name);
+                    types.add(type);
+
+                    // a positive value stops the iteration
+                    return (names.size() < windowSize) ? 0 : 1;
+                }
+            };
+            if (windowSize > 0) {
+                try {
+                    H5.H5Literate(gid, idxType, idxOrder, start, visitor, new H5L_iterate_opdata_t() {});
+                }
+                catch (HDF5Exception ex) {
+                    log.debug("loadMemberWindow({}): H5Literate failure: ", pgroup, ex);
+                }
+            }
+
+            for (int k = 0; k < windowSize; k++) {
+                long i         = start + k;
+                String objname = (k < names.size()) ? names.get(k) : null;
+                if (objname == null) {
+                    // keep the index of every later member the index of its link
+                    members.add(new H5Link(this, "link #" + i, fullPath));
+                    continue;
+                }
+
+                int objtype = types.get(k);
+                if (objtype == HDF5Constants.H5O_TYPE_GROUP) {
+                    H5Group g = new H5Group(this, objname, fullPath, pgroup);
+
+                    // a subgroup which is also an ancestor has no members to show, as in depth_first()
+                    for (H5Group tmpObj = pgroup; tmpObj != null; tmpObj = (H5Group)tmpObj.getParent()) {
+                        if (tmpObj.equalsOID(g.getOID()) && (tmpObj.getPath() != null)) {
+                            g.setMemberListLoaded(true);
+                            break;
+                        }
+                    }
+                    members.add(g);
+                }
+                else if (objtype == HDF5Constants.H5O_TYPE_DATASET) {
+                    long did     = -1;
+                    Dataset dset = null;
+                    try {
+                        did  = H5.H5Dopen(fid, fullPath + objname, HDF5Constants.H5P_DEFAULT);
+                        dset = getDataset(did, objname, fullPath);
+                    }
+                    catch (HDF5Exception ex) {
+                        log.debug("loadMemberWindow({})[{}]: dataset {} access failure: ", pgroup, i, objname,
+                                  ex);
+                    }
+                    finally {
+                        try {
+                            H5.H5Dclose(did);
+                        }
+                        catch (Exception ex) {
+                            log.debug("loadMemberWindow({})[{}]: dataset {} H5Dclose(did {}) failure: ",
+                                      pgroup, i, objname, did, ex);
+                        }
+                    }
+                    members.add((dset != null) ? dset : new H5Link(this, objname, fullPath));
+                }
+                else if (objtype == HDF5Constants.H5O_TYPE_NAMED_DATATYPE) {
+                    members.add(new H5Datatype(this, objname, fullPath));
+                }
+                else {
+                    members.add(new H5Link(this, objname, fullPath));
+                }
+            }
+        }
+        catch (HDF5Exception ex) {
+            log.debug("loadMemberWindow({}): H5Gget_info(gid {}) failure: ", pgroup, gid, ex);
+        }
+        finally {
+            pgroup.close(gid);
+        }
+
+        log.trace("loadMemberWindow({}): start={}, {} members", pgroup, start, members.size());
+        return members;
     }
 
     /**
@@ -2375,6 +2628,9 @@ public class H5File extends FileFormat {
      * It also detects and stops loops. A loop is detected if there exists an object with the same object ID
      * by tracing a path back up to the root.
      *
+     * If the file is loaded on demand, only the immediate members of the group are retrieved; subgroups
+     * retrieve their own members when they are first accessed.
+     *
      * @param parentObject the parent object.
      * @param nTotal       the maximum number objects.
      *
@@ -2393,6 +2649,10 @@ public class H5File extends FileFormat {
         H5Group pgroup = (H5Group)parentObject;
         ppath          = pgroup.getPath();
 
+        boolean onDemand = isLoadOnDemand();
+        if (onDemand)
+            pgroup.setMemberListLoaded(true);
+
         if (ppath == null)
             fullPath = HObject.SEPARATOR;
         else
@@ -2476,9 +2736,10 @@ public class H5File extends FileFormat {
 
                 // detect and stop loops
                 // a loop is detected if there exists object with the same
-                // object ID by tracing path back up to the root.
+                // object ID by tracing path back up to the root. Only an object ID
+                // found on an object in memory before this group can be a loop.
                 boolean hasLoop = false;
-                H5Group tmpObj  = (H5Group)parentObject;
+                H5Group tmpObj  = (findIndexedObject(oid) == g) ? null : (H5Group)parentObject;
 
                 while (tmpObj != null) {
                     if (tmpObj.equalsOID(oid) && (tmpObj.getPath() != null)) {
@@ -2492,7 +2753,10 @@ public class H5File extends FileFormat {
 
                 // recursively go through the next group
                 // stops if it has loop.
-                if (!hasLoop) {
+                if (hasLoop) {
+                    g.setMemberListLoaded(true);
+                }
+                else if (!onDemand) {
                     nTotal = depth_first(g, nTotal);
                 }
             }
@@ -2611,6 +2875,35 @@ public class H5File extends FileFormat {
         return allMembers;
     }
 
+    /**
+     * Returns a list of the members of this H5File that are in memory, in a breadth-first ordering rooted at
+     * the specified object. Groups whose members have not been retrieved from the file yet are not
+     * descended into.
+     *
+     * @param obj - file object
+     *
+     * @return a list of objects
+     */
+    private static List<HObject> getLoadedMembersBreadthFirst(HObject obj)
+    {
+        List<HObject> allMembers = new Vector<>();
+        Queue<HObject> queue     = new LinkedList<>();
+        HObject currentObject    = obj;
+
+        queue.add(currentObject);
+
+        while (!queue.isEmpty()) {
+            currentObject = queue.remove();
+            allMembers.add(currentObject);
+
+            if ((currentObject instanceof Group) && ((Group)currentObject).isMemberListLoaded()) {
+                queue.addAll(((Group)currentObject).getMemberList());
+            }
+        }
+
+        return allMembers;
+    }
+
     private HObject copyDataset(Dataset srcDataset, H5Group pgroup, String dstName) throws Exception
     {
         Dataset dataset = null;
@@ -2637,20 +2930,16 @@ public class H5File extends FileFormat {
             dstdid = pgroup.open();
 
             try {
-                ocpPlistId = H5.H5Pcreate(HDF5Constants.H5P_OBJECT_COPY);
-                H5.H5Pset_copy_object(ocpPlistId, HDF5Constants.H5O_COPY_EXPAND_REFERENCE_FLAG);
+                ocpPlistId = getHandlePool().acquirePlist(
+                    "ocpypl:expand-references", HDF5Constants.H5P_OBJECT_COPY,
+                    plist -> H5.H5Pset_copy_object(plist, HDF5Constants.H5O_COPY_EXPAND_REFERENCE_FLAG));
                 H5.H5Ocopy(srcdid, ".", dstdid, dstName, ocpPlistId, HDF5Constants.H5P_DEFAULT);
             }
             catch (Exception ex) {
                 log.debug("copyDataset(): {} failure: ", dname, ex);
             }
             finally {
-                try {
-                    H5.H5Pclose(ocpPlistId);
-                }
-                catch (Exception ex) {
-                    log.debug("copyDataset(): {} H5Pclose(ocpPlistId {}) failure: ", dname, ocpPlistId, ex);
-                }
+                H5HandlePool.release(this, ocpPlistId);
             }
 
             if (srcDataset instanceof H5ScalarDS)
@@ -3069,6 +3358,99 @@ public class H5File extends FileFormat {
                              HDF5Constants.H5P_DEFAULT);
     }
 
+    /**
+     * Reads the attributes of an object from the file, in the index type and order of the file.
+     *
+     * The object itself is neither opened nor changed: the attributes are read through a stand-in opened
+     * by its full name with H5Oopen(), so that the method can be called from a background thread while
+     * the object is in use, e.g. to index the attributes for searching.
+     *
+     * @param obj
+     *            The object whose attributes are read.
+     *
+     * @return The attributes of the object, with their values read; an empty list for links.
+     *
+     * @throws Exception
+     *             If there is an error at the HDF5 library level.
+     */
+    @Override
+    public List<Attribute> readAttributes(HObject obj) throws Exception
+    {
+        return readAttributes(obj, Long.MAX_VALUE);
+    }
+
+    /**
+     * Reads the attributes of an object from the file like readAttributes(HObject), but leaves the
+     * values of attributes with more than maxValues values unread.
+     *
+     * @param obj
+     *            The object whose attributes are read.
+     * @param maxValues
+     *            The largest number of values of an attribute whose values are read.
+     *
+     * @return The attributes of the object, with the values of the small attributes read; an empty list
+     *         for links.
+     *
+     * @throws Exception
+     *             If there is an error at the HDF5 library level.
+     */
+    @Override
+    public List<Attribute> readAttributes(HObject obj, long maxValues) throws Exception
+    {
+        if ((obj instanceof H5Link) || (obj.getFullName() == null))
+            return new Vector<>();
+
+        List<Attribute> attrs = getAttribute(new DetachedObject(this, obj), getIndexType(null),
+                                             getIndexOrder(null), maxValues);
+
+        return (attrs == null) ? new Vector<>() : attrs;
+    }
+
+    /**
+     * Reads the description of the datatype of a dataset or named datatype from the file, without opening
+     * or initializing the object itself.
+     *
+     * @param obj
+     *            The dataset or named datatype.
+     *
+     * @return The description of the datatype, or null for groups and links.
+     *
+     * @throws Exception
+     *             If there is an error at the HDF5 library level.
+     */
+    @Override
+    public String getDatatypeDescription(HObject obj) throws Exception
+    {
+        if (!(obj instanceof Dataset) && !(obj instanceof Datatype))
+            return null;
+
+        long oid = H5.H5Oopen(fid, obj.getFullName(), HDF5Constants.H5P_DEFAULT);
+        long tid = HDF5Constants.H5I_INVALID_HID;
+        try {
+            // a named datatype is opened as a datatype identifier
+            if (H5.H5Oget_info(oid).type == HDF5Constants.H5O_TYPE_DATASET)
+                tid = H5.H5Dget_type(oid);
+
+            return new H5Datatype(this, (tid >= 0) ? tid : oid).getDescription();
+        }
+        finally {
+            if (tid >= 0) {
+                try {
+                    H5.H5Tclose(tid);
+                }
+                catch (Exception ex) {
+                    log.debug("getDatatypeDescription(): H5Tclose(tid {}) failure: ", tid, ex);
+                }
+            }
+            try {
+                H5.H5Oclose(oid);
+            }
+            catch (Exception ex) {
+                log.debug("getDatatypeDescription(): H5Oclose(oid {}) failure: ", oid, ex);
+            }
+        }
+    }
+
     /**
      * Rename the given object.
      *
@@ -3111,6 +3493,10 @@ public class H5File extends FileFormat {
             if (obj.getName() != null)
                 H5.H5Lmove(obj.getFID(), currentFullPath, obj.getFID(), newFullPath,
                            HDF5Constants.H5P_DEFAULT, HDF5Constants.H5P_DEFAULT);
+
+            // references to the object and its members now resolve to the new path
+            if (obj.getFileFormat() instanceof H5File)
+                ((H5File)obj.getFileFormat()).getReferenceCache().clear();
         }
     }
 
@@ -3233,4 +3619,293 @@ public class H5File extends FileFormat {
     {
         this.indexOrder = indexOrder;
     }
+
+    /**
+     * Returns the pool of dataset and datatype identifiers kept open between I/O calls.
+     *
+     * @return the identifier pool of this file.
+     */
+    synchronized H5IdPool getIdPool()
+    {
+        if (idPool == null)
+            idPool = new H5IdPool(0);
+        return idPool;
+    }
+
+    /**
+     * Returns the pool of native datatype identifiers and property lists kept open for reuse.
+     *
+     * @return the handle pool of this file.
+     */
+    synchronized H5HandlePool getHandlePool()
+    {
+        if (handlePool == null)
+            handlePool = new H5HandlePool();
+        return handlePool;
+    }
+
+    /**
+     * Returns the cache of the descriptions of the H5T_STD_REF_OBJ and H5T_STD_REF_DSETREG references
+     * resolved in this file.
+     *
+     * @return the reference cache of this file.
+     */
+    public synchronized H5ReferenceCache getReferenceCache()
+    {
+        if (referenceCache == null)
+            referenceCache = new H5ReferenceCache(this, H5ReferenceCache.DEFAULT_MAX_ENTRIES);
+        return referenceCache;
+    }
+
+    /**
+     * Get the maximum number of dataset and datatype identifiers kept open between I/O calls.
+     *
+     * @return the maximum number of pooled identifiers.
+     */
+    public int getMaxPooledIds() { return getIdPool().getCapacity(); }
+
+    /**
+     * Set the maximum number of dataset and datatype identifiers kept open between I/O calls.
+     *
+     * Repeated reads of the same dataset, e.g. when paging through the frames of a 3D dataset,
+     * reuse the pooled identifier instead of opening the dataset again. While the pool is enabled,
+     * close(id) of a dataset or named datatype keeps the identifier open until it is evicted or
+     * the file is closed. The pool is disabled (zero) by default.
+     *
+     * @param n
+     *            The maximum number of pooled identifiers.
+     */
+    public void setMaxPooledIds(int n) { getIdPool().setCapacity(n); }
+
+    /**
+     * Returns whether compressed chunked datasets are read with parallel direct chunk reads.
+     *
+     * @return true if parallel chunk reads are enabled.
+     */
+    public boolean isParallelChunkRead() { return parallelChunkRead; }
+
+    /**
+     * Enables or disables parallel direct chunk reads of compressed chunked datasets.
+     *
+     * When enabled, reading a numeric dataset compressed with deflate and/or shuffle fetches the raw
+     * chunks of the selection with direct chunk reads and decompresses them on a ForkJoin pool, so
+     * that decompression uses all cores instead of one. Datasets with other filters, including filter
+     * plugins, unallocated chunks or non-numeric types are read through the HDF5 library as before.
+     * Parallel chunk reads are disabled by default.
+     *
+     * @param enable
+     *            true to enable parallel chunk reads.
+     */
+    public void setParallelChunkRead(boolean enable) { parallelChunkRead = enable; }
+
+    /**
+     * Returns whether partially allocated chunked datasets are read sparse-aware.
+     *
+     * @return true if sparse-aware reads are enabled.
+     */
+    public boolean isSparseRead() { return sparseRead; }
+
+    /**
+     * Enables or disables sparse-aware reads of partially allocated chunked datasets.
+     *
+     * When enabled, reading a numeric chunked dataset first looks up which chunks of the selection are
+     * allocated. The selection is filled with the fill value in Java and only the allocated chunks are
+     * read from the file; the allocation map of the selection is available from
+     * H5ScalarDS.getAllocationMap() after the read. Sparse-aware reads are disabled by default.
+     *
+     * @param enable
+     *            true to enable sparse-aware reads.
+     */
+    public void setSparseRead(boolean enable) { sparseRead = enable; }
+
+    /**
+     * Returns whether variable-length data is read into a packed arena.
+     *
+     * @return true if arena reads are enabled.
+     */
+    public boolean isVarLenArena() { return varLenArena; }
+
+    /**
+     * Enables or disables reading variable-length data into a packed arena.
+     *
+     * When enabled, reading a dataset of variable-length strings or of variable-length sequences of
+     * numbers returns a VarLenArena instead of an array of String or of ArrayList. The selection is read
+     * in blocks which are packed into one byte array, and the values are decoded only when they are
+     * accessed. Arena reads are disabled by default.
+     *
+     * @param enable
+     *            true to enable arena reads.
+     */
+    public void setVarLenArena(boolean enable) { varLenArena = enable; }
+
+    /**
+     * Returns whether float16 and bfloat16 values are widened to float in Java.
+     *
+     * @return true if the values are widened in Java.
+     */
+    public boolean isHalfFloatConversion() { return halfFloatConversion; }
+
+    /**
+     * Enables or disables widening float16 and bfloat16 values to float in Java.
+     *
+     * When enabled, the 16-bit values of a float16 or bfloat16 dataset are read as stored and widened
+     * to float in bulk by HalfFloatConverter, instead of being converted one by one by the HDF5 library.
+     * Both give the same values. The Java conversion is disabled by default.
+     *
+     * @param enable
+     *            true to widen the values in Java.
+     */
+    public void setHalfFloatConversion(boolean enable) { halfFloatConversion = enable; }
+
+    /**
+     * Returns whether native datatype identifiers and property lists are kept open for reuse.
+     *
+     * @return true if handle pooling is enabled.
+     */
+    public boolean isHandlePooling() { return getHandlePool().isEnabled(); }
+
+    /**
+     * Enables or disables keeping native datatype identifiers and property lists open for reuse.
+     *
+     * When enabled, the native datatype identifier of a dataset or attribute is created on its first
+     * read or write and reused by the following ones, and the property lists used to copy objects and
+     * to create groups and datasets without fill values are created once per setting. All of them are
+     * closed when the file is closed or pooling is disabled. Handle pooling is disabled by default.
+     *
+     * @param enable
+     *            true to enable handle pooling.
+     */
+    public void setHandlePooling(boolean enable) { getHandlePool().setEnabled(enable); }
+
+    /**
+     * Returns the directory the structure of files is cached in.
+     *
+     * @return the structure cache directory, or null if the structure cache is disabled.
+     */
+    public File getStructureCacheDirectory() { return structureCacheDir; }
+
+    /**
+     * Sets the directory the structure of files is cached in.
+     *
+     * When set, the object tree loaded by open() is saved to a sidecar file in this directory. The next
+     * time the same file is opened, the tree is restored from the sidecar instead of walking all groups
+     * and datasets, as long as the path, length and modification time of the file, its root group and
+     * the member settings of this H5File are unchanged. Files loaded on demand are not cached. The
+     * structure cache is disabled (null) by default.
+     *
+     * @param dir
+     *            the structure cache directory, or null to disable the structure cache.
+     */
+    public void setStructureCacheDirectory(File dir) { structureCacheDir = dir; }
+
+    /**
+     * Returns whether the structure of the file was restored from the structure cache when it was opened.
+     *
+     * @return true if the object tree was restored from a sidecar file.
+     */
+    public boolean isStructureFromCache() { return structureFromCache; }
+
+    /**
+     * Returns whether the chunk cache of a dataset is sized from its current selection.
+     *
+     * @return true if chunk cache tuning is enabled.
+     */
+    public boolean isChunkCacheTuning() { return chunkCacheTuning; }
+
+    /**
+     * Enables or disables sizing the chunk cache of a dataset from its current selection.
+     *
+     * When enabled, a chunked dataset is opened with a chunk cache large enough to hold all chunks
+     * touched by its selection, up to {@link H5ChunkCache#MAX_AUTO_BYTES}, instead of the 1 MB default
+     * cache of the HDF5 library. The cache settings and its estimated hit rate are available from
+     * H5ScalarDS.getChunkCache() and H5CompoundDS.getChunkCache(). Chunk cache tuning is disabled by
+     * default.
+     *
+     * @param enable
+     *            true to enable chunk cache tuning.
+     */
+    public void setChunkCacheTuning(boolean enable) { chunkCacheTuning = enable; }
+
+    /**
+     * Returns the number of chunk cache hash slots used for datasets.
+     *
+     * @return the number of hash slots, or a negative value for the automatic or default number.
+     */
+    public long getChunkCacheSlots() { return chunkCacheSlots; }
+
+    /**
+     * Sets the number of chunk cache hash slots used for datasets. For best performance the number
+     * should be a prime about 100 times the number of chunks which fit into the cache.
+     *
+     * @param n
+     *            the number of hash slots, or a negative value for the automatic or default number.
+     */
+    public void setChunkCacheSlots(long n) { chunkCacheSlots = n; }
+
+    /**
+     * Returns the size of the chunk cache of datasets in bytes.
+     *
+     * @return the size in bytes, or a negative value for the automatic or default size.
+     */
+    public long getChunkCacheBytes() { return chunkCacheBytes; }
+
+    /**
+     * Sets the size of the chunk cache of datasets in bytes.
+     *
+     * @param n
+     *            the size in bytes, or a negative value for the automatic or default size.
+     */
+    public void setChunkCacheBytes(long n) { chunkCacheBytes = n; }
+
+    /**
+     * Returns the chunk cache preemption policy used for datasets.
+     *
+     * @return the preemption policy between 0 and 1, or a negative value for the default policy.
+     */
+    public double getChunkCachePreemption() { return chunkCachePreemption; }
+
+    /**
+     * Sets the chunk cache preemption policy used for datasets. A value of 0 never evicts chunks which
+     * have been read completely before other chunks; a value of 1 always does.
+     *
+     * @param w0
+     *            the preemption policy between 0 and 1, or a negative value for the default policy.
+     */
+    public void setChunkCachePreemption(double w0) { chunkCachePreemption = w0; }
+
+    /*
+     * Stands in for an object when its attributes are read, opening it by its full name with H5Oopen() so
+     * that the identifiers, selection and chunk cache of the object itself are never touched.
+     */
+    private static final class DetachedObject extends HObject {
+        private static final long serialVersionUID = -2958117524730461722L;
+
+        DetachedObject(FileFormat theFile, HObject obj) { super(theFile, obj.getName(), obj.getPath()); }
+
+        @Override
+        public long open()
+        {
+            try {
+                return H5.H5Oopen(getFID(), getFullName(), HDF5Constants.H5P_DEFAULT);
+            }
+            catch (HDF5Exception ex) {
+                log.debug("DetachedObject.open(): H5Oopen({}) failure: ", getFullName(), ex);
+                return HDF5Constants.H5I_INVALID_HID;
+            }
+        }
+
+        @Override
+        public void close(long id)
+        {
+            if (id < 0)
+                return;
+
+            try {
+                H5.H5Oclose(id);
+            }
+            catch (HDF5Exception ex) {
+                log.debug("DetachedObject.close(): H5Oclose(id {}) failure: ", id, ex);
+            }
+        }
+    }
 }
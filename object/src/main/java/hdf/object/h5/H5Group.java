@@ -61,6 +61,9 @@ public class H5Group extends Group {
     /** the object properties. */
     private H5O_info_t objInfo;
 
+    /** flag to indicate if the members of this group have been retrieved when loading on demand. */
+    private boolean membersLoaded = false;
+
     /**
      * Constructs an HDF5 group with specific name, path, and parent.
      *
@@ -246,6 +249,124 @@ public class H5Group extends Group {
         return nMembersInFile;
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see hdf.object.Group#isMemberListLoaded()
+     */
+    @Override
+    public boolean isMemberListLoaded()
+    {
+        return membersLoaded || (fileFormat == null) || !fileFormat.isLoadOnDemand();
+    }
+
+    /**
+     * Sets the flag that indicates if the members of this group have been retrieved from file.
+     *
+     * @param loaded
+     *            true if the members are in memory; false if they must be retrieved on next access.
+     */
+    void setMemberListLoaded(boolean loaded) { membersLoaded = loaded; }
+
+    /**
+     * Returns the list of members of this group.
+     *
+     * If the file is loaded on demand, the members are retrieved from file the first time this method is
+     * called.
+     *
+     * @return the list of members of this group.
+     */
+    @Override
+    public List<HObject> getMemberList()
+    {
+        if (!isMemberListLoaded() && (fileFormat instanceof H5File)) {
+            membersLoaded = true;
+            ((H5File)fileFormat).loadMembers(this);
+        }
+
+        return super.getMemberList();
+    }
+
+    /**
+     * Returns a window of the members of this group.
+     *
+     * If the members of this group have not been retrieved yet when the file is loaded on demand, only
+     * the links in the window are read from file, in the index type and order of the file, and the
+     * objects returned are not added to the member list. Otherwise the members are taken from the member
+     * list.
+     *
+     * @param start
+     *            the index of the first member
+     * @param count
+     *            the maximum number of members
+     *
+     * @return the members from index start to start+count-1; fewer if the group has fewer members
+     */
+    @Override
+    public List<HObject> getMembers(int start, int count)
+    {
+        if (isMemberListLoaded() || !(fileFormat instanceof H5File))
+            return super.getMembers(start, count);
+
+        H5File file = (H5File)fileFormat;
+        return file.loadMemberWindow(this, start, count, file.getIndexType(), file.getIndexOrder());
+    }
+
+    /**
+     * Reads a window of the links of this group from file, by an index and in an order which may differ
+     * from those of the file, e.g. by creation order.
+     *
+     * The objects returned are not added to the member list, so that only the links in the window are
+     * read, however many links the group has.
+     *
+     * @param start
+     *            the index of the first link
+     * @param count
+     *            the maximum number of links
+     * @param indexType
+     *            the index of the links, HDF5Constants.H5_INDEX_NAME or H5_INDEX_CRT_ORDER
+     * @param indexOrder
+     *            the order of the links, HDF5Constants.H5_ITER_INC or H5_ITER_DEC
+     *
+     * @return the objects of the links from index start to start+count-1; fewer if the group has fewer
+     *         links
+     */
+    public List<HObject> getMembers(int start, int count, int indexType, int indexOrder)
+    {
+        if (!(fileFormat instanceof H5File))
+            return super.getMembers(start, count);
+
+        return ((H5File)fileFormat).loadMemberWindow(this, start, count, indexType, indexOrder);
+    }
+
+    /**
+     * Adds an object to the member list of this group in memory.
+     *
+     * If the members of this group have not been retrieved yet, they are retrieved first. A new object
+     * created in the file is then already listed, so the existing entry is replaced by the given object
+     * instead of listing it twice.
+     *
+     * @param object
+     *            the HObject to be added to the member list.
+     */
+    @Override
+    public void addToMemberList(HObject object)
+    {
+        if (!isMemberListLoaded() && (object != null)) {
+            List<HObject> members = getMemberList();
+            String fullName       = object.getFullName();
+            for (int i = 0; i < members.size(); i++) {
+                if (members.get(i).getFullName().equals(fullName)) {
+                    // replace the entry in place; the call below only updates the object index
+                    members.set(i, object);
+                    break;
+                }
+            }
+        }
+
+        super.addToMemberList(object);
+    }
+
     /**
      * Removes all of the elements from metadata list.
      * The list should be empty after this call returns.
@@ -255,6 +376,7 @@ public class H5Group extends Group {
     {
         super.clear();
         objMetadata.clear();
+        membersLoaded = false;
     }
 
     /**
@@ -530,14 +652,9 @@ public class H5Group extends Group {
         if (group != null)
             pgroup.addToMemberList(group);
 
-        if (gcpl > 0) {
-            try {
-                H5.H5Pclose(gcpl);
-            }
-            catch (final Exception ex) {
-                log.debug("create(): create prop H5Pclose(gcpl {}) failure: ", gcpl, ex);
-            }
-        }
+        // a property list from the handle pool of the file stays open for the next group
+        if (gcpl > 0)
+            H5HandlePool.release(file, gcpl);
 
         return group;
     }
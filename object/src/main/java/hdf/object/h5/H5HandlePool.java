@@ -0,0 +1,293 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object.h5;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import hdf.object.FileFormat;
+
+import hdf.hdf5lib.H5;
+import hdf.hdf5lib.HDF5Constants;
+import hdf.hdf5lib.exceptions.HDF5Exception;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The native datatype identifiers and property lists of one H5File which are kept open for reuse.
+ *
+ * Every read of a dataset or attribute converts its datatype to a native datatype identifier and
+ * closes it again, and creating or copying objects creates and closes the same property lists over
+ * and over. On files with many small datasets or attributes these library calls take longer than
+ * the I/O itself. The pool keeps the native datatype identifiers created by H5Datatype.getNative(),
+ * and property lists which are configured once by their creator and then only passed to the library,
+ * so that they are shared by later calls.
+ *
+ * All identifiers are closed when the file is closed. Each closeAll() starts a new generation, so
+ * that the holders of identifiers from an older generation know that they were closed.
+ */
+final class H5HandlePool {
+    private static final Logger log = LoggerFactory.getLogger(H5HandlePool.class);
+
+    /** The maximum number of native datatype identifiers kept open. */
+    static final int MAX_NATIVE_TYPES = 4096;
+
+    /** The maximum number of property lists kept open. */
+    static final int MAX_PLISTS = 64;
+
+    /** Sets the properties of a newly created property list. */
+    interface PlistInitializer {
+        /**
+         * Sets the properties of a property list.
+         *
+         * @param plist
+         *            the property list
+         *
+         * @throws HDF5Exception
+         *             if a property can not be set
+         */
+        void init(long plist) throws HDF5Exception;
+    }
+
+    /** The pooled native datatype identifiers. */
+    private final List<Long> nativeTypes = new ArrayList<>();
+
+    /** The pooled property lists, keyed by their class and settings. */
+    private final Map<String, Long> plists = new HashMap<>();
+
+    private boolean enabled = false;
+
+    private long generation = 0;
+
+    /**
+     * Returns the handle pool of the given file.
+     *
+     * @param file
+     *            the file the object belongs to
+     *
+     * @return the pool of the file, or null if the file is not an H5File or pooling is disabled
+     */
+    static H5HandlePool getPool(FileFormat file)
+    {
+        if (file instanceof H5File) {
+            H5HandlePool pool = ((H5File)file).getHandlePool();
+            if (pool.isEnabled())
+                return pool;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns whether identifiers are pooled.
+     *
+     * @return true if identifiers are pooled
+     */
+    synchronized boolean isEnabled() { return enabled; }
+
+    /**
+     * Enables or disables pooling. Disabling pooling closes all pooled identifiers.
+     *
+     * @param enable
+     *            true to pool identifiers
+     */
+    synchronized void setEnabled(boolean enable)
+    {
+        if (enabled && !enable)
+            closeAll();
+        enabled = enable;
+    }
+
+    /**
+     * Returns the generation of the pool, which changes every time the pooled identifiers are closed.
+     *
+     * @return the generation of the pool
+     */
+    synchronized long getGeneration() { return generation; }
+
+    /**
+     * Adds a native datatype identifier to the pool, which closes it with the file.
+     *
+     * @param tid
+     *            the native datatype identifier
+     *
+     * @return the generation the identifier was added to; a negative value if it was not added and the
+     *         caller remains responsible for closing it
+     */
+    synchronized long addNativeType(long tid)
+    {
+        if (!enabled || (tid < 0) || (nativeTypes.size() >= MAX_NATIVE_TYPES))
+            return -1;
+
+        nativeTypes.add(tid);
+        log.trace("addNativeType(): tid={} size={}", tid, nativeTypes.size());
+
+        return generation;
+    }
+
+    /**
+     * Returns the pooled property list with the given key, creating and initializing it first if
+     * needed. The property list must not be modified or closed by the caller; give it back with
+     * release() instead.
+     *
+     * @param key
+     *            the class and settings of the property list, e.g. "ocpypl:expand-references"
+     * @param plistClass
+     *            the class of the property list, e.g. HDF5Constants.H5P_OBJECT_COPY
+     * @param initializer
+     *            sets the properties of a newly created property list, or null to keep the defaults
+     *
+     * @return the property list; a new property list which the caller has to close if pooling is
+     *         disabled or the pool is full
+     *
+     * @throws HDF5Exception
+     *             if the property list can not be created
+     */
+    synchronized long acquirePlist(String key, long plistClass, PlistInitializer initializer)
+        throws HDF5Exception
+    {
+        Long pooled = enabled ? plists.get(key) : null;
+        if (pooled != null)
+            return pooled;
+
+        long plist = H5.H5Pcreate(plistClass);
+        try {
+            if (initializer != null)
+                initializer.init(plist);
+        }
+        catch (HDF5Exception ex) {
+            closePlist(plist);
+            throw ex;
+        }
+
+        if (enabled && (plists.size() < MAX_PLISTS)) {
+            plists.put(key, plist);
+            log.trace("acquirePlist(): {} plist={} size={}", key, plist, plists.size());
+        }
+
+        return plist;
+    }
+
+    /**
+     * Returns the pooled dataset creation property list of a chunked layout, creating it first if
+     * needed. The property list must not be modified, e.g. by setting a fill value, or closed by the
+     * caller; give it back with release() instead.
+     *
+     * @param chunks
+     *            the chunk size
+     * @param shuffle
+     *            true to apply the shuffle filter before compression
+     * @param gzip
+     *            the deflate level, or a value less than 1 for no compression
+     *
+     * @return the property list; a new property list which the caller has to close if pooling is
+     *         disabled or the pool is full
+     *
+     * @throws HDF5Exception
+     *             if the property list can not be created
+     */
+    long acquireChunkedDcpl(long[] chunks, boolean shuffle, int gzip) throws HDF5Exception
+    {
+        long[] chunkDims = chunks.clone();
+        String key       = "dcpl:" + Arrays.toString(chunkDims) + ":" + shuffle + ":" + gzip;
+
+        return acquirePlist(key, HDF5Constants.H5P_DATASET_CREATE, plist -> {
+            H5.H5Pset_layout(plist, HDF5Constants.H5D_CHUNKED);
+            H5.H5Pset_chunk(plist, chunkDims.length, chunkDims);
+
+            // compression requires chunking
+            if (gzip > 0) {
+                if (shuffle)
+                    H5.H5Pset_shuffle(plist);
+                H5.H5Pset_deflate(plist, gzip);
+            }
+        });
+    }
+
+    /**
+     * Gives back a property list returned by acquirePlist().
+     *
+     * @param plist
+     *            the property list
+     *
+     * @return true if the property list belongs to the pool and must not be closed by the caller
+     */
+    synchronized boolean releasePlist(long plist) { return plists.containsValue(plist); }
+
+    /**
+     * Closes a property list returned by acquirePlist() unless it belongs to the pool of the given file.
+     *
+     * @param file
+     *            the file the property list was acquired for
+     * @param plist
+     *            the property list; H5P_DEFAULT and invalid identifiers are ignored
+     */
+    static void release(FileFormat file, long plist)
+    {
+        if ((plist < 0) || (plist == HDF5Constants.H5P_DEFAULT))
+            return;
+        if ((file instanceof H5File) && ((H5File)file).getHandlePool().releasePlist(plist))
+            return;
+
+        closePlist(plist);
+    }
+
+    /**
+     * Closes all identifiers in the pool and starts a new generation.
+     */
+    synchronized void closeAll()
+    {
+        for (long tid : nativeTypes) {
+            try {
+                H5.H5Tclose(tid);
+            }
+            catch (Exception ex) {
+                log.debug("closeAll(): H5Tclose(tid {}) failure: ", tid, ex);
+            }
+        }
+        for (long plist : plists.values())
+            closePlist(plist);
+
+        log.trace("closeAll(): generation={} types={} plists={}", generation, nativeTypes.size(),
+                  plists.size());
+        nativeTypes.clear();
+        plists.clear();
+        generation++;
+    }
+
+    /**
+     * Returns the number of identifiers in the pool.
+     *
+     * @return the number of native datatype identifiers and property lists in the pool
+     */
+    synchronized int size() { return nativeTypes.size() + plists.size(); }
+
+    /*
+     * Closes a property list, logging a failure instead of throwing it.
+     */
+    private static void closePlist(long plist)
+    {
+        try {
+            H5.H5Pclose(plist);
+        }
+        catch (Exception ex) {
+            log.debug("closePlist(): H5Pclose(plist {}) failure: ", plist, ex);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object.h5;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import hdf.object.FileFormat;
+import hdf.object.Group;
+import hdf.object.HObject;
+
+import hdf.hdf5lib.H5;
+import hdf.hdf5lib.HDF5Constants;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded pool of open HDF5 object identifiers belonging to one H5File.
+ *
+ * Reading or writing a dataset normally opens the dataset with H5Dopen and closes it again when the
+ * I/O is done, so that the library has to look up the object header every time. Stepping through
+ * the frames of a large dataset repeats this hundreds of times for the same object. The pool keeps
+ * the identifiers of recently used datasets and named datatypes open, so that a repeated open() of
+ * the same object returns the cached identifier instead.
+ *
+ * An identifier handed out by the pool stays in use until it is given back by the close() method of
+ * the object. Only identifiers which are not in use are closed when the least recently used entries
+ * are evicted; all remaining identifiers are closed when the file is closed. An identifier which was
+ * closed behind the back of the pool is detected and dropped the next time it is looked up.
+ */
+final class H5IdPool {
+    private static final Logger log = LoggerFactory.getLogger(H5IdPool.class);
+
+    /** An open identifier and the number of callers currently using it. */
+    private static final class Entry {
+        final long id;
+        int useCount;
+
+        Entry(long id)
+        {
+            this.id       = id;
+            this.useCount = 1;
+        }
+    }
+
+    /**
+     * Identifies the object an identifier belongs to. HObject.hashCode() depends on the object ID,
+     * which may not be set, so objects are compared by reference.
+     */
+    private static final class Key {
+        final HObject obj;
+
+        Key(HObject obj) { this.obj = obj; }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            return (other instanceof Key) && (((Key)other).obj == obj);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return System.identityHashCode(obj);
+        }
+    }
+
+    /** The pooled identifiers in access order, keyed by the object they belong to. */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** The maximum number of identifiers to keep open. */
+    private int capacity;
+
+    /**
+     * Creates a pool which keeps at most the given number of identifiers open.
+     *
+     * @param capacity
+     *            the maximum number of identifiers to keep open. A value of zero disables pooling.
+     */
+    H5IdPool(int capacity) { this.capacity = Math.max(0, capacity); }
+
+    /**
+     * Returns the identifier pool of the given file.
+     *
+     * @param file
+     *            the file the object belongs to
+     *
+     * @return the pool of the file, or null if the file is not an H5File
+     */
+    static H5IdPool getPool(FileFormat file)
+    {
+        if (file instanceof H5File)
+            return ((H5File)file).getIdPool();
+
+        return null;
+    }
+
+    /**
+     * Returns the pooled identifier of an object and marks it as being in use.
+     *
+     * @param obj
+     *            the object to look up
+     *
+     * @return the identifier of the object, or a negative value if it is not in the pool
+     */
+    synchronized long acquire(HObject obj)
+    {
+        Key key     = new Key(obj);
+        Entry entry = entries.get(key);
+        if (entry == null)
+            return HDF5Constants.H5I_INVALID_HID;
+
+        if (!isValid(entry.id)) {
+            log.debug("acquire(): {} id={} was closed outside of the pool", obj, entry.id);
+            entries.remove(key);
+            return HDF5Constants.H5I_INVALID_HID;
+        }
+
+        entry.useCount++;
+        log.trace("acquire(): {} id={} useCount={}", obj, entry.id, entry.useCount);
+        return entry.id;
+    }
+
+    /**
+     * Adds a newly opened identifier of an object to the pool and marks it as being in use. The least
+     * recently used identifiers which are not in use are closed if the pool is full.
+     *
+     * @param obj
+     *            the object the identifier belongs to
+     * @param id
+     *            the identifier
+     *
+     * @return true if the identifier was added to the pool; false if the caller remains responsible
+     *         for closing it
+     */
+    synchronized boolean add(HObject obj, long id)
+    {
+        Key key = new Key(obj);
+        if ((id < 0) || (capacity <= 0) || entries.containsKey(key))
+            return false;
+
+        entries.put(key, new Entry(id));
+        log.trace("add(): {} id={} size={}", obj, id, entries.size());
+
+        Iterator<Entry> it = entries.values().iterator();
+        while ((entries.size() > capacity) && it.hasNext()) {
+            Entry eldest = it.next();
+            if (eldest.useCount <= 0) {
+                it.remove();
+                closeId(eldest.id);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Gives back an identifier which was handed out by this pool.
+     *
+     * @param id
+     *            the identifier
+     *
+     * @return true if the identifier belongs to the pool and must not be closed by the caller
+     */
+    synchronized boolean release(long id)
+    {
+        for (Entry entry : entries.values()) {
+            if (entry.id == id) {
+                if (entry.useCount > 0)
+                    entry.useCount--;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Removes an object from the pool, together with all pooled objects below it if the object is a
+     * group. The identifiers which are not in use are closed.
+     *
+     * @param obj
+     *            the object to remove
+     */
+    synchronized void remove(HObject obj)
+    {
+        String prefix = null;
+        if ((obj instanceof Group) && (obj.getFullName() != null))
+            prefix = obj.getFullName().endsWith(HObject.SEPARATOR) ? obj.getFullName()
+                                                                    : obj.getFullName() + HObject.SEPARATOR;
+
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> e = it.next();
+            HObject key             = e.getKey().obj;
+            String name             = key.getFullName();
+            if ((key == obj) || ((prefix != null) && (name != null) && name.startsWith(prefix))) {
+                it.remove();
+                if (e.getValue().useCount <= 0)
+                    closeId(e.getValue().id);
+            }
+        }
+    }
+
+    /**
+     * Closes all identifiers in the pool and empties it.
+     */
+    synchronized void closeAll()
+    {
+        List<Entry> all = new ArrayList<>(entries.values());
+        entries.clear();
+
+        for (Entry entry : all)
+            closeId(entry.id);
+    }
+
+    /**
+     * Returns the number of identifiers in the pool.
+     *
+     * @return the number of identifiers in the pool
+     */
+    synchronized int size() { return entries.size(); }
+
+    /**
+     * Returns the maximum number of identifiers kept open.
+     *
+     * @return the maximum number of identifiers kept open
+     */
+    synchronized int getCapacity() { return capacity; }
+
+    /**
+     * Sets the maximum number of identifiers kept open and closes the least recently used
+     * identifiers which are not in use if the pool holds more than that.
+     *
+     * @param capacity
+     *            the maximum number of identifiers to keep open. A value of zero disables pooling.
+     */
+    synchronized void setCapacity(int capacity)
+    {
+        this.capacity = Math.max(0, capacity);
+
+        Iterator<Entry> it = entries.values().iterator();
+        while ((entries.size() > this.capacity) && it.hasNext()) {
+            Entry eldest = it.next();
+            if (eldest.useCount <= 0) {
+                it.remove();
+                closeId(eldest.id);
+            }
+        }
+    }
+
+    private static boolean isValid(long id)
+    {
+        try {
+            return H5.H5Iis_valid(id);
+        }
+        catch (Exception ex) {
+            return false;
+        }
+    }
+
+    private static void closeId(long id)
+    {
+        try {
+            log.trace("closeId(): H5Oclose(id={})", id);
+            H5.H5Oclose(id);
+        }
+        catch (Exception ex) {
+            log.debug("closeId(): H5Oclose(id {}) failure: ", id, ex);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object.h5;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the descriptions of the object and dataset region references of a file.
+ *
+ * Resolving a reference to the path of the object it points to, and to the selection of a region
+ * reference, takes several calls into the HDF5 library. A table of references asks for the
+ * description of a cell every time the cell is drawn. This cache keeps the descriptions by the bytes
+ * of the reference, so that each reference is resolved only once while the file is open, and
+ * {@link #resolveObjects(List)} and {@link #resolveRegions(List)} resolve a block of references at
+ * once, e.g. the rows around the first visible cell.
+ *
+ * Only the references of the H5T_STD_REF_OBJ and H5T_STD_REF_DSETREG types are cached: their bytes
+ * are the address of the object or of the region in the file. The opaque references of the
+ * H5T_STD_REF type may hold pointers to memory of the library and are resolved by H5ReferenceType
+ * instead. The cache is emptied when the file is closed and when objects are deleted or renamed.
+ */
+public final class H5ReferenceCache {
+    private static final Logger log = LoggerFactory.getLogger(H5ReferenceCache.class);
+
+    /** The default maximum number of cached descriptions of each kind. */
+    public static final int DEFAULT_MAX_ENTRIES = 65536;
+
+    /** The description of a null reference. */
+    private static final String NULL_REFERENCE = "NULL";
+
+    private final H5File file;
+
+    private final int maxEntries;
+
+    /** The descriptions of object references, least recently used first. */
+    private final Map<ByteBuffer, String> objects;
+
+    /** The descriptions of dataset region references, least recently used first. */
+    private final Map<ByteBuffer, String> regions;
+
+    private long hits   = 0;
+    private long misses = 0;
+
+    /**
+     * Creates an empty reference cache for a file.
+     *
+     * @param file
+     *            the file the references point into
+     * @param maxEntries
+     *            the maximum number of cached descriptions of each kind
+     */
+    H5ReferenceCache(H5File file, int maxEntries)
+    {
+        this.file       = file;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.objects    = createMap();
+        this.regions    = createMap();
+    }
+
+    /*
+     * Creates a map which drops its least recently used entry when it grows past the limit.
+     */
+    private Map<ByteBuffer, String> createMap()
+    {
+        return new LinkedHashMap<ByteBuffer, String>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, String> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the description of an object reference, as returned by
+     * H5Datatype.descReferenceObject().
+     *
+     * @param refarr
+     *            the bytes of the H5T_STD_REF_OBJ reference
+     *
+     * @return the path and the type of the referenced object, or "NULL" for a null reference
+     */
+    public synchronized String getObjectDescription(byte[] refarr)
+    {
+        return get(objects, refarr, false);
+    }
+
+    /**
+     * Returns the description of a dataset region reference, as returned by
+     * H5Datatype.descRegionDataset().
+     *
+     * @param refarr
+     *            the bytes of the H5T_STD_REF_DSETREG reference
+     *
+     * @return the path of the dataset and the selection of the region, or "NULL" for a null reference
+     */
+    public synchronized String getRegionDescription(byte[] refarr)
+    {
+        return get(regions, refarr, true);
+    }
+
+    /**
+     * Resolves the object references of a block which are not cached yet.
+     *
+     * @param refs
+     *            the bytes of the H5T_STD_REF_OBJ references
+     *
+     * @return the number of references resolved by this call
+     */
+    public synchronized int resolveObjects(List<byte[]> refs)
+    {
+        return resolve(objects, refs, false);
+    }
+
+    /**
+     * Resolves the dataset region references of a block which are not cached yet.
+     *
+     * @param refs
+     *            the bytes of the H5T_STD_REF_DSETREG references
+     *
+     * @return the number of references resolved by this call
+     */
+    public synchronized int resolveRegions(List<byte[]> refs)
+    {
+        return resolve(regions, refs, true);
+    }
+
+    /**
+     * Checks if the description of an object reference is cached.
+     *
+     * @param refarr
+     *            the bytes of the H5T_STD_REF_OBJ reference
+     *
+     * @return true if the reference has been resolved
+     */
+    public synchronized boolean containsObject(byte[] refarr)
+    {
+        return objects.containsKey(ByteBuffer.wrap(refarr));
+    }
+
+    /**
+     * Checks if the description of a dataset region reference is cached.
+     *
+     * @param refarr
+     *            the bytes of the H5T_STD_REF_DSETREG reference
+     *
+     * @return true if the reference has been resolved
+     */
+    public synchronized boolean containsRegion(byte[] refarr)
+    {
+        return regions.containsKey(ByteBuffer.wrap(refarr));
+    }
+
+    /**
+     * Drops all cached descriptions.
+     */
+    public synchronized void clear()
+    {
+        objects.clear();
+        regions.clear();
+        log.trace("clear(): hits={} misses={}", hits, misses);
+    }
+
+    /**
+     * Returns the number of cached descriptions of both kinds.
+     *
+     * @return the number of cached descriptions
+     */
+    public synchronized int size() { return objects.size() + regions.size(); }
+
+    /**
+     * Returns the number of descriptions found in the cache.
+     *
+     * @return the number of cache hits
+     */
+    public synchronized long getHits() { return hits; }
+
+    /**
+     * Returns the number of descriptions which had to be resolved through the HDF5 library.
+     *
+     * @return the number of cache misses
+     */
+    public synchronized long getMisses() { return misses; }
+
+    /*
+     * Returns a cached description, resolving and caching it first if needed.
+     */
+    private String get(Map<ByteBuffer, String> cache, byte[] refarr, boolean isRegion)
+    {
+        if (H5Datatype.zeroArrayCheck(refarr))
+            return NULL_REFERENCE;
+
+        String desc = cache.get(ByteBuffer.wrap(refarr));
+        if (desc != null) {
+            hits++;
+            return desc;
+        }
+
+        misses++;
+        return put(cache, refarr, isRegion);
+    }
+
+    /*
+     * Resolves the uncached references of a block.
+     */
+    private int resolve(Map<ByteBuffer, String> cache, List<byte[]> refs, boolean isRegion)
+    {
+        int n = 0;
+        for (byte[] refarr : refs) {
+            if ((refarr == null) || H5Datatype.zeroArrayCheck(refarr) ||
+                cache.containsKey(ByteBuffer.wrap(refarr)))
+                continue;
+            try {
+                put(cache, refarr, isRegion);
+                n++;
+            }
+            catch (Exception ex) {
+                // leave it to the cell of the reference to report the failure
+                log.debug("resolve(): reference {} failure: ", refarr, ex);
+            }
+        }
+        misses += n;
+        log.trace("resolve(): {} of {} references resolved, isRegion={}", n, refs.size(), isRegion);
+
+        return n;
+    }
+
+    /*
+     * Resolves a reference through the HDF5 library and caches its description under a copy of its
+     * bytes.
+     */
+    private String put(Map<ByteBuffer, String> cache, byte[] refarr, boolean isRegion)
+    {
+        long fid    = file.getFID();
+        String desc = isRegion ? H5Datatype.descRegionDataset(fid, refarr)
+                               : H5Datatype.descReferenceObject(fid, refarr);
+        if (desc != null)
+            cache.put(ByteBuffer.wrap(refarr.clone()), desc);
+
+        return desc;
+    }
+}
@@ -15,9 +15,11 @@
 package hdf.object.h5;
 
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import hdf.object.Datatype;
@@ -45,6 +47,9 @@ public class H5ReferenceType extends H5Datatype {
      */
     protected transient ArrayList<H5ReferenceData> refdata;
 
+    /** The first entry of refdata for the bytes of each reference, built on first lookup. */
+    private transient Map<ByteBuffer, H5ReferenceData> refIndex = null;
+
     /** Flag to indicate if data values are loaded into memory. */
     protected boolean isDataLoaded = false;
 
@@ -233,6 +238,7 @@ public class H5ReferenceType extends H5Datatype {
             if (refdata instanceof List)
                 ((List)refdata).clear();
             originalRefBuf = null;
+            refIndex       = null;
         }
         isDataLoaded = false;
     }
@@ -275,6 +281,7 @@ public class H5ReferenceType extends H5Datatype {
             refdata.add(rf);
         }
         isDataLoaded = true;
+        refIndex     = null;
         init();
     }
 
@@ -308,6 +315,7 @@ public class H5ReferenceType extends H5Datatype {
             refdata.add(rf);
         }
         isDataLoaded = true;
+        refIndex     = null;
         init();
     }
 
@@ -388,6 +396,14 @@ public class H5ReferenceType extends H5Datatype {
         for (int i = 0; i < (int)refsize; i++) {
             H5ReferenceData rf = refdata.get(i);
             log.trace("init(): rf.refArray={}", rf.refArray);
+
+            // a reference repeated in the buffer is resolved only once
+            H5ReferenceData first = findReferenceData(rf.refArray);
+            if ((first != null) && (first != rf)) {
+                rf.copyResolved(first);
+                continue;
+            }
+
             byte[] refarr = new byte[(int)datatypeSize];
             System.arraycopy(rf.refArray, 0, refarr, 0, (int)datatypeSize);
 
@@ -689,6 +705,28 @@ public class H5ReferenceType extends H5Datatype {
         }
     }
 
+    /*
+     * Returns the first entry of refdata holding the given reference bytes, or null. The lookup goes
+     * through a hash index so that resolving the cells of a large reference dataset does not scan all
+     * references for each cell.
+     */
+    private H5ReferenceData findReferenceData(byte[] refarr)
+    {
+        if ((refdata == null) || (refarr == null))
+            return null;
+
+        if (refIndex == null) {
+            refIndex = new HashMap<>(Math.max(16, 2 * refdata.size()));
+            for (int i = 0; i < Math.min((int)refsize, refdata.size()); i++) {
+                H5ReferenceData rf = refdata.get(i);
+                if (rf.refArray != null)
+                    refIndex.putIfAbsent(ByteBuffer.wrap(rf.refArray), rf);
+            }
+        }
+
+        return refIndex.get(ByteBuffer.wrap(refarr));
+    }
+
     /**
      * Checks if a reference datatype is all zero.
      *
@@ -719,15 +757,7 @@ public class H5ReferenceType extends H5Datatype {
         if (!inited)
             init();
 
-        // find the index that matches refarr and refArray
-        H5ReferenceData rf = null;
-        for (int i = 0; i < (int)refsize; i++) {
-            byte[] theref = refdata.get(i).refArray;
-            if (Arrays.equals(theref, refarr)) {
-                rf = refdata.get(i);
-                break;
-            }
-        }
+        H5ReferenceData rf = findReferenceData(refarr);
         if (rf == null)
             return null;
 
@@ -762,15 +792,7 @@ public class H5ReferenceType extends H5Datatype {
         if (!inited)
             init();
 
-        // find the index that matches refarr and refArray
-        H5ReferenceData rf = null;
-        for (int i = 0; i < (int)refsize; i++) {
-            byte[] theref = refdata.get(i).refArray;
-            if (Arrays.equals(theref, refarr)) {
-                rf = refdata.get(i);
-                break;
-            }
-        }
+        H5ReferenceData rf = findReferenceData(refarr);
         if (rf == null)
             return null;
 
@@ -809,15 +831,7 @@ public class H5ReferenceType extends H5Datatype {
         if (!inited)
             init();
 
-        // find the index that matches refarr and refArray
-        H5ReferenceData rf = null;
-        for (int i = 0; i < (int)refsize; i++) {
-            byte[] theref = refdata.get(i).refArray;
-            if (Arrays.equals(theref, refarr)) {
-                rf = refdata.get(i);
-                break;
-            }
-        }
+        H5ReferenceData rf = findReferenceData(refarr);
         if (rf == null)
             return null;
 
@@ -845,15 +859,7 @@ public class H5ReferenceType extends H5Datatype {
         if (!inited)
             init();
 
-        // find the index that matches refarr and refArray
-        H5ReferenceData rf = null;
-        for (int i = 0; i < (int)refsize; i++) {
-            byte[] theref = refdata.get(i).refArray;
-            if (Arrays.equals(theref, refarr)) {
-                rf = refdata.get(i);
-                break;
-            }
-        }
+        H5ReferenceData rf = findReferenceData(refarr);
         return rf;
     }
 
@@ -873,17 +879,7 @@ public class H5ReferenceType extends H5Datatype {
             init();
 
         log.trace("getReferenceRegion refarr {}", refarr);
-        // find the index that matches refarr and refArray
-        H5ReferenceData rf = null;
-        for (int i = 0; i < (int)refsize; i++) {
-            byte[] theref = refdata.get(i).refArray;
-            log.trace("getReferenceRegion theref {}", theref);
-            if (Arrays.equals(theref, refarr)) {
-                rf = refdata.get(i);
-                log.trace("getReferenceRegion rf {}", rf);
-                break;
-            }
-        }
+        H5ReferenceData rf = findReferenceData(refarr);
         if (rf == null)
             return null;
 
@@ -1055,5 +1051,20 @@ public class H5ReferenceType extends H5Datatype {
             refArray = new byte[(int)theTypeSize];
             System.arraycopy(theArray, 0, refArray, 0, (int)theTypeSize);
         }
+
+        /*
+         * Copies the resolved names and types of an entry holding the same reference.
+         */
+        private void copyResolved(H5ReferenceData other)
+        {
+            fileFullPath = other.fileFullPath;
+            fileName     = other.fileName;
+            objName      = other.objName;
+            attrName     = other.attrName;
+            regionType   = other.regionType;
+            regionDesc   = other.regionDesc;
+            refType      = other.refType;
+            objType      = other.objType;
+        }
     }
 }
@@ -1167,7 +1167,7 @@ public class H5ScalarAttr extends ScalarDS implements H5Attribute {
 
         long dtSize = dsDatatype.getDatatypeSize();
         log.trace("attributeCommonIO(): create native");
-        long tid = dsDatatype.createNative();
+        long tid = dsDatatype.getNative();
 
         if (ioType == H5File.IO_TYPE.READ) {
             log.trace("attributeCommonIO():read ioType isNamed={} isEnum={} isText={} isRefObj={}",
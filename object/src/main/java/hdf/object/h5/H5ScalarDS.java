@@ -19,6 +19,7 @@ import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Vector;
+import java.util.function.Consumer;
 
 import hdf.object.Attribute;
 import hdf.object.Dataset;
@@ -26,8 +27,11 @@ import hdf.object.Datatype;
 import hdf.object.FileFormat;
 import hdf.object.Group;
 import hdf.object.HObject;
+import hdf.object.HalfFloatConverter;
 import hdf.object.MetaDataContainer;
+import hdf.object.QuadFloatBuffer;
 import hdf.object.ScalarDS;
+import hdf.object.VarLenArena;
 
 import hdf.hdf5lib.H5;
 import hdf.hdf5lib.HDF5Constants;
@@ -86,6 +90,29 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
      */
     protected boolean isNativeDatatype = false;
 
+    /** the raw data chunk cache settings and statistics of this dataset. */
+    private transient H5ChunkCache chunkCache;
+
+    /** the allocated chunks of the selection of the last sparse-aware read. */
+    private transient H5AllocationMap allocationMap;
+
+    /** the allocated chunks of the whole dataset, kept between sparse-aware reads. */
+    private transient H5AllocationMap.ChunkIndex chunkIndex;
+
+    /** the number of reads of this dataset done with parallel direct chunk reads. */
+    private transient long parallelChunkReads = 0;
+
+    /** the points of a read of points or hyperslabs in progress, or null to read the current selection. */
+    private transient SpaceSelector readSelector;
+
+    /*
+     * Selects the points of a read in the file dataspace of the open dataset and creates the matching
+     * memory dataspace.
+     */
+    private interface SpaceSelector {
+        long select(long did, long[] spaceIDs) throws HDF5Exception;
+    }
+
     /**
      * Constructs an instance of a H5 scalar dataset with given file, dataset name and path.
      *
@@ -170,13 +197,31 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
         if (getFID() < 0)
             log.trace("open(): file id for:{} is invalid", getPath() + getName());
         else {
-            try {
-                did = H5.H5Dopen(getFID(), getPath() + getName(), HDF5Constants.H5P_DEFAULT);
-                log.trace("open(): did={}", did);
-            }
-            catch (HDF5Exception ex) {
-                log.debug("open(): Failed to open dataset {}", getPath() + getName(), ex);
-                did = HDF5Constants.H5I_INVALID_HID;
+            // reuse the identifier if the dataset is still open from a previous call, unless the
+            // selection needs a different chunk cache than the one it was opened with
+            H5IdPool idPool = H5IdPool.getPool(getFileFormat());
+            if (getChunkCache().configure(this) && (idPool != null))
+                idPool.remove(this);
+            if (idPool != null)
+                did = idPool.acquire(this);
+
+            if (did < 0) {
+                long dapl = HDF5Constants.H5P_DEFAULT;
+                try {
+                    dapl = getChunkCache().createAccessPlist();
+                    did  = H5.H5Dopen(getFID(), getPath() + getName(), dapl);
+                    log.trace("open(): did={}", did);
+                    getChunkCache().opened(did);
+                    if (idPool != null)
+                        idPool.add(this, did);
+                }
+                catch (HDF5Exception ex) {
+                    log.debug("open(): Failed to open dataset {}", getPath() + getName(), ex);
+                    did = HDF5Constants.H5I_INVALID_HID;
+                }
+                finally {
+                    H5ChunkCache.closePlist(dapl);
+                }
             }
         }
 
@@ -198,11 +243,18 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
             catch (Exception ex) {
                 log.debug("close(): H5Fflush(did {}) failure: ", did, ex);
             }
-            try {
-                H5.H5Dclose(did);
-            }
-            catch (HDF5Exception ex) {
-                log.debug("close(): H5Dclose(did {}) failure: ", did, ex);
+
+            // pooled identifiers stay open until they are evicted or the file is closed
+            H5IdPool idPool = H5IdPool.getPool(getFileFormat());
+            if ((idPool != null) && idPool.release(did))
+                log.trace("close(): did={} released to pool", did);
+            else {
+                try {
+                    H5.H5Dclose(did);
+                }
+                catch (HDF5Exception ex) {
+                    log.debug("close(): H5Dclose(did {}) failure: ", did, ex);
+                }
             }
         }
     }
@@ -644,12 +696,7 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
                     catch (HDF5Exception ex) {
                         log.debug("getDatatype(): H5Tclose(tid {}) failure: ", tid, ex);
                     }
-                    try {
-                        H5.H5Dclose(did);
-                    }
-                    catch (HDF5Exception ex) {
-                        log.debug("getDatatype(): H5Dclose(did {}) failure: ", did, ex);
-                    }
+                    close(did);
                 }
             }
         }
@@ -853,7 +900,19 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
             init();
 
         try {
-            readData = scalarDatasetCommonIO(H5File.IO_TYPE.READ, null);
+            allocationMap = null;
+            if ((getFileFormat() instanceof H5File) && ((H5File)getFileFormat()).isSparseRead())
+                readData = readSparse();
+            if ((readData == null) && (getFileFormat() instanceof H5File) &&
+                ((H5File)getFileFormat()).isParallelChunkRead())
+                readData = readChunksParallel();
+            if ((readData == null) && (getFileFormat() instanceof H5File) &&
+                ((H5File)getFileFormat()).isVarLenArena())
+                readData = readVarLenArena();
+            if (readData == null) {
+                readData = scalarDatasetCommonIO(H5File.IO_TYPE.READ, null);
+                getChunkCache().recordRead(this);
+            }
         }
         catch (Exception ex) {
             log.debug("read(): failed to read scalar dataset: ", ex);
@@ -863,6 +922,28 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
         return readData;
     }
 
+    /**
+     * Replaces the data buffer with the data of the current selection read by other means.
+     *
+     * As the buffer is not read by read(), the allocation map of the selection is rebuilt from the chunk
+     * index of the dataset when sparse-aware reads are enabled, and the read is counted in the chunk
+     * cache statistics of this dataset.
+     *
+     * @param buf
+     *            the buffer of the current selection, of the type returned by read(); owned by this
+     *            dataset from now on
+     */
+    @Override
+    public void loadSelectionData(Object buf)
+    {
+        super.loadSelectionData(buf);
+
+        allocationMap = null;
+        if ((getFileFormat() instanceof H5File) && ((H5File)getFileFormat()).isSparseRead())
+            allocationMap = mapAllocation();
+        getChunkCache().recordRead(this);
+    }
+
     /**
      * Writes the given data buffer into this dataset in a file.
      *
@@ -882,6 +963,7 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
             init();
 
         try {
+            chunkIndex = null;
             scalarDatasetCommonIO(H5File.IO_TYPE.WRITE, buf);
             // Clear the data cache after writing to ensure fresh reads
             clearData();
@@ -893,6 +975,251 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
         }
     }
 
+    /**
+     * Reads the values at a list of points of the dataset with one H5Dread() of an element selection.
+     *
+     * @param coords
+     *            the coordinates of the points; coords[i] holds one index per dimension of point i
+     *
+     * @return the values at the points, in the order of the points
+     *
+     * @throws Exception
+     *             if the values can not be read
+     */
+    @Override
+    public Object readPoints(long[][] coords) throws Exception
+    {
+        if (!isInited())
+            init();
+
+        if ((coords == null) || (coords.length == 0))
+            throw new IllegalArgumentException("The list of points is empty");
+        for (long[] point : coords)
+            checkRank(point, "point");
+
+        return readSelection((did, spaceIDs) -> H5Utils.selectElements(did, coords, spaceIDs));
+    }
+
+    /**
+     * Reads the values of the union of several hyperslabs of the dataset with one H5Dread().
+     *
+     * @param starts
+     *            the start of each hyperslab, one index per dimension
+     * @param strides
+     *            the stride of each hyperslab, or null for contiguous hyperslabs
+     * @param counts
+     *            the size of each hyperslab, one count per dimension
+     *
+     * @return the values of the hyperslabs, in the row-major order of the dataset
+     *
+     * @throws Exception
+     *             if the values can not be read
+     */
+    @Override
+    public Object readHyperslabs(long[][] starts, long[][] strides, long[][] counts) throws Exception
+    {
+        if (!isInited())
+            init();
+
+        if ((starts == null) || (counts == null) || (starts.length == 0) ||
+            (starts.length != counts.length) || ((strides != null) && (strides.length != starts.length)))
+            throw new IllegalArgumentException("The hyperslab starts, strides and counts do not match");
+        for (int i = 0; i < starts.length; i++) {
+            checkRank(starts[i], "hyperslab start");
+            checkRank(counts[i], "hyperslab count");
+            if ((strides != null) && (strides[i] != null))
+                checkRank(strides[i], "hyperslab stride");
+        }
+
+        return readSelection(
+            (did, spaceIDs) -> H5Utils.selectHyperslabs(did, starts, strides, counts, spaceIDs));
+    }
+
+    /*
+     * Checks that a point, or the start, stride or count of a hyperslab, has one value per dimension.
+     */
+    private void checkRank(long[] values, String what)
+    {
+        if ((values == null) || (values.length != rank))
+            throw new IllegalArgumentException("The rank of a " + what + " does not match the dataset rank");
+    }
+
+    /*
+     * Reads the points chosen by a selector instead of the current selection.
+     */
+    private Object readSelection(SpaceSelector selector) throws Exception
+    {
+        readSelector = selector;
+        try {
+            return scalarDatasetCommonIO(H5File.IO_TYPE.READ, null);
+        }
+        catch (Exception ex) {
+            log.debug("readSelection(): failed to read scalar dataset: ", ex);
+            throw new Exception("failed to read scalar dataset: " + ex.getMessage(), ex);
+        }
+        finally {
+            readSelector = null;
+        }
+    }
+
+    /*
+     * Returns the allocation map of the current selection as readSparse() builds it, or null if the
+     * dataset has no unallocated chunks. The chunk index is only read if it was not read before.
+     */
+    private H5AllocationMap mapAllocation()
+    {
+        if (!H5ChunkReader.isSupportedType((H5Datatype)getDatatype()))
+            return null;
+
+        H5AllocationMap.ChunkIndex index = chunkIndex;
+        if ((index == null) || !index.hasDims(dims)) {
+            long did = open();
+            if (did < 0)
+                return null;
+            try {
+                index      = H5AllocationMap.ChunkIndex.scan(did, dims);
+                chunkIndex = index;
+            }
+            catch (Exception ex) {
+                log.debug("mapAllocation(): failed to read the chunk index: ", ex);
+                return null;
+            }
+            finally {
+                close(did);
+            }
+        }
+
+        return index.isSparse() ? H5AllocationMap.create(this, index) : null;
+    }
+
+    /*
+     * Reads the current selection with parallel direct chunk reads. Returns null if the dataset has to
+     * be read through the HDF5 library instead.
+     */
+    private Object readChunksParallel()
+    {
+        Object theData = null;
+
+        long did = open();
+        if (did >= 0) {
+            try {
+                theData = H5ChunkReader.read(this, did, originalBuf);
+                if (theData != null)
+                    parallelChunkReads++;
+                log.trace("readChunksParallel(): parallel chunk read {}",
+                          (theData == null) ? "not applicable" : "done");
+            }
+            catch (Exception ex) {
+                log.debug("readChunksParallel(): failure, falling back to H5Dread: ", ex);
+                theData = null;
+            }
+            finally {
+                close(did);
+            }
+        }
+
+        return theData;
+    }
+
+    /*
+     * Reads the current selection of a partially allocated chunked dataset, filling the unallocated
+     * chunks with the fill value. Returns null if the dataset has to be read through the HDF5 library
+     * instead, which includes selections that are fully allocated.
+     *
+     * The chunk index of the dataset is read once and kept until a write or a change of the dimensions;
+     * a dataset without unallocated chunks is then read without opening it here.
+     */
+    private Object readSparse()
+    {
+        Object theData = null;
+
+        if (!H5ChunkReader.isSupportedType((H5Datatype)getDatatype()))
+            return null;
+
+        H5AllocationMap.ChunkIndex index = chunkIndex;
+        if ((index != null) && !index.isSparse() && index.hasDims(dims))
+            return null;
+
+        long did = open();
+        if (did >= 0) {
+            try {
+                if ((index == null) || !index.isCurrent(did, dims)) {
+                    index      = H5AllocationMap.ChunkIndex.scan(did, dims);
+                    chunkIndex = index;
+                }
+                allocationMap = H5AllocationMap.create(this, index);
+                if ((allocationMap != null) && !allocationMap.isFullyAllocated())
+                    theData = H5SparseReader.read(this, did, allocationMap, originalBuf);
+                log.trace("readSparse(): allocation map {}", allocationMap);
+            }
+            catch (Exception ex) {
+                log.debug("readSparse(): failure, falling back to H5Dread: ", ex);
+                allocationMap = null;
+                chunkIndex    = null;
+                theData       = null;
+            }
+            finally {
+                close(did);
+            }
+        }
+
+        return theData;
+    }
+
+    /*
+     * Reads the current selection of a variable-length string or sequence dataset into a VarLenArena.
+     * Returns null if the dataset has to be read through the HDF5 library instead.
+     */
+    private Object readVarLenArena()
+    {
+        Object theData = null;
+
+        if (!H5VarLenReader.isSupportedType((H5Datatype)getDatatype()))
+            return null;
+
+        long did = open();
+        if (did >= 0) {
+            try {
+                theData = H5VarLenReader.read(this, did);
+                log.trace("readVarLenArena(): {}", theData);
+            }
+            catch (Exception ex) {
+                log.debug("readVarLenArena(): failure, falling back to H5Dread: ", ex);
+                theData = null;
+            }
+            finally {
+                close(did);
+            }
+        }
+
+        return theData;
+    }
+
+    /*
+     * Reads the selected float16 or bfloat16 values in their stored format, only swapping their bytes
+     * if needed, and widens them to float with HalfFloatConverter.
+     */
+    private void readHalfFloat(long did, long mspace, long fspace, int format, float[] buf) throws Exception
+    {
+        long ftid   = HDF5Constants.H5I_INVALID_HID;
+        long mtid   = HDF5Constants.H5I_INVALID_HID;
+        short[] raw = new short[buf.length];
+        try {
+            ftid = H5.H5Dget_type(did);
+            mtid = H5.H5Tcopy(ftid);
+            H5.H5Tset_order(mtid, H5.H5Tget_order(HDF5Constants.H5T_NATIVE_SHORT));
+
+            log.trace("readHalfFloat(): H5Dread did={} mtid={} format={}", did, mtid, format);
+            H5.H5Dread(did, mtid, mspace, fspace, HDF5Constants.H5P_DEFAULT, raw);
+        }
+        finally {
+            getDatatype().close(ftid);
+            getDatatype().close(mtid);
+        }
+
+        HalfFloatConverter.toFloat(raw, 0, buf, 0, buf.length, format);
+    }
+
     private Object scalarDatasetCommonIO(H5File.IO_TYPE ioType, Object writeBuf) throws Exception
     {
         H5Datatype dsDatatype     = (H5Datatype)getDatatype();
@@ -920,10 +1247,14 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
             try {
                 /*
                  * NOTE: this call sets up a hyperslab selection in the file according to the
-                 * current selection in the dataset object.
+                 * current selection in the dataset object, unless points or hyperslabs are read.
                  */
-                long totalSelectedSpacePoints = H5Utils.getTotalSelectedSpacePoints(
-                    did, dims, startDims, selectedStride, selectedDims, spaceIDs);
+                long totalSelectedSpacePoints;
+                if (readSelector != null)
+                    totalSelectedSpacePoints = readSelector.select(did, spaceIDs);
+                else
+                    totalSelectedSpacePoints = H5Utils.getTotalSelectedSpacePoints(
+                        did, dims, startDims, selectedStride, selectedDims, spaceIDs);
 
                 if (ioType == H5File.IO_TYPE.READ) {
                     log.trace(
@@ -944,7 +1275,8 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
                         for (int j = 0; j < (int)totalSelectedSpacePoints; j++)
                             ((ArrayList[])theData)[j] = new ArrayList<byte[]>();
                     }
-                    else if ((originalBuf == null) || dsDatatype.isEnum() || dsDatatype.isText() ||
+                    else if ((originalBuf == null) || (readSelector != null) || dsDatatype.isEnum() ||
+                             dsDatatype.isText() ||
                              dsDatatype.isRefObj() ||
                              ((originalBuf != null) && (totalSelectedSpacePoints != nPoints))) {
                         log.trace("scalarDatasetCommonIO(): allocating buffer for {} with {} points",
@@ -962,6 +1294,8 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
                         log.trace(
                             "scalarDatasetCommonIO():read ioType reuse the buffer if the size is the same");
                         theData = originalBuf;
+                        if (theData instanceof QuadFloatBuffer)
+                            theData = ((QuadFloatBuffer)theData).getBytes();
                     }
 
                     if (theData != null) {
@@ -971,7 +1305,7 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
                         long tid = HDF5Constants.H5I_INVALID_HID;
                         try {
                             log.trace("scalarDatasetCommonIO():read ioType create native");
-                            tid = dsDatatype.createNative();
+                            tid = dsDatatype.getNative();
                             log.trace("scalarDatasetCommonIO(): native type created tid={}", tid);
 
                             if (dsDatatype.isVarStr()) {
@@ -1006,6 +1340,14 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
                                 H5.H5DreadVL(did, tid, spaceIDs[0], spaceIDs[1], HDF5Constants.H5P_DEFAULT,
                                              (Object[])theData);
                             }
+                            else if ((dsDatatype.getHalfFloatFormat() >= 0) && (theData instanceof float[]) &&
+                                     (getFileFormat() instanceof H5File) &&
+                                     ((H5File)getFileFormat()).isHalfFloatConversion()) {
+                                // read the 16-bit values as stored and widen them in bulk instead of
+                                // letting the library convert them one by one
+                                readHalfFloat(did, spaceIDs[0], spaceIDs[1], dsDatatype.getHalfFloatFormat(),
+                                              (float[])theData);
+                            }
                             else {
                                 log.trace(
                                     "scalarDatasetCommonIO(): H5Dread did={} tid={} spaceIDs[0]={} spaceIDs[1]={}",
@@ -1039,9 +1381,18 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
                             theData = byteToString((byte[])theData, (int)dsDatatype.getDatatypeSize());
                         }
                         else if (dsDatatype.isFloat() && dsDatatype.getDatatypeSize() == 16) {
-                            log.trace("scalarDatasetCommonIO(): isFloat: byte array to BigDecimal array");
-                            theData = dsDatatype.byteToBigDecimal(0, (int)totalSelectedSpacePoints,
-                                                                  (byte[])theData);
+                            // keep the raw values and decode them on access
+                            QuadFloatBuffer.Format format = dsDatatype.getQuadFloatFormat();
+                            if ((format != null) && (((byte[])theData).length ==
+                                                     totalSelectedSpacePoints * format.getSize())) {
+                                log.trace("scalarDatasetCommonIO(): isFloat: byte array to QuadFloatBuffer");
+                                theData = new QuadFloatBuffer((byte[])theData, format);
+                            }
+                            else {
+                                log.trace("scalarDatasetCommonIO(): isFloat: byte array to BigDecimal array");
+                                theData = dsDatatype.byteToBigDecimal(0, (int)totalSelectedSpacePoints,
+                                                                      (byte[])theData);
+                            }
                         }
                         else if (dsDatatype.isArray() && dsDatatype.getDatatypeBase().isFloat() &&
                                  dsDatatype.getDatatypeBase().getDatatypeSize() == 16) {
@@ -1093,7 +1444,11 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
                              ((tsize == 4) && (dname == 'J')) ||
                              (dsDatatype.isUnsigned() && unsignedConverted));
 
-                        if (doIntConversion) {
+                        if (writeBuf instanceof VarLenArena) {
+                            log.trace("scalarDatasetCommonIO(): VarLenArena to object array");
+                            tmpData = ((VarLenArena)writeBuf).toArray();
+                        }
+                        else if (doIntConversion) {
                             log.trace("scalarDatasetCommonIO(): integer data to unsigned C-type integers");
                             tmpData = convertToUnsignedC(writeBuf, null);
                         }
@@ -1106,6 +1461,10 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
                             log.trace("scalarDatasetCommonIO(): enum names to values");
                             tmpData = dsDatatype.convertEnumNameToValue((String[])writeBuf);
                         }
+                        else if (writeBuf instanceof QuadFloatBuffer) {
+                            log.trace("scalarDatasetCommonIO(): isFloat: QuadFloatBuffer to byte array");
+                            tmpData = ((QuadFloatBuffer)writeBuf).getBytes();
+                        }
                         else if (dsDatatype.isFloat() && dsDatatype.getDatatypeSize() == 16) {
                             log.trace("scalarDatasetCommonIO(): isFloat: BigDecimal array to byte array");
                             throw new Exception("data conversion failure: cannot write BigDecimal values");
@@ -1123,7 +1482,7 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
                      */
                     long tid = HDF5Constants.H5I_INVALID_HID;
                     try {
-                        tid = dsDatatype.createNative();
+                        tid = dsDatatype.getNative();
 
                         if (dsDatatype.isVarStr()) {
                             log.trace(
@@ -1733,6 +2092,16 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
      */
     public static Dataset create(String name, Group pgroup, Datatype type, long[] dims, long[] maxdims,
                                  long[] chunks, int gzip, Object fillValue, Object data) throws Exception
+    {
+        return create(name, pgroup, type, dims, maxdims, chunks, gzip, false, fillValue, data);
+    }
+
+    /*
+     * Creates a scalar dataset, applying the shuffle filter before GZIP compression if requested.
+     */
+    static Dataset create(String name, Group pgroup, Datatype type, long[] dims, long[] maxdims,
+                          long[] chunks, int gzip, boolean shuffle, Object fillValue, Object data)
+        throws Exception
     {
         H5ScalarDS dataset = null;
         String fullPath    = null;
@@ -1808,7 +2177,11 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
                 }
                 log.trace("create(): parseFillValue={}", valFill);
 
-                if (chunks != null || valFill != null) {
+                if ((chunks != null) && (valFill == null)) {
+                    // without a fill value the chunked layouts of the same settings share one list
+                    plist = file.getHandlePool().acquireChunkedDcpl(chunks, shuffle, gzip);
+                }
+                else if (chunks != null || valFill != null) {
                     plist = H5.H5Pcreate(HDF5Constants.H5P_DATASET_CREATE);
 
                     if (chunks != null) {
@@ -1817,6 +2190,8 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
 
                         // compression requires chunking
                         if (gzip > 0) {
+                            if (shuffle)
+                                H5.H5Pset_shuffle(plist);
                             H5.H5Pset_deflate(plist, gzip);
                         }
                     }
@@ -1834,12 +2209,7 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
                 dataset = new H5ScalarDS(file, name, path);
             }
             finally {
-                try {
-                    H5.H5Pclose(plist);
-                }
-                catch (HDF5Exception ex) {
-                    log.debug("create(): H5Pclose(plist {}) failure: ", plist, ex);
-                }
+                H5HandlePool.release(file, plist);
                 try {
                     H5.H5Sclose(sid);
                 }
@@ -2158,12 +2528,7 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
                         H5File.copyAttributes(srcdid, dstdid);
                     }
                     finally {
-                        try {
-                            H5.H5Dclose(dstdid);
-                        }
-                        catch (Exception ex) {
-                            log.debug("copy(): H5Dclose(dstdid {}) failure: ", dstdid, ex);
-                        }
+                        dataset.close(dstdid);
                     }
                 }
             }
@@ -2186,12 +2551,7 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
                 catch (Exception ex) {
                     log.debug("copy(): H5Tclose(tid {}) failure: ", tid, ex);
                 }
-                try {
-                    H5.H5Dclose(srcdid);
-                }
-                catch (Exception ex) {
-                    log.debug("copy(): H5Dclose(srcdid {}) failure: ", srcdid, ex);
-                }
+                close(srcdid);
             }
         }
 
@@ -2583,39 +2943,27 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
      */
     public void extend(long[] newDims) throws HDF5Exception
     {
-        long did = HDF5Constants.H5I_INVALID_HID;
-        long sid = HDF5Constants.H5I_INVALID_HID;
-
-        did = open();
+        long did = open();
         if (did >= 0) {
             try {
-                H5.H5Dset_extent(did, newDims);
-                H5.H5Fflush(did, HDF5Constants.H5F_SCOPE_GLOBAL);
-                sid              = H5.H5Dget_space(did);
-                long[] checkDims = new long[rank];
-                H5.H5Sget_simple_extent_dims(sid, checkDims, null);
-                log.trace("extend(): rank={}, checkDims={}", rank, checkDims);
-                for (int i = 0; i < rank; i++) {
-                    if (checkDims[i] != newDims[i]) {
-                        log.debug("extend(): error extending dataset");
-                        throw new HDF5Exception("error extending dataset " + getName());
-                    }
-                }
-                dims = checkDims;
-            }
-            catch (Exception e) {
-                log.debug("extend(): failure: ", e);
-                throw new HDF5Exception(e.getMessage());
+                extend(did, newDims, true);
             }
             finally {
-                if (sid > 0)
-                    H5.H5Sclose(sid);
-
                 close(did);
             }
         }
     }
 
+    /*
+     * Changes the dimensions of an open dataset, optionally flushing the file, and updates the
+     * dimensions of this object.
+     */
+    void extend(long did, long[] newDims, boolean flush) throws HDF5Exception
+    {
+        chunkIndex = null;
+        dims       = H5Utils.setExtent(did, newDims, flush, getName());
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -2655,6 +3003,80 @@ public class H5ScalarDS extends ScalarDS implements MetaDataContainer {
             return -1;
     }
 
+    /**
+     * Returns the raw data chunk cache settings of this dataset and the estimated hits and misses of
+     * the reads done through it.
+     *
+     * @return the chunk cache of this dataset
+     *
+     * @see H5File#setChunkCacheTuning(boolean)
+     */
+    public synchronized H5ChunkCache getChunkCache()
+    {
+        if (chunkCache == null)
+            chunkCache = new H5ChunkCache();
+        return chunkCache;
+    }
+
+    /**
+     * Returns the number of reads of this dataset which were done with parallel direct chunk reads
+     * instead of through the HDF5 library.
+     *
+     * @return the number of parallel chunk reads
+     *
+     * @see H5File#setParallelChunkRead(boolean)
+     */
+    public long getParallelChunkReadCount() { return parallelChunkReads; }
+
+    /**
+     * Returns which chunks of the selection were allocated when the dataset was last read with
+     * sparse-aware reads enabled. Views can use the map to show the points which only hold the fill
+     * value differently.
+     *
+     * @return the allocation map of the last read, or null if the last read was not sparse-aware or
+     *         the dataset is not chunked
+     *
+     * @see H5File#setSparseRead(boolean)
+     */
+    public H5AllocationMap getAllocationMap() { return allocationMap; }
+
+    /*
+     * Forgets the allocated chunks of this dataset read by an earlier sparse-aware read, after data was
+     * written to the dataset by other means than write(Object).
+     */
+    void invalidateChunkIndex() { chunkIndex = null; }
+
+    /**
+     * Visits the allocated chunks of this dataset in a single pass over the chunk index, without
+     * reading any data. Unallocated chunks are not visited.
+     *
+     * @param action
+     *            the action to perform on each allocated chunk
+     *
+     * @return the number of allocated chunks, or zero if the dataset is not chunked
+     *
+     * @throws HDF5Exception
+     *             if the dataset can not be opened or the chunk index can not be read
+     */
+    public long forEachChunk(Consumer<H5ChunkMap.Chunk> action) throws HDF5Exception
+    {
+        return H5ChunkMap.forEachChunk(this, action);
+    }
+
+    /**
+     * Returns the number of allocated chunks of this dataset and the distribution of their
+     * compression ratios, without reading any data.
+     *
+     * @return the chunk map, or null if the dataset is not chunked
+     *
+     * @throws HDF5Exception
+     *             if the dataset can not be opened or the chunk index can not be read
+     */
+    public H5ChunkMap getChunkMap() throws HDF5Exception
+    {
+        return H5ChunkMap.getChunkMap(this);
+    }
+
     /*
      * (non-Javadoc)
      *
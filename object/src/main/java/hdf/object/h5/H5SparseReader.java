@@ -0,0 +1,165 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object.h5;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+import hdf.hdf5lib.H5;
+import hdf.hdf5lib.HDF5Constants;
+import hdf.hdf5lib.exceptions.HDF5Exception;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the current selection of a partially allocated chunked dataset.
+ *
+ * When H5Dread reads a selection which covers unallocated chunks, the library produces the fill
+ * value for every point of those chunks. This reader fills the whole selection with the fill value
+ * in Java instead, and reads only the parts of the selection which lie in allocated chunks, with a
+ * single H5Dread over the union of those parts.
+ *
+ * Only numeric datasets are handled. In all other cases read() returns null and the caller reads the
+ * data through the HDF5 library instead.
+ */
+final class H5SparseReader {
+    private static final Logger log = LoggerFactory.getLogger(H5SparseReader.class);
+
+    private H5SparseReader() { throw new IllegalStateException("Utility class"); }
+
+    /**
+     * Reads the current selection of a dataset.
+     *
+     * @param dataset
+     *            the dataset to read
+     * @param did
+     *            the open identifier of the dataset
+     * @param map
+     *            the allocation map of the selection
+     * @param buf
+     *            a buffer of the right type and size to reuse, or null
+     *
+     * @return the data of the selection in the same form as H5ScalarDS.read(), or null if the dataset
+     *         can not be read by this reader
+     *
+     * @throws Exception
+     *             if the allocated parts of the selection can not be read
+     */
+    static Object read(H5ScalarDS dataset, long did, H5AllocationMap map, Object buf) throws Exception
+    {
+        H5Datatype dtype = (H5Datatype)dataset.getDatatype();
+        if (!H5ChunkReader.isSupportedType(dtype))
+            return null;
+
+        int rank      = dataset.getRank();
+        long[] start  = dataset.getStartDims();
+        long[] count  = dataset.getSelectedDims();
+        long[] stride = new long[rank];
+        long nPoints  = 1;
+        for (int i = 0; i < rank; i++) {
+            stride[i] = (dataset.getStride() == null) ? 1 : dataset.getStride()[i];
+            nPoints *= count[i];
+        }
+        if (nPoints > Integer.MAX_VALUE)
+            return null;
+
+        Object data = buf;
+        if ((data == null) || (Array.getLength(data) != nPoints))
+            data = H5Datatype.allocateArray(dtype, (int)nPoints);
+        if (data == null)
+            return null;
+
+        fill(data, dataset.getFillValue(), data != buf);
+        if (map.getAllocatedBlocks() == 0)
+            return data;
+
+        long fspace = HDF5Constants.H5I_INVALID_HID;
+        long mspace = HDF5Constants.H5I_INVALID_HID;
+        long tid    = HDF5Constants.H5I_INVALID_HID;
+        try {
+            fspace = H5.H5Dget_space(did);
+            mspace = H5.H5Screate_simple(rank, count, null);
+            H5.H5Sselect_none(fspace);
+            H5.H5Sselect_none(mspace);
+
+            // both unions are traversed in row-major order, so the points of each block line up
+            final long fsid = fspace;
+            final long msid = mspace;
+            map.forEachAllocatedBlock(block -> {
+                long[] first     = block[0];
+                long[] size      = block[1];
+                long[] fileStart = new long[rank];
+                for (int i = 0; i < rank; i++)
+                    fileStart[i] = start[i] + first[i] * stride[i];
+                try {
+                    H5.H5Sselect_hyperslab(fsid, HDF5Constants.H5S_SELECT_OR, fileStart, stride, size, null);
+                    H5.H5Sselect_hyperslab(msid, HDF5Constants.H5S_SELECT_OR, first, null, size, null);
+                }
+                catch (HDF5Exception ex) {
+                    throw new IllegalStateException("failed to select block: " + ex.getMessage(), ex);
+                }
+            });
+
+            tid = dtype.getNative();
+            log.trace("read(): H5Dread did={} tid={} allocated={}", did, tid, map);
+            H5.H5Dread(did, tid, mspace, fspace, HDF5Constants.H5P_DEFAULT, data);
+        }
+        finally {
+            try {
+                H5.H5Sclose(fspace);
+            }
+            catch (Exception ex) {
+                log.debug("read(): H5Sclose(fspace {}) failure: ", fspace, ex);
+            }
+            try {
+                H5.H5Sclose(mspace);
+            }
+            catch (Exception ex) {
+                log.debug("read(): H5Sclose(mspace {}) failure: ", mspace, ex);
+            }
+            dtype.close(tid);
+        }
+
+        return data;
+    }
+
+    /*
+     * Fills a numeric array with the fill value of the dataset, converted to the element type of the
+     * array so that unsigned fill values keep their bit pattern. A new array is already zero.
+     */
+    private static void fill(Object data, Object fillValue, boolean isNew)
+    {
+        Number value = 0;
+        if ((fillValue != null) && fillValue.getClass().isArray() && (Array.getLength(fillValue) > 0) &&
+            (Array.get(fillValue, 0) instanceof Number))
+            value = (Number)Array.get(fillValue, 0);
+        if (isNew && (Double.doubleToRawLongBits(value.doubleValue()) == 0))
+            return;
+
+        if (data instanceof byte[])
+            Arrays.fill((byte[])data, value.byteValue());
+        else if (data instanceof short[])
+            Arrays.fill((short[])data, value.shortValue());
+        else if (data instanceof int[])
+            Arrays.fill((int[])data, value.intValue());
+        else if (data instanceof long[])
+            Arrays.fill((long[])data, value.longValue());
+        else if (data instanceof float[])
+            Arrays.fill((float[])data, value.floatValue());
+        else if (data instanceof double[])
+            Arrays.fill((double[])data, value.doubleValue());
+    }
+}
@@ -0,0 +1,375 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object.h5;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import hdf.object.Dataset;
+import hdf.object.HObject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Saves the object tree of an HDF5 file to a sidecar file and restores it when the file is opened again.
+ *
+ * Loading the structure of a file with many objects walks every group with H5Gget_obj_info_full(), and
+ * creates a reference to and opens every dataset to find its kind. The sidecar keeps, for every object,
+ * its name, kind and object ID in a compact binary format, so that the next open of the same file
+ * builds the tree from the sidecar without touching the groups and datasets.
+ *
+ * The sidecars are kept in the directory set by H5File.setStructureCacheDirectory(File), one per file.
+ * A sidecar is used only if the path, length and modification time of the file, the object ID of its
+ * root group and the member loading settings of the H5File are the same as when it was saved;
+ * otherwise the structure is loaded from the file and the sidecar is replaced. Files loaded on demand
+ * are not cached, since their tree is never complete.
+ *
+ * Each save prunes the directory: sidecars not used for MAX_AGE_MILLIS are deleted, and then the least
+ * recently used ones until the sidecars take no more than MAX_CACHE_BYTES.
+ */
+final class H5StructureCache {
+    private static final Logger log = LoggerFactory.getLogger(H5StructureCache.class);
+
+    /** The first bytes of a sidecar, "H5SC". */
+    private static final int MAGIC = 0x48355343;
+
+    /** The version of the sidecar format. */
+    private static final int VERSION = 1;
+
+    /** The extension of the sidecar files. */
+    static final String SUFFIX = ".h5sc";
+
+    /** The maximum number of bytes of all sidecars in the cache directory. */
+    static final long MAX_CACHE_BYTES = 64L * 1024 * 1024;
+
+    /** The time after which a sidecar which has not been used is deleted. */
+    static final long MAX_AGE_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    private static final byte KIND_GROUP    = 1;
+    private static final byte KIND_SCALAR   = 2;
+    private static final byte KIND_COMPOUND = 3;
+    private static final byte KIND_DATATYPE = 4;
+    private static final byte KIND_LINK     = 5;
+
+    /** An object read from a sidecar, before the tree is built. */
+    private static final class Entry {
+        final byte kind;
+        final String name;
+        final long[] oid;
+        final List<Entry> members = new ArrayList<>();
+
+        Entry(byte kind, String name, long[] oid)
+        {
+            this.kind = kind;
+            this.name = name;
+            this.oid  = oid;
+        }
+    }
+
+    private H5StructureCache() {}
+
+    /**
+     * Returns the sidecar of a file.
+     *
+     * @param file
+     *            the file
+     *
+     * @return the sidecar in the structure cache directory of the file, or null if caching is disabled
+     */
+    static File getSidecar(H5File file)
+    {
+        File dir = file.getStructureCacheDirectory();
+        if ((dir == null) || file.isLoadOnDemand())
+            return null;
+
+        String path = new File(file.getFilePath()).getAbsolutePath();
+        return new File(dir, file.getName() + "-" + Integer.toHexString(path.hashCode()) + SUFFIX);
+    }
+
+    /**
+     * Adds the members saved in the sidecar of a file to its root group.
+     *
+     * @param file
+     *            the open file
+     * @param root
+     *            the empty root group of the file
+     *
+     * @return true if the tree was restored; false if there is no valid sidecar and the structure has to
+     *         be loaded from the file
+     */
+    static boolean load(H5File file, H5Group root)
+    {
+        File sidecar = getSidecar(file);
+        if ((sidecar == null) || !sidecar.isFile())
+            return false;
+
+        Entry rootEntry = null;
+        try (DataInputStream in =
+                 new DataInputStream(new BufferedInputStream(new FileInputStream(sidecar), 1 << 16))) {
+            if ((in.readInt() != MAGIC) || (in.readInt() != VERSION))
+                return false;
+            if (!in.readUTF().equals(getKey(file, root))) {
+                log.trace("load(): {} is out of date", sidecar);
+                return false;
+            }
+            rootEntry = readMembers(in, new Entry(KIND_GROUP, null, root.getOID()));
+        }
+        catch (IOException ex) {
+            log.debug("load(): {} failure: ", sidecar, ex);
+            return false;
+        }
+
+        addMembers(file, root, rootEntry);
+        log.trace("load(): {} restored from {}", file.getFilePath(), sidecar);
+
+        // the modification time of a sidecar is the time it was last used, for prune()
+        if (!sidecar.setLastModified(System.currentTimeMillis()))
+            log.trace("load(): {} could not be touched", sidecar);
+
+        return true;
+    }
+
+    /**
+     * Saves the tree of a file to its sidecar. Failures are logged and leave the cache without a sidecar
+     * for the file.
+     *
+     * @param file
+     *            the open file
+     * @param root
+     *            the root group of the file, with all members loaded
+     */
+    static void save(H5File file, H5Group root)
+    {
+        File sidecar = getSidecar(file);
+        if (sidecar == null)
+            return;
+
+        File dir = sidecar.getParentFile();
+        File tmp = null;
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs())
+                throw new IOException("cannot create " + dir);
+
+            tmp = File.createTempFile(sidecar.getName(), ".tmp", dir);
+            try (DataOutputStream out =
+                     new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(getKey(file, root));
+                writeMembers(out, root);
+            }
+            // replace the sidecar at once so that a concurrent load never sees half of it
+            Files.move(tmp.toPath(), sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+            log.trace("save(): {} saved to {}", file.getFilePath(), sidecar);
+        }
+        catch (Exception ex) {
+            log.debug("save(): {} failure: ", sidecar, ex);
+            if (tmp != null)
+                tmp.delete();
+        }
+
+        prune(dir, sidecar);
+    }
+
+    /*
+     * Deletes the sidecars, and the temporary files of interrupted saves, which are older than
+     * MAX_AGE_MILLIS, then the least recently used sidecars until the rest fit in MAX_CACHE_BYTES. The
+     * sidecar just saved is kept.
+     */
+    private static void prune(File dir, File keep)
+    {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SUFFIX) || name.endsWith(".tmp"));
+        if (files == null)
+            return;
+
+        long now   = System.currentTimeMillis();
+        long total = keep.length();
+
+        List<File> sidecars = new ArrayList<>();
+        for (File f : files) {
+            if (!f.isFile() || !f.getName().contains(SUFFIX) || f.equals(keep))
+                continue;
+            if (now - f.lastModified() > MAX_AGE_MILLIS)
+                delete(f);
+            else if (f.getName().endsWith(SUFFIX)) {
+                sidecars.add(f);
+                total += f.length();
+            }
+        }
+
+        // most recently used first, so that the oldest are dropped from the end
+        sidecars.sort(Comparator.comparingLong(File::lastModified).reversed());
+        for (int i = sidecars.size() - 1; (i >= 0) && (total > MAX_CACHE_BYTES); i--) {
+            total -= sidecars.get(i).length();
+            delete(sidecars.get(i));
+        }
+    }
+
+    /*
+     * Deletes a file of the cache directory, logging failures.
+     */
+    private static void delete(File f)
+    {
+        if (f.delete())
+            log.trace("prune(): {} deleted", f);
+        else
+            log.debug("prune(): {} could not be deleted", f);
+    }
+
+    /*
+     * Returns the key identifying the file and the settings its tree was loaded with: the absolute
+     * path, length and modification time of the file, the index type and order, the start and maximum
+     * members, and the object ID of the root group.
+     */
+    private static String getKey(H5File file, H5Group root)
+    {
+        File f = new File(file.getFilePath());
+
+        return f.getAbsolutePath() + "|" + f.length() + "|" + f.lastModified() + "|" + file.getIndexType() +
+            "|" + file.getIndexOrder() + "|" + file.getStartMembers() + "|" + file.getMaxMembers() + "|" +
+            Arrays.toString(root.getOID());
+    }
+
+    /*
+     * Writes the members of a group, and recursively those of its subgroups which are not loops.
+     */
+    private static void writeMembers(DataOutputStream out, H5Group group) throws IOException
+    {
+        List<HObject> members = group.getMemberList();
+        out.writeInt(members.size());
+        for (HObject obj : members) {
+            out.writeByte(getKind(obj));
+            out.writeUTF(obj.getName());
+
+            long[] oid = obj.getOID();
+            out.writeInt((oid == null) ? -1 : oid.length);
+            if (oid != null) {
+                for (long id : oid)
+                    out.writeLong(id);
+            }
+
+            if ((obj instanceof H5Group) && !hasLoop(group, oid))
+                writeMembers(out, (H5Group)obj);
+        }
+    }
+
+    /*
+     * Reads the members of a group written by writeMembers() into its entry.
+     */
+    private static Entry readMembers(DataInputStream in, Entry group) throws IOException
+    {
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            byte kind   = in.readByte();
+            String name = in.readUTF();
+
+            int len    = in.readInt();
+            long[] oid = (len < 0) ? null : new long[len];
+            for (int j = 0; j < len; j++)
+                oid[j] = in.readLong();
+
+            Entry member = new Entry(kind, name, oid);
+            group.members.add(member);
+            if (kind == KIND_GROUP)
+                readMembers(in, member);
+        }
+
+        return group;
+    }
+
+    /*
+     * Creates the objects of the members of an entry and adds them to the group, as depth_first() does
+     * when it loads the structure from the file.
+     */
+    @SuppressWarnings("deprecation")
+    private static void addMembers(H5File file, H5Group group, Entry entry)
+    {
+        String path = (group.getPath() == null) ? HObject.SEPARATOR
+                                                : group.getPath() + group.getName() + HObject.SEPARATOR;
+        for (Entry member : entry.members) {
+            HObject obj;
+            switch (member.kind) {
+                case KIND_GROUP:
+                    H5Group g = new H5Group(file, member.name, path, group, member.oid);
+                    group.addToMemberList(g);
+                    if (hasLoop(group, member.oid))
+                        g.setMemberListLoaded(true);
+                    else
+                        addMembers(file, g, member);
+                    continue;
+                case KIND_SCALAR:
+                    obj = new H5ScalarDS(file, member.name, path, member.oid);
+                    break;
+                case KIND_COMPOUND:
+                    obj = new H5CompoundDS(file, member.name, path, member.oid);
+                    break;
+                case KIND_DATATYPE:
+                    obj = new H5Datatype(file, member.name, path, member.oid);
+                    break;
+                default:
+                    obj = new H5Link(file, member.name, path, member.oid);
+                    break;
+            }
+            group.addToMemberList(obj);
+        }
+    }
+
+    /*
+     * Returns the kind of a member saved in the sidecar.
+     */
+    private static byte getKind(HObject obj)
+    {
+        if (obj instanceof H5Group)
+            return KIND_GROUP;
+        if (obj instanceof H5CompoundDS)
+            return KIND_COMPOUND;
+        if (obj instanceof Dataset)
+            return KIND_SCALAR;
+        if (obj instanceof H5Datatype)
+            return KIND_DATATYPE;
+
+        return KIND_LINK;
+    }
+
+    /*
+     * Checks if a subgroup with the given object ID is the group itself or one of its ancestors, in
+     * the same way as depth_first() detects loops.
+     */
+    private static boolean hasLoop(H5Group group, long[] oid)
+    {
+        H5Group tmpObj = group;
+        while (tmpObj != null) {
+            if (tmpObj.equalsOID(oid) && (tmpObj.getPath() != null))
+                return true;
+            tmpObj = (H5Group)tmpObj.getParent();
+        }
+
+        return false;
+    }
+}
@@ -156,4 +156,138 @@ public final class H5Utils {
 
         return totalSelectedSpacePoints;
     }
+
+    /**
+     * Set up a selection of a list of points within a dataset. The points are read into a
+     * one-dimensional memory space in the order of the list.
+     *
+     * @param did
+     *            IN dataset ID
+     * @param coords
+     *            IN coordinates of the points -- coords[i] holds one index per dimension
+     * @param spaceIDs
+     *            IN/OUT memory and file space IDs -- spaceIDs[0]=mspace, spaceIDs[1]=fspace
+     *
+     * @return total number of data points selected
+     *
+     * @throws HDF5Exception
+     *             If there is an error at the HDF5 library level.
+     */
+    public static long selectElements(long did, long[][] coords, long[] spaceIDs) throws HDF5Exception
+    {
+        long npoints = checkSelectedPoints((coords == null) ? 0 : coords.length);
+
+        spaceIDs[1] = H5.H5Dget_space(did);
+        H5.H5Sselect_elements(spaceIDs[1], HDF5Constants.H5S_SELECT_SET, (int)npoints, coords);
+        spaceIDs[0] = H5.H5Screate_simple(1, new long[] {npoints}, null);
+
+        log.trace("selectElements(): selected {} points in dataset's dataspace", npoints);
+
+        return npoints;
+    }
+
+    /**
+     * Set up a selection of the union of several hyperslabs within a dataset. The points are read
+     * into a one-dimensional memory space in the row-major order of the dataset; points in more than
+     * one hyperslab are read once.
+     *
+     * @param did
+     *            IN dataset ID
+     * @param starts
+     *            IN start dimensions of each hyperslab
+     * @param strides
+     *            IN stride values of each hyperslab, or null for contiguous hyperslabs
+     * @param counts
+     *            IN selected dimensions of each hyperslab
+     * @param spaceIDs
+     *            IN/OUT memory and file space IDs -- spaceIDs[0]=mspace, spaceIDs[1]=fspace
+     *
+     * @return total number of data points selected
+     *
+     * @throws HDF5Exception
+     *             If there is an error at the HDF5 library level.
+     */
+    public static long selectHyperslabs(long did, long[][] starts, long[][] strides, long[][] counts,
+                                        long[] spaceIDs) throws HDF5Exception
+    {
+        spaceIDs[1] = H5.H5Dget_space(did);
+        for (int i = 0; i < starts.length; i++) {
+            int op = (i == 0) ? HDF5Constants.H5S_SELECT_SET : HDF5Constants.H5S_SELECT_OR;
+            H5.H5Sselect_hyperslab(spaceIDs[1], op, starts[i], (strides == null) ? null : strides[i],
+                                   counts[i], null);
+        }
+
+        long npoints = checkSelectedPoints(H5.H5Sget_select_npoints(spaceIDs[1]));
+        spaceIDs[0]  = H5.H5Screate_simple(1, new long[] {npoints}, null);
+
+        log.trace("selectHyperslabs(): selected {} points of {} hyperslabs in dataset's dataspace", npoints,
+                  starts.length);
+
+        return npoints;
+    }
+
+    /**
+     * Changes the dimensions of an open dataset with H5Dset_extent and checks the new dimensions of its
+     * dataspace. This is shared by H5ScalarDS and H5CompoundDS, which keep the returned dimensions.
+     *
+     * @param did
+     *            IN dataset ID
+     * @param newDims
+     *            IN the dimension target size
+     * @param flush
+     *            IN true to flush the file after changing the dimensions
+     * @param name
+     *            IN the name of the dataset, for the error message
+     *
+     * @return the new dimensions of the dataset
+     *
+     * @throws HDF5Exception
+     *             If there is an error at the HDF5 library level or the dataset was not extended.
+     */
+    static long[] setExtent(long did, long[] newDims, boolean flush, String name) throws HDF5Exception
+    {
+        long sid = HDF5Constants.H5I_INVALID_HID;
+        try {
+            H5.H5Dset_extent(did, newDims);
+            if (flush)
+                H5.H5Fflush(did, HDF5Constants.H5F_SCOPE_GLOBAL);
+            sid              = H5.H5Dget_space(did);
+            long[] checkDims = new long[newDims.length];
+            H5.H5Sget_simple_extent_dims(sid, checkDims, null);
+            log.trace("setExtent(): rank={}, checkDims={}", newDims.length, checkDims);
+            for (int i = 0; i < newDims.length; i++) {
+                if (checkDims[i] != newDims[i]) {
+                    log.debug("setExtent(): error extending dataset");
+                    throw new HDF5Exception("error extending dataset " + name);
+                }
+            }
+            return checkDims;
+        }
+        catch (Exception e) {
+            log.debug("setExtent(): failure: ", e);
+            throw new HDF5Exception(e.getMessage());
+        }
+        finally {
+            if (sid > 0)
+                H5.H5Sclose(sid);
+        }
+    }
+
+    /*
+     * Checks that a selection is not empty and fits in a Java array.
+     */
+    private static long checkSelectedPoints(long npoints) throws HDF5Exception
+    {
+        if (npoints <= 0) {
+            log.debug("checkSelectedPoints(): No data to read. Selection is empty.");
+            throw new HDF5Exception("No data to read.\nThe selection is empty.");
+        }
+
+        if (npoints > Integer.MAX_VALUE) {
+            log.debug("checkSelectedPoints(): npoints outside valid Java int range; unsafe cast");
+            throw new HDF5Exception("Invalid int size");
+        }
+
+        return npoints;
+    }
 }
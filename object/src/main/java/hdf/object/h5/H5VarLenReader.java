@@ -0,0 +1,160 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the COPYING file, which can be found  *
+ * at the root of the source code distribution tree,                         *
+ * or in https://www.hdfgroup.org/licenses.                                  *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object.h5;
+
+import java.util.ArrayList;
+
+import hdf.object.Datatype;
+import hdf.object.VarLenArena;
+
+import hdf.hdf5lib.H5;
+import hdf.hdf5lib.HDF5Constants;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the current selection of a variable-length string or numeric sequence dataset into a
+ * VarLenArena.
+ *
+ * The HDF5 library can only return variable-length data as one Java object per element. The
+ * selection is therefore read in blocks of rows of about {@link #BLOCK_POINTS} elements, and each
+ * block is packed into the arena before the next one is read, so that the objects of only one block
+ * are alive at a time.
+ *
+ * In all other cases read() returns null and the caller reads the data through the HDF5 library
+ * instead.
+ */
+final class H5VarLenReader {
+    private static final Logger log = LoggerFactory.getLogger(H5VarLenReader.class);
+
+    /** The approximate number of elements read per block. */
+    static final int BLOCK_POINTS = 65536;
+
+    private H5VarLenReader() { throw new IllegalStateException("Utility class"); }
+
+    /**
+     * Checks if the data of a datatype can be read into an arena.
+     *
+     * @param dtype
+     *            the datatype of the dataset
+     *
+     * @return true for variable-length strings and variable-length sequences of integers or floats
+     */
+    static boolean isSupportedType(H5Datatype dtype)
+    {
+        if (dtype.isVarStr())
+            return true;
+        if (!dtype.isVLEN())
+            return false;
+
+        Datatype base = dtype.getDatatypeBase();
+        return (base != null) && (base.isInteger() || base.isFloat() || base.isChar()) && !base.isComplex();
+    }
+
+    /**
+     * Reads the current selection of a dataset.
+     *
+     * @param dataset
+     *            the dataset to read
+     * @param did
+     *            the open identifier of the dataset
+     *
+     * @return the values of the selection in row-major order, or null if the dataset can not be read
+     *         by this reader
+     *
+     * @throws Exception
+     *             if the data can not be read, or is not made of strings or boxed numbers
+     */
+    static VarLenArena read(H5ScalarDS dataset, long did) throws Exception
+    {
+        H5Datatype dtype = (H5Datatype)dataset.getDatatype();
+        int rank         = dataset.getRank();
+        if (!isSupportedType(dtype) || (rank <= 0))
+            return null;
+
+        long[] start  = dataset.getStartDims();
+        long[] count  = dataset.getSelectedDims();
+        long[] stride = new long[rank];
+        long nPoints  = 1;
+        for (int i = 0; i < rank; i++) {
+            stride[i] = (dataset.getStride() == null) ? 1 : dataset.getStride()[i];
+            nPoints *= count[i];
+        }
+        if ((nPoints <= 0) || (nPoints > Integer.MAX_VALUE))
+            return null;
+
+        long rowPoints    = nPoints / count[0];
+        long rowsPerBlock = Math.max(1, BLOCK_POINTS / rowPoints);
+        boolean isString  = dtype.isVarStr();
+        VarLenArena arena = new VarLenArena(isString, (int)nPoints);
+
+        long fspace = HDF5Constants.H5I_INVALID_HID;
+        long mspace = HDF5Constants.H5I_INVALID_HID;
+        long tid    = HDF5Constants.H5I_INVALID_HID;
+        try {
+            fspace = H5.H5Dget_space(did);
+            tid    = dtype.getNative();
+
+            long[] blockStart = start.clone();
+            long[] blockCount = count.clone();
+            for (long row = 0; row < count[0]; row += rowsPerBlock) {
+                blockStart[0] = start[0] + row * stride[0];
+                blockCount[0] = Math.min(rowsPerBlock, count[0] - row);
+                int n         = (int)(blockCount[0] * rowPoints);
+
+                H5.H5Sselect_hyperslab(fspace, HDF5Constants.H5S_SELECT_SET, blockStart, stride, blockCount,
+                                       null);
+                mspace = H5.H5Screate_simple(rank, blockCount, null);
+
+                Object[] block;
+                if (isString) {
+                    block = new String[n];
+                    H5.H5Dread_VLStrings(did, tid, mspace, fspace, HDF5Constants.H5P_DEFAULT, block);
+                }
+                else {
+                    block = new ArrayList[n];
+                    for (int j = 0; j < n; j++)
+                        block[j] = new ArrayList<>();
+                    H5.H5DreadVL(did, tid, mspace, fspace, HDF5Constants.H5P_DEFAULT, block);
+                }
+                arena.addAll(block, n);
+
+                H5.H5Sclose(mspace);
+                mspace = HDF5Constants.H5I_INVALID_HID;
+            }
+        }
+        finally {
+            try {
+                H5.H5Sclose(fspace);
+            }
+            catch (Exception ex) {
+                log.debug("read(): H5Sclose(fspace {}) failure: ", fspace, ex);
+            }
+            try {
+                H5.H5Sclose(mspace);
+            }
+            catch (Exception ex) {
+                log.debug("read(): H5Sclose(mspace {}) failure: ", mspace, ex);
+            }
+            dtype.close(tid);
+        }
+
+        arena.trimToSize();
+        log.trace("read(): {} in blocks of {} rows", arena, rowsPerBlock);
+
+        return arena;
+    }
+}
@@ -1,14 +1,19 @@
 package object;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Enumeration;
 
 import hdf.object.FileFormat;
+import hdf.object.FileSignature;
 import hdf.object.h5.H5File;
 
 import hdf.hdf5lib.H5;
@@ -250,6 +255,51 @@ public class FileFormatTest {
         assertNotNull(f);
     }
 
+    /**
+     * Test method for {@link hdf.object.FileSignature#getFileFormatKeys(java.lang.String)}.
+     *
+     * <ul>
+     * <li>Detect an HDF5 file, with and without a user block.
+     * <li>Detect a netCDF file, which the HDF4 format can open too.
+     * <li>Detect the change of a file after its format was detected.
+     * <li>Do not find a format for a text file.
+     * </ul>
+     */
+    @Test
+    public void testFileSignature()
+    {
+        log.debug("testFileSignature");
+        assertArrayEquals(new String[] {FileFormat.FILE_TYPE_HDF5},
+                          FileSignature.getFileFormatKeys(H5TestFile.NAME_FILE_H5));
+
+        File tmpFile = null;
+        try {
+            tmpFile = File.createTempFile("signature", ".dat");
+            final String name = tmpFile.getPath();
+
+            byte[] userBlock = new byte[1024 + 16];
+            byte[] hdf5      = {(byte)0x89, 'H', 'D', 'F', '\r', '\n', 0x1a, '\n'};
+            System.arraycopy(hdf5, 0, userBlock, 1024, hdf5.length);
+            Files.write(tmpFile.toPath(), userBlock);
+            assertTrue(FileSignature.isFileType(name, FileFormat.FILE_TYPE_HDF5));
+
+            Files.write(tmpFile.toPath(), new byte[] {'C', 'D', 'F', 1, 0, 0, 0, 0});
+            assertArrayEquals(new String[] {FileFormat.FILE_TYPE_NC3, FileFormat.FILE_TYPE_HDF4},
+                              FileSignature.getFileFormatKeys(name));
+
+            Files.write(tmpFile.toPath(), "not a data file".getBytes(StandardCharsets.US_ASCII));
+            assertEquals(0, FileSignature.getFileFormatKeys(name).length);
+            assertNull(FileFormat.getInstance(name));
+        }
+        catch (Exception ex) {
+            fail("getFileFormatKeys() failed. " + ex);
+        }
+        finally {
+            if (tmpFile != null)
+                tmpFile.delete();
+        }
+    }
+
     /**
      * Test method for {@link hdf.object.FileFormat#getFileFormats()}.
      *
@@ -763,6 +763,67 @@ public class H5CompoundDSTest {
         }     //  (int loop=0; loop<NLOOPS; loop++) {
     }
 
+    /**
+     * Test method for {@link hdf.object.h5.H5CompoundDS#setPackedRead(boolean)}.
+     *
+     * What to test:
+     * <ul>
+     * <li>Select the numeric members only
+     * <li>Read them in a single pass and member by member
+     * <li>check that both reads return the same values
+     * <li>Repeat all above
+     * </ul>
+     */
+    @Test
+    public void testReadPacked()
+    {
+        log.debug("testReadPacked");
+        List<?> packedData = null;
+        List<?> memberData = null;
+
+        for (int loop = 0; loop < NLOOPS; loop++) {
+            for (int pass = 0; pass < 2; pass++) {
+                testDataset.clearData();
+                testDataset.init();
+
+                // skip the string member, which cannot be packed
+                testDataset.setAllMemberSelection(false);
+                testDataset.selectMember(0);
+                testDataset.selectMember(1);
+                testDataset.selectMember(3);
+                testDataset.setPackedRead(pass == 0);
+
+                try {
+                    if (pass == 0)
+                        packedData = (List<?>)testDataset.getData();
+                    else
+                        memberData = (List<?>)testDataset.getData();
+                }
+                catch (final Exception ex) {
+                    fail("getData() failed. " + ex);
+                }
+            }
+            testDataset.setPackedRead(true);
+
+            assertNotNull(packedData);
+            assertNotNull(memberData);
+            assertEquals(3, packedData.size());
+            assertEquals(memberData.size(), packedData.size());
+
+            final int[] ints     = (int[])packedData.get(0);
+            final float[] floats = (float[])packedData.get(1);
+            final long[] longs   = (long[])packedData.get(2);
+            for (int i = 0; i < H5TestFile.DIM_SIZE; i++) {
+                assertEquals(H5TestFile.DATA_INT[i], ints[i]);
+                assertEquals(H5TestFile.DATA_FLOAT[i], floats[i], Float.MIN_VALUE);
+                assertEquals(H5TestFile.DATA_LONG[i], longs[i]);
+                assertEquals(((int[])memberData.get(0))[i], ints[i]);
+                assertEquals(((float[])memberData.get(1))[i], floats[i], Float.MIN_VALUE);
+                assertEquals(((long[])memberData.get(2))[i], longs[i]);
+            }
+        } //  (int loop=0; loop<NLOOPS; loop++) {
+    }
+
     /**
      * Test method for {@link hdf.object.h5.H5CompoundDS#readBytes()}.
      *
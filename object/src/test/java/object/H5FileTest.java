@@ -8,11 +8,16 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import hdf.object.Attribute;
@@ -21,9 +26,11 @@ import hdf.object.Datatype;
 import hdf.object.FileFormat;
 import hdf.object.Group;
 import hdf.object.HObject;
+import hdf.object.ObjectSearchIndex;
 import hdf.object.h5.H5Datatype;
 import hdf.object.h5.H5File;
 import hdf.object.h5.H5Group;
+import hdf.object.h5.H5ReferenceCache;
 import hdf.object.h5.H5ScalarAttr;
 import hdf.object.h5.H5ScalarDS;
 
@@ -268,6 +275,139 @@ public class H5FileTest {
         } //  (int i=0; i<NLOOPS; i++)
     }
 
+    /**
+     * Test method for {@link hdf.object.FileFormat#setLoadOnDemand(boolean)}.
+     *
+     * What to test:
+     * <ul>
+     * <li>open a file with group members loaded on demand
+     * <li>check that only the root group members are loaded
+     * <li>check that the members of a group are loaded when requested
+     * <li>check that all objects can still be found by path
+     * <li>close the file
+     * </ul>
+     */
+    @Test
+    public void testOpenLoadOnDemand()
+    {
+        log.debug("testOpenLoadOnDemand");
+        final H5File file = new H5File(H5TestFile.NAME_FILE_H5, FileFormat.READ);
+        file.setLoadOnDemand(true);
+
+        long fid = -1;
+        try {
+            fid = file.open();
+        }
+        catch (final Exception ex) {
+            fail("file.open() failed. " + ex);
+        }
+        assertTrue(fid > 0);
+
+        final Group root = (Group)file.getRootObject();
+        assertNotNull(root);
+        assertTrue(root.isMemberListLoaded());
+
+        Group g0 = null;
+        for (HObject obj : root.getMemberList()) {
+            if (obj.getFullName().equals(H5TestFile.NAME_GROUP))
+                g0 = (Group)obj;
+        }
+        assertNotNull(g0);
+        assertFalse(g0.isMemberListLoaded());
+        assertTrue(g0.getMemberList().size() > 0);
+        assertTrue(g0.isMemberListLoaded());
+
+        try {
+            for (int j = 0; j < H5TestFile.OBJ_NAMES.length; j++) {
+                assertNotNull(file.get(H5TestFile.OBJ_NAMES[j]));
+            }
+        }
+        catch (final Exception ex) {
+            fail("file.get() failed. " + ex);
+        }
+
+        try {
+            file.close();
+        }
+        catch (final Exception ex) {
+            fail("file.close() failed. " + ex);
+        }
+    }
+
+    /**
+     * Test method for {@link hdf.object.Group#getMembers(int, int)} and
+     * {@link hdf.object.Group#memberIterator(int)}.
+     *
+     * What to test:
+     * <ul>
+     * <li>open a file with group members loaded on demand
+     * <li>read windows of the members of a group without loading its member list
+     * <li>iterate over the members of the group a window at a time
+     * <li>read a window in decreasing name order
+     * <li>check that the windows match the member list
+     * <li>close the file
+     * </ul>
+     */
+    @Test
+    public void testMemberWindow()
+    {
+        log.debug("testMemberWindow");
+        final H5File file = new H5File(H5TestFile.NAME_FILE_H5, FileFormat.READ);
+        file.setLoadOnDemand(true);
+
+        try {
+            file.open();
+        }
+        catch (final Exception ex) {
+            fail("file.open() failed. " + ex);
+        }
+
+        H5Group g0 = null;
+        for (HObject obj : ((Group)file.getRootObject()).getMemberList()) {
+            if (obj.getFullName().equals(H5TestFile.NAME_GROUP))
+                g0 = (H5Group)obj;
+        }
+        assertNotNull(g0);
+        assertFalse(g0.isMemberListLoaded());
+
+        final int nMembers = g0.getNumberOfMembersInFile();
+        assertTrue(nMembers > 3);
+
+        List<HObject> window = g0.getMembers(1, 2);
+        assertEquals(2, window.size());
+        assertTrue(g0.getMembers(nMembers, 2).isEmpty());
+        assertEquals(1, g0.getMembers(nMembers - 1, 2).size());
+
+        final List<String> iterated = new ArrayList<>();
+        for (Iterator<HObject> it = g0.memberIterator(3); it.hasNext();)
+            iterated.add(it.next().getFullName());
+        assertEquals(nMembers, iterated.size());
+        assertEquals(iterated.get(1), window.get(0).getFullName());
+        assertEquals(iterated.get(2), window.get(1).getFullName());
+
+        List<HObject> reversed =
+            g0.getMembers(0, nMembers, HDF5Constants.H5_INDEX_NAME, HDF5Constants.H5_ITER_DEC);
+        assertEquals(nMembers, reversed.size());
+        for (int i = 0; i < nMembers; i++)
+            assertEquals(iterated.get(nMembers - 1 - i), reversed.get(i).getFullName());
+
+        // the windows were read without loading the member list
+        assertFalse(g0.isMemberListLoaded());
+
+        final List<HObject> members = g0.getMemberList();
+        assertEquals(nMembers, members.size());
+        for (int i = 0; i < nMembers; i++)
+            assertEquals(members.get(i).getFullName(), iterated.get(i));
+        assertEquals(members.get(1), g0.getMembers(1, 2).get(0));
+
+        try {
+            file.close();
+        }
+        catch (final Exception ex) {
+            fail("file.close() failed. " + ex);
+        }
+    }
+
     /**
      * Test method for {@link hdf.object.h5.H5File#create(java.lang.String)}.
      *
@@ -2122,4 +2262,368 @@ public class H5FileTest {
         }
         file.delete();
     }
+
+    /**
+     * Test method for {@link hdf.object.h5.H5File#getReferenceCache()}.
+     *
+     * What to test:
+     * <ul>
+     * <li>Create object references to two datasets
+     * <li>Resolve them as a block and check the descriptions come from the cache
+     * <li>Check null references and that the cache is emptied on delete
+     * </ul>
+     */
+    @Test
+    public void testReferenceCache()
+    {
+        log.debug("testReferenceCache");
+        byte[] refInt   = null;
+        byte[] refFloat = null;
+        try {
+            refInt   =
+                H5.H5Rcreate(testFile.getFID(), H5TestFile.NAME_DATASET_INT, HDF5Constants.H5R_OBJECT, -1);
+            refFloat =
+                H5.H5Rcreate(testFile.getFID(), H5TestFile.NAME_DATASET_FLOAT, HDF5Constants.H5R_OBJECT, -1);
+        }
+        catch (final Exception ex) {
+            fail("H5Rcreate() failed. " + ex);
+        }
+
+        final H5ReferenceCache cache = testFile.getReferenceCache();
+        assertNotNull(cache);
+        cache.clear();
+        assertEquals(2, cache.resolveObjects(Arrays.asList(refInt, refFloat, refInt.clone())));
+        assertTrue(cache.containsObject(refInt));
+        assertEquals(0, cache.resolveObjects(Arrays.asList(refInt, refFloat)));
+
+        final long hits = cache.getHits();
+        String desc     = cache.getObjectDescription(refInt);
+        assertNotNull(desc);
+        assertTrue(desc.startsWith(H5TestFile.NAME_DATASET_INT));
+        assertEquals(H5Datatype.descReferenceObject(testFile.getFID(), refInt), desc);
+        assertEquals(hits + 1, cache.getHits());
+        assertEquals("NULL", cache.getObjectDescription(new byte[refInt.length]));
+
+        try {
+            final HObject obj = testFile.createGroup("/tmpRefCacheGroup", null);
+            testFile.delete(obj);
+        }
+        catch (final Exception ex) {
+            fail("testFile.delete() failed. " + ex);
+        }
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Test method for {@link hdf.object.h5.H5File#setHandlePooling(boolean)}.
+     *
+     * What to test:
+     * <ul>
+     * <li>Read a dataset twice with handle pooling and check the native type is reused
+     * <li>Create group creation property lists with the same settings and check they are shared
+     * <li>Disable pooling and check the pooled identifiers are closed
+     * </ul>
+     */
+    @Test
+    public void testHandlePooling()
+    {
+        log.debug("testHandlePooling");
+        assertFalse(testFile.isHandlePooling());
+        testFile.setHandlePooling(true);
+        assertTrue(testFile.isHandlePooling());
+
+        H5ScalarDS dset = null;
+        int[] first     = null;
+        int[] second    = null;
+        try {
+            dset = (H5ScalarDS)testFile.get(DNAME);
+            dset.init();
+            first = (int[])dset.read();
+            dset.clear();
+            second = (int[])dset.read();
+        }
+        catch (final Exception ex) {
+            fail("dset.read() failed. " + ex);
+        }
+        assertNotNull(first);
+        assertTrue(Arrays.equals(first, second));
+
+        final H5Datatype dtype = (H5Datatype)dset.getDatatype();
+        final long tid         = dtype.getNative();
+        assertTrue(tid >= 0);
+        assertEquals(tid, dtype.getNative());
+        dtype.close(tid);
+
+        long gcpl     = -1;
+        HObject group = null;
+        try {
+            gcpl = testFile.createGcpl(Group.CRT_ORDER_TRACKED, 8, 6);
+            assertEquals(gcpl, testFile.createGcpl(Group.CRT_ORDER_TRACKED, 8, 6));
+            group = testFile.createGroup("/tmpPooledGroup", null, HDF5Constants.H5P_DEFAULT, gcpl);
+        }
+        catch (final Exception ex) {
+            fail("testFile.createGroup() failed. " + ex);
+        }
+        assertNotNull(group);
+
+        try {
+            assertTrue(H5.H5Iis_valid(tid));
+            assertTrue(H5.H5Iis_valid(gcpl));
+
+            testFile.setHandlePooling(false);
+            assertFalse(H5.H5Iis_valid(tid));
+            assertFalse(H5.H5Iis_valid(gcpl));
+
+            final long tid2 = dtype.getNative();
+            dtype.close(tid2);
+            assertFalse(H5.H5Iis_valid(tid2));
+        }
+        catch (final Exception ex) {
+            fail("H5Iis_valid() failed. " + ex);
+        }
+
+        try {
+            testFile.delete(group);
+        }
+        catch (final Exception ex) {
+            fail("testFile.delete() failed. " + ex);
+        }
+    }
+
+    /**
+     * Test method for {@link hdf.object.h5.H5File#setStructureCacheDirectory(File)}.
+     *
+     * What to test:
+     * <ul>
+     * <li>Open a file with a structure cache directory and check a sidecar is written
+     * <li>Check a sidecar not used for longer than the maximum age is deleted when a sidecar is written
+     * <li>Open it again and check the same tree is restored from the sidecar
+     * <li>Change the modification time of the file and check the sidecar is not used
+     * </ul>
+     */
+    @Test
+    public void testStructureCache()
+    {
+        log.debug("testStructureCache");
+        final String nameNew = "test_structure_cache.h5";
+        File dir             = null;
+        File stale           = null;
+        try {
+            H5TestFile.createTestFile(nameNew);
+            dir   = Files.createTempDirectory("h5structure").toFile();
+            stale = new File(dir, "stale.h5-0.h5sc");
+            assertTrue(stale.createNewFile());
+            assertTrue(stale.setLastModified(System.currentTimeMillis() - 31L * 24 * 60 * 60 * 1000));
+        }
+        catch (final Exception ex) {
+            fail("H5TestFile.createTestFile() failed. " + ex);
+        }
+
+        final List<String> loaded = getStructure(nameNew, dir, false);
+        assertTrue(loaded.size() > 10);
+        assertFalse(stale.exists());
+        assertEquals(1, dir.listFiles().length);
+        assertEquals(loaded, getStructure(nameNew, dir, true));
+
+        final File file = new File(nameNew);
+        assertTrue(file.setLastModified(file.lastModified() - 10000));
+        assertEquals(loaded, getStructure(nameNew, dir, false));
+        assertEquals(loaded, getStructure(nameNew, dir, true));
+
+        for (final File sidecar : dir.listFiles())
+            sidecar.delete();
+        dir.delete();
+        file.delete();
+    }
+
+    /*
+     * Opens a file with a structure cache directory and returns the full names and classes of its objects.
+     */
+    private List<String> getStructure(String fileName, File dir, boolean fromCache)
+    {
+        final H5File file         = new H5File(fileName, FileFormat.READ);
+        final List<String> result = new ArrayList<>();
+        file.setStructureCacheDirectory(dir);
+        try {
+            file.open();
+            assertEquals(fromCache, file.isStructureFromCache());
+            for (final HObject obj : ((Group)file.getRootObject()).breadthFirstMemberList())
+                result.add(obj.getFullName() + " " + obj.getClass().getSimpleName() + " " +
+                           Arrays.toString(obj.getOID()));
+        }
+        catch (final Exception ex) {
+            fail("file.open() failed. " + ex);
+        }
+        finally {
+            try {
+                file.close();
+            }
+            catch (final Exception ex) {
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Test method for {@link hdf.object.FileFormat#findObject(FileFormat, String)} and
+     * {@link hdf.object.FileFormat#findObject(FileFormat, long[])}.
+     *
+     * What to test:
+     * <ul>
+     * <li>Find every object of the file by its full name and by its OID
+     * <li>Find a new group after it is created and not after it is removed from its parent
+     * <li>Find a renamed group and its members by their new full names, and not by the old ones
+     * </ul>
+     */
+    @Test
+    public void testFindObject()
+    {
+        log.debug("testFindObject");
+        final Group root = (Group)testFile.getRootObject();
+        assertNotNull(root);
+        assertEquals(root, FileFormat.findObject(testFile, "/"));
+
+        for (final HObject obj : root.breadthFirstMemberList()) {
+            assertEquals(obj, FileFormat.findObject(testFile, obj.getFullName()));
+            assertEquals(obj, FileFormat.findObject(testFile, obj.getFullName() + "/"));
+            assertTrue(FileFormat.findObject(testFile, obj.getOID()).equalsOID(obj.getOID()));
+        }
+        assertNull(FileFormat.findObject(testFile, "/no_such_object"));
+        assertNull(FileFormat.findObject(testFile, new long[] {-1}));
+
+        HObject obj = null;
+        try {
+            obj = testFile.createGroup("/tmpFindGroup", null);
+        }
+        catch (final Exception ex) {
+            fail("testFile.createGroup() failed. " + ex);
+        }
+        assertEquals(obj, FileFormat.findObject(testFile, "/tmpFindGroup"));
+        assertEquals(obj, FileFormat.findObject(testFile, obj.getOID()));
+
+        HObject member = null;
+        try {
+            member = testFile.createGroup("tmpMember", (Group)obj);
+            obj.setName("tmpFoundGroup");
+        }
+        catch (final Exception ex) {
+            fail("renaming a group failed. " + ex);
+        }
+        assertEquals("/tmpFoundGroup", obj.getFullName());
+        assertEquals("/tmpFoundGroup/tmpMember", member.getFullName());
+        assertEquals(obj, FileFormat.findObject(testFile, "/tmpFoundGroup"));
+        assertEquals(member, FileFormat.findObject(testFile, "/tmpFoundGroup/tmpMember"));
+        assertNull(FileFormat.findObject(testFile, "/tmpFindGroup"));
+        assertNull(FileFormat.findObject(testFile, "/tmpFindGroup/tmpMember"));
+
+        try {
+            testFile.delete(obj);
+        }
+        catch (final Exception ex) {
+            fail("testFile.delete() failed. " + ex);
+        }
+        root.removeFromMemberList(obj);
+        assertNull(FileFormat.findObject(testFile, "/tmpFoundGroup"));
+    }
+
+    /**
+     * Test method for {@link hdf.object.ObjectSearchIndex#search(String)}.
+     *
+     * What to test:
+     * <ul>
+     * <li>Find objects by name, word of the path, prefix and wildcards, in breadth-first order
+     * <li>Find objects by attribute name and value, and by regular expression
+     * <li>Find a new group after it is created and not after it is removed from its parent
+     * <li>Keep the breadth-first order of a renamed group
+     * <li>Find an object by the name of a large attribute, whose values are not read
+     * </ul>
+     */
+    @Test
+    public void testSearchIndex()
+    {
+        log.debug("testSearchIndex");
+        final ObjectSearchIndex index = new ObjectSearchIndex(testFile);
+        try {
+            index.update();
+            assertEquals(((Group)testFile.getRootObject()).breadthFirstMemberList().size() + 1, index.size());
+
+            List<HObject> found = index.search("Dataset_Int");
+            assertEquals(2, found.size());
+            assertEquals(H5TestFile.NAME_DATASET_INT, found.get(0).getFullName());
+            assertEquals(H5TestFile.NAME_DATASET_INT_SUB, found.get(1).getFullName());
+
+            assertTrue(getFullNames(index.search("g00")).contains(H5TestFile.NAME_DATASET_FLOAT_SUB_SUB));
+            assertEquals(4, index.search("datatype_*").size());
+            assertEquals(Arrays.asList(H5TestFile.NAME_GROUP_ATTR), getFullNames(index.search("*_attr")));
+
+            List<String> names = getFullNames(index.search("strAttr=string"));
+            assertTrue(names.contains(H5TestFile.NAME_GROUP_ATTR));
+            assertFalse(names.contains(H5TestFile.NAME_GROUP));
+            assertTrue(getFullNames(index.search("arrayint=7 *_attr")).contains(H5TestFile.NAME_GROUP_ATTR));
+            assertTrue(index.search("arrayint=11").isEmpty());
+
+            assertEquals(4, index.search("/^dataset_(int|float)$/").size());
+            try {
+                index.search("/[/");
+                fail("search() with an invalid regular expression did not fail.");
+            }
+            catch (final IllegalArgumentException ex) {
+            }
+
+            final Group root = (Group)testFile.getRootObject();
+            final HObject obj = testFile.createGroup("/tmpSearchGroup", null);
+            assertEquals(Arrays.asList(obj), index.search("tmpsearchgroup"));
+
+            testFile.delete(obj);
+            root.removeFromMemberList(obj);
+            assertTrue(index.search("tmpsearchgroup").isEmpty());
+
+            // a renamed group is found under its new name in the same place of the order
+            final HObject first  = testFile.createGroup("/tmpSearchA", null);
+            final HObject second = testFile.createGroup("/tmpSearchB", null);
+            assertEquals(Arrays.asList(first, second), index.search("tmpsearch*"));
+            first.setName("tmpSearchC");
+            assertEquals(Arrays.asList(first, second), index.search("tmpsearch*"));
+            assertEquals(Arrays.asList(first), index.search("tmpsearchc"));
+
+            // the values of an attribute with more than MAX_VALUE_ITEMS items are not read
+            final int[] values = new int[ObjectSearchIndex.MAX_VALUE_ITEMS + 1];
+            Arrays.fill(values, 5);
+            final Datatype attrType =
+                new H5Datatype(Datatype.CLASS_INTEGER, 4, Datatype.NATIVE, Datatype.NATIVE);
+            final Attribute attr =
+                new H5ScalarAttr(second, "bigAttr", attrType, new long[] {values.length}, values);
+            attr.writeAttribute();
+            index.invalidate(second);
+            final List<Attribute> attrs = testFile.readAttributes(second, ObjectSearchIndex.MAX_VALUE_ITEMS);
+            assertEquals(1, attrs.size());
+            assertEquals(values.length, attrs.get(0).getAttributeDims()[0]);
+            assertEquals(Arrays.asList(second), index.search("bigattr="));
+            assertTrue(index.search("bigattr=5").isEmpty());
+
+            for (final HObject tmp : Arrays.asList(first, second)) {
+                testFile.delete(tmp);
+                root.removeFromMemberList(tmp);
+            }
+        }
+        catch (final Exception ex) {
+            fail("search() failed. " + ex);
+        }
+        finally {
+            index.close();
+        }
+    }
+
+    /*
+     * Returns the full names of a list of objects.
+     */
+    private static List<String> getFullNames(List<HObject> objs)
+    {
+        final List<String> names = new ArrayList<>();
+        for (final HObject obj : objs)
+            names.add(obj.getFullName());
+
+        return names;
+    }
 }
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -15,17 +16,31 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Vector;
 
 import hdf.object.Attribute;
 import hdf.object.Dataset;
+import hdf.object.DatasetBlockIterator;
 import hdf.object.Datatype;
+import hdf.object.DirectDataBuffer;
 import hdf.object.FileFormat;
+import hdf.object.FramePrefetcher;
 import hdf.object.Group;
+import hdf.object.QuadFloatBuffer;
 import hdf.object.ScalarDS;
+import hdf.object.VarLenArena;
+import hdf.object.h5.H5AllocationMap;
+import hdf.object.h5.H5ChunkCache;
+import hdf.object.h5.H5ChunkMap;
+import hdf.object.h5.H5ChunkWriter;
+import hdf.object.h5.H5DatasetAppender;
 import hdf.object.h5.H5Datatype;
 import hdf.object.h5.H5File;
+import hdf.object.h5.H5ReferenceType;
 import hdf.object.h5.H5ScalarAttr;
 import hdf.object.h5.H5ScalarDS;
 
@@ -447,6 +462,214 @@ public class H5ScalarDSTest {
         }
     }
 
+    /**
+     * Test method for {@link hdf.object.h5.H5File#setMaxPooledIds(int)}.
+     *
+     * What to test:
+     * <ul>
+     * <li>enable the identifier pool of the file
+     * <li>open the dataset twice and check that the same identifier is returned
+     * <li>check that the identifier stays valid after close()
+     * <li>read the data with the pooled identifier
+     * <li>check that the identifier is closed when the file is closed
+     * </ul>
+     */
+    @Test
+    public void testOpenPooled()
+    {
+        log.debug("testOpenPooled");
+        long did = -1;
+
+        testFile.setMaxPooledIds(H5File.DEFAULT_MAX_POOLED_IDS);
+        assertEquals(H5File.DEFAULT_MAX_POOLED_IDS, testFile.getMaxPooledIds());
+
+        for (int loop = 0; loop < NLOOPS; loop++) {
+            long tmpdid = testDataset.open();
+            assertTrue(tmpdid > 0);
+            if (did >= 0)
+                assertEquals(did, tmpdid);
+            did = tmpdid;
+
+            testDataset.close(did);
+            try {
+                assertTrue(H5.H5Iis_valid(did));
+            }
+            catch (final Exception ex) {
+                fail("H5Iis_valid() failed. " + ex);
+            }
+        }
+
+        try {
+            testDataset.clearData();
+            assertNotNull(testDataset.getData());
+        }
+        catch (final Exception ex) {
+            fail("getData() failed. " + ex);
+        }
+
+        try {
+            testFile.close();
+        }
+        catch (final Exception ex) {
+            fail("testFile.close() failed. " + ex);
+        }
+
+        boolean isValid = true;
+        try {
+            isValid = H5.H5Iis_valid(did);
+        }
+        catch (final Exception ex) {
+            isValid = false;
+        }
+        assertFalse(isValid);
+    }
+
+    /**
+     * Test method for {@link hdf.object.Dataset#blockIterator(long)}.
+     *
+     * What to test:
+     * <ul>
+     * <li>read the dataset in blocks smaller than a row of chunks
+     * <li>check that the blocks cover the selection and contain the right values
+     * <li>check that the original selection is restored
+     * <li>Repeat all above
+     * </ul>
+     */
+    @Test
+    public void testBlockIterator()
+    {
+        log.debug("testBlockIterator");
+        final long[] dims = testDataset.getDims();
+
+        for (int loop = 0; loop < NLOOPS; loop++) {
+            testDataset.init();
+            final long[] origCount = testDataset.getSelectedDims().clone();
+
+            final int[] values = new int[H5TestFile.DIM_SIZE];
+            long nPoints       = 0;
+            try (DatasetBlockIterator it = testDataset.blockIterator(3 * dims[1])) {
+                while (it.hasNext()) {
+                    final int[] block  = (int[])it.next();
+                    final long[] start = it.getBlockStart();
+                    final long[] count = it.getBlockDims();
+                    assertTrue(count[0] * count[1] <= 3 * dims[1]);
+                    assertEquals(count[0] * count[1], block.length);
+
+                    for (int i = 0; i < count[0]; i++)
+                        for (int j = 0; j < count[1]; j++)
+                            values[(int)((start[0] + i) * dims[1] + start[1] + j)] =
+                                block[(int)(i * count[1] + j)];
+                    nPoints += block.length;
+                }
+            }
+            catch (final Exception ex) {
+                fail("blockIterator() failed. " + ex);
+            }
+
+            assertEquals(H5TestFile.DIM_SIZE, nPoints);
+            for (int i = 0; i < H5TestFile.DIM_SIZE; i++)
+                assertEquals(H5TestFile.DATA_INT[i], values[i]);
+
+            final long[] count = testDataset.getSelectedDims();
+            for (int i = 0; i < count.length; i++)
+                assertEquals(origCount[i], count[i]);
+        } //  (int loop=0; loop<NLOOPS; loop++) {
+    }
+
+    /**
+     * Test method for {@link hdf.object.ScalarDS#setUnsignedView(boolean)}.
+     *
+     * What to test:
+     * <ul>
+     * <li>Read an unsigned 8-bit dataset in unsigned view mode
+     * <li>Check that convertFromUnsignedC() and convertToUnsignedC() keep the original buffer
+     * <li>Read the dataset again without the view mode and check the converted values
+     * </ul>
+     */
+    @Test
+    public void testUnsignedView()
+    {
+        log.debug("testUnsignedView");
+        H5ScalarDS dset = null;
+        Object data     = null;
+
+        try {
+            dset = (H5ScalarDS)testFile.get(H5TestFile.NAME_DATASET_IMAGE);
+            dset.init();
+        }
+        catch (final Exception ex) {
+            fail("testFile.get() failed. " + ex);
+        }
+        assertNotNull(dset);
+        assertTrue(dset.getDatatype().isUnsigned());
+        assertFalse(dset.isUnsignedView());
+
+        dset.setUnsignedView(true);
+        assertTrue(dset.isUnsignedView());
+        try {
+            data = dset.getData();
+        }
+        catch (final Exception ex) {
+            fail("dset.getData() failed. " + ex);
+        }
+        assertTrue(data instanceof byte[]);
+        assertSame(data, dset.convertFromUnsignedC());
+        assertSame(data, dset.convertToUnsignedC());
+        for (int i = 0; i < H5TestFile.DIM_SIZE; i++)
+            assertEquals(H5TestFile.DATA_BYTE[i], ((byte[])data)[i]);
+
+        dset.setUnsignedView(false);
+        dset.clearData();
+        try {
+            dset.getData();
+            data = dset.convertFromUnsignedC();
+        }
+        catch (final Exception ex) {
+            fail("dset.getData() failed. " + ex);
+        }
+        assertTrue(data instanceof short[]);
+        for (int i = 0; i < H5TestFile.DIM_SIZE; i++)
+            assertEquals(H5TestFile.DATA_BYTE[i] & 0xFF, ((short[])data)[i]);
+    }
+
+    /**
+     * Test method for {@link hdf.object.Dataset#readDirect()}.
+     *
+     * What to test:
+     * <ul>
+     * <li>Read the whole dataset into an off-heap buffer
+     * <li>Check the size, type and values of the buffer
+     * <li>Check that a range copied onto the heap matches
+     * </ul>
+     */
+    @Test
+    public void testReadDirect()
+    {
+        log.debug("testReadDirect");
+
+        for (int loop = 0; loop < NLOOPS; loop++) {
+            testDataset.init();
+
+            DirectDataBuffer buf = null;
+            try {
+                buf = testDataset.readDirect();
+            }
+            catch (final Exception ex) {
+                fail("readDirect() failed. " + ex);
+            }
+            assertNotNull(buf);
+            assertEquals(H5TestFile.DIM_SIZE, buf.getSize());
+            assertEquals('I', buf.getTypeClass());
+
+            for (int i = 0; i < H5TestFile.DIM_SIZE; i++)
+                assertEquals(H5TestFile.DATA_INT[i], buf.getInt(i));
+
+            final int[] range = (int[])buf.getArray(10, 20);
+            for (int i = 0; i < range.length; i++)
+                assertEquals(H5TestFile.DATA_INT[10 + i], range[i]);
+        } //  (int loop=0; loop<NLOOPS; loop++) {
+    }
+
     /**
      * Test method for {@link hdf.object.h5.H5ScalarDS#clear()}.
      *
@@ -705,6 +928,81 @@ public class H5ScalarDSTest {
         log.debug("testReadExt finish");
     }
 
+    /**
+     * Test method for {@link hdf.object.h5.H5ScalarDS#read()} with parallel chunk reads.
+     *
+     * What to test:
+     * <ul>
+     * <li>Enable parallel chunk reads
+     * <li>Read the whole dataset and check the data content
+     * <li>Read a strided selection across chunks and check the data content
+     * <li>Check that both reads were parallel chunk reads
+     * <li>Repeat all above
+     * <li>Disable parallel chunk reads and check that a read goes through the library
+     * </ul>
+     */
+    @Test
+    public void testReadChunksParallel()
+    {
+        log.debug("testReadChunksParallel");
+        testFile.setParallelChunkRead(true);
+        assertTrue(testFile.isParallelChunkRead());
+        long nReads = testDataset.getParallelChunkReadCount();
+
+        for (int loop = 0; loop < NLOOPS; loop++) {
+            testDataset.init();
+            int[] ints = null;
+
+            try {
+                ints = (int[])testDataset.getData();
+            }
+            catch (final Exception ex) {
+                fail("testDataset.getData() failed. " + ex);
+            }
+            assertEquals(++nReads, testDataset.getParallelChunkReadCount());
+            assertNotNull(ints);
+            assertEquals(H5TestFile.DIM_SIZE, ints.length);
+            for (int i = 0; i < ints.length; i++)
+                assertEquals(H5TestFile.DATA_INT[i], ints[i]);
+
+            // select every other row and every third column, starting inside the first chunk
+            testDataset.clearData();
+            final long[] start    = testDataset.getStartDims();
+            final long[] stride   = testDataset.getStride();
+            final long[] selected = testDataset.getSelectedDims();
+            start[0]              = 3;
+            start[1]              = 1;
+            stride[0]             = 2;
+            stride[1]             = 3;
+            selected[0]           = 20;
+            selected[1]           = 3;
+
+            try {
+                ints = (int[])testDataset.getData();
+            }
+            catch (final Exception ex) {
+                fail("testDataset.getData() failed. " + ex);
+            }
+            assertEquals(++nReads, testDataset.getParallelChunkReadCount());
+            assertNotNull(ints);
+            assertEquals(60, ints.length);
+            for (int i = 0; i < 20; i++)
+                for (int j = 0; j < 3; j++)
+                    assertEquals(H5TestFile.DATA_INT[(3 + 2 * i) * 10 + 1 + 3 * j], ints[i * 3 + j]);
+        } //  (int loop=0; loop<NLOOPS; loop++)
+
+        testFile.setParallelChunkRead(false);
+        testDataset.init();
+        testDataset.clearData();
+        try {
+            testDataset.getData();
+        }
+        catch (final Exception ex) {
+            fail("testDataset.getData() failed. " + ex);
+        }
+        assertEquals(nReads, testDataset.getParallelChunkReadCount());
+    }
+
     /**
      * Test method for {@link hdf.object.h5.H5ScalarDS#read()}.
      *
@@ -1816,4 +2114,1028 @@ public class H5ScalarDSTest {
             fail("testFile.delete failed. " + ex);
         }
     }
+
+    /**
+     * Test method for {@link hdf.object.h5.H5ChunkWriter}.
+     *
+     * What to test:
+     * <ul>
+     * <li>Create a compressed dataset with parallel chunk compression
+     * <li>Check the data content read through the HDF5 library
+     * <li>Overwrite one chunk and check the write statistics
+     * <li>Check the data content again
+     * </ul>
+     */
+    @Test
+    public void testCreateChunkWriter()
+    {
+        log.debug("testCreateChunkWriter");
+        H5ScalarDS dset      = null;
+        final String nameNew = "/tmpH5ChunkWriter";
+        int[] data           = null;
+
+        try {
+            final Group rootGrp = (Group)testFile.get("/");
+            dset = (H5ScalarDS)H5ChunkWriter.create(nameNew, rootGrp, typeInt, H5TestFile.DIMs, null,
+                                                    H5TestFile.CHUNKs, 6, H5TestFile.DATA_INT);
+        }
+        catch (final Exception ex) {
+            fail("H5ChunkWriter.create() failed. " + ex);
+        }
+        assertNotNull(dset);
+
+        try {
+            data = (int[])dset.getData();
+        }
+        catch (final Exception ex) {
+            fail("dset.getData() failed. " + ex);
+        }
+        assertNotNull(data);
+        for (int i = 0; i < H5TestFile.DIM_SIZE; i++)
+            assertEquals(H5TestFile.DATA_INT[i], data[i]);
+
+        // overwrite the last chunk with negated values
+        final long[] start = {H5TestFile.CHUNKs[0], H5TestFile.CHUNKs[1]};
+        final long[] count = {H5TestFile.CHUNKs[0], H5TestFile.CHUNKs[1]};
+        final int[] block  = new int[(int)(count[0] * count[1])];
+        for (int i = 0; i < count[0]; i++)
+            for (int j = 0; j < count[1]; j++)
+                block[(int)(i * count[1] + j)] =
+                    -H5TestFile.DATA_INT[(int)((start[0] + i) * H5TestFile.DIMs[1] + start[1] + j)];
+
+        try (H5ChunkWriter writer = new H5ChunkWriter(dset)) {
+            writer.write(start, count, block);
+            assertEquals(1, writer.getChunkCount());
+            assertEquals(block.length * DATATYPE_SIZE, writer.getRawBytes());
+            assertTrue(writer.getStoredBytes() > 0);
+            assertTrue(writer.getThroughput() > 0);
+        }
+        catch (final Exception ex) {
+            fail("H5ChunkWriter.write() failed. " + ex);
+        }
+
+        try {
+            dset.clearData();
+            data = (int[])dset.getData();
+        }
+        catch (final Exception ex) {
+            fail("dset.getData() failed. " + ex);
+        }
+        assertNotNull(data);
+        for (int i = 0; i < H5TestFile.DIM_SIZE; i++) {
+            final long row = i / H5TestFile.DIMs[1];
+            final long col = i % H5TestFile.DIMs[1];
+            if ((row >= start[0]) && (col >= start[1]))
+                assertEquals(-H5TestFile.DATA_INT[i], data[i]);
+            else
+                assertEquals(H5TestFile.DATA_INT[i], data[i]);
+        }
+
+        try {
+            testFile.delete(dset); // delete the new datast
+        }
+        catch (final Exception ex) {
+            fail("testFile.delete failed. " + ex);
+        }
+    }
+
+    /**
+     * Test method for {@link hdf.object.h5.H5DatasetAppender}.
+     *
+     * What to test:
+     * <ul>
+     * <li>Create an extendible dataset with a few rows
+     * <li>Append rows in several pieces, across a batch boundary
+     * <li>Check the dimensions and the data content after the appender is closed
+     * </ul>
+     */
+    @Test
+    public void testDatasetAppender()
+    {
+        log.debug("testDatasetAppender");
+        H5ScalarDS dset       = null;
+        final String nameNew  = "/tmpH5DatasetAppender";
+        final long[] dims     = {10, H5TestFile.DIMs[1]};
+        final long[] maxdims  = {-1, H5TestFile.DIMs[1]};
+        final int rowSize     = (int)H5TestFile.DIMs[1];
+        final int nAppends    = 12;
+        final int appendRows  = H5TestFile.DIM_SIZE / rowSize;
+        final long totalRows  = dims[0] + (long)nAppends * appendRows;
+        final int[] firstRows = new int[(int)(dims[0] * rowSize)];
+        for (int i = 0; i < firstRows.length; i++)
+            firstRows[i] = -i;
+
+        try {
+            final Group rootGrp = (Group)testFile.get("/");
+            dset = (H5ScalarDS)H5ScalarDS.create(nameNew, rootGrp, typeInt, dims, maxdims, H5TestFile.CHUNKs,
+                                                 0, firstRows);
+        }
+        catch (final Exception ex) {
+            fail("H5ScalarDS.create() failed. " + ex);
+        }
+        assertNotNull(dset);
+
+        try (H5DatasetAppender appender = new H5DatasetAppender(dset)) {
+            assertEquals(0, appender.getBatchRows() % H5TestFile.CHUNKs[0]);
+            for (int n = 0; n < nAppends; n++)
+                appender.append(H5TestFile.DATA_INT);
+            assertEquals(nAppends * appendRows, appender.getAppendedRows());
+        }
+        catch (final Exception ex) {
+            fail("H5DatasetAppender failed. " + ex);
+        }
+
+        int[] data = null;
+        try {
+            dset.clearData();
+            dset.init();
+            data = (int[])dset.getData();
+        }
+        catch (final Exception ex) {
+            fail("dset.getData() failed. " + ex);
+        }
+        assertEquals(totalRows, dset.getDims()[0]);
+        assertNotNull(data);
+        assertEquals(totalRows * rowSize, data.length);
+        for (int i = 0; i < firstRows.length; i++)
+            assertEquals(firstRows[i], data[i]);
+        for (int i = firstRows.length; i < data.length; i++)
+            assertEquals(H5TestFile.DATA_INT[(i - firstRows.length) % H5TestFile.DIM_SIZE], data[i]);
+
+        try {
+            testFile.delete(dset); // delete the new datast
+        }
+        catch (final Exception ex) {
+            fail("testFile.delete failed. " + ex);
+        }
+    }
+
+    /**
+     * Test method for {@link hdf.object.h5.H5ScalarDS#getChunkCache()}.
+     *
+     * What to test:
+     * <ul>
+     * <li>Size the chunk cache from the selection of a chunked dataset
+     * <li>Count the chunk cache hits and misses of repeated reads
+     * <li>Override the size of the chunk cache
+     * <li>Count the chunks touched by a selection with a stride larger than a chunk
+     * </ul>
+     */
+    @Test
+    public void testChunkCache()
+    {
+        log.debug("testChunkCache");
+        H5ScalarDS dset      = null;
+        final String nameNew = "/tmpH5ChunkCache";
+        final int nChunks    = 4;
+        final long chunkSize = H5TestFile.CHUNKs[0] * H5TestFile.CHUNKs[1] * DATATYPE_SIZE;
+
+        try {
+            final Group rootGrp = (Group)testFile.get("/");
+            dset = (H5ScalarDS)H5ScalarDS.create(nameNew, rootGrp, typeInt, H5TestFile.DIMs, null,
+                                                 H5TestFile.CHUNKs, 0, H5TestFile.DATA_INT);
+        }
+        catch (final Exception ex) {
+            fail("H5ScalarDS.create() failed. " + ex);
+        }
+        assertNotNull(dset);
+
+        final H5File h5file = (H5File)testFile;
+        h5file.setMaxPooledIds(H5File.DEFAULT_MAX_POOLED_IDS);
+        h5file.setChunkCacheTuning(true);
+        try {
+            dset.init();
+            H5ChunkCache cache = dset.getChunkCache();
+
+            // the whole dataset is selected; the first read misses every chunk, the second one hits
+            dset.read();
+            assertEquals(H5ChunkCache.DEFAULT_BYTES, cache.getBytes());
+            assertTrue(cache.getSlots() >= 100 * (H5ChunkCache.DEFAULT_BYTES / chunkSize));
+            assertEquals(0, cache.getHits());
+            assertEquals(nChunks, cache.getMisses());
+
+            dset.read();
+            assertEquals(nChunks, cache.getHits());
+            assertEquals(nChunks, cache.getMisses());
+            assertEquals(0.5, cache.getHitRate(), Double.MIN_VALUE);
+
+            // a cache of two chunks misses every chunk of a read of four
+            cache.resetStatistics();
+            h5file.setChunkCacheBytes(2 * chunkSize);
+            dset.read();
+            dset.read();
+            assertEquals(2 * chunkSize, cache.getBytes());
+            assertEquals(0, cache.getHits());
+            assertEquals(2 * nChunks, cache.getMisses());
+
+            // a stride larger than a chunk touches one chunk per selected row: rows 0 and 30 of
+            // column 0 lie in two chunks, which the second read finds in the cache
+            cache.resetStatistics();
+            dset.getSelectedDims()[0] = 2;
+            dset.getSelectedDims()[1] = 1;
+            dset.getStride()[0]       = 30;
+            dset.read();
+            dset.read();
+            assertEquals(4, cache.getHits() + cache.getMisses());
+            assertTrue(cache.getHits() >= 2);
+        }
+        catch (final Exception ex) {
+            fail("chunk cache failed. " + ex);
+        }
+        finally {
+            h5file.setChunkCacheTuning(false);
+            h5file.setChunkCacheBytes(-1);
+            h5file.setMaxPooledIds(0);
+        }
+
+        try {
+            testFile.delete(dset); // delete the new datast
+        }
+        catch (final Exception ex) {
+            fail("testFile.delete failed. " + ex);
+        }
+    }
+
+    /**
+     * Test method for {@link hdf.object.h5.H5ScalarDS#getChunkMap()} and
+     * {@link hdf.object.h5.H5ScalarDS#forEachChunk(java.util.function.Consumer)}.
+     *
+     * What to test:
+     * <ul>
+     * <li>Count the allocated chunks of a dataset without data and of a compressed dataset
+     * <li>Visit the allocated chunks with their offsets and sizes
+     * </ul>
+     */
+    @Test
+    public void testChunkMap()
+    {
+        log.debug("testChunkMap");
+        H5ScalarDS empty     = null;
+        H5ScalarDS dset      = null;
+        final long nChunks   = 4;
+        final long chunkSize = H5TestFile.CHUNKs[0] * H5TestFile.CHUNKs[1] * DATATYPE_SIZE;
+
+        try {
+            final Group rootGrp = (Group)testFile.get("/");
+            empty = (H5ScalarDS)H5ScalarDS.create("/tmpH5ChunkMapEmpty", rootGrp, typeInt, H5TestFile.DIMs,
+                                                  null, H5TestFile.CHUNKs, 0, null);
+            dset  = (H5ScalarDS)H5ScalarDS.create("/tmpH5ChunkMap", rootGrp, typeInt, H5TestFile.DIMs, null,
+                                                  H5TestFile.CHUNKs, 9, H5TestFile.DATA_INT);
+        }
+        catch (final Exception ex) {
+            fail("H5ScalarDS.create() failed. " + ex);
+        }
+        assertNotNull(empty);
+        assertNotNull(dset);
+
+        try {
+            H5ChunkMap map = empty.getChunkMap();
+            assertNotNull(map);
+            assertEquals(nChunks, map.getTotalChunks());
+            assertEquals(0, map.getAllocatedChunks());
+            assertEquals(0, map.getAllocatedFraction(), Double.MIN_VALUE);
+
+            map = dset.getChunkMap();
+            assertNotNull(map);
+            assertEquals(nChunks, map.getTotalChunks());
+            assertEquals(nChunks, map.getAllocatedChunks());
+            assertEquals(1, map.getAllocatedFraction(), Double.MIN_VALUE);
+            assertEquals(chunkSize, map.getChunkBytes());
+            assertTrue(map.getRatio() > 1);
+            long histogramTotal = 0;
+            for (long n : map.getRatioHistogram())
+                histogramTotal += n;
+            assertEquals(nChunks, histogramTotal);
+
+            final List<H5ChunkMap.Chunk> chunks = new ArrayList<>();
+            assertEquals(nChunks, dset.forEachChunk(chunks::add));
+            assertEquals(nChunks, chunks.size());
+            long stored = 0;
+            for (H5ChunkMap.Chunk chunk : chunks) {
+                long[] offset = chunk.getOffset();
+                assertEquals(0, offset[0] % H5TestFile.CHUNKs[0]);
+                assertEquals(0, offset[1] % H5TestFile.CHUNKs[1]);
+                assertEquals(0, chunk.getFilterMask());
+                assertTrue(chunk.getAddress() > 0);
+                stored += chunk.getSize();
+            }
+            assertEquals(map.getStoredBytes(), stored);
+        }
+        catch (final Exception ex) {
+            fail("chunk map failed. " + ex);
+        }
+
+        try {
+            testFile.delete(empty); // delete the new datasets
+            testFile.delete(dset);
+        }
+        catch (final Exception ex) {
+            fail("testFile.delete failed. " + ex);
+        }
+    }
+
+    /**
+     * Test method for {@link hdf.object.h5.H5ScalarDS#read()} with sparse-aware reads.
+     *
+     * What to test:
+     * <ul>
+     * <li>Write a single chunk of a chunked dataset with a fill value
+     * <li>Read the whole dataset and check the written values and the fill values
+     * <li>Check the allocation map of the read
+     * <li>Write the whole dataset and check the chunk index of the first read is not reused
+     * </ul>
+     */
+    @Test
+    public void testSparseRead()
+    {
+        log.debug("testSparseRead");
+        H5ScalarDS dset      = null;
+        final String nameNew = "/tmpH5SparseRead";
+        final int fill       = -7;
+        final long[] dims    = H5TestFile.DIMs;
+        final long[] chunks  = H5TestFile.CHUNKs;
+
+        try {
+            final Group rootGrp = (Group)testFile.get("/");
+            dset = (H5ScalarDS)H5ScalarDS.create(nameNew, rootGrp, typeInt, dims, null, chunks, 0,
+                                                 new int[] {fill}, null);
+        }
+        catch (final Exception ex) {
+            fail("H5ScalarDS.create() failed. " + ex);
+        }
+        assertNotNull(dset);
+
+        // write the second chunk of the first chunk row only
+        final int[] chunkData = new int[(int)(chunks[0] * chunks[1])];
+        for (int i = 0; i < chunkData.length; i++)
+            chunkData[i] = i + 1;
+        try {
+            dset.init();
+            dset.getStartDims()[0]    = 0;
+            dset.getStartDims()[1]    = chunks[1];
+            dset.getSelectedDims()[0] = chunks[0];
+            dset.getSelectedDims()[1] = chunks[1];
+            dset.write(chunkData);
+        }
+        catch (final Exception ex) {
+            fail("dset.write() failed. " + ex);
+        }
+
+        final H5File h5file = (H5File)testFile;
+        h5file.setSparseRead(true);
+        int[] data = null;
+        try {
+            dset.getStartDims()[0]    = 0;
+            dset.getStartDims()[1]    = 0;
+            dset.getSelectedDims()[0] = dims[0];
+            dset.getSelectedDims()[1] = dims[1];
+            data                      = (int[])dset.read();
+        }
+        catch (final Exception ex) {
+            fail("dset.read() failed. " + ex);
+        }
+        finally {
+            h5file.setSparseRead(false);
+        }
+        assertNotNull(data);
+        assertEquals(H5TestFile.DIM_SIZE, data.length);
+
+        H5AllocationMap map = dset.getAllocationMap();
+        assertNotNull(map);
+        assertEquals(4, map.getTotalBlocks());
+        assertEquals(1, map.getAllocatedBlocks());
+        assertFalse(map.isFullyAllocated());
+        for (int row = 0; row < dims[0]; row++) {
+            for (int col = 0; col < dims[1]; col++) {
+                int index       = (int)(row * dims[1] + col);
+                boolean inChunk = (row < chunks[0]) && (col >= chunks[1]);
+                int expected    = inChunk ? chunkData[(int)(row * chunks[1] + col - chunks[1])] : fill;
+                assertEquals(expected, data[index]);
+                assertEquals(inChunk, map.isAllocated(index));
+                assertEquals(inChunk, map.isAllocated(new long[] {row, col}));
+            }
+        }
+
+        // a write allocates the other chunks; the chunk index kept from the first read is not used again
+        final int[] allData = new int[H5TestFile.DIM_SIZE];
+        for (int i = 0; i < allData.length; i++)
+            allData[i] = i;
+        h5file.setSparseRead(true);
+        try {
+            dset.write(allData);
+            for (int n = 0; n < 2; n++) {
+                data = (int[])dset.read();
+                assertTrue(Arrays.equals(allData, data));
+                map = dset.getAllocationMap();
+                assertTrue((map == null) || map.isFullyAllocated());
+            }
+        }
+        catch (final Exception ex) {
+            fail("dset.write() or dset.read() failed. " + ex);
+        }
+        finally {
+            h5file.setSparseRead(false);
+        }
+
+        try {
+            testFile.delete(dset); // delete the new datast
+        }
+        catch (final Exception ex) {
+            fail("testFile.delete failed. " + ex);
+        }
+    }
+
+    /**
+     * Test method for {@link hdf.object.h5.H5ScalarDS#read()} of floating-point values wider than a
+     * double.
+     *
+     * What to test:
+     * <ul>
+     * <li>Create a dataset of 16-byte floats and write values through a QuadFloatBuffer
+     * <li>Read the dataset back as a QuadFloatBuffer and check the decoded values
+     * </ul>
+     */
+    @Test
+    public void testQuadFloatRead()
+    {
+        log.debug("testQuadFloatRead");
+        H5ScalarDS dset      = null;
+        final String nameNew = "/tmpH5QuadFloat";
+        final long[] dims    = H5TestFile.DIMs;
+
+        try {
+            final Group rootGrp = (Group)testFile.get("/");
+            final H5Datatype typeQuad =
+                new H5Datatype(Datatype.CLASS_FLOAT, 16, Datatype.NATIVE, Datatype.NATIVE);
+            dset = (H5ScalarDS)H5ScalarDS.create(nameNew, rootGrp, typeQuad, dims, null, null, 0, null);
+        }
+        catch (final Exception ex) {
+            fail("H5ScalarDS.create() failed. " + ex);
+        }
+        assertNotNull(dset);
+
+        try {
+            dset.init();
+            QuadFloatBuffer.Format format = ((H5Datatype)dset.getDatatype()).getQuadFloatFormat();
+            assertNotNull(format);
+            QuadFloatBuffer buf =
+                new QuadFloatBuffer(new byte[H5TestFile.DIM_SIZE * format.getSize()], format);
+            for (int i = 0; i < H5TestFile.DIM_SIZE; i++)
+                buf.setDouble(i, i / 4.0);
+            dset.write(buf);
+        }
+        catch (final Exception ex) {
+            fail("dset.write() failed. " + ex);
+        }
+
+        Object data = null;
+        try {
+            dset.clearData();
+            data = dset.getData();
+        }
+        catch (final Exception ex) {
+            fail("dset.getData() failed. " + ex);
+        }
+        assertTrue(data instanceof QuadFloatBuffer);
+
+        QuadFloatBuffer values = (QuadFloatBuffer)data;
+        assertEquals(H5TestFile.DIM_SIZE, values.getSize());
+        for (int i = 0; i < H5TestFile.DIM_SIZE; i++) {
+            assertEquals(i / 4.0, values.getDouble(i), 0);
+            assertEquals(0, new BigDecimal(i / 4.0).compareTo(values.getBigDecimal(i)));
+        }
+
+        try {
+            testFile.delete(dset); // delete the new datast
+        }
+        catch (final Exception ex) {
+            fail("testFile.delete failed. " + ex);
+        }
+    }
+
+    /**
+     * Test method for {@link hdf.object.h5.H5ScalarDS#read()} of variable-length strings into a
+     * VarLenArena.
+     *
+     * What to test:
+     * <ul>
+     * <li>Create a variable-length string dataset with null strings
+     * <li>Read it into an arena and check the strings
+     * <li>Replace a string in the arena, write the arena back and read it without the arena
+     * </ul>
+     */
+    @Test
+    public void testVarLenArenaRead()
+    {
+        log.debug("testVarLenArenaRead");
+        H5ScalarDS dset      = null;
+        final String nameNew = "/tmpH5VarLenArena";
+        final String[] strs  = new String[H5TestFile.DIM_SIZE];
+        for (int i = 0; i < strs.length; i++)
+            strs[i] = (i % 7 == 0) ? null : "string " + i;
+
+        try {
+            final Group rootGrp = (Group)testFile.get("/");
+            final H5Datatype typeVarStr =
+                new H5Datatype(Datatype.CLASS_STRING, -1, Datatype.NATIVE, Datatype.NATIVE);
+            dset = (H5ScalarDS)H5ScalarDS.create(nameNew, rootGrp, typeVarStr, H5TestFile.DIMs, null,
+                                                 H5TestFile.CHUNKs, 0, strs);
+        }
+        catch (final Exception ex) {
+            fail("H5ScalarDS.create() failed. " + ex);
+        }
+        assertNotNull(dset);
+
+        final H5File h5file = (H5File)testFile;
+        h5file.setVarLenArena(true);
+        Object data = null;
+        try {
+            dset.init();
+            data = dset.getData();
+        }
+        catch (final Exception ex) {
+            fail("dset.getData() failed. " + ex);
+        }
+        finally {
+            h5file.setVarLenArena(false);
+        }
+        assertTrue(data instanceof VarLenArena);
+
+        final VarLenArena arena = (VarLenArena)data;
+        assertTrue(arena.isString());
+        assertEquals(H5TestFile.DIM_SIZE, arena.getSize());
+        for (int i = 0; i < strs.length; i++) {
+            if (strs[i] == null)
+                assertTrue((arena.getString(i) == null) || arena.getString(i).isEmpty());
+            else
+                assertEquals(strs[i], arena.getString(i));
+        }
+
+        arena.set(1, "replaced");
+        try {
+            dset.write(arena);
+            dset.clearData();
+            data = dset.getData();
+        }
+        catch (final Exception ex) {
+            fail("dset.write() failed. " + ex);
+        }
+        assertTrue(data instanceof String[]);
+        assertEquals("replaced", ((String[])data)[1]);
+        assertEquals(strs[2], ((String[])data)[2]);
+
+        try {
+            testFile.delete(dset); // delete the new datast
+        }
+        catch (final Exception ex) {
+            fail("testFile.delete failed. " + ex);
+        }
+    }
+
+    /**
+     * Test method for {@link hdf.object.Dataset#readRegion(String)} with a region reference to a
+     * variable-length string dataset.
+     *
+     * What to test:
+     * <ul>
+     * <li>Create a variable-length string dataset and a region reference to two blocks of it
+     * <li>Resolve the region of the reference with the VarLenArena enabled
+     * <li>Read the region and check the strings are returned in a plain array
+     * </ul>
+     */
+    @Test
+    public void testReadRegionVarLenString()
+    {
+        log.debug("testReadRegionVarLenString");
+        H5ScalarDS dset      = null;
+        final String nameNew = "/tmpH5VarLenRegion";
+        final String[] strs  = new String[H5TestFile.DIM_SIZE];
+        for (int i = 0; i < strs.length; i++)
+            strs[i] = "string " + i;
+
+        try {
+            final Group rootGrp = (Group)testFile.get("/");
+            final H5Datatype typeVarStr =
+                new H5Datatype(Datatype.CLASS_STRING, -1, Datatype.NATIVE, Datatype.NATIVE);
+            dset = (H5ScalarDS)H5ScalarDS.create(nameNew, rootGrp, typeVarStr, H5TestFile.DIMs, null,
+                                                 H5TestFile.CHUNKs, 0, strs);
+        }
+        catch (final Exception ex) {
+            fail("H5ScalarDS.create() failed. " + ex);
+        }
+        assertNotNull(dset);
+
+        // select rows 0 and 2 of the first three columns
+        byte[] ref = null;
+        long did   = dset.open();
+        long sid   = HDF5Constants.H5I_INVALID_HID;
+        try {
+            sid = H5.H5Dget_space(did);
+            H5.H5Sselect_hyperslab(sid, HDF5Constants.H5S_SELECT_SET, new long[] {0, 0}, null,
+                                   new long[] {1, 3}, null);
+            H5.H5Sselect_hyperslab(sid, HDF5Constants.H5S_SELECT_OR, new long[] {2, 0}, null,
+                                   new long[] {1, 3}, null);
+            ref = H5.H5Rcreate_region(testFile.getFID(), nameNew, sid, HDF5Constants.H5P_DEFAULT);
+        }
+        catch (final Exception ex) {
+            fail("H5Rcreate_region() failed. " + ex);
+        }
+        finally {
+            try {
+                H5.H5Sclose(sid);
+            }
+            catch (final Exception ex) {
+            }
+            dset.close(did);
+        }
+
+        final H5File h5file = (H5File)testFile;
+        h5file.setVarLenArena(true);
+        long tid      = HDF5Constants.H5I_INVALID_HID;
+        String region = null;
+        Object data   = null;
+        try {
+            tid                           = H5.H5Tcopy(HDF5Constants.H5T_STD_REF);
+            final H5ReferenceType refType = new H5ReferenceType(testFile, 1, tid);
+            refType.setData(ref);
+            region = refType.getReferenceRegion(ref, false);
+            assertNotNull(region);
+            assertTrue(region.contains(nameNew));
+            data = dset.readRegion(region.substring(region.indexOf('{') + 1, region.indexOf('}')));
+        }
+        catch (final Exception ex) {
+            fail("readRegion() failed. " + ex);
+        }
+        finally {
+            h5file.setVarLenArena(false);
+            try {
+                H5.H5Tclose(tid);
+                H5.H5Rdestroy(ref);
+            }
+            catch (final Exception ex) {
+            }
+        }
+        assertTrue(data instanceof String[]);
+
+        final String[] values = (String[])data;
+        assertEquals(6, values.length);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(strs[i], values[i]);
+            assertEquals(strs[20 + i], values[3 + i]);
+        }
+
+        try {
+            testFile.delete(dset); // delete the new datast
+        }
+        catch (final Exception ex) {
+            fail("testFile.delete failed. " + ex);
+        }
+    }
+
+    /**
+     * Test method for {@link hdf.object.FramePrefetcher}.
+     *
+     * What to test:
+     * <ul>
+     * <li>Create a three-dimensional dataset
+     * <li>Read the frames after the first frame in the background
+     * <li>Load a frame read in the background and check its values
+     * <li>Change the selection and check that the frames are dropped
+     * </ul>
+     */
+    @Test
+    public void testFramePrefetcher()
+    {
+        log.debug("testFramePrefetcher");
+        H5ScalarDS dset      = null;
+        final String nameNew = "/tmpH5FramePrefetcher";
+        final long[] dims    = {5, 4, 6};
+        final int[] values   = new int[120];
+        for (int i = 0; i < values.length; i++)
+            values[i] = i;
+
+        try {
+            final Group rootGrp = (Group)testFile.get("/");
+            final H5Datatype typeInt =
+                new H5Datatype(Datatype.CLASS_INTEGER, 4, Datatype.NATIVE, Datatype.NATIVE);
+            dset = (H5ScalarDS)H5ScalarDS.create(nameNew, rootGrp, typeInt, dims, null, null, 0, values);
+            dset.init();
+        }
+        catch (final Exception ex) {
+            fail("H5ScalarDS.create() failed. " + ex);
+        }
+        assertNotNull(dset);
+        assertTrue(FramePrefetcher.isSupported(dset));
+
+        final int frameIndex  = dset.getSelectedIndex()[2];
+        final long[] selected = dset.getSelectedDims();
+        selected[frameIndex]  = 1;
+
+        final FramePrefetcher prefetcher = new FramePrefetcher(dset);
+        try {
+            prefetcher.prefetchAround(0);
+            for (int i = 0; (i < 500) && (prefetcher.getFrameCount() < 2); i++)
+                Thread.sleep(10);
+            assertEquals(2, prefetcher.getFrameCount());
+
+            dset.getStartDims()[frameIndex] = 1;
+            dset.clearData();
+            assertTrue(prefetcher.loadFrame(1));
+            final int[] frame = (int[])dset.getData();
+            assertEquals(20, frame.length);
+            for (int i = 0; i < frame.length; i++)
+                assertEquals(i * 6 + 1, frame[i]);
+            assertEquals(1, prefetcher.getFrameCount());
+
+            // a different selection drops the frames read for the old one
+            selected[0] = 2;
+            dset.getStartDims()[frameIndex] = 2;
+            dset.clearData();
+            assertFalse(prefetcher.loadFrame(2));
+            assertEquals(0, prefetcher.getFrameCount());
+        }
+        catch (final Exception ex) {
+            fail("FramePrefetcher failed. " + ex);
+        }
+        finally {
+            prefetcher.close();
+        }
+
+        try {
+            testFile.delete(dset); // delete the new datast
+        }
+        catch (final Exception ex) {
+            fail("testFile.delete failed. " + ex);
+        }
+    }
+
+    /**
+     * Test method for {@link hdf.object.h5.H5ScalarDS#loadSelectionData(Object)} with frames read by a
+     * {@link hdf.object.FramePrefetcher}.
+     *
+     * What to test:
+     * <ul>
+     * <li>Create a three-dimensional chunked dataset and write one chunk of the second frame only
+     * <li>Read the first frame with sparse-aware reads enabled
+     * <li>Load the second and third frames read in the background and check the allocation map of each
+     * <li>Check the loaded frames are counted in the chunk cache statistics
+     * </ul>
+     */
+    @Test
+    public void testFramePrefetcherAllocationMap()
+    {
+        log.debug("testFramePrefetcherAllocationMap");
+        H5ScalarDS dset      = null;
+        final String nameNew = "/tmpH5FrameAllocation";
+        final int fill       = -7;
+        final long[] dims    = {2, 4, 4};
+        final long[] chunks  = {2, 2, 1};
+
+        try {
+            final Group rootGrp = (Group)testFile.get("/");
+            dset = (H5ScalarDS)H5ScalarDS.create(nameNew, rootGrp, typeInt, dims, null, chunks, 0,
+                                                 new int[] {fill}, null);
+            dset.init();
+        }
+        catch (final Exception ex) {
+            fail("H5ScalarDS.create() failed. " + ex);
+        }
+        assertNotNull(dset);
+
+        // write the first chunk of the second frame only
+        final int frameIndex  = dset.getSelectedIndex()[2];
+        final long[] start    = dset.getStartDims();
+        final long[] selected = dset.getSelectedDims();
+        try {
+            start[frameIndex]    = 1;
+            selected[0]          = 2;
+            selected[1]          = 2;
+            selected[frameIndex] = 1;
+            dset.write(new int[] {1, 2, 3, 4});
+        }
+        catch (final Exception ex) {
+            fail("dset.write() failed. " + ex);
+        }
+
+        final H5File h5file              = (H5File)testFile;
+        final FramePrefetcher prefetcher = new FramePrefetcher(dset);
+        h5file.setSparseRead(true);
+        try {
+            start[frameIndex] = 0;
+            selected[1]       = dims[1];
+            dset.clearData();
+            final int[] frame = (int[])dset.getData();
+            assertEquals(8, frame.length);
+            H5AllocationMap map = dset.getAllocationMap();
+            assertNotNull(map);
+            assertEquals(0, map.getAllocatedBlocks());
+            final long reads = dset.getChunkCache().getHits() + dset.getChunkCache().getMisses();
+
+            prefetcher.prefetchAround(0);
+            for (int i = 0; (i < 500) && (prefetcher.getFrameCount() < 2); i++)
+                Thread.sleep(10);
+            assertEquals(2, prefetcher.getFrameCount());
+
+            start[frameIndex] = 1;
+            dset.clearData();
+            assertTrue(prefetcher.loadFrame(1));
+            assertEquals(1, ((int[])dset.getData())[0]);
+            map = dset.getAllocationMap();
+            assertNotNull(map);
+            assertEquals(2, map.getTotalBlocks());
+            assertEquals(1, map.getAllocatedBlocks());
+            assertTrue(map.isAllocated(0));
+            assertFalse(map.isAllocated(2));
+            assertTrue(dset.getChunkCache().getHits() + dset.getChunkCache().getMisses() > reads);
+
+            start[frameIndex] = 2;
+            dset.clearData();
+            assertTrue(prefetcher.loadFrame(2));
+            assertEquals(fill, ((int[])dset.getData())[0]);
+            map = dset.getAllocationMap();
+            assertNotNull(map);
+            assertEquals(0, map.getAllocatedBlocks());
+        }
+        catch (final Exception ex) {
+            fail("FramePrefetcher failed. " + ex);
+        }
+        finally {
+            h5file.setSparseRead(false);
+            prefetcher.close();
+        }
+
+        try {
+            testFile.delete(dset); // delete the new datast
+        }
+        catch (final Exception ex) {
+            fail("testFile.delete failed. " + ex);
+        }
+    }
+
+    /**
+     * Test method for {@link hdf.object.h5.H5ScalarDS#readPoints(long[][])} and
+     * {@link hdf.object.h5.H5ScalarDS#readHyperslabs(long[][], long[][], long[][])}.
+     *
+     * What to test:
+     * <ul>
+     * <li>Read a list of points and check the values are in the order of the points
+     * <li>Read two overlapping hyperslabs and check the values are in row-major order
+     * <li>Check the selection of the dataset is not changed
+     * <li>Check that points of the wrong rank are rejected
+     * </ul>
+     */
+    @Test
+    public void testReadPointsAndHyperslabs()
+    {
+        log.debug("testReadPointsAndHyperslabs");
+        final long[] selected = testDataset.getSelectedDims().clone();
+
+        try {
+            final long[][] coords = {{3, 4}, {0, 0}, {49, 9}, {3, 4}};
+            final int[] points    = (int[])testDataset.readPoints(coords);
+            assertEquals(4, points.length);
+            assertEquals(34, points[0]);
+            assertEquals(0, points[1]);
+            assertEquals(499, points[2]);
+            assertEquals(34, points[3]);
+
+            final long[][] starts = {{0, 0}, {1, 0}};
+            final long[][] counts = {{2, 2}, {1, 10}};
+            final int[] slabs     = (int[])testDataset.readHyperslabs(starts, null, counts);
+            assertEquals(12, slabs.length);
+            assertEquals(0, slabs[0]);
+            assertEquals(1, slabs[1]);
+            for (int i = 0; i < 10; i++)
+                assertEquals(10 + i, slabs[2 + i]);
+        }
+        catch (final Exception ex) {
+            fail("readPoints()/readHyperslabs() failed. " + ex);
+        }
+
+        for (int i = 0; i < selected.length; i++)
+            assertEquals(selected[i], testDataset.getSelectedDims()[i]);
+
+        try {
+            testDataset.readPoints(new long[][] {{1, 2, 3}});
+            fail("readPoints() accepted a point of the wrong rank");
+        }
+        catch (final IllegalArgumentException ex) {
+        } // Expected - intentional
+        catch (final Exception ex) {
+            fail("readPoints() failed. " + ex);
+        }
+    }
+
+    /**
+     * Test method for {@link hdf.object.Dataset#readRegion(String)}.
+     *
+     * What to test:
+     * <ul>
+     * <li>Read the points of a region and check the values are in the order of the points
+     * <li>Read the blocks of a region and check the values are in row-major order
+     * <li>Check that a region which mixes points and blocks is rejected
+     * </ul>
+     */
+    @Test
+    public void testReadRegion()
+    {
+        log.debug("testReadRegion");
+        try {
+            final int[] points = (int[])testDataset.readRegion("(3,4) (0,0) (49,9)");
+            assertEquals(3, points.length);
+            assertEquals(34, points[0]);
+            assertEquals(0, points[1]);
+            assertEquals(499, points[2]);
+
+            final int[] blocks = (int[])testDataset.readRegion(" (0,0)-(1,1)  (1,0)-(1,9) ");
+            assertEquals(12, blocks.length);
+            assertEquals(0, blocks[0]);
+            assertEquals(1, blocks[1]);
+            for (int i = 0; i < 10; i++)
+                assertEquals(10 + i, blocks[2 + i]);
+        }
+        catch (final Exception ex) {
+            fail("readRegion() failed. " + ex);
+        }
+
+        try {
+            testDataset.readRegion("(0,0)-(1,1) (2,2)");
+            fail("readRegion() accepted a region which mixes points and blocks");
+        }
+        catch (final IllegalArgumentException ex) {
+        } // Expected - intentional
+        catch (final Exception ex) {
+            fail("readRegion() failed. " + ex);
+        }
+    }
+
+    /**
+     * Test method for {@link hdf.object.ScalarDS#readDownsampled(ScalarDS.DownsampleMode)}.
+     *
+     * What to test:
+     * <ul>
+     * <li>Read the integer dataset in blocks of 5 x 2 values by mean, minimum and maximum
+     * <li>Check the values of the aggregated blocks
+     * <li>Read by plain stride when the blocks cover more values than allowed
+     * <li>Check the selection of the dataset is not changed
+     * </ul>
+     */
+    @Test
+    public void testReadDownsampled()
+    {
+        log.debug("testReadDownsampled");
+        try {
+            testDataset.init();
+        }
+        catch (final Exception ex) {
+            fail("init() failed. " + ex);
+        }
+
+        final long[] selected = testDataset.getSelectedDims();
+        final long[] stride   = testDataset.getStride();
+        selected[0]           = 10;
+        selected[1]           = 5;
+        stride[0]             = 5;
+        stride[1]             = 2;
+
+        int[] mean = null;
+        int[] min  = null;
+        int[] max  = null;
+        try {
+            mean = (int[])testDataset.readDownsampled(ScalarDS.DownsampleMode.MEAN);
+            min  = (int[])testDataset.readDownsampled(ScalarDS.DownsampleMode.MIN);
+            max  = (int[])testDataset.readDownsampled(ScalarDS.DownsampleMode.MAX);
+        }
+        catch (final Exception ex) {
+            fail("readDownsampled() failed. " + ex);
+        }
+        assertEquals(50, mean.length);
+        assertEquals(50, min.length);
+        assertEquals(50, max.length);
+
+        // the value at row i and column j of the dataset is i * 10 + j
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 5; j++) {
+                final int k = i * 5 + j;
+                assertEquals(i * 50 + j * 2, min[k]);
+                assertEquals(i * 50 + 40 + j * 2 + 1, max[k]);
+                assertEquals(Math.round((i * 50 + 20) + (j * 2 + 0.5)), mean[k]);
+            }
+        }
+
+        // the 500 values under the blocks are over the limit, so only the first value of each block is read
+        int[] strided = null;
+        try {
+            strided = (int[])testDataset.readDownsampled(ScalarDS.DownsampleMode.MEAN, 100);
+        }
+        catch (final Exception ex) {
+            fail("readDownsampled() failed. " + ex);
+        }
+        assertEquals(50, strided.length);
+        for (int k = 0; k < 50; k++)
+            assertEquals(min[k], strided[k]);
+
+        assertEquals(10, testDataset.getSelectedDims()[0]);
+        assertEquals(5, testDataset.getStride()[0]);
+    }
 }
@@ -3,11 +3,18 @@ package object;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import hdf.object.FileFormat;
+import hdf.object.HalfFloatConverter;
+import hdf.object.h5.H5Datatype;
 import hdf.object.h5.H5File;
 import hdf.object.h5.H5ScalarDS;
 
+import hdf.hdf5lib.H5;
+import hdf.hdf5lib.HDF5Constants;
+
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -24,6 +31,12 @@ public class TestBFloat16Read {
     private static final String TEST_FILE    = "../hdfview/src/test/resources/uitest/tbfloat16.h5";
     private static final String DATASET_NAME = "/DS16BITS";
 
+    /** The float16 and bfloat16 test files, in both byte orders. */
+    private static final String[] HALF_FLOAT_FILES = {"../hdfview/src/test/resources/uitest/tbfloat16.h5",
+                                                      "../hdfview/src/test/resources/uitest/tbfloat16_be.h5",
+                                                      "../hdfview/src/test/resources/uitest/tfloat16.h5",
+                                                      "../hdfview/src/test/resources/uitest/tfloat16_be.h5"};
+
     private H5File testFile;
 
     @BeforeEach
@@ -97,4 +110,90 @@ public class TestBFloat16Read {
         System.out.println("✓ SUCCESS: Attribute read without crash!");
         System.out.println("(Attributes already work, this confirms no regression)");
     }
+
+    @Test
+    @DisplayName("BFLOAT16 dataset should be widened in bulk")
+    public void testBFloat16BulkConversion() throws Exception
+    {
+        H5ScalarDS dataset = (H5ScalarDS)testFile.get(DATASET_NAME);
+        assertNotNull(dataset, "Dataset not found: " + DATASET_NAME);
+        dataset.init();
+        assertEquals(HalfFloatConverter.BFLOAT16, ((H5Datatype)dataset.getDatatype()).getHalfFloatFormat());
+
+        // every bit pattern must widen to the same value as the element by element conversion
+        short[] bits = new short[1 << 16];
+        for (int i = 0; i < bits.length; i++)
+            bits[i] = (short)i;
+
+        float[] bf16 = HalfFloatConverter.toFloat(bits, HalfFloatConverter.BFLOAT16);
+        float[] fp16 = HalfFloatConverter.toFloat(bits, HalfFloatConverter.FLOAT16);
+        for (int i = 0; i < bits.length; i++) {
+            assertEquals(Float.floatToRawIntBits(Float.intBitsToFloat(i << 16)),
+                         Float.floatToRawIntBits(bf16[i]), "bfloat16 bits " + i);
+            assertEquals(Float.floatToRawIntBits(Float.float16ToFloat(bits[i])),
+                         Float.floatToRawIntBits(fp16[i]), "float16 bits " + i);
+        }
+
+        // raw values in a byte buffer are widened block by block
+        ByteBuffer raw = ByteBuffer.allocate(2 * bits.length).order(ByteOrder.BIG_ENDIAN);
+        raw.asShortBuffer().put(bits);
+        float[] fromBytes = new float[bits.length];
+        assertEquals(bits.length, HalfFloatConverter.toFloat(raw, fromBytes, 0, HalfFloatConverter.FLOAT16));
+        assertEquals(0, raw.remaining());
+        assertArrayEquals(fp16, fromBytes);
+    }
+
+    @Test
+    @DisplayName("float16 and bfloat16 datasets should read as the library converts them")
+    public void testHalfFloatDatasetRead() throws Exception
+    {
+        for (String fileName : HALF_FLOAT_FILES) {
+            H5File file = new H5File(fileName, FileFormat.READ);
+            try {
+                file.open();
+                H5ScalarDS dataset = (H5ScalarDS)file.get(DATASET_NAME);
+                assertNotNull(dataset, "Dataset not found: " + fileName + DATASET_NAME);
+                dataset.init();
+                assertTrue(((H5Datatype)dataset.getDatatype()).getHalfFloatFormat() >= 0,
+                           "Not a half float dataset: " + fileName);
+
+                // select the whole dataset, as the library read below does
+                long[] dims     = dataset.getDims();
+                long[] start    = dataset.getStartDims();
+                long[] selected = dataset.getSelectedDims();
+                long size       = 1;
+                for (int i = 0; i < dims.length; i++) {
+                    start[i]    = 0;
+                    selected[i] = dims[i];
+                    size *= dims[i];
+                }
+
+                // by default read() lets the library convert the values
+                Object data = dataset.read();
+                assertTrue(data instanceof float[], "Expected float[] buffer: " + fileName);
+
+                // with the conversion in Java, read() reads the raw 16-bit values and widens them in bulk
+                file.setHalfFloatConversion(true);
+                Object widened = dataset.read();
+                assertTrue(widened instanceof float[], "Expected float[] buffer: " + fileName);
+
+                // the library converts the values one by one to native floats
+                float[] expected = new float[(int)size];
+                long did         = dataset.open();
+                try {
+                    H5.H5Dread(did, HDF5Constants.H5T_NATIVE_FLOAT, HDF5Constants.H5S_ALL,
+                               HDF5Constants.H5S_ALL, HDF5Constants.H5P_DEFAULT, expected);
+                }
+                finally {
+                    dataset.close(did);
+                }
+
+                assertArrayEquals(expected, (float[])data, fileName);
+                assertArrayEquals(expected, (float[])widened, fileName);
+            }
+            finally {
+                file.close();
+            }
+        }
+    }
 }